@@ -21,6 +21,7 @@ import com.networknt.config.Config;
 import com.networknt.handler.Handler;
 import com.networknt.handler.MiddlewareHandler;
 import com.networknt.httpstring.AttachmentConstants;
+import com.networknt.mask.BodyCapture;
 import com.networknt.mask.Mask;
 import com.networknt.server.ServerConfig;
 import com.networknt.status.Status;
@@ -35,6 +36,7 @@ import io.undertow.util.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -393,7 +395,9 @@ public class AuditHandler implements MiddlewareHandler {
     }
 
     /**
-     * Audit the body of the request or response and put it into the audit map.
+     * Audit the body of the request or response and put it into the audit map. Only the leading
+     * requestBodyMaxSize or responseBodyMaxSize bytes of the body are captured and masked, and a
+     * marker with the total length is appended if the body is truncated.
      *
      * @param headers the headers of the request or response
      * @param bodyString the body as a string, can be null
@@ -408,34 +412,35 @@ public class AuditHandler implements MiddlewareHandler {
             return;
         }
 
-        String parsedBodyString = bodyString;
-        if (parsedBodyString == null) {
+        final int maxSize = REQUEST_BODY_KEY.equals(auditKey) ? config.getRequestBodyMaxSize() : config.getResponseBodyMaxSize();
+        BodyCapture capture;
+        if (bodyString != null) {
+            capture = BodyCapture.of(bodyString, maxSize);
+        } else {
+            // serialize into the capture so that only the leading bytes are kept.
+            capture = new BodyCapture(maxSize);
             try {
-                parsedBodyString = Config.getInstance().getMapper().writeValueAsString(bodyRaw);
-            } catch (JsonProcessingException e) {
-                parsedBodyString = bodyRaw.toString();
+                Config.getInstance().getMapper().writeValue(capture, bodyRaw);
+            } catch (IOException e) {
+                capture = BodyCapture.of(bodyRaw.toString(), maxSize);
             }
         }
 
-        if (parsedBodyString != null && !parsedBodyString.isEmpty()) {
+        if (capture.getTotalLength() > 0) {
             final String contentType = headers.getFirst(Headers.CONTENT_TYPE);
+            String parsedBodyString;
 
-            if (config.isMask() && contentType != null) {
-
-                if (contentType.startsWith("application/json")) {
-                    parsedBodyString = Mask.maskJson(parsedBodyString, auditKey);
+            if (config.isMask() && contentType != null && contentType.startsWith("application/json")) {
+                parsedBodyString = capture.maskJson(auditKey);
 
-                } else if (contentType.startsWith("text") || contentType.startsWith("application/xml")) {
-                    parsedBodyString = Mask.maskString(parsedBodyString, auditKey);
+            } else if (config.isMask() && contentType != null && (contentType.startsWith("text") || contentType.startsWith("application/xml"))) {
+                parsedBodyString = capture.maskString(auditKey);
 
-                } else {
+            } else {
+                if (config.isMask() && contentType != null) {
                     logger.error("Incorrect content-type {} for {}", contentType, auditKey);
                 }
-            }
-
-            // if the parsedBodyString is larger than the max size, we will truncate it.
-            if (parsedBodyString != null && parsedBodyString.length() > config.getResponseBodyMaxSize()) {
-                parsedBodyString = parsedBodyString.substring(0, config.getResponseBodyMaxSize());
+                parsedBodyString = capture.toString();
             }
 
             auditMap.put(auditKey, parsedBodyString);
@@ -17,10 +17,14 @@
 package com.networknt.balance;
 
 import com.networknt.registry.URL;
+import com.networknt.utility.HashUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * To obtain maximum scalability, microservices allow Y-Axis scale to break up big
@@ -33,51 +37,138 @@ import java.util.List;
  * or one user always to be routed to one service instance. However, this key can be a
  * combination of multiple fields from the request.
  *
+ * Each service instance is placed on a hash ring with a number of virtual nodes, and a
+ * request key is routed to the first virtual node clockwise from the MurmurHash3 of the
+ * key. The position of an instance only depends on its identity, so the sequence of the
+ * discovered urls doesn't matter and only about 1/n of the keys are moved to another
+ * instance when an instance is added or removed. The identity is the instanceId parameter
+ * of the url if it is registered and protocol://host:port otherwise.
+ *
+ * The ring of each service is built once when the cluster is notified of the discovered
+ * urls, and the lookup is a binary search of the ring.
  *
  * Created by steve on 07/05/17.
  */
 public class ConsistentHashLoadBalance implements LoadBalance {
     static Logger logger = LoggerFactory.getLogger(ConsistentHashLoadBalance.class);
+    /** The default number of virtual nodes of each service instance on the ring. */
+    static final int VIRTUAL_NODES = 160;
+    static final String INSTANCE_ID = "instanceId";
 
-    // TODO need to keep a lookup table to map the hash to host:ip, using index in the
-    // urls is not reliable as the sequence will be changed after service restart.
-    // maybe we need somehow to have an instanceId for each service instance. UUID will
-    // do the job. It will be registered as extra parameter like public key and public
-    // key certificate of the service.
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final int virtualNodes;
 
     /**
      * Default constructor for ConsistentHashLoadBalance.
      */
     public ConsistentHashLoadBalance() {
-        if(logger.isInfoEnabled()) logger.info("A ConsistentHashLoadBalance instance is started");
+        this(VIRTUAL_NODES);
     }
 
+    /**
+     * Construct with the number of virtual nodes of each service instance.
+     *
+     * @param virtualNodes int
+     */
+    public ConsistentHashLoadBalance(int virtualNodes) {
+        this.virtualNodes = Math.max(1, virtualNodes);
+        if(logger.isInfoEnabled()) logger.info("A ConsistentHashLoadBalance instance is started");
+    }
 
     @Override
     public URL select(List<URL> urls, String serviceId, String tag, String requestKey) {
         URL url = null;
         if (urls.size() > 1) {
-            url = doSelect(urls, requestKey);
+            url = getRing(urls, serviceId, tag).select(requestKey);
         } else if (urls.size() == 1) {
             url = urls.get(0);
         }
         return url;
     }
 
-    private URL doSelect(List<URL> urls, String requestKey) {
-        int hash = getHash(requestKey);
-        // convert hash to an index in urls. This assumes there are the same number
-        // This will be changed later on.
-        return urls.get(hash % urls.size());
+    @Override
+    public void update(String serviceId, String tag, List<URL> urls) {
+        String key = key(serviceId, tag);
+        if(urls == null || urls.size() < 2) {
+            rings.remove(key);
+        } else {
+            rings.put(key, new Ring(urls, virtualNodes));
+        }
     }
 
-    private int getHash(String hashKey) {
-        int hashcode;
-        if(hashKey != null) {
-            hashcode = hashKey.hashCode();
-        } else {
-            hashcode = 0;
+    /**
+     * Get the ring of the service and build it again only if the urls are not the list that it was
+     * built from. The cluster replaces the list of a service when it is changed, so this happens once
+     * per discovery change if the cluster has not updated the ring already.
+     */
+    private Ring getRing(List<URL> urls, String serviceId, String tag) {
+        String key = key(serviceId, tag);
+        Ring ring = rings.get(key);
+        if(ring == null || ring.urls != urls) {
+            ring = new Ring(urls, virtualNodes);
+            rings.put(key, ring);
+            if(logger.isDebugEnabled()) logger.debug("Built the hash ring of {} with {} urls", key, urls.size());
+        }
+        return ring;
+    }
+
+    private static String key(String serviceId, String tag) {
+        return tag == null ? serviceId : serviceId + "|" + tag;
+    }
+
+    /**
+     * Get the stable identity of a service instance that doesn't change with the sequence of the urls
+     * or the other parameters of the url.
+     *
+     * @param url URL
+     * @return String identity
+     */
+    static String identity(URL url) {
+        String instanceId = url.getParameter(INSTANCE_ID);
+        if(instanceId != null && !instanceId.isEmpty()) return instanceId;
+        return url.getProtocol() + "://" + url.getHost() + ":" + url.getPort();
+    }
+
+    /**
+     * The sorted hash points of the virtual nodes and the url of each point.
+     */
+    static final class Ring {
+        final List<URL> urls;
+        private final long[] points;
+        private final URL[] nodes;
+
+        Ring(List<URL> urls, int virtualNodes) {
+            this.urls = urls;
+            int size = urls.size() * virtualNodes;
+            long[] hashes = new long[size];
+            int n = 0;
+            for (int i = 0; i < urls.size(); i++) {
+                String identity = identity(urls.get(i));
+                for (int j = 0; j < virtualNodes; j++) {
+                    hashes[n++] = HashUtil.murmur3(identity + "#" + j);
+                }
+            }
+            // sort the indexes by the hash, and the identity breaks the tie of a collision so that
+            // the ring doesn't depend on the sequence of the urls.
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> {
+                int c = Long.compare(hashes[a], hashes[b]);
+                return c != 0 ? c : identity(urls.get(a / virtualNodes)).compareTo(identity(urls.get(b / virtualNodes)));
+            });
+            this.points = new long[size];
+            this.nodes = new URL[size];
+            for (int i = 0; i < size; i++) {
+                points[i] = hashes[order[i]];
+                nodes[i] = urls.get(order[i] / virtualNodes);
+            }
+        }
+
+        URL select(String requestKey) {
+            long hash = HashUtil.murmur3(requestKey == null ? "" : requestKey);
+            int i = Arrays.binarySearch(points, hash);
+            if(i < 0) i = -i - 1;
+            return nodes[i == points.length ? 0 : i];
         }
-        return getPositive(hashcode);
     }
 }
@@ -37,6 +37,18 @@ public interface LoadBalance {
      */
     URL select(List<URL> urls, String serviceId, String tag, String requestKey);
 
+    /**
+     * Notify the load balance that the discovered urls of a service are changed. It is called by the
+     * cluster once per discovery change so that an implementation with state derived from the urls
+     * can build it here instead of on each request.
+     *
+     * @param serviceId String
+     * @param tag String
+     * @param urls List
+     */
+    default void update(String serviceId, String tag, List<URL> urls) {
+    }
+
     /**
      * return positive int value of originValue
      * @param originValue original value
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.balance;
+
+import com.networknt.registry.URL;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the lookup of the consistent hash ring against the modulo of the hash code that it
+ * replaces, and the cost to build the ring once per discovery change with 10, 100 and 1000
+ * service instances. Run it from the IDE or with the test classpath after mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsistentHashLoadBalanceBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private List<URL> urls;
+    private String[] keys;
+    private ConsistentHashLoadBalance loadBalance;
+    private int next;
+
+    @Setup
+    public void setup() {
+        urls = ConsitentHashLoadBalanceTest.urls(size);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "client" + i;
+        }
+        loadBalance = new ConsistentHashLoadBalance();
+        loadBalance.update("service", null, urls);
+    }
+
+    @Benchmark
+    public URL ring() {
+        return loadBalance.select(urls, "service", null, keys[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public URL modulo() {
+        String key = keys[next++ & (KEYS - 1)];
+        return urls.get((key.hashCode() & 0x7fffffff) % urls.size());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object build() {
+        return new ConsistentHashLoadBalance.Ring(urls, ConsistentHashLoadBalance.VIRTUAL_NODES);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConsistentHashLoadBalanceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -17,40 +17,124 @@
 package com.networknt.balance;
 
 import com.networknt.registry.URL;
+import com.networknt.registry.URLImpl;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by steve on 08/05/17.
  */
 public class ConsitentHashLoadBalanceTest {
+    static final int KEYS = 100_000;
+
     LoadBalance loadBalance = new ConsistentHashLoadBalance();
 
     @Test
     public void testSelect() throws Exception {
-        List<URL> urls = new ArrayList<>();
-
-        //TODO complete the test cases when the class is completed. Need implementation.
-        /*
-        urls.add(new URLImpl("http", "127.0.0.1", 8081, "v1", new HashMap<String, String>()));
-        urls.add(new URLImpl("http", "127.0.0.1", 8082, "v1", new HashMap<String, String>()));
-        urls.add(new URLImpl("http", "127.0.0.1", 8083, "v1", new HashMap<String, String>()));
-        urls.add(new URLImpl("http", "127.0.0.1", 8084, "v1", new HashMap<String, String>()));
+        List<URL> urls = urls(4);
 
-        URL url1 = loadBalance.select(urls, "user1");
-        URL url2 = loadBalance.select(urls, "user1");
+        URL url1 = loadBalance.select(urls, "service1", null, "user1");
+        URL url2 = loadBalance.select(urls, "service1", null, "user1");
         Assertions.assertEquals(url1, url2);
 
-        URL url3 = loadBalance.select(urls, "user1");
+        // the sequence of the urls doesn't matter.
+        List<URL> shuffled = new ArrayList<>(urls);
+        Collections.reverse(shuffled);
+        URL url3 = loadBalance.select(shuffled, "service1", null, "user1");
         Assertions.assertEquals(url1, url3);
 
+        Assertions.assertNull(loadBalance.select(new ArrayList<>(), "service1", null, "user1"));
+        Assertions.assertEquals(urls.get(0), loadBalance.select(urls.subList(0, 1), "service1", null, "user1"));
+        Assertions.assertNotNull(loadBalance.select(urls, "service1", null, null));
+    }
+
+    @Test
+    public void testInstanceIdentity() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(ConsistentHashLoadBalance.INSTANCE_ID, "instance-1");
+        Assertions.assertEquals("instance-1", ConsistentHashLoadBalance.identity(new URLImpl("http", "127.0.0.1", 8081, "v1", parameters)));
+        Assertions.assertEquals("http://127.0.0.1:8081", ConsistentHashLoadBalance.identity(new URLImpl("http", "127.0.0.1", 8081, "v1", new HashMap<>())));
+    }
+
+    @Test
+    public void testDistribution() {
+        List<URL> urls = urls(10);
+        Map<URL, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(loadBalance.select(urls, "service1", null, "user" + i), 1, Integer::sum);
+        }
+        Assertions.assertEquals(10, counts.size());
+        for (int count : counts.values()) {
+            // each instance should get 10% of the keys within a few percent.
+            Assertions.assertTrue(count > KEYS * 0.07 && count < KEYS * 0.13, "count " + count);
+        }
+    }
+
+    @Test
+    public void testRemappedKeysWhenInstanceAdded() {
+        List<URL> before = urls(10);
+        List<URL> after = urls(11);
+        double fraction = remapped(before, after);
+        // about 1/11 of the keys are moved to the new instance and none between the existing ones.
+        Assertions.assertTrue(fraction < 0.13, "remapped " + fraction);
+        for (int i = 0; i < KEYS; i++) {
+            URL url = loadBalance.select(after, "service2", null, "user" + i);
+            if (!url.equals(loadBalance.select(before, "service3", null, "user" + i))) {
+                Assertions.assertEquals(after.get(10), url);
+            }
+        }
+        // the modulo of the hash moves most of the keys.
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            int hash = ("user" + i).hashCode() & 0x7fffffff;
+            if (hash % 10 != hash % 11) moved++;
+        }
+        Assertions.assertTrue(moved > KEYS * 0.8);
+    }
+
+    @Test
+    public void testRemappedKeysWhenInstanceRemoved() {
+        List<URL> before = urls(10);
+        List<URL> after = new ArrayList<>(before);
+        after.remove(3);
+        double fraction = remapped(before, after);
+        Assertions.assertTrue(fraction < 0.13, "remapped " + fraction);
+    }
 
-        URL url4 = loadBalance.select(urls, "user2");
-        Assertions.assertNotEquals(url1, url4);
-        URL url5 = loadBalance.select(urls, "user3");
-        Assertions.assertNotEquals(url4, url5);
-        */
+    @Test
+    public void testRingUpdated() {
+        List<URL> urls = urls(3);
+        loadBalance.update("service4", "dev", urls);
+        URL url = loadBalance.select(urls, "service4", "dev", "user1");
+        // a new list is a discovery change and the ring is built again.
+        List<URL> changed = urls(3).subList(0, 2);
+        URL selected = loadBalance.select(changed, "service4", "dev", "user1");
+        Assertions.assertTrue(changed.contains(selected));
+        loadBalance.update("service4", "dev", urls);
+        Assertions.assertEquals(url, loadBalance.select(urls, "service4", "dev", "user1"));
+    }
+
+    private double remapped(List<URL> before, List<URL> after) {
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            URL a = loadBalance.select(before, "before", null, "user" + i);
+            URL b = loadBalance.select(after, "after", null, "user" + i);
+            if (!a.equals(b)) moved++;
+        }
+        return (double) moved / KEYS;
+    }
+
+    static List<URL> urls(int size) {
+        List<URL> urls = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            urls.add(new URLImpl("http", "127.0.0.1", 8081 + i, "v1", new HashMap<String, String>()));
+        }
+        return urls;
     }
 }
@@ -15,6 +15,7 @@ import io.undertow.util.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -71,7 +72,8 @@ public class RequestBodyInterceptor implements RequestInterceptor {
 
     /**
      * Check the header starts with application/json and parse it into map or list
-     * based on the first character "{" or "[".
+     * based on the first character "{" or "[". The JSON body is parsed from the buffered
+     * data directly unless the body string is cached with cacheRequestBody in body.yml.
      *
      * @param exchange HttpServerExchange
      * @throws Exception Exception
@@ -95,17 +97,18 @@ public class RequestBodyInterceptor implements RequestInterceptor {
                 if (LOG.isTraceEnabled())
                     LOG.trace("Attach request body requirement is met and the byte buffer pool exists.");
 
-                var completeBody = BuffersUtils.toString(existing, StandardCharsets.UTF_8);
                 var contentType = exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
 
                 if (LOG.isTraceEnabled()) {
-                    // this config flag should only be enabled on non-production environment for troubleshooting purpose.
+                    // the body is only converted to a string for logging. this config flag should only be enabled on
+                    // non-production environment for troubleshooting purpose.
+                    var completeBody = BuffersUtils.toString(existing, StandardCharsets.UTF_8);
                     if(config.isLogFullRequestBody())
                         LOG.trace("contentType = " + contentType + " request body = " + completeBody);
                     else
                         LOG.trace("contentType = " + contentType + " request body = " + (completeBody.length() > 16384 ? completeBody.substring(0, 16384) : completeBody));
                 }
-                boolean attached = this.handleBody(exchange, completeBody, contentType, config);
+                boolean attached = this.handleBody(exchange, existing, contentType, config);
 
                 if (!attached && LOG.isErrorEnabled())
                     LOG.error("Failed to attach the request body to the exchange!");
@@ -122,12 +125,35 @@ public class RequestBodyInterceptor implements RequestInterceptor {
 
     }
 
+    private boolean handleBody(final HttpServerExchange ex, PooledByteBuffer[] buffers, String contentType, BodyConfig config) throws IOException {
+
+        // the body string is only needed when it is cached for the subsequent handlers.
+        if (config.isCacheRequestBody()) {
+            if (this.isJsonData(contentType) || this.isXmlData(contentType) || this.isFormData(contentType))
+                return this.handleBody(ex, BuffersUtils.toString(buffers, StandardCharsets.UTF_8), contentType, config);
+            return false;
+        }
+
+        if (this.isJsonData(contentType)) {
+            // the body might be parsed while it is read by the RequestInterceptorInjectionHandler.
+            if (ex.getAttachment(AttachmentConstants.REQUEST_BODY) != null)
+                return true;
+            return this.parseJsonBody(ex, AttachmentConstants.REQUEST_BODY, buffers);
+
+        } else
+            return this.isXmlData(contentType) || this.isFormData(contentType);
+    }
+
     private boolean handleBody(final HttpServerExchange ex, String body, String contentType, BodyConfig config) {
 
-        if (this.isJsonData(contentType))
+        if (this.isJsonData(contentType)) {
+            if (ex.getAttachment(AttachmentConstants.REQUEST_BODY) != null) {
+                this.cacheRequestBody(ex, body.trim(), config);
+                return true;
+            }
             return this.attachJsonBody(ex, body, config);
 
-        else if (this.isXmlData(contentType))
+        } else if (this.isXmlData(contentType))
             return this.attachXmlBody(ex, body, config);
 
         else if (this.isFormData(contentType))
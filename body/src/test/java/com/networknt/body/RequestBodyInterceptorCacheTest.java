@@ -0,0 +1,85 @@
+package com.networknt.body;
+
+import com.networknt.httpstring.AttachmentConstants;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test the request body string cached by the RequestBodyInterceptor for each content type with and
+ * without the cacheRequestBody flag.
+ */
+public class RequestBodyInterceptorCacheTest {
+
+    @Test
+    public void testJsonWithCache() throws Exception {
+        HttpServerExchange exchange = exchange("application/json", " {\"key\": \"value\"} ");
+        new RequestBodyInterceptor("body-cache").handleRequest(exchange);
+        Assertions.assertEquals("value", ((Map<?, ?>) exchange.getAttachment(AttachmentConstants.REQUEST_BODY)).get("key"));
+        Assertions.assertEquals("{\"key\": \"value\"}", exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING));
+    }
+
+    @Test
+    public void testJsonWithoutCache() throws Exception {
+        HttpServerExchange exchange = exchange("application/json", "[1, 2]");
+        new RequestBodyInterceptor().handleRequest(exchange);
+        Assertions.assertEquals(2, ((List<?>) exchange.getAttachment(AttachmentConstants.REQUEST_BODY)).size());
+        Assertions.assertNull(exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING));
+    }
+
+    @Test
+    public void testXmlAndFormDataWithCache() throws Exception {
+        HttpServerExchange exchange = exchange("application/xml", "<pet><id>1</id></pet>");
+        new RequestBodyInterceptor("body-cache").handleRequest(exchange);
+        Assertions.assertEquals("<pet><id>1</id></pet>", exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING));
+
+        exchange = exchange("application/x-www-form-urlencoded", "id=1&name=cat");
+        new RequestBodyInterceptor("body-cache").handleRequest(exchange);
+        Assertions.assertEquals("id=1&name=cat", exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING));
+    }
+
+    @Test
+    public void testFormDataWithoutCache() throws Exception {
+        HttpServerExchange exchange = exchange("application/x-www-form-urlencoded", "id=1&name=cat");
+        new RequestBodyInterceptor().handleRequest(exchange);
+        Assertions.assertNull(exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING));
+        Assertions.assertNull(exchange.getAttachment(AttachmentConstants.REQUEST_BODY));
+    }
+
+    private static HttpServerExchange exchange(String contentType, String body) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getRequestHeaders().put(Headers.CONTENT_TYPE, contentType);
+        ByteBuffer buffer = ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8));
+        exchange.putAttachment(AttachmentConstants.BUFFERED_REQUEST_DATA_KEY, new PooledByteBuffer[] { new TestPooledByteBuffer(buffer) });
+        return exchange;
+    }
+
+    private static class TestPooledByteBuffer implements PooledByteBuffer {
+        private final ByteBuffer buffer;
+
+        TestPooledByteBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+}
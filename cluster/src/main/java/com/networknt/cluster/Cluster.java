@@ -17,7 +17,9 @@
 package com.networknt.cluster;
 
 import java.net.URI;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Cluster interface is used to lookup a service instance by protocol, service id
@@ -58,5 +60,15 @@ public interface Cluster {
      */
     List<URI> services(String protocol, String serviceId, String tag);
 
+    /**
+     * return the keys of the services that have been discovered and cached by the cluster. The key
+     * is the serviceId or the serviceId and the tag separated with a vertical bar. It is used by the
+     * router to build the hosts for the known services during the startup.
+     *
+     * @return Set of service keys
+     */
+    default Set<String> getServiceKeys() {
+        return Collections.emptySet();
+    }
 
 }
@@ -18,6 +18,7 @@ package com.networknt.cluster;
 
 import com.networknt.balance.LoadBalance;
 import com.networknt.registry.*;
+import com.networknt.registry.support.DiscoverySnapshot;
 import com.networknt.service.SingletonServiceFactory;
 import com.networknt.utility.ConcurrentHashSet;
 import com.networknt.utility.Constants;
@@ -48,6 +49,11 @@ public class LightCluster implements Cluster {
     private static final LoadBalance loadBalance = SingletonServiceFactory.getBean(LoadBalance.class);
     private static final Set<URL> subscribedSet = new ConcurrentHashSet<>();
     private static final Map<String, List<URL>> serviceMap = new ConcurrentHashMap<>();
+    private static final DiscoverySnapshot snapshot = DiscoverySnapshot.getInstance();
+
+    static {
+        warmUp();
+    }
 
     /**
      * Default constructor for LightCluster.
@@ -102,6 +108,14 @@ public class LightCluster implements Cluster {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Set<String> getServiceKeys() {
+        return serviceMap.entrySet().stream()
+                .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
     private List<URL> discovery(String protocol, String serviceId, String tag) {
         if(logger.isDebugEnabled()) logger.debug("Protocol = {} serviceId = {} tag = {}", protocol, serviceId, tag);
         // lookup in serviceMap first. If not there, then subscribe and discover. The discover result is based on the environment, so
@@ -123,11 +137,58 @@ public class LightCluster implements Cluster {
             }
             urls = registry.discover(subscribeUrl);
             if(logger.isDebugEnabled()) logger.debug("discovered urls = {}", urls);
-            serviceMap.put(key, urls == null ? new ArrayList<>() : urls);
+            urls = urls == null ? new ArrayList<>() : urls;
+            serviceMap.put(key, urls);
+            loadBalance.update(serviceId, tag, urls);
+            snapshot.update(key, urls);
         }
         return urls;
     }
 
+    /**
+     * Load the services from the discovery snapshot into the serviceMap so that the first request of
+     * each service doesn't wait for the registry. The services are subscribed and discovered again in
+     * a background thread, and the snapshot urls are kept if the registry cannot be reached.
+     */
+    private static void warmUp() {
+        Map<String, List<URL>> services = snapshot.getServices();
+        if(services.isEmpty()) return;
+        serviceMap.putAll(services);
+        if(logger.isInfoEnabled()) logger.info("LightCluster is warmed up with {} services from the discovery snapshot", services.size());
+        Thread reconcile = new Thread(() -> {
+            for (Map.Entry<String, List<URL>> entry : services.entrySet()) {
+                try {
+                    reconcile(entry.getKey(), entry.getValue().get(0).getProtocol());
+                } catch (Exception e) {
+                    logger.error("Failed to reconcile service " + entry.getKey() + " with the registry", e);
+                }
+            }
+        }, "LightClusterReconcile");
+        reconcile.setDaemon(true);
+        reconcile.start();
+    }
+
+    private static void reconcile(String key, String protocol) {
+        int i = key.indexOf('|');
+        String serviceId = i < 0 ? key : key.substring(0, i);
+        String tag = i < 0 ? null : key.substring(i + 1);
+        URL subscribeUrl = URLImpl.valueOf(protocol + "://localhost/" + serviceId);
+        if(tag != null) {
+            subscribeUrl.addParameter(Constants.TAG_ENVIRONMENT, tag);
+        }
+        if(!subscribedSet.contains(subscribeUrl)) {
+            registry.subscribe(subscribeUrl, new ClusterNotifyListener(serviceId, tag));
+            subscribedSet.add(subscribeUrl);
+        }
+        List<URL> urls = registry.discover(subscribeUrl);
+        if(urls != null && !urls.isEmpty()) {
+            serviceMap.put(key, urls);
+            loadBalance.update(serviceId, tag, urls);
+            snapshot.update(key, urls);
+        }
+        if(logger.isDebugEnabled()) logger.debug("reconciled key {} urls {}", key, urls);
+    }
+
     private URI toUri(URL url) {
         URI uri = null;
         try {
@@ -152,7 +213,11 @@ public class LightCluster implements Cluster {
             logger.debug("notify service: {} tag: {} with updated urls: {}", serviceId, tag, urls == null ? "null" : urls.toString());
             if(StringUtils.isNotBlank(serviceId)) {
                 String key = tag == null ? serviceId : serviceId + "|" + tag;
-                serviceMap.put(key, urls == null ? new ArrayList<>() : urls);
+                List<URL> updated = urls == null ? new ArrayList<>() : urls;
+                serviceMap.put(key, updated);
+                // rebuild the state of the load balance such as the hash ring once per change.
+                loadBalance.update(serviceId, tag, updated);
+                snapshot.update(key, urls);
             }
         }
     }
@@ -7,11 +7,23 @@ import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.constructor.AbstractConstruct;
 import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.nodes.MappingNode;
 import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
 import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Decrypts values in configuration yml files.
+ * Decrypts values in configuration yml files. All the CRYPT values of a document are collected
+ * before it is constructed and decrypted with one decryptAll call, so that the decryptor can
+ * prepare the keys of all the values at once.
  *
  * @author Daniel Zhao
  *
@@ -20,6 +32,8 @@ public class DecryptConstructor extends Constructor {
 	private static final Logger logger = LoggerFactory.getLogger(DecryptConstructor.class);
 
 	private final Decryptor decryptor;
+	// the decrypted values of the CRYPT nodes of the document that is being constructed.
+	private Map<Node, String> decrypted;
 
     /** Constant for decryptor class configuration entry */
     public static final String CONFIG_ITEM_DECRYPTOR_CLASS = "decryptorClass";
@@ -92,6 +106,60 @@ public class DecryptConstructor extends Constructor {
         return decryptor;
     }
 
+    /**
+     * Decrypts all the CRYPT values of a document in one batch before the root node is constructed.
+     *
+     * @param node the node to construct
+     * @return the constructed object
+     */
+    @Override
+    protected Object constructObject(Node node) {
+        if (decrypted != null) {
+            return super.constructObject(node);
+        }
+        // the root node of a document.
+        List<ScalarNode> encrypted = new ArrayList<>();
+        collectEncrypted(node, encrypted, Collections.newSetFromMap(new IdentityHashMap<>()));
+        Map<Node, String> values = new IdentityHashMap<>();
+        if (encrypted.size() > 1) {
+            List<String> inputs = new ArrayList<>(encrypted.size());
+            for (ScalarNode scalar : encrypted) {
+                inputs.add(scalar.getValue());
+            }
+            List<String> outputs = decryptor.decryptAll(inputs);
+            for (int i = 0; i < encrypted.size(); i++) {
+                values.put(encrypted.get(i), outputs.get(i));
+            }
+        }
+        decrypted = values;
+        try {
+            return super.constructObject(node);
+        } finally {
+            decrypted = null;
+        }
+    }
+
+    private static void collectEncrypted(Node node, List<ScalarNode> encrypted, Set<Node> visited) {
+        // an alias refers to the same node instance, so it is only visited once.
+        if (!visited.add(node)) {
+            return;
+        }
+        if (node instanceof ScalarNode) {
+            if (YmlConstants.CRYPT_TAG.equals(node.getTag())) {
+                encrypted.add((ScalarNode) node);
+            }
+        } else if (node instanceof MappingNode) {
+            for (NodeTuple tuple : ((MappingNode) node).getValue()) {
+                collectEncrypted(tuple.getKeyNode(), encrypted, visited);
+                collectEncrypted(tuple.getValueNode(), encrypted, visited);
+            }
+        } else if (node instanceof SequenceNode) {
+            for (Node child : ((SequenceNode) node).getValue()) {
+                collectEncrypted(child, encrypted, visited);
+            }
+        }
+    }
+
     /**
      * Inner class for constructing decrypted strings from YAML nodes.
      */
@@ -102,7 +170,8 @@ public class DecryptConstructor extends Constructor {
         }
 
 		private Object constructDecryptedScalar(ScalarNode node) {
-			return decryptor.decrypt(node.getValue());
+			String value = decrypted == null ? null : decrypted.get(node);
+			return value != null ? value : decryptor.decrypt(node.getValue());
 		}
     }
 }
@@ -17,6 +17,7 @@
 package com.networknt.config;
 
 import com.networknt.config.yml.DecryptConstructor;
+import com.networknt.decrypt.AESSaltDecryptor;
 import com.networknt.config.yml.YmlConstants;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Disabled;
@@ -29,6 +30,7 @@ import org.yaml.snakeyaml.resolver.Resolver;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class ConfigDecryptTest {
@@ -99,6 +101,39 @@ public class ConfigDecryptTest {
         Assertions.assertEquals(SECRET+"-test", secret.get("serverKeystorePass"));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDecryptAllValuesOfDocument() {
+        final Resolver resolver = new Resolver();
+        resolver.addImplicitResolver(YmlConstants.CRYPT_TAG, YmlConstants.CRYPT_PATTERN, YmlConstants.CRYPT_FIRST);
+        Yaml yaml = new Yaml(DecryptConstructor.getInstance(BatchDecryptor.class.getName()), new Representer(new DumperOptions()), new DumperOptions(), resolver);
+        String value = "CRYPT:e6e1b4a099902a2106509e87df909de4:cd9153addc755eb7e00d817c:e499d4501d0372fe37073d88a1025f1970a30cbd9acec7d5";
+        String document = "key: &secret " + value + "\nalias: *secret\nlist:\n  - " + value + "\n  - plain\nmap:\n  nested: " + value + "\n";
+
+        BatchDecryptor.batches.set(0);
+        Map<String, Object> secret = yaml.load(document);
+        Assertions.assertEquals(1, BatchDecryptor.batches.get());
+        Assertions.assertEquals(SECRET, secret.get("key"));
+        Assertions.assertEquals(SECRET, secret.get("alias"));
+        Assertions.assertEquals(List.of(SECRET, "plain"), secret.get("list"));
+        Assertions.assertEquals(SECRET, ((Map<String, Object>) secret.get("map")).get("nested"));
+
+        // a document with a single CRYPT value is decrypted directly.
+        secret = yaml.load("key: " + value + "\n");
+        Assertions.assertEquals(SECRET, secret.get("key"));
+        Assertions.assertEquals(1, BatchDecryptor.batches.get());
+    }
+
+    public static class BatchDecryptor extends AESSaltDecryptor {
+        static final AtomicInteger batches = new AtomicInteger();
+
+        @Override
+        public List<String> decryptAll(List<String> inputs) {
+            batches.incrementAndGet();
+            return super.decryptAll(inputs);
+        }
+    }
+
     @Test
     public void testAutoDecryptorClass() throws IOException {
         if (System.getenv("config_password") == null || !System.getenv("config_password").equals("light")) return;
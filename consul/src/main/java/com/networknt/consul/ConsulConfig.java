@@ -52,6 +52,8 @@ public class ConsulConfig {
     private static final String LOOKUP_INTERVAL = "lookupInterval";
     private static final String MAX_ATTEMPTS_BEFORE_SHUTDOWN = "maxAttemptsBeforeShutdown";
     private static final String SHUTDOWN_IF_THREAD_FROZEN = "shutdownIfThreadFrozen";
+    private static final String VIRTUAL_THREADS = "virtualThreads";
+    private static final String MAX_CONCURRENT_LOOKUPS = "maxConcurrentLookups";
 
     private final Map<String, Object> mappedConfig;
     private static volatile ConsulConfig instance;
@@ -223,6 +225,26 @@ public class ConsulConfig {
     )
     boolean shutdownIfThreadFrozen = false;
 
+    @BooleanField(
+            configFieldName = VIRTUAL_THREADS,
+            externalizedKeyName = VIRTUAL_THREADS,
+            defaultValue = "false",
+            description = "Run the service lookup watchers and the change notifications on virtual threads instead of a platform\n" +
+                    "thread per subscribed service and a fixed notification thread pool. Recommended for gateways that subscribe\n" +
+                    "to hundreds of services as a parked blocking query doesn't hold a platform thread."
+    )
+    boolean virtualThreads = false;
+
+    @IntegerField(
+            configFieldName = MAX_CONCURRENT_LOOKUPS,
+            externalizedKeyName = MAX_CONCURRENT_LOOKUPS,
+            defaultValue = "0",
+            description = "Max number of full service lookups that can be in flight to the Consul agent at the same time. A full lookup\n" +
+                    "returns all the instances right away: the first lookup of a watcher, a discovery on a cache miss or a lookup\n" +
+                    "after a stale index. The blocking queries that wait for a change are not limited. 0 means no limit."
+    )
+    int maxConcurrentLookups = 0;
+
 
     private ConsulConfig(String configName) {
         mappedConfig = Config.getInstance().getJsonMapConfig(configName);
@@ -516,6 +538,34 @@ public class ConsulConfig {
      */
     public boolean isShutdownIfThreadFrozen() { return shutdownIfThreadFrozen; }
 
+    /**
+     * Checks if the service lookup watchers run on virtual threads.
+     *
+     * @return true if virtual threads are enabled
+     */
+    public boolean isVirtualThreads() { return virtualThreads; }
+
+    /**
+     * Sets if the service lookup watchers run on virtual threads.
+     *
+     * @param virtualThreads true if enabled
+     */
+    public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+
+    /**
+     * Gets the max number of concurrent full service lookups.
+     *
+     * @return int max concurrent lookups, 0 means no limit
+     */
+    public int getMaxConcurrentLookups() { return maxConcurrentLookups; }
+
+    /**
+     * Sets the max number of concurrent full service lookups.
+     *
+     * @param maxConcurrentLookups max concurrent lookups, 0 means no limit
+     */
+    public void setMaxConcurrentLookups(int maxConcurrentLookups) { this.maxConcurrentLookups = maxConcurrentLookups; }
+
     private void setConfigData() {
         if(mappedConfig != null) {
             Object object = mappedConfig.get(CONSUL_URL);
@@ -566,6 +616,10 @@ public class ConsulConfig {
             if(object != null) maxAttemptsBeforeShutdown = Config.loadIntegerValue(MAX_ATTEMPTS_BEFORE_SHUTDOWN, object);
             object = mappedConfig.get(SHUTDOWN_IF_THREAD_FROZEN);
             if(object != null) shutdownIfThreadFrozen = Config.loadBooleanValue(SHUTDOWN_IF_THREAD_FROZEN, object);
+            object = mappedConfig.get(VIRTUAL_THREADS);
+            if(object != null) virtualThreads = Config.loadBooleanValue(VIRTUAL_THREADS, object);
+            object = mappedConfig.get(MAX_CONCURRENT_LOOKUPS);
+            if(object != null) maxConcurrentLookups = Config.loadIntegerValue(MAX_CONCURRENT_LOOKUPS, object);
         }
     }
 
@@ -88,6 +88,16 @@ public class ConsulRecoveryManager {
         heartbeats.put(key, System.currentTimeMillis());
     }
 
+    /**
+     * Removes the heartbeat of the service when its watcher is stopped, so that the thread monitor
+     * does not take the stopped watcher as a frozen one.
+     */
+    public void checkout() {
+        logger.debug("Service {} tag {} checking out", serviceName, tag);
+        String key = tag == null ? serviceName : serviceName + "|" + tag;
+        heartbeats.remove(key);
+    }
+
     /**
      * Checks if currently in recovery mode.
      *
@@ -19,6 +19,7 @@ package com.networknt.consul;
 import com.networknt.common.SecretConstants;
 import com.networknt.config.Config;
 import com.networknt.consul.client.ConsulClient;
+import com.networknt.metrics.ComponentGauges;
 import com.networknt.registry.NotifyListener;
 import com.networknt.registry.URL;
 import com.networknt.registry.support.AbstractRegistry;
@@ -38,6 +39,7 @@ import java.util.concurrent.*;
 public class ConsulRegistry extends AbstractRegistry {
     private static final Logger logger = LoggerFactory.getLogger(ConsulRegistry.class);
     private static final String CONFIG_PROPERTY_MISSING = "ERR10057";
+    static final String GAUGE_PREFIX = "consul.";
 
     private final ConsulClient client;
     private ConsulHeartbeatManager heartbeatManager;
@@ -52,7 +54,15 @@ public class ConsulRegistry extends AbstractRegistry {
     // TODO: 2016/6/17 clientUrl support multiple listener
     // record subscribers service callback listeners, listener was called when corresponding service changes
     private final ConcurrentHashMap<String, ConcurrentHashMap<URL, NotifyListener>> notifyListeners = new ConcurrentHashMap<>();
-    private final ThreadPoolExecutor notifyExecutor;
+    private final ExecutorService notifyExecutor;
+    // run the lookup watchers and the notifications on virtual threads
+    private final boolean virtualThreads;
+    // limit the full lookups in flight to the Consul agent, null if there is no limit
+    private final Semaphore lookupPermits;
+    private final ConsulWatcherMetrics watcherMetrics = new ConsulWatcherMetrics();
+    // the watcher thread of each serviceKey so that they can be interrupted when the watchers are stopped
+    private final ConcurrentHashMap<String, Thread> watcherThreads = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
 
     static String MASK_KEY_CONSUL_TOKEN = "consulToken";
 
@@ -66,16 +76,54 @@ public class ConsulRegistry extends AbstractRegistry {
     public ConsulRegistry(URL url, ConsulClient client) {
         super(url);
         this.client = client;
-        if(getConsulConfig().ttlCheck) {
+        ConsulConfig config = getConsulConfig();
+        if(config.ttlCheck) {
             heartbeatManager = new ConsulHeartbeatManager(client, getConsulToken());
             heartbeatManager.start();
         }
 
+        virtualThreads = config.isVirtualThreads();
+        lookupPermits = config.getMaxConcurrentLookups() > 0 ? new Semaphore(config.getMaxConcurrentLookups(), true) : null;
+        if(virtualThreads) {
+            notifyExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("consul-notify-", 0).factory());
+        } else {
+            ArrayBlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<Runnable>(20000);
+            notifyExecutor = new ThreadPoolExecutor(10, 30, 30 * 1000, TimeUnit.MILLISECONDS, workQueue);
+        }
+        registerGauges();
+        logger.info("ConsulRegistry init finish. virtualThreads = {} maxConcurrentLookups = {}", virtualThreads, config.getMaxConcurrentLookups());
+    }
 
+    private void registerGauges() {
+        ComponentGauges.register(GAUGE_PREFIX + "watcher_count", watcherMetrics::getWatcherCount);
+        ComponentGauges.register(GAUGE_PREFIX + "active_lookups", watcherMetrics::getActiveLookups);
+        ComponentGauges.register(GAUGE_PREFIX + "waiting_lookups", watcherMetrics::getWaitingLookups);
+        ComponentGauges.register(GAUGE_PREFIX + "lookup_count", watcherMetrics::getLookupCount);
+        ComponentGauges.register(GAUGE_PREFIX + "failed_lookup_count", watcherMetrics::getFailedLookupCount);
+        ComponentGauges.register(GAUGE_PREFIX + "notification_count", watcherMetrics::getNotificationCount);
+        ComponentGauges.register(GAUGE_PREFIX + "max_notification_lag", watcherMetrics::getMaxNotificationLagMillis);
+        ComponentGauges.register(GAUGE_PREFIX + "avg_notification_lag", watcherMetrics::getAvgNotificationLagMillis);
+    }
 
-        ArrayBlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<Runnable>(20000);
-        notifyExecutor = new ThreadPoolExecutor(10, 30, 30 * 1000, TimeUnit.MILLISECONDS, workQueue);
-        logger.info("ConsulRegistry init finish.");
+    /**
+     * Stop the service watchers and the notifications of this registry. The watcher threads are interrupted
+     * so that a blocking query in flight does not delay the stop, and each watcher exits its loop. The gauges
+     * of the watchers are removed from the metrics.
+     */
+    public void stopWatchers() {
+        stopped = true;
+        for (Thread thread : watcherThreads.values()) {
+            thread.interrupt();
+        }
+        notifyExecutor.shutdown();
+        ComponentGauges.unregister(GAUGE_PREFIX);
+    }
+
+    /**
+     * @return true if the watchers of this registry are stopped
+     */
+    public boolean isStopped() {
+        return stopped;
     }
 
     /**
@@ -87,6 +135,15 @@ public class ConsulRegistry extends AbstractRegistry {
         return notifyListeners;
     }
 
+    /**
+     * Gets the watcher counters and the notification lag of this registry.
+     *
+     * @return ConsulWatcherMetrics watcher metrics
+     */
+    public ConsulWatcherMetrics getWatcherMetrics() {
+        return watcherMetrics;
+    }
+
     @Override
     protected void doRegister(URL url) {
         ConsulService service = ConsulUtils.buildService(url);
@@ -161,7 +218,12 @@ public class ConsulRegistry extends AbstractRegistry {
             synchronized (key.intern()) {
                 urls = serviceCache.get(key);
                 if (urls == null || urls.isEmpty()) {
-                    ConcurrentHashMap<String, List<URL>> serviceUrls = lookupServiceUpdate(protocol, serviceName, tag, false);
+                    ConcurrentHashMap<String, List<URL>> serviceUrls = null;
+                    try {
+                        serviceUrls = meteredLookup(protocol, serviceName, tag, false);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
                     updateServiceCache(key, serviceUrls, false);
                     urls = serviceCache.get(key);
                 }
@@ -172,7 +234,9 @@ public class ConsulRegistry extends AbstractRegistry {
 
     /**
      * if new service registered, start a new lookup thread
-     * each serviceName start a lookup thread to discover service
+     * each serviceName start a lookup thread to discover service. All the subscribers of the same
+     * serviceName and tag share the same watcher and blocking query. The watcher is a virtual thread
+     * if virtualThreads is enabled in consul.yml.
      *
      * @param url
      */
@@ -185,11 +249,18 @@ public class ConsulRegistry extends AbstractRegistry {
             return;
 
         String protocol = url.getProtocol();
-        if (!lookupServices.containsKey(serviceKey)) {
+        if (!stopped && !lookupServices.containsKey(serviceKey)) {
             Long value = lookupServices.putIfAbsent(serviceKey, 0L);
             if (value == null) {
-                ServiceLookupThread lookupThread = new ServiceLookupThread(protocol, serviceName, tag);
-                lookupThread.setDaemon(true);
+                ServiceLookupTask lookupTask = new ServiceLookupTask(protocol, serviceName, tag);
+                Thread lookupThread;
+                if(virtualThreads) {
+                    lookupThread = Thread.ofVirtual().name("consul-lookup-" + serviceKey).unstarted(lookupTask);
+                } else {
+                    lookupThread = new Thread(lookupTask, "ServiceLookupThread-" + serviceKey);
+                    lookupThread.setDaemon(true);
+                }
+                watcherThreads.put(serviceKey, lookupThread);
                 lookupThread.start();
             }
         }
@@ -209,9 +280,36 @@ public class ConsulRegistry extends AbstractRegistry {
         }
     }
 
-    private ConcurrentHashMap<String, List<URL>> lookupServiceUpdate(String protocol, String serviceName, String tag) {
-        return lookupServiceUpdate(protocol, serviceName, tag,true);
+    /**
+     * Lookup the service with the counters of the watcher metrics. A full lookup returns right away with all
+     * the instances of the service, and it waits for a free slot if maxConcurrentLookups is set. It is the
+     * first lookup of a watcher, a discovery on a cache miss or the lookup after a stale index. A blocking query
+     * that waits for a change on the agent for up to 'wait' is not limited, so that a watcher never holds a slot
+     * while it is parked and the watchers of the other services don't starve.
+     */
+    private ConcurrentHashMap<String, List<URL>> meteredLookup(String protocol, String serviceName, String tag, boolean isBlockQuery) throws InterruptedException {
+        Long lastConsulIndexId = isBlockQuery ? lookupServices.get(serviceKey(serviceName, tag)) : null;
+        boolean limited = lookupPermits != null && (lastConsulIndexId == null || lastConsulIndexId <= 1);
+        watcherMetrics.lookupQueued();
+        if(limited) {
+            try {
+                lookupPermits.acquire();
+            } catch (InterruptedException e) {
+                watcherMetrics.lookupCancelled();
+                throw e;
+            }
+        }
+        watcherMetrics.lookupStarted();
+        ConcurrentHashMap<String, List<URL>> serviceUrls = null;
+        try {
+            serviceUrls = lookupServiceUpdate(protocol, serviceName, tag, isBlockQuery);
+            return serviceUrls;
+        } finally {
+            watcherMetrics.lookupFinished(serviceUrls == null);
+            if(limited) lookupPermits.release();
+        }
     }
+
     /***
      *
      * @param   protocol
@@ -387,7 +485,7 @@ public class ConsulRegistry extends AbstractRegistry {
             }
 
             if (change && needNotify) {
-                notifyExecutor.execute(new NotifyService(key, newUrls));
+                notifyExecutor.execute(new NotifyService(key, newUrls, System.nanoTime()));
                 if(logger.isDebugEnabled()) logger.debug("light service notify-service: " + key);
                 StringBuilder sb = new StringBuilder();
                 for (URL url : newUrls) {
@@ -398,12 +496,12 @@ public class ConsulRegistry extends AbstractRegistry {
         }
     }
 
-    private class ServiceLookupThread extends Thread {
+    private class ServiceLookupTask implements Runnable {
        private String protocol;
        private String serviceName;
        private String tag;
 
-        public ServiceLookupThread(String protocol, String serviceName, String tag) {
+        public ServiceLookupTask(String protocol, String serviceName, String tag) {
             this.protocol = protocol;
             this.serviceName = serviceName;
             this.tag = tag;
@@ -411,12 +509,25 @@ public class ConsulRegistry extends AbstractRegistry {
 
         @Override
         public void run() {
+            watcherMetrics.watcherStarted();
             ConsulRecoveryManager consulRecovery = new ConsulRecoveryManager(serviceName, tag);
+            try {
+                watch(consulRecovery);
+            } finally {
+                String serviceKey = serviceKey(serviceName, tag);
+                watcherThreads.remove(serviceKey, Thread.currentThread());
+                lookupServices.remove(serviceKey);
+                consulRecovery.checkout();
+                watcherMetrics.watcherStopped();
+                if(logger.isDebugEnabled()) logger.debug("Consul ServiceLookupThread stopped for service {}", serviceName);
+            }
+        }
 
+        private void watch(ConsulRecoveryManager consulRecovery) {
             ConsulConfig config = getConsulConfig();
             long lInterval = config.getLookupInterval() * 1000;
             if(logger.isDebugEnabled()) logger.debug("Start Consul ServiceLookupThread thread - Lookup interval: {}ms, service {}", lInterval, serviceName);
-            while (true) {
+            while (!stopped) {
                 // check in with the recovery manager
                 consulRecovery.checkin();
 
@@ -424,14 +535,14 @@ public class ConsulRegistry extends AbstractRegistry {
                     config = getConsulConfig();
                     lInterval = config.getLookupInterval() * 1000;
                     if(logger.isDebugEnabled()) logger.debug("Consul ServiceLookupThread Thread - SLEEP: Start to sleep {}ms for service {}", lInterval, serviceName);
-                    sleep(lInterval);
+                    Thread.sleep(lInterval);
                     if(logger.isDebugEnabled()) logger.debug("Consul ServiceLookupThread Thread - WAKE UP: Woke up from sleep for service {}", serviceName);
-                    ConcurrentHashMap<String, List<URL>> serviceUrls = lookupServiceUpdate(protocol, serviceName, tag);
+                    ConcurrentHashMap<String, List<URL>> serviceUrls = meteredLookup(protocol, serviceName, tag, true);
 
                     // lookupServiceUpdate returns null iff Consul connection has failed - attempt to recover
                     if(serviceUrls == null)
                     {
-                        while(serviceUrls == null)
+                        while(serviceUrls == null && !stopped)
                         {
                             // check in with the recovery manager
                             consulRecovery.checkin();
@@ -446,8 +557,9 @@ public class ConsulRegistry extends AbstractRegistry {
                             long rJitter = config.getReconnectJitter() * 1000;
                             long randomJitter = ThreadLocalRandom.current().nextLong(0, rJitter);
                             Thread.sleep(rInterval + randomJitter);
-                            serviceUrls = lookupServiceUpdate(protocol, serviceName, tag);
+                            serviceUrls = meteredLookup(protocol, serviceName, tag, true);
                         }
+                        if(serviceUrls == null) break;
                         consulRecovery.exitRecoveryMode();
                     }
 
@@ -461,11 +573,17 @@ public class ConsulRegistry extends AbstractRegistry {
 
                     updateServiceCache(serviceKey, serviceUrls, true);
 
+                } catch (InterruptedException e) {
+                    // the watchers are stopped
+                    Thread.currentThread().interrupt();
+                    break;
                 } catch (Throwable e) {
                     logger.error("ServiceLookupThread fail!", e);
                     try {
                         Thread.sleep(2000);
-                    } catch (InterruptedException ignored) {
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
                     }
                 }
             }
@@ -475,10 +593,13 @@ public class ConsulRegistry extends AbstractRegistry {
     private class NotifyService implements Runnable {
         private String service;
         private List<URL> urls;
+        // the nano time when the change was received from Consul
+        private long changedAt;
 
-        public NotifyService(String service, List<URL> urls) {
+        public NotifyService(String service, List<URL> urls, long changedAt) {
             this.service = service;
             this.urls = urls;
+            this.changedAt = changedAt;
         }
 
         @Override
@@ -491,6 +612,7 @@ public class ConsulRegistry extends AbstractRegistry {
                         listener.notify(getUrl(), urls);
                     }
                 }
+                watcherMetrics.notified(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - changedAt));
             } else {
                 if(logger.isDebugEnabled()) logger.debug("need not notify service:" + service);
             }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.consul;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the Consul service watchers of a registry. The watcher count is the number of
+ * service keys that have a lookup loop running, the active lookups are the queries that are
+ * currently in flight to the Consul agent and the waiting lookups are the full lookups that are
+ * queued because the maxConcurrentLookups limit is reached. The counters are exported to the
+ * metrics module as the consul.* gauges.
+ *
+ * The notification lag is the time between the Consul response that changed the cache and
+ * the moment all the listeners of the service have been notified.
+ *
+ * @author Steve Hu
+ */
+public final class ConsulWatcherMetrics {
+    private final AtomicInteger watchers = new AtomicInteger();
+    private final AtomicInteger activeLookups = new AtomicInteger();
+    private final AtomicInteger waitingLookups = new AtomicInteger();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong failedLookups = new AtomicLong();
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private volatile long lastLagMillis;
+
+    void watcherStarted() {
+        watchers.incrementAndGet();
+    }
+
+    void watcherStopped() {
+        watchers.decrementAndGet();
+    }
+
+    void lookupQueued() {
+        waitingLookups.incrementAndGet();
+    }
+
+    void lookupCancelled() {
+        waitingLookups.decrementAndGet();
+    }
+
+    void lookupStarted() {
+        waitingLookups.decrementAndGet();
+        activeLookups.incrementAndGet();
+    }
+
+    void lookupFinished(boolean failed) {
+        activeLookups.decrementAndGet();
+        lookups.incrementAndGet();
+        if (failed) failedLookups.incrementAndGet();
+    }
+
+    void notified(long lagMillis) {
+        notifications.incrementAndGet();
+        totalLagMillis.addAndGet(lagMillis);
+        maxLagMillis.accumulateAndGet(lagMillis, Math::max);
+        lastLagMillis = lagMillis;
+    }
+
+    /**
+     * @return int the number of running service watchers
+     */
+    public int getWatcherCount() {
+        return watchers.get();
+    }
+
+    /**
+     * @return int the number of blocking queries in flight to the Consul agent
+     */
+    public int getActiveLookups() {
+        return activeLookups.get();
+    }
+
+    /**
+     * @return int the number of blocking queries waiting for a free slot
+     */
+    public int getWaitingLookups() {
+        return waitingLookups.get();
+    }
+
+    /**
+     * @return long the number of completed blocking queries
+     */
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    /**
+     * @return long the number of blocking queries that failed to reach Consul
+     */
+    public long getFailedLookupCount() {
+        return failedLookups.get();
+    }
+
+    /**
+     * @return long the number of change notifications delivered to the listeners
+     */
+    public long getNotificationCount() {
+        return notifications.get();
+    }
+
+    /**
+     * @return long the lag of the last notification in milliseconds
+     */
+    public long getLastNotificationLagMillis() {
+        return lastLagMillis;
+    }
+
+    /**
+     * @return long the max notification lag in milliseconds
+     */
+    public long getMaxNotificationLagMillis() {
+        return maxLagMillis.get();
+    }
+
+    /**
+     * @return long the average notification lag in milliseconds
+     */
+    public long getAvgNotificationLagMillis() {
+        long count = notifications.get();
+        return count == 0 ? 0 : totalLagMillis.get() / count;
+    }
+
+    /**
+     * @return Map a snapshot of the counters that can be serialized to JSON
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("watcherCount", getWatcherCount());
+        map.put("activeLookups", getActiveLookups());
+        map.put("waitingLookups", getWaitingLookups());
+        map.put("lookupCount", getLookupCount());
+        map.put("failedLookupCount", getFailedLookupCount());
+        map.put("notificationCount", getNotificationCount());
+        map.put("lastNotificationLagMillis", getLastNotificationLagMillis());
+        map.put("avgNotificationLagMillis", getAvgNotificationLagMillis());
+        map.put("maxNotificationLagMillis", getMaxNotificationLagMillis());
+        return map;
+    }
+}
@@ -114,6 +114,8 @@ public class ConsulRegistryTest {
         registry.doRegister(serviceUrl2);
         registry.doAvailable(null);
         Thread.sleep(sleepTime);
+        // both clients share the watcher of the same service
+        Assertions.assertTrue(registry.getWatcherMetrics().getWatcherCount() > 0);
 
         // unregister
         registry.doUnavailable(null);
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.consul;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConsulWatcherMetricsTest {
+
+    @Test
+    public void testLookupCounters() {
+        ConsulWatcherMetrics metrics = new ConsulWatcherMetrics();
+        metrics.watcherStarted();
+        metrics.lookupQueued();
+        metrics.lookupQueued();
+        Assertions.assertEquals(2, metrics.getWaitingLookups());
+        metrics.lookupStarted();
+        metrics.lookupCancelled();
+        Assertions.assertEquals(0, metrics.getWaitingLookups());
+        Assertions.assertEquals(1, metrics.getActiveLookups());
+        metrics.lookupFinished(true);
+        Assertions.assertEquals(0, metrics.getActiveLookups());
+        Assertions.assertEquals(1, metrics.getLookupCount());
+        Assertions.assertEquals(1, metrics.getFailedLookupCount());
+        Assertions.assertEquals(1, metrics.getWatcherCount());
+        metrics.watcherStopped();
+        Assertions.assertEquals(0, metrics.getWatcherCount());
+    }
+
+    @Test
+    public void testNotificationLag() {
+        ConsulWatcherMetrics metrics = new ConsulWatcherMetrics();
+        Assertions.assertEquals(0, metrics.getAvgNotificationLagMillis());
+        metrics.notified(10);
+        metrics.notified(30);
+        metrics.notified(20);
+        Assertions.assertEquals(3, metrics.getNotificationCount());
+        Assertions.assertEquals(20, metrics.getLastNotificationLagMillis());
+        Assertions.assertEquals(30, metrics.getMaxNotificationLagMillis());
+        Assertions.assertEquals(20, metrics.getAvgNotificationLagMillis());
+        Assertions.assertEquals(30L, metrics.toMap().get("maxNotificationLagMillis"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.consul;
+
+import com.networknt.metrics.ComponentGauges;
+import com.networknt.registry.URL;
+import com.networknt.registry.URLImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Test the maxConcurrentLookups limit and the stop of the service watchers with a Consul client
+ * that holds the lookups until it is released. The consul.yml in the test resources sets the
+ * limit to 4.
+ */
+public class ConsulWatcherTest {
+    private static final int LIMIT = 4;
+
+    private CountDownLatch release;
+    private ConsulRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        release = new CountDownLatch(1);
+        MockConsulClient client = new MockConsulClient("localhost", 8500) {
+            @Override
+            public ConsulResponse<List<ConsulService>> lookupHealthService(String serviceName, String tag, long lastConsulIndex, String token) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                return super.lookupHealthService(serviceName, tag, lastConsulIndex, token);
+            }
+        };
+        registry = new ConsulRegistry(MockUtils.getMockUrl(8500), client);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        registry.stopWatchers();
+    }
+
+    @Test
+    public void testFullLookupsAreLimited() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < LIMIT + 2; i++) {
+            URL url = new URLImpl("http", "127.0.0.1", 0, "limitedService" + i, new HashMap<>());
+            threads.add(Thread.ofPlatform().daemon().start(() -> registry.doDiscover(url)));
+        }
+        ConsulWatcherMetrics metrics = registry.getWatcherMetrics();
+        Assertions.assertTrue(waitFor(() -> metrics.getActiveLookups() == LIMIT && metrics.getWaitingLookups() == 2));
+        Assertions.assertEquals(LIMIT, ComponentGauges.getValue(ConsulRegistry.GAUGE_PREFIX + "active_lookups").intValue());
+        Assertions.assertEquals(2, ComponentGauges.getValue(ConsulRegistry.GAUGE_PREFIX + "waiting_lookups").intValue());
+
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        Assertions.assertEquals(0, metrics.getActiveLookups());
+        Assertions.assertEquals(0, metrics.getWaitingLookups());
+        Assertions.assertEquals(LIMIT + 2, metrics.getLookupCount());
+    }
+
+    @Test
+    public void testStopWatchers() throws Exception {
+        URL clientUrl = new URLImpl("http", "127.0.0.1", 0, "stoppedService", new HashMap<>());
+        registry.doSubscribe(clientUrl, (registryUrl, urls) -> { });
+        registry.doSubscribe(new URLImpl("http", "127.0.0.2", 0, "stoppedService", new HashMap<>()), (registryUrl, urls) -> { });
+        ConsulWatcherMetrics metrics = registry.getWatcherMetrics();
+        // the subscribers of the same service share one watcher
+        Assertions.assertTrue(waitFor(() -> metrics.getWatcherCount() == 1));
+        Assertions.assertNotNull(ComponentGauges.getValue(ConsulRegistry.GAUGE_PREFIX + "watcher_count"));
+
+        registry.stopWatchers();
+        Assertions.assertTrue(registry.isStopped());
+        // the watcher is interrupted in its lookup interval sleep and exits the loop
+        Assertions.assertTrue(waitFor(() -> metrics.getWatcherCount() == 0));
+        Assertions.assertNull(ComponentGauges.getValue(ConsulRegistry.GAUGE_PREFIX + "watcher_count"));
+
+        // no new watcher is started once the registry is stopped
+        registry.doSubscribe(new URLImpl("http", "127.0.0.1", 0, "anotherService", new HashMap<>()), (registryUrl, urls) -> { });
+        Thread.sleep(100);
+        Assertions.assertEquals(0, metrics.getWatcherCount());
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
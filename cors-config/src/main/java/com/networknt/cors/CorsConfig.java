@@ -56,7 +56,9 @@ public class CorsConfig {
             description = "Allowed origins, you can have multiple and with port if port is not 80 or 443. This is the global\n" +
                     "configuration for all paths. If you want to have different configuration for different paths, you\n" +
                     "can use pathPrefixAllowed. The value is a list of strings.\n" +
-                    "Wildcard is not supported for security reasons.\n - http://localhost",
+                    "A leading wildcard label like https://*.example.com allows all the subdomains of example.com with\n" +
+                    "the same scheme and port but not example.com itself. Any other wildcard is not supported for security\n" +
+                    "reasons.\n - http://localhost",
             items = String.class
     )
     List<String> allowedOrigins;
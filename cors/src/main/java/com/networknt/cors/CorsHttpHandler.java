@@ -46,9 +46,10 @@ public class CorsHttpHandler implements MiddlewareHandler {
     public static final String CORS_PREFLIGHT_REQUEST_FAILED =  "ERR10092";
     private String configName = CorsConfig.CONFIG_NAME;
     private volatile HttpHandler next;
+    private volatile CorsPolicy policy;
     private boolean isNonPreflightReqAllowed = true;
     /** Default max age **/
-    private static final long ONE_HOUR_IN_SECONDS = 60 * 60;
+    private static final String ONE_HOUR_IN_SECONDS = String.valueOf(60 * 60);
 
     public CorsHttpHandler() {
         CorsConfig.load(configName);
@@ -68,29 +69,17 @@ public class CorsHttpHandler implements MiddlewareHandler {
         HeaderMap headers = exchange.getRequestHeaders();
         this.isNonPreflightReqAllowed = true;
         if (isCorsRequest(headers)) {
-            List<String> allowedOrigins = config.getAllowedOrigins();
-            List<String> allowedMethods = config.getAllowedMethods();
-            // cors headers available in the request. Set the allowedOrigins and allowedMethods based on the
-            // path prefix if it is configured. Otherwise, use the global configuration set in the constructor.
-            if (config.pathPrefixAllowed != null) {
-                String requestPath = exchange.getRequestPath();
-                for(Map.Entry<String, CorsPathPrefix> entry: config.pathPrefixAllowed.entrySet()) {
-                    if (requestPath.startsWith(entry.getKey())) {
-                        CorsPathPrefix endpointCors = entry.getValue();
-                        allowedOrigins = endpointCors.getAllowedOrigins();
-                        allowedMethods = endpointCors.getAllowedMethods();
-                        break;
-                    }
-                }
-            }
+            // cors headers available in the request. Use the allowedOrigins and allowedMethods of the longest
+            // path prefix if it is configured. Otherwise, use the global configuration.
+            CorsPolicy.Entry entry = getPolicy(config).find(exchange.getRequestPath());
             if (isPreflightedRequest(exchange)) {
                 // it is a preflight request.
                 if(logger.isTraceEnabled()) logger.trace("Preflight OPTIONS request detected.");
-                handlePreflightRequest(exchange, allowedOrigins, allowedMethods);
+                handlePreflightRequest(exchange, entry);
                 return;
             }
             if(logger.isTraceEnabled()) logger.trace("Simple or actual request detected with cors headers.");
-            setCorsResponseHeaders(exchange, allowedOrigins, allowedMethods);
+            setCorsResponseHeaders(exchange, entry, null);
         }
 
 
@@ -99,32 +88,66 @@ public class CorsHttpHandler implements MiddlewareHandler {
         else return;
     }
 
-    private void handlePreflightRequest(HttpServerExchange exchange, List<String> allowedOrigins, List<String> allowedMethods) throws Exception {
-        setCorsResponseHeaders(exchange, allowedOrigins, allowedMethods);
+    /**
+     * Get the compiled policy of the config. It is built once for each loaded config instance, so it is
+     * built again only when the config is reloaded.
+     *
+     * @param config CorsConfig
+     * @return CorsPolicy
+     */
+    CorsPolicy getPolicy(CorsConfig config) {
+        CorsPolicy current = policy;
+        if (current == null || current.getConfig() != config) {
+            current = new CorsPolicy(config);
+            policy = current;
+        }
+        return current;
+    }
+
+    private void handlePreflightRequest(HttpServerExchange exchange, CorsPolicy.Entry entry) throws Exception {
+        // the response headers of a preflight from an allowed origin only depend on the request headers.
+        String key = CorsPolicy.preflightKey(exchange.getRequestHeaders());
+        CorsPolicy.ResponseHeaders cached = entry.getPreflight(key);
+        if (cached != null) {
+            cached.apply(exchange.getResponseHeaders());
+        } else {
+            setCorsResponseHeaders(exchange, entry, key);
+        }
         HANDLE_200.handleRequest(exchange);
     }
 
-    private void setCorsResponseHeaders(HttpServerExchange exchange, List<String> allowedOrigins, List<String> allowedMethods) throws Exception {
+    private void setCorsResponseHeaders(HttpServerExchange exchange, CorsPolicy.Entry entry, String preflightKey) throws Exception {
         HeaderMap headers = exchange.getRequestHeaders();
+        CorsPolicy.ResponseHeaders responseHeaders = new CorsPolicy.ResponseHeaders();
+        boolean allowed = false;
         if (headers.contains(Headers.ORIGIN)) {
-            String matchingOrigin = matchOrigin(exchange, allowedOrigins, this);
+            HeaderValues origins = headers.get(Headers.ORIGIN);
+            String matchingOrigin = entry.getOrigins().match(origins.toArray());
+            allowed = matchingOrigin != null;
+            if (matchingOrigin == null) {
+                matchingOrigin = matchDefaultOrigin(exchange, origins.toArray(), this);
+            }
             if(matchingOrigin != null) {
-                if(logger.isTraceEnabled()) logger.trace("Setting CORS headers for origin: {}",headers.get(Headers.ORIGIN));
-                exchange.getResponseHeaders().addAll(new HttpString(ACCESS_CONTROL_ALLOW_ORIGIN), headers.get(Headers.ORIGIN));
-                exchange.getResponseHeaders().add(Headers.VARY, Headers.ORIGIN_STRING);
+                if(logger.isTraceEnabled()) logger.trace("Setting CORS headers for origin: {}", origins);
+                responseHeaders.addAll(CorsPolicy.ALLOW_ORIGIN, origins);
+                responseHeaders.add(Headers.VARY, Headers.ORIGIN_STRING);
             }
         }
-        exchange.getResponseHeaders().addAll(new HttpString(ACCESS_CONTROL_ALLOW_METHODS), allowedMethods);
+        responseHeaders.addAll(CorsPolicy.ALLOW_METHODS, entry.getMethods());
         HeaderValues requestedHeaders = headers.get(ACCESS_CONTROL_REQUEST_HEADERS);
         if (requestedHeaders != null && !requestedHeaders.isEmpty()) {
-            exchange.getResponseHeaders().addAll(new HttpString(ACCESS_CONTROL_ALLOW_HEADERS), requestedHeaders);
+            responseHeaders.addAll(CorsPolicy.ALLOW_HEADERS, requestedHeaders);
         } else {
-            exchange.getResponseHeaders().add(new HttpString(ACCESS_CONTROL_ALLOW_HEADERS), Headers.CONTENT_TYPE_STRING);
-            exchange.getResponseHeaders().add(new HttpString(ACCESS_CONTROL_ALLOW_HEADERS), Headers.WWW_AUTHENTICATE_STRING);
-            exchange.getResponseHeaders().add(new HttpString(ACCESS_CONTROL_ALLOW_HEADERS), Headers.AUTHORIZATION_STRING);
+            responseHeaders.add(CorsPolicy.ALLOW_HEADERS, Headers.CONTENT_TYPE_STRING);
+            responseHeaders.add(CorsPolicy.ALLOW_HEADERS, Headers.WWW_AUTHENTICATE_STRING);
+            responseHeaders.add(CorsPolicy.ALLOW_HEADERS, Headers.AUTHORIZATION_STRING);
+        }
+        responseHeaders.add(CorsPolicy.ALLOW_CREDENTIALS, "true");
+        responseHeaders.add(CorsPolicy.MAX_AGE, ONE_HOUR_IN_SECONDS);
+        responseHeaders.apply(exchange.getResponseHeaders());
+        if (preflightKey != null && allowed) {
+            entry.putPreflight(preflightKey, responseHeaders);
         }
-        exchange.getResponseHeaders().add(new HttpString(ACCESS_CONTROL_ALLOW_CREDENTIALS), "true");
-        exchange.getResponseHeaders().add(new HttpString(ACCESS_CONTROL_MAX_AGE), ONE_HOUR_IN_SECONDS);
     }
 
     @Override
@@ -159,15 +182,20 @@ public class CorsHttpHandler implements MiddlewareHandler {
         if(logger.isTraceEnabled())
             logger.trace("origins from the request header = {} allowedOrigins = {}", Arrays.toString(origins), allowedOrigins);
         if (allowedOrigins != null && !allowedOrigins.isEmpty()) {
-            for (String allowedOrigin : allowedOrigins) {
-                for (String origin : origins) {
-                    if (allowedOrigin.equalsIgnoreCase(sanitizeDefaultPort(origin))) {
-                        if(logger.isTraceEnabled()) logger.trace("matchOrigin returns allowedOrigin = {}", allowedOrigin);
-                        return allowedOrigin;
-                    }
-                }
+            String allowedOrigin = new CorsPolicy.OriginMatcher(allowedOrigins).match(origins);
+            if (allowedOrigin != null) {
+                if(logger.isTraceEnabled()) logger.trace("matchOrigin returns allowedOrigin = {}", allowedOrigin);
+                return allowedOrigin;
             }
         }
+        return matchDefaultOrigin(exchange, origins, handler);
+    }
+
+    /**
+     * Match the Origin header with the origin of the server when it doesn't match any allowed origin.
+     * If it doesn't match then a 403 response code is set on the response and it returns null.
+     */
+    private static String matchDefaultOrigin(HttpServerExchange exchange, String[] origins, CorsHttpHandler handler) throws Exception {
         String allowedOrigin = CorsUtil.defaultOrigin(exchange.getRequestScheme(), NetworkUtils.formatPossibleIpv6Address(exchange.getHostName()), exchange.getHostPort());
         if(logger.isTraceEnabled()) logger.trace("Default allowedOrigin from the exchange = {}", allowedOrigin);
         for (String origin : origins) {
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.cors;
+
+import com.networknt.utility.LruCache;
+import com.networknt.utility.PathPrefixTrie;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.HttpString;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.networknt.cors.CorsHeaders.*;
+import static com.networknt.cors.CorsUtil.sanitizeDefaultPort;
+
+/**
+ * The CORS configuration compiled once for each loaded CorsConfig instance. The path prefixes of
+ * pathPrefixAllowed are kept in a PathPrefixTrie and the longest matching prefix is used, or the
+ * global allowedOrigins and allowedMethods if no prefix matches.
+ *
+ * The exact allowed origins are kept in a hash map keyed by the lower case origin. An allowed origin
+ * with a leading wildcard label like https://*.example.com matches any subdomain of example.com with
+ * the same scheme and port but not example.com itself. The wildcard origins are kept in a trie of the
+ * host labels from right to left. When several allowed origins match, the one defined first wins.
+ *
+ * The response headers of a preflight request are computed once for each combination of the origin,
+ * the requested method and the requested headers, and then reused. They are kept in a bounded LRU
+ * cache of each entry, so a reload of the config drops them with the policy.
+ *
+ * @author Steve Hu
+ */
+final class CorsPolicy {
+    static final HttpString ALLOW_ORIGIN = new HttpString(ACCESS_CONTROL_ALLOW_ORIGIN);
+    static final HttpString ALLOW_METHODS = new HttpString(ACCESS_CONTROL_ALLOW_METHODS);
+    static final HttpString ALLOW_HEADERS = new HttpString(ACCESS_CONTROL_ALLOW_HEADERS);
+    static final HttpString ALLOW_CREDENTIALS = new HttpString(ACCESS_CONTROL_ALLOW_CREDENTIALS);
+    static final HttpString MAX_AGE = new HttpString(ACCESS_CONTROL_MAX_AGE);
+    static final int MAX_CACHE_SIZE = 1000;
+
+    private final CorsConfig config;
+    private final Entry global;
+    private final PathPrefixTrie<Entry> paths = new PathPrefixTrie<>();
+
+    CorsPolicy(CorsConfig config) {
+        this.config = config;
+        this.global = new Entry(config.allowedOrigins, config.allowedMethods);
+        if (config.pathPrefixAllowed != null) {
+            for (Map.Entry<String, CorsPathPrefix> entry : config.pathPrefixAllowed.entrySet()) {
+                // the first definition of a duplicated prefix wins as it does with the linear scan.
+                paths.putIfAbsent(entry.getKey(), new Entry(entry.getValue().getAllowedOrigins(), entry.getValue().getAllowedMethods()));
+            }
+        }
+    }
+
+    CorsConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Find the policy of the longest path prefix of the request path.
+     *
+     * @param path the request path
+     * @return the entry of the path prefix or the global entry
+     */
+    Entry find(String path) {
+        Entry found = paths.longestMatch(path);
+        return found == null ? global : found;
+    }
+
+    /**
+     * The allowed origins and methods of a path prefix or the global configuration.
+     */
+    static final class Entry {
+        private final OriginMatcher origins;
+        private final List<String> methods;
+        private final LruCache<String, ResponseHeaders> preflights = new LruCache<>(MAX_CACHE_SIZE);
+
+        Entry(Collection<String> allowedOrigins, List<String> allowedMethods) {
+            this.origins = new OriginMatcher(allowedOrigins);
+            this.methods = allowedMethods == null ? List.of() : List.copyOf(allowedMethods);
+        }
+
+        OriginMatcher getOrigins() {
+            return origins;
+        }
+
+        List<String> getMethods() {
+            return methods;
+        }
+
+        ResponseHeaders getPreflight(String key) {
+            return preflights.get(key);
+        }
+
+        void putPreflight(String key, ResponseHeaders headers) {
+            preflights.put(key, headers);
+        }
+    }
+
+    /**
+     * Build the cache key of a preflight request from the origin, the requested method and the
+     * requested headers.
+     *
+     * @param headers the request headers
+     * @return String key
+     */
+    static String preflightKey(HeaderMap headers) {
+        StringBuilder sb = new StringBuilder(128);
+        append(sb, headers.get(ORIGIN));
+        append(sb, headers.get(ACCESS_CONTROL_REQUEST_METHOD));
+        append(sb, headers.get(ACCESS_CONTROL_REQUEST_HEADERS));
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, HeaderValues values) {
+        if (values != null) {
+            for (String value : values) {
+                sb.append(value).append('\n');
+            }
+        }
+        sb.append('\u0000');
+    }
+
+    /**
+     * The allowed origins compiled for the lookup of the Origin header.
+     */
+    static final class OriginMatcher {
+        private final Map<String, Integer> exact = new HashMap<>();
+        private final Map<String, LabelNode> wildcards = new HashMap<>();
+        private final List<String> allowed = new ArrayList<>();
+
+        OriginMatcher(Collection<String> allowedOrigins) {
+            if (allowedOrigins == null) return;
+            for (String origin : allowedOrigins) {
+                int index = allowed.size();
+                allowed.add(origin);
+                String lower = origin.toLowerCase(Locale.ROOT);
+                int scheme = lower.indexOf("://*.");
+                if (scheme > 0) {
+                    lower = sanitizeDefaultPort(lower);
+                    String[] hostPort = splitPort(lower.substring(scheme + 5));
+                    LabelNode node = wildcards.computeIfAbsent(lower.substring(0, scheme) + hostPort[1], k -> new LabelNode());
+                    String host = hostPort[0];
+                    int end = host.length();
+                    while (end > 0) {
+                        int start = host.lastIndexOf('.', end - 1) + 1;
+                        node = node.add(host.substring(start, end));
+                        end = start - 1;
+                    }
+                    if (node.index < 0) node.index = index;
+                } else {
+                    exact.putIfAbsent(lower, index);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return allowed.isEmpty();
+        }
+
+        /**
+         * Match the origins of the request with the allowed origins.
+         *
+         * @param origins the values of the Origin header
+         * @return the first defined allowed origin that matches or null
+         */
+        String match(String[] origins) {
+            if (allowed.isEmpty()) return null;
+            int best = Integer.MAX_VALUE;
+            for (String origin : origins) {
+                String lower = sanitizeDefaultPort(origin).toLowerCase(Locale.ROOT);
+                Integer index = exact.get(lower);
+                if (index != null && index < best) best = index;
+                if (!wildcards.isEmpty()) best = Math.min(best, matchWildcard(lower));
+            }
+            return best == Integer.MAX_VALUE ? null : allowed.get(best);
+        }
+
+        private int matchWildcard(String origin) {
+            int scheme = origin.indexOf("://");
+            if (scheme <= 0) return Integer.MAX_VALUE;
+            String[] hostPort = splitPort(origin.substring(scheme + 3));
+            LabelNode node = wildcards.get(origin.substring(0, scheme) + hostPort[1]);
+            String host = hostPort[0];
+            int best = Integer.MAX_VALUE;
+            int end = host.length();
+            while (node != null && end > 0) {
+                int start = host.lastIndexOf('.', end - 1) + 1;
+                // the wildcard label must match at least one label of the host.
+                if (start == 0) break;
+                node = node.get(host.substring(start, end));
+                if (node != null && node.index >= 0 && node.index < best) best = node.index;
+                end = start - 1;
+            }
+            return best;
+        }
+
+        private static String[] splitPort(String authority) {
+            int colon = authority.lastIndexOf(':');
+            if (colon < 0 || authority.indexOf(']', colon) >= 0) return new String[]{authority, ""};
+            return new String[]{authority.substring(0, colon), authority.substring(colon)};
+        }
+    }
+
+    /**
+     * The response headers that are computed once and added to each response.
+     */
+    static final class ResponseHeaders {
+        private final List<HttpString> names = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        void add(HttpString name, String value) {
+            names.add(name);
+            values.add(value);
+        }
+
+        void addAll(HttpString name, Collection<String> values) {
+            for (String value : values) {
+                add(name, value);
+            }
+        }
+
+        void apply(HeaderMap headers) {
+            for (int i = 0; i < names.size(); i++) {
+                headers.add(names.get(i), values.get(i));
+            }
+        }
+
+        String getFirst(HttpString name) {
+            int i = names.indexOf(name);
+            return i < 0 ? null : values.get(i);
+        }
+    }
+
+    private static final class LabelNode {
+        private Map<String, LabelNode> children;
+        private int index = -1;
+
+        LabelNode get(String label) {
+            return children == null ? null : children.get(label);
+        }
+
+        LabelNode add(String label) {
+            if (children == null) children = new HashMap<>();
+            return children.computeIfAbsent(label, k -> new LabelNode());
+        }
+    }
+}
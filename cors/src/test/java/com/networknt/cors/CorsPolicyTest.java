@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.cors;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.networknt.cors.CorsHeaders.*;
+
+public class CorsPolicyTest {
+
+    @Test
+    public void testExactOrigin() {
+        CorsPolicy.OriginMatcher matcher = new CorsPolicy.OriginMatcher(List.of("https://abc.com", "http://localhost:8080"));
+        Assertions.assertEquals("https://abc.com", matcher.match(new String[]{"https://ABC.com:443"}));
+        Assertions.assertEquals("http://localhost:8080", matcher.match(new String[]{"http://localhost:8080"}));
+        Assertions.assertNull(matcher.match(new String[]{"http://abc.com"}));
+        Assertions.assertNull(matcher.match(new String[]{"http://localhost"}));
+        // the first allowed origin wins if several origins are in the request.
+        Assertions.assertEquals("https://abc.com", matcher.match(new String[]{"http://localhost:8080", "https://abc.com"}));
+    }
+
+    @Test
+    public void testWildcardOrigin() {
+        CorsPolicy.OriginMatcher matcher = new CorsPolicy.OriginMatcher(List.of("https://*.example.com", "http://*.dev.example.com:8080", "*"));
+        Assertions.assertEquals("https://*.example.com", matcher.match(new String[]{"https://www.example.com"}));
+        Assertions.assertEquals("https://*.example.com", matcher.match(new String[]{"https://a.b.Example.com:443"}));
+        Assertions.assertEquals("http://*.dev.example.com:8080", matcher.match(new String[]{"http://api.dev.example.com:8080"}));
+        Assertions.assertNull(matcher.match(new String[]{"https://example.com"}));
+        Assertions.assertNull(matcher.match(new String[]{"http://www.example.com"}));
+        Assertions.assertNull(matcher.match(new String[]{"https://www.example.com:8443"}));
+        Assertions.assertNull(matcher.match(new String[]{"https://www.example.com.evil.com"}));
+        Assertions.assertNull(matcher.match(new String[]{"https://wwwexample.com"}));
+        Assertions.assertNull(matcher.match(new String[]{"http://dev.example.com:8080"}));
+        // a bare wildcard is not supported.
+        Assertions.assertNull(matcher.match(new String[]{"https://abc.com"}));
+    }
+
+    @Test
+    public void testPathPrefix() {
+        CorsConfig config = CorsConfig.load("path-prefix-cors");
+        CorsPolicy policy = new CorsPolicy(config);
+        Assertions.assertEquals(List.of("GET", "PUT", "POST", "DELETE"), policy.find("/v1/pets/1").getMethods());
+        Assertions.assertEquals(List.of("GET", "POST"), policy.find("/v1/market").getMethods());
+        Assertions.assertTrue(policy.find("/v1/other").getOrigins().isEmpty());
+    }
+
+    @Test
+    public void testPreflightCached() throws Exception {
+        CorsHttpHandler handler = new CorsHttpHandler();
+        CorsConfig config = CorsConfig.load();
+        CorsPolicy.Entry entry = handler.getPolicy(config).find("/v1/pets");
+        HttpServerExchange first = preflight("https://abc.com");
+        handler.setNext(exchange -> {});
+        handler.handleRequest(first);
+        String key = CorsPolicy.preflightKey(first.getRequestHeaders());
+        Assertions.assertNotNull(entry.getPreflight(key));
+        Assertions.assertSame(entry, handler.getPolicy(config).find("/v1/pets"));
+
+        HttpServerExchange second = preflight("https://abc.com");
+        handler.handleRequest(second);
+        Assertions.assertEquals(200, second.getStatusCode());
+        Assertions.assertEquals("https://abc.com", second.getResponseHeaders().getFirst(ACCESS_CONTROL_ALLOW_ORIGIN));
+        Assertions.assertEquals(List.of("GET", "PUT", "POST", "DELETE", "PATCH"), List.copyOf(second.getResponseHeaders().get(ACCESS_CONTROL_ALLOW_METHODS)));
+        Assertions.assertEquals("X-Requested-With", second.getResponseHeaders().getFirst(ACCESS_CONTROL_ALLOW_HEADERS));
+
+        // the preflight of an origin that is not allowed is not cached.
+        HttpServerExchange wrong = preflight("https://ghi.com");
+        handler.handleRequest(wrong);
+        Assertions.assertNull(wrong.getResponseHeaders().getFirst(ACCESS_CONTROL_ALLOW_ORIGIN));
+        Assertions.assertNull(entry.getPreflight(CorsPolicy.preflightKey(wrong.getRequestHeaders())));
+    }
+
+    @Test
+    public void testPreflightCacheIsBounded() {
+        CorsPolicy.Entry entry = new CorsPolicy(CorsConfig.load()).find("/v1/pets");
+        CorsPolicy.ResponseHeaders headers = new CorsPolicy.ResponseHeaders();
+        entry.putPreflight("hot", headers);
+        for (int i = 0; i < CorsPolicy.MAX_CACHE_SIZE; i++) {
+            entry.putPreflight("cold" + i, headers);
+            // the hot entry is used on every request and is not evicted by the distinct keys.
+            Assertions.assertSame(headers, entry.getPreflight("hot"));
+        }
+        Assertions.assertNull(entry.getPreflight("cold0"));
+        Assertions.assertSame(headers, entry.getPreflight("cold" + (CorsPolicy.MAX_CACHE_SIZE - 1)));
+    }
+
+    private HttpServerExchange preflight(String origin) {
+        HeaderMap headers = new HeaderMap();
+        headers.add(Headers.HOST, "localhost:80");
+        headers.add(new HttpString(ORIGIN), origin);
+        headers.add(new HttpString(ACCESS_CONTROL_REQUEST_METHOD), "POST");
+        headers.add(new HttpString(ACCESS_CONTROL_REQUEST_HEADERS), "X-Requested-With");
+        HttpServerExchange exchange = new HttpServerExchange(null, headers, new HeaderMap(), 10);
+        exchange.setRequestScheme("http");
+        exchange.setRequestMethod(Methods.OPTIONS);
+        exchange.setRequestPath("/v1/pets");
+        return exchange;
+    }
+}
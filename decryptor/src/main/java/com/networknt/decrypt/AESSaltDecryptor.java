@@ -13,14 +13,27 @@ import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.spec.KeySpec;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This implementation is replaced by AESSaltDecryptor with dynamic salt instead of static one.
  * It allows different application to use different salt so that it is harder to any attacker
  * to perform dictionary attack.
+ *
+ * The PBKDF2 key derivation is the expensive part of the decryption, so the derived keys are cached
+ * for the lifetime of the process and the ciphers are reused per thread. The decryptAll method derives
+ * the keys of the distinct salts in parallel on its own bounded executor and then decrypts the values in
+ * the calling thread.
  */
 public class AESSaltDecryptor implements Decryptor {
     private static final Logger logger = LoggerFactory.getLogger(AESSaltDecryptor.class);
@@ -33,10 +46,16 @@ public class AESSaltDecryptor implements Decryptor {
     private static final int GCM_TAG_LENGTH = 128;
     private static final byte[] LEGACY_IV = new byte[16];
     private static final AtomicBoolean LEGACY_WARNING_LOGGED = new AtomicBoolean(false);
+    // the max number of threads that derive the keys of the distinct salts in decryptAll.
+    private static final int MAX_DERIVE_THREADS = 4;
 
     // cache the secret to void recreating instances for each decrypt call as all config files
-    // will use the same salt per application.
-    private final Map<String, SecretKeySpec> secretMap = new ConcurrentHashMap<>();
+    // will use the same salt per application. The cache is static so that a config reload with a new
+    // decryptor instance doesn't derive the keys again, and it is keyed by the decryptor class as the
+    // password is provided by the class.
+    private static final Map<String, SecretKeySpec> secretMap = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Cipher> legacyCipher = ThreadLocal.withInitial(() -> newCipher(LEGACY_CIPHER_TRANSFORMATION));
+    private static final ThreadLocal<Cipher> gcmCipher = ThreadLocal.withInitial(() -> newCipher(GCM_CIPHER_TRANSFORMATION));
 
     /**
      * Default constructor for AESSaltDecryptor.
@@ -64,11 +83,79 @@ public class AESSaltDecryptor implements Decryptor {
         }
     }
 
+    /**
+     * Decrypt all the values. The password is only retrieved once in the calling thread, and the keys of
+     * the distinct salts that are not cached yet are derived in parallel by a bounded executor of this call
+     * instead of the common pool, as getPassword might prompt the user. The values are then decrypted in
+     * order in the calling thread with the cached keys.
+     *
+     * @param inputs encrypted strings
+     * @return decrypted strings in the same order as the inputs
+     */
+    @Override
+    public List<String> decryptAll(List<String> inputs) {
+        if (inputs.size() < 2) return Decryptor.super.decryptAll(inputs);
+        Set<String> salts = new HashSet<>();
+        for (String input : inputs) {
+            String saltHex = saltOf(input);
+            if (saltHex != null && !secretMap.containsKey(cacheKey(saltHex))) salts.add(saltHex);
+        }
+        if (!salts.isEmpty()) {
+            char[] password = getPassword();
+            validatePassword(password);
+            deriveAll(password, salts);
+        }
+        List<String> outputs = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            outputs.add(decrypt(input));
+        }
+        return outputs;
+    }
+
+    private void deriveAll(char[] password, Set<String> salts) {
+        if (salts.size() == 1) {
+            deriveAndCache(password, salts.iterator().next());
+            return;
+        }
+        int threads = Math.min(salts.size(), Math.min(MAX_DERIVE_THREADS, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "aes-salt-derive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(salts.size());
+            for (String saltHex : salts) {
+                futures.add(executor.submit(() -> deriveAndCache(password, saltHex)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while deriving the keys of the salts.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException("Unable to derive the key from the decrypted password.", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void deriveAndCache(char[] password, String saltHex) {
+        try {
+            secretMap.putIfAbsent(cacheKey(saltHex), derive(password, fromHex(saltHex, "salt")));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Unable to derive the key from the decrypted password.", e);
+        }
+    }
+
     private String decryptLegacyCbc(String[] parts) throws GeneralSecurityException {
         String saltHex = requireHexPart(parts, 1, "salt");
         String hashHex = requireHexPart(parts, 2, "hash");
         SecretKeySpec secret = getSecret(saltHex, fromHex(saltHex, "salt"));
-        Cipher cipher = Cipher.getInstance(LEGACY_CIPHER_TRANSFORMATION);
+        Cipher cipher = legacyCipher.get();
         cipher.init(Cipher.DECRYPT_MODE, secret, new IvParameterSpec(LEGACY_IV));
         String decrypted = new String(cipher.doFinal(fromHex(hashHex, "hash")), StandardCharsets.UTF_8);
         if (LEGACY_WARNING_LOGGED.compareAndSet(false, true)) {
@@ -82,27 +169,67 @@ public class AESSaltDecryptor implements Decryptor {
         String ivHex = requireHexPart(parts, 2, "iv");
         String hashHex = requireHexPart(parts, 3, "hash");
         SecretKeySpec secret = getSecret(saltHex, fromHex(saltHex, "salt"));
-        Cipher cipher = Cipher.getInstance(GCM_CIPHER_TRANSFORMATION);
+        Cipher cipher = gcmCipher.get();
         cipher.init(Cipher.DECRYPT_MODE, secret, new GCMParameterSpec(GCM_TAG_LENGTH, fromHex(ivHex, "iv")));
         return new String(cipher.doFinal(fromHex(hashHex, "hash")), StandardCharsets.UTF_8);
     }
 
     private SecretKeySpec getSecret(String saltHex, byte[] salt) throws GeneralSecurityException {
-        String cacheKey = KDF_ALGORITHM + ":" + ITERATIONS + ":" + KEY_SIZE + ":" + saltHex;
+        String cacheKey = cacheKey(saltHex);
         SecretKeySpec secret = secretMap.get(cacheKey);
         if(secret == null) {
             char[] password = getPassword();
             validatePassword(password);
-            KeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, KEY_SIZE);
-            SecretKeyFactory factory = SecretKeyFactory.getInstance(KDF_ALGORITHM);
-            SecretKey tmp = factory.generateSecret(spec);
-            SecretKeySpec newSecret = new SecretKeySpec(tmp.getEncoded(), "AES");
+            SecretKeySpec newSecret = derive(password, salt);
             SecretKeySpec cachedSecret = secretMap.putIfAbsent(cacheKey, newSecret);
             secret = cachedSecret == null ? newSecret : cachedSecret;
         }
         return secret;
     }
 
+    /**
+     * Clear the derived keys so that the tests and benchmarks in this package can measure a cold start.
+     * It is package-private as the keys are shared by all the decryptors of the process.
+     */
+    static void clearSecrets() {
+        secretMap.clear();
+    }
+
+    private String cacheKey(String saltHex) {
+        return getClass().getName() + ":" + KDF_ALGORITHM + ":" + ITERATIONS + ":" + KEY_SIZE + ":" + saltHex;
+    }
+
+    private static SecretKeySpec derive(char[] password, byte[] salt) throws GeneralSecurityException {
+        KeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, KEY_SIZE);
+        SecretKeyFactory factory = SecretKeyFactory.getInstance(KDF_ALGORITHM);
+        SecretKey tmp = factory.generateSecret(spec);
+        return new SecretKeySpec(tmp.getEncoded(), "AES");
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create cipher " + transformation, e);
+        }
+    }
+
+    /**
+     * @return the salt of a well-formed CRYPT value or null so that decrypt reports the error
+     */
+    private static String saltOf(String input) {
+        if (input == null || !input.startsWith(CRYPT_PREFIX + ":")) return null;
+        int start = CRYPT_PREFIX.length() + 1;
+        int end = input.indexOf(':', start);
+        if (end <= start) return null;
+        String saltHex = input.substring(start, end);
+        if ((saltHex.length() & 1) != 0) return null;
+        for (int i = 0; i < saltHex.length(); i++) {
+            if (Character.digit(saltHex.charAt(i), 16) < 0) return null;
+        }
+        return saltHex;
+    }
+
     private static void validatePassword(char[] password) {
         if(password == null || password.length == 0 || isBlank(password)) {
             logger.error("The configuration decryption password is empty.");
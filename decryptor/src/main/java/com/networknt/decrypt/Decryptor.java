@@ -16,6 +16,9 @@
 
 package com.networknt.decrypt;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The Decryptor interface defines a single method decrypt for decrypting encrypted strings.
  */
@@ -41,4 +44,20 @@ public interface Decryptor {
      */
     String decrypt(String input);
 
+    /**
+     * Decrypt a batch of encrypted values, for example, all the CRYPT values in a config file. The
+     * default implementation decrypts them one by one and an implementation can override it to
+     * prepare the keys of the batch once.
+     *
+     * @param inputs encrypted strings
+     * @return decrypted strings in the same order as the inputs
+     */
+    default List<String> decryptAll(List<String> inputs) {
+        List<String> outputs = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            outputs.add(decrypt(input));
+        }
+        return outputs;
+    }
+
 }
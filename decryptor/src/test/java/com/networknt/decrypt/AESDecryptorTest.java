@@ -7,12 +7,17 @@ import org.junit.jupiter.api.Test;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.spec.KeySpec;
+import java.util.ArrayList;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AESDecryptorTest {
 
@@ -81,6 +86,80 @@ public class AESDecryptorTest {
         Assertions.assertThrows(IllegalStateException.class, () -> decryptor.decrypt(GCM_PASSWORD_VALUE));
     }
 
+    @Test
+    public void testDecryptAll() throws Exception {
+        AESSaltDecryptor decryptor = new AESSaltDecryptor();
+        List<String> inputs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        String[] salts = {"0102030405060708090a0b0c0d0e0f10", "1112131415161718191a1b1c1d1e1f20", "2122232425262728292a2b2c2d2e2f30"};
+        for (int i = 0; i < 12; i++) {
+            String plaintext = "secret" + i;
+            inputs.add(i % 4 == 3 ? legacyEncrypt(plaintext, salts[i % 3]) : gcmEncrypt(plaintext, salts[i % 3], i));
+            expected.add(plaintext);
+        }
+        inputs.add(GCM_PASSWORD_VALUE);
+        expected.add("password");
+        Assertions.assertEquals(expected, decryptor.decryptAll(inputs));
+        Assertions.assertEquals(List.of("password"), decryptor.decryptAll(List.of(GCM_PASSWORD_VALUE)));
+        Assertions.assertEquals(List.of(), decryptor.decryptAll(List.of()));
+    }
+
+    @Test
+    public void testDecryptAllUsesDecryptOverride() {
+        AESSaltDecryptor decryptor = new AESSaltDecryptor() {
+            @Override
+            public String decrypt(String input) {
+                return super.decrypt(input) + "-test";
+            }
+        };
+        Assertions.assertEquals(List.of("password-test", "password-test"), decryptor.decryptAll(List.of(GCM_PASSWORD_VALUE, GCM_PASSWORD_VALUE)));
+    }
+
+    @Test
+    public void testDecryptAllGetsPasswordOnceInCallingThread() throws Exception {
+        AESSaltDecryptor.clearSecrets();
+        Thread caller = Thread.currentThread();
+        AtomicInteger passwords = new AtomicInteger();
+        List<Thread> decryptThreads = new CopyOnWriteArrayList<>();
+        AESSaltDecryptor decryptor = new AESSaltDecryptor() {
+            @Override
+            protected char[] getPassword() {
+                // an interactive decryptor prompts the user here, so it must not run in a pool thread.
+                Assertions.assertSame(caller, Thread.currentThread());
+                passwords.incrementAndGet();
+                return super.getPassword();
+            }
+
+            @Override
+            public String decrypt(String input) {
+                decryptThreads.add(Thread.currentThread());
+                return super.decrypt(input);
+            }
+        };
+        String[] salts = {"3132333435363738393a3b3c3d3e3f40", "4142434445464748494a4b4c4d4e4f50"};
+        List<String> inputs = List.of(gcmEncrypt("a", salts[0], 1), gcmEncrypt("b", salts[1], 2), GCM_PASSWORD_VALUE);
+        Assertions.assertEquals(List.of("a", "b", "password"), decryptor.decryptAll(inputs));
+        Assertions.assertEquals(1, passwords.get());
+        Assertions.assertEquals(List.of(caller, caller, caller), decryptThreads);
+    }
+
+    @Test
+    public void testDecryptAllRejectsInvalidValue() {
+        AESSaltDecryptor decryptor = new AESSaltDecryptor();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decryptor.decryptAll(List.of(GCM_PASSWORD_VALUE, "CRYPT:zz:334455:667788")));
+    }
+
+    @Test
+    public void testDecryptAllRejectsBlankMasterPassword() {
+        AESSaltDecryptor decryptor = new AESSaltDecryptor() {
+            @Override
+            protected char[] getPassword() {
+                return "".toCharArray();
+            }
+        };
+        Assertions.assertThrows(IllegalStateException.class, () -> decryptor.decryptAll(List.of(GCM_PASSWORD_VALUE, GCM_PASSWORD_VALUE)));
+    }
+
     /**
      * A test case that can be used as a utility to decrypt encrypted value based on the master secret or password.
      * The master secret will be loaded from the environment variable in this test case so that the user's master secret
@@ -107,4 +186,16 @@ public class AESDecryptorTest {
         cipher.init(Cipher.ENCRYPT_MODE, secret, new IvParameterSpec(LEGACY_IV));
         return Decryptor.CRYPT_PREFIX + ":" + saltHex + ":" + HexFormat.of().formatHex(cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8)));
     }
+
+    static String gcmEncrypt(String plaintext, String saltHex, int seed) throws Exception {
+        byte[] salt = HexFormat.of().parseHex(saltHex);
+        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        KeySpec spec = new PBEKeySpec("light".toCharArray(), salt, ITERATIONS, KEY_SIZE);
+        SecretKeySpec secret = new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+        byte[] iv = new byte[12];
+        iv[0] = (byte) seed;
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secret, new GCMParameterSpec(128, iv));
+        return Decryptor.CRYPT_PREFIX + ":" + saltHex + ":" + HexFormat.of().formatHex(iv) + ":" + HexFormat.of().formatHex(cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8)));
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.decrypt;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the decryption of a config set with 500 CRYPT values that are encrypted with one salt per
+ * application or with a number of salts. The cold benchmarks clear the derived keys first like a
+ * startup, and the warm benchmarks reuse them like a config reload. Each case is measured with one
+ * decrypt call per value and with one decryptAll call for the whole set. Run it from the IDE or with
+ * the test classpath after mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AESSaltDecryptorBenchmark {
+    private static final int ENTRIES = 500;
+
+    @Param({"1", "20"})
+    public int salts;
+
+    private List<String> values;
+    private AESSaltDecryptor decryptor;
+
+    @Setup
+    public void setup() throws Exception {
+        String[] saltHex = new String[salts];
+        for (int i = 0; i < salts; i++) {
+            byte[] salt = new byte[16];
+            salt[0] = (byte) i;
+            saltHex[i] = HexFormat.of().formatHex(salt);
+        }
+        values = new ArrayList<>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            values.add(AESDecryptorTest.gcmEncrypt("secret" + i, saltHex[i % salts], i));
+        }
+        decryptor = new AESSaltDecryptor();
+    }
+
+    @Benchmark
+    public List<String> coldDecrypt() {
+        AESSaltDecryptor.clearSecrets();
+        return decryptEach();
+    }
+
+    @Benchmark
+    public List<String> coldDecryptAll() {
+        AESSaltDecryptor.clearSecrets();
+        return decryptor.decryptAll(values);
+    }
+
+    @Benchmark
+    public List<String> warmDecrypt() {
+        return decryptEach();
+    }
+
+    @Benchmark
+    public List<String> warmDecryptAll() {
+        return decryptor.decryptAll(values);
+    }
+
+    private List<String> decryptEach() {
+        List<String> outputs = new ArrayList<>(values.size());
+        for (String value : values) {
+            outputs.add(decryptor.decrypt(value));
+        }
+        return outputs;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AESSaltDecryptorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
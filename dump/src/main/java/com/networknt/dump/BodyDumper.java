@@ -16,7 +16,9 @@
 
 package com.networknt.dump;
 
+import com.networknt.config.Config;
 import com.networknt.httpstring.AttachmentConstants;
+import com.networknt.mask.BodyCapture;
 import com.networknt.mask.Mask;
 import com.networknt.utility.StringUtils;
 import io.undertow.server.HttpServerExchange;
@@ -83,40 +85,49 @@ import static java.nio.charset.StandardCharsets.UTF_8;
      */
     @Override
     public void dumpResponse(Map<String, Object> result) {
+        BodyCapture capture = exchange.getAttachment(StoreResponseStreamSinkConduit.RESPONSE_CAPTURE);
         byte[] responseBodyAttachment = exchange.getAttachment(StoreResponseStreamSinkConduit.RESPONSE);
-        if(responseBodyAttachment != null) {
+        if(capture != null) {
+            this.bodyContent = config.isMaskEnabled() ? capture.maskJson("responseBody") : capture.toString();
+        } else if(responseBodyAttachment != null) {
             this.bodyContent = config.isMaskEnabled() ? Mask.maskJson(new ByteArrayInputStream(responseBodyAttachment), "responseBody") : new String(responseBodyAttachment, UTF_8);
         }
         this.putDumpInfoTo(result);
     }
 
     /**
-     * read from input stream, convert it to string, put into this.bodyContent
+     * read from input stream, keep the leading bodyMaxSize bytes, put into this.bodyContent
      */
      private void dumpInputStream(){
         //dump request body
         exchange.startBlocking();
         InputStream inputStream = exchange.getInputStream();
+        BodyCapture capture = new BodyCapture(config.getBodyMaxSize(), true);
         try {
-            if(config.isMaskEnabled() && inputStream.available() != -1) {
-                this.bodyContent = Mask.maskJson(inputStream, "requestBody");
-            } else {
-                try {
-                    this.bodyContent = StringUtils.inputStreamToString(inputStream, UTF_8);
-                } catch (IOException e) {
-                    logger.error(e.toString());
-                }
-            }
+            inputStream.transferTo(capture);
+            this.bodyContent = config.isMaskEnabled() ? capture.maskJson("requestBody") : capture.toString();
         } catch (IOException e) {
             logger.error("undertow inputstream error:" + e.getMessage());
         }
     }
 
     /**
-     * read from body attachment from Body Handler, convert it to string, put into this.bodyContent
+     * read from body attachment from Body Handler, keep the leading bodyMaxSize bytes, put into this.bodyContent
      */
     private void dumpBodyAttachment(Object requestBodyAttachment) {
-        this.bodyContent = config.isMaskEnabled() ? Mask.maskJson(requestBodyAttachment, "requestBody") : requestBodyAttachment.toString();
+        BodyCapture capture = new BodyCapture(config.getBodyMaxSize());
+        if(requestBodyAttachment instanceof String) {
+            capture.append((String)requestBodyAttachment);
+        } else {
+            // serialize into the capture so that only the leading bytes are kept.
+            try {
+                Config.getInstance().getMapper().writeValue(capture, requestBodyAttachment);
+            } catch (IOException e) {
+                logger.error("failed to serialize the request body:" + e.getMessage());
+                return;
+            }
+        }
+        this.bodyContent = config.isMaskEnabled() ? capture.maskJson("requestBody") : capture.toString();
     }
 
      @Override
@@ -83,6 +83,15 @@ public class DumpConfig {
     )
     private boolean useJson;
 
+    @IntegerField(
+            configFieldName = "bodyMaxSize",
+            externalizedKeyName = "bodyMaxSize",
+            defaultValue = "65536",
+            description = "The max number of bytes of the request or response body to dump. Only the leading part of a larger\n" +
+                    "body is kept and masked, and it is marked with the total length and hash of the body."
+    )
+    private int bodyMaxSize = 65536;
+
     @BooleanField(
             configFieldName = "requestEnabled",
             externalizedKeyName = "requestEnabled",
@@ -314,6 +323,22 @@ public class DumpConfig {
         this.useJson = useJson;
     }
 
+    /**
+     * Gets the max number of body bytes to dump.
+     * @return int body max size
+     */
+    public int getBodyMaxSize() {
+        return bodyMaxSize;
+    }
+
+    /**
+     * Sets the max number of body bytes to dump.
+     * @param bodyMaxSize int body max size
+     */
+    public void setBodyMaxSize(int bodyMaxSize) {
+        this.bodyMaxSize = bodyMaxSize;
+    }
+
     /**
      * @deprecated since 2.2.1
      * Gets the request configuration Map.
@@ -474,6 +499,8 @@ public class DumpConfig {
             if (object != null) indentSize = Config.loadIntegerValue("indentSize", object);
             object = mappedConfig.get("useJson");
             if (object != null) useJson = Config.loadBooleanValue("useJson", object);
+            object = mappedConfig.get("bodyMaxSize");
+            if (object != null) bodyMaxSize = Config.loadIntegerValue("bodyMaxSize", object);
             object = mappedConfig.get("requestEnabled");
             if (object != null) requestEnabled = Config.loadBooleanValue("requestEnabled", object);
             object = mappedConfig.get("responseEnabled");
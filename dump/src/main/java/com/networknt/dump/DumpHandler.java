@@ -90,7 +90,7 @@ public class DumpHandler implements MiddlewareHandler {
             //only add response wrapper when response config is not set to "false"
             if(config.isResponseEnabled()) {
                 //set Conduit to the conduit chain to store response body
-                exchange.addResponseWrapper((factory, exchange12) -> new StoreResponseStreamSinkConduit(factory.create(), exchange12));
+                exchange.addResponseWrapper((factory, exchange12) -> new StoreResponseStreamSinkConduit(factory.create(), exchange12, config.getBodyMaxSize()));
             }
             //when complete exchange, dump response info to result, and log the result.
             exchange.addExchangeCompleteListener((exchange1, nextListener) ->{
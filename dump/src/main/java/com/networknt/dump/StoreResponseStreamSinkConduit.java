@@ -18,25 +18,31 @@
 
 package com.networknt.dump;
 
-import io.undertow.UndertowMessages;
+import com.networknt.mask.BodyCapture;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.AttachmentKey;
 import org.xnio.conduits.AbstractStreamSinkConduit;
 import org.xnio.conduits.StreamSinkConduit;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
 /**
  * this class is basically the same as io.undertow.conduits.StoredResponseStreamSinkConduit
- * just to fix some problems
+ * just to fix some problems. Only the leading bytes of the response up to the dump bodyMaxSize
+ * are kept so that a large download is not copied into memory.
  */
 public class StoreResponseStreamSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
 
-    /** Attachment key for the stored response */
+    /**
+     * Attachment key for the stored response. When the conduit is created with a bodyMaxSize, it only
+     * holds the leading bodyMaxSize bytes of the response. Use the RESPONSE_CAPTURE to check if it is
+     * truncated and to get the total length of the response.
+     */
     public static final AttachmentKey<byte[]> RESPONSE = AttachmentKey.create(byte[].class);
-    private ByteArrayOutputStream outputStream;
+    /** Attachment key for the bounded capture of the response with its total length and hash */
+    public static final AttachmentKey<BodyCapture> RESPONSE_CAPTURE = AttachmentKey.create(BodyCapture.class);
+    private BodyCapture capture;
     private final HttpServerExchange exchange;
 
     /**
@@ -48,24 +54,28 @@ public class StoreResponseStreamSinkConduit extends AbstractStreamSinkConduit<St
     public StoreResponseStreamSinkConduit(StreamSinkConduit next, HttpServerExchange exchange) {
         super(next);
         this.exchange = exchange;
-        long length = exchange.getResponseContentLength();
-        if (length <= 0L) {
-            outputStream = new ByteArrayOutputStream();
-        } else {
-            if (length > Integer.MAX_VALUE) {
-                throw UndertowMessages.MESSAGES.responseTooLargeToBuffer(length);
-            }
-            outputStream = new ByteArrayOutputStream((int) length);
-        }
+        this.capture = new BodyCapture(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a StoreResponseStreamSinkConduit that keeps at most maxBytes of the response
+     * and the total length and hash of the entire response.
+     *
+     * @param next the next conduit in the chain
+     * @param exchange the HTTP server exchange
+     * @param maxBytes the max number of response bytes to keep
+     */
+    public StoreResponseStreamSinkConduit(StreamSinkConduit next, HttpServerExchange exchange, int maxBytes) {
+        super(next);
+        this.exchange = exchange;
+        this.capture = new BodyCapture(maxBytes, true);
     }
 
     @Override
     public int write(ByteBuffer src) throws IOException {
         int start = src.position();
         int ret = super.write(src);
-        for (int i = start; i < start + ret; ++i) {
-            outputStream.write(src.get(i));
-        }
+        capture.update(src, start, ret);
         return ret;
     }
 
@@ -76,19 +86,7 @@ public class StoreResponseStreamSinkConduit extends AbstractStreamSinkConduit<St
             starts[i] = srcs[i + offs].position();
         }
         long ret = super.write(srcs, offs, len);
-        long rem = ret;
-
-        for (int i = 0; i < len; ++i) {
-            ByteBuffer buf = srcs[i + offs];
-            int pos = starts[i];
-            int limit = buf.limit();
-            //buf.position() could be later than buf.limit() due to after read the last byte, position will still move to next, but it's now larger than limit.
-            while (rem > 0 && pos <= buf.position() && pos < limit) {
-                outputStream.write(buf.get(pos));
-                pos++;
-                rem--;
-            }
-        }
+        capture(srcs, offs, len, starts, ret);
         return ret;
     }
 
@@ -96,43 +94,40 @@ public class StoreResponseStreamSinkConduit extends AbstractStreamSinkConduit<St
     public int writeFinal(ByteBuffer src) throws IOException {
         int start = src.position();
         int ret = super.writeFinal(src);
-        //without changing ByteBuffer remaining, copy to outputStream
-        for (int i = start; i < start + ret; ++i) {
-            outputStream.write(src.get(i));
-        }
+        //without changing ByteBuffer remaining, copy to the capture
+        capture.update(src, start, ret);
         return ret;
     }
 
     @Override
     public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
         int[] starts = new int[len];
-        long toWrite = 0;
         for (int i = 0; i < len; ++i) {
             starts[i] = srcs[i + offs].position();
-            toWrite += srcs[i + offs].remaining();
         }
         long ret = super.write(srcs, offs, len);
-        long rem = ret;
+        capture(srcs, offs, len, starts, ret);
+        return ret;
+    }
 
-        for (int i = 0; i < len; ++i) {
+    private void capture(ByteBuffer[] srcs, int offs, int len, int[] starts, long written) {
+        long rem = written;
+        for (int i = 0; i < len && rem > 0; ++i) {
             ByteBuffer buf = srcs[i + offs];
-            int pos = starts[i];
-            int limit = buf.limit();
-            //buf.position() could be later than buf.limit() due to after read the last byte, position will still move to next, but it's now larger than limit.
-            while (rem > 0 && pos <= buf.position() && pos < limit) {
-                outputStream.write(buf.get(pos));
-                pos++;
-                rem--;
+            int count = (int) Math.min(rem, Math.min(buf.position(), buf.limit()) - starts[i]);
+            if (count > 0) {
+                capture.update(buf, starts[i], count);
+                rem -= count;
             }
         }
-        return ret;
     }
 
     @Override
     public void terminateWrites() throws IOException {
         //after finish writes all through conduit, it will reach here, at this time, we put response info
-        exchange.putAttachment(RESPONSE, outputStream.toByteArray());
-        outputStream = null;
+        exchange.putAttachment(RESPONSE, capture.getCaptured());
+        exchange.putAttachment(RESPONSE_CAPTURE, capture);
+        capture = null;
         super.terminateWrites();
     }
 }
@@ -96,10 +96,17 @@ public class RouterHandler implements HttpHandler {
         } else {
             client.setOptionMap(OptionMap.EMPTY);
         }
+        // build the hosts from the discovery snapshot if it is enabled.
+        client.warmHosts();
         proxyHandler = ProxyHandler.builder()
                 .setProxyClient(client)
                 .setMaxConnectionRetries(config.getMaxConnectionRetries())
                 .setMaxQueueSize(config.getMaxQueueSize())
+                .setHedgeEnabled(config.isHedgeEnabled())
+                .setHedgePathPrefixes(config.getHedgePathPrefixes())
+                .setHedgePercentile(config.getHedgePercentile())
+                .setHedgeMinDelay(config.getHedgeMinDelay())
+                .setHedgeBudgetPercent(config.getHedgeBudgetPercent())
                 .setMaxRequestTime(config.getMaxRequestTime())
                 .setPathPrefixMaxRequestTime(config.getPathPrefixMaxRequestTime())
                 .setStreamResponseContentTypes(config.getStreamResponseContentTypes())
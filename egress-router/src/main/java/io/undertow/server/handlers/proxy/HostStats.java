@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.undertow.server.handlers.proxy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The load of a downstream host for the least loaded host selector. It tracks the requests in flight
+ * and an exponentially weighted moving average of the response time. Both are updated with atomic
+ * operations only, so the stats can be shared by all the IO threads without locking.
+ *
+ * @author Steve Hu
+ */
+public final class HostStats {
+    /** The weight of the latest response time in the moving average. */
+    static final double ALPHA = 0.2;
+    /** The response time in microseconds that is recorded for a failed request. */
+    static final double FAILURE_PENALTY = TimeUnit.SECONDS.toMicros(1);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong latency = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    /**
+     * A request is sent to the host.
+     */
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * A request to the host is completed.
+     *
+     * @param nanos the response time in nanoseconds
+     */
+    public void complete(long nanos) {
+        inFlight.decrementAndGet();
+        update(nanos / 1000.0);
+    }
+
+    /**
+     * A request to the host is failed.
+     */
+    public void failed() {
+        inFlight.decrementAndGet();
+        update(FAILURE_PENALTY);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the moving average of the response time in microseconds
+     */
+    public double getLatency() {
+        return Double.longBitsToDouble(latency.get());
+    }
+
+    /**
+     * @return the requests in flight including the next one weighted by the moving average of the response time
+     */
+    public double getLoad() {
+        return (Math.max(0, inFlight.get()) + 1) * (getLatency() + 1);
+    }
+
+    private void update(double sample) {
+        for (; ; ) {
+            long current = latency.get();
+            double average = Double.longBitsToDouble(current);
+            double next = average == 0 ? sample : average + ALPHA * (sample - average);
+            if (latency.compareAndSet(current, Double.doubleToRawLongBits(next))) return;
+        }
+    }
+}
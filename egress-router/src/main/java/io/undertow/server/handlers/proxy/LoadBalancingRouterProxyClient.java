@@ -21,6 +21,8 @@ package io.undertow.server.handlers.proxy;
 import com.networknt.client.ClientConfig;
 import com.networknt.cluster.Cluster;
 import com.networknt.config.ConfigException;
+import com.networknt.handler.ProxyAttemptListener;
+import com.networknt.handler.ProxyHedgeClient;
 import com.networknt.httpstring.AttachmentConstants;
 import com.networknt.httpstring.HttpStringConstants;
 import com.networknt.router.HostWhitelist;
@@ -46,7 +48,10 @@ import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 import static io.undertow.server.handlers.proxy.ProxyConnectionPool.AvailabilityType.*;
 
@@ -55,10 +60,10 @@ import static io.undertow.server.handlers.proxy.ProxyConnectionPool.Availability
  *
  * @author Steve Hu
  */
-public class LoadBalancingRouterProxyClient implements ProxyClient {
+public class LoadBalancingRouterProxyClient implements ProxyClient, ProxyHedgeClient {
     private static Logger logger = LoggerFactory.getLogger(LoadBalancingRouterProxyClient.class);
     private static final RouterConfig config = RouterConfig.load();
-    private static final AttachmentKey<AttachmentList<Host>> ATTEMPTED_HOSTS = AttachmentKey.createList(Host.class);
+    static final AttachmentKey<AttachmentList<Host>> ATTEMPTED_HOSTS = AttachmentKey.createList(Host.class);
     private static Cluster cluster = SingletonServiceFactory.getBean(Cluster.class);
     private static final HostWhitelist HOST_WHITELIST = new HostWhitelist();
 
@@ -94,7 +99,7 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
     };
 
     public LoadBalancingRouterProxyClient() {
-        this(UndertowClient.getInstance());
+        this(UndertowClient.getInstance(), createHostSelector(config.getHostSelector()));
     }
 
     public LoadBalancingRouterProxyClient(UndertowClient client) {
@@ -110,6 +115,19 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         }
     }
 
+    /**
+     * Create the host selector configured in the router.yml.
+     *
+     * @param name roundRobin or p2c
+     * @return HostSelector
+     */
+    static HostSelector createHostSelector(String name) {
+        if (LeastLoadedHostSelector.NAME.equalsIgnoreCase(name)) {
+            return new LeastLoadedHostSelector();
+        }
+        return new RoundRobinHostSelector();
+    }
+
     public LoadBalancingRouterProxyClient setSsl(final XnioSsl ssl) {
         this.ssl = ssl;
         return this;
@@ -181,6 +199,22 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         hosts.put(key, newHosts);
     }
 
+    /**
+     * Build the hosts of the services that are already in the cluster cache, loaded from the discovery
+     * snapshot or discovered by the warm-up startup hook, so that the first request of each service
+     * doesn't need to discover. It must be called after the ssl and options are set.
+     */
+    public void warmHosts() {
+        for (String key : cluster.getServiceKeys()) {
+            int i = key.indexOf('|');
+            try {
+                addHosts(i < 0 ? key : key.substring(0, i), i < 0 ? null : key.substring(i + 1));
+            } catch (Exception e) {
+                logger.error("Failed to warm up hosts for key " + key, e);
+            }
+        }
+    }
+
     @Override
     public ProxyTarget findTarget(HttpServerExchange exchange) {
         return PROXY_TARGET;
@@ -188,12 +222,38 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
 
     @Override
     public void getConnection(ProxyTarget target, HttpServerExchange exchange, final ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit) {
+        connect(target, exchange, callback, timeout, timeUnit, false);
+    }
+
+    /**
+     * Check if the hedged attempt can be sent to another host. The hosts of a service with a single uri are
+     * duplicated for the retry, so the uri of the hosts is compared instead of the hosts.
+     *
+     * @param exchange HttpServerExchange
+     * @return true if there is a host with a uri other than the uris already attempted
+     */
+    @Override
+    public boolean hasOtherHost(HttpServerExchange exchange) {
+        try {
+            return selectHost(exchange, true) != null;
+        } catch (Exception ex) {
+            logger.error("Failed to select the host of the hedge", ex);
+            return false;
+        }
+    }
+
+    @Override
+    public void getHedgeConnection(ProxyTarget target, HttpServerExchange exchange, ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit) {
+        connect(target, exchange, callback, timeout, timeUnit, true);
+    }
+
+    private void connect(ProxyTarget target, HttpServerExchange exchange, final ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit, boolean hedge) {
         try {
-            Host host = selectHost(exchange);
+            Host host = selectHost(exchange, hedge);
             if(logger.isTraceEnabled()) logger.trace("First time to selectHost and uri = {}", host == null ? null : host.getUri());
             if (host == null) {
                 // give it second chance for service discovery again when problem occurs.
-                host = selectHost(exchange);
+                host = selectHost(exchange, hedge);
                 if(logger.isTraceEnabled()) logger.trace("Second time to selectHost and uri = {}", host == null ? null : host.getUri());
             }
             if (host == null) {
@@ -201,7 +261,9 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
                 if(logger.isTraceEnabled()) logger.trace("callback could not resolve backend.");
             } else {
                 exchange.addToAttachmentList(ATTEMPTED_HOSTS, host);
-                host.connectionPool.connect(target, exchange, callback, timeout, timeUnit, false);
+                // only track the load of the hosts if the selector uses it.
+                ProxyCallback<ProxyConnection> hostCallback = hostSelector instanceof LeastLoadedHostSelector ? new LoadTrackingCallback(host.stats, callback) : callback;
+                host.connectionPool.connect(target, exchange, hostCallback, timeout, timeUnit, false);
                 if(logger.isTraceEnabled()) logger.trace("got connection from the connection pool");
             }
         } catch (Exception ex) {
@@ -212,6 +274,18 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
     }
 
     protected Host selectHost(HttpServerExchange exchange) {
+        return selectHost(exchange, false);
+    }
+
+    /**
+     * Select the host of an attempt. A retry skips the hosts already attempted, and a hedge also skips the
+     * hosts with the uris already attempted, so it is never sent to the host of the primary attempt.
+     *
+     * @param exchange HttpServerExchange
+     * @param hedge true if the host is selected for the hedged attempt
+     * @return the selected host or null if no host is available
+     */
+    Host selectHost(HttpServerExchange exchange, boolean hedge) {
         // get serviceId, env tag and hash key from header.
         HeaderMap headers = exchange.getRequestHeaders();
         String serviceId = headers.getFirst(HttpStringConstants.SERVICE_ID);
@@ -279,7 +353,7 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         Host problem = null;
         do {
             Host selected = hostArray[host];
-            if (attempted == null || !attempted.contains(selected)) {
+            if (attempted == null || !(hedge ? attemptedUri(attempted, selected) : attempted.contains(selected))) {
                 ProxyConnectionPool.AvailabilityType available = selected.connectionPool.available();
                 if (available == AVAILABLE) {
                     // inject the jaeger tracer.
@@ -305,6 +379,13 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         return null;
     }
 
+    private static boolean attemptedUri(List<Host> attempted, Host host) {
+        for (Host h : attempted) {
+            if (h.uri.equals(host.uri)) return true;
+        }
+        return false;
+    }
+
     /*
     private void injectTracer(HttpServerExchange exchange, Host host) {
         if(ClientConfig.get().isInjectOpenTracing()) {
@@ -343,6 +424,7 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         final String serviceId;
         final URI uri;
         final XnioSsl ssl;
+        final HostStats stats = new HostStats();
 
         private Host(String serviceId, InetSocketAddress bindAddress, URI uri, XnioSsl ssl, OptionMap options) {
             this.connectionPool = new ProxyConnectionPool(this, bindAddress, uri, ssl, client, options);
@@ -385,6 +467,10 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
             return uri;
         }
 
+        public HostStats getStats() {
+            return stats;
+        }
+
         void closeCurrentConnections() {
             connectionPool.closeCurrentConnections();
         }
@@ -405,4 +491,99 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         }
     }
 
+    /**
+     * The power of two choices selector. It samples two different hosts at random and picks the one
+     * with fewer requests in flight weighted by the moving average of the response time, so that a
+     * degraded host gets less traffic without scanning all the hosts for each request.
+     */
+    static class LeastLoadedHostSelector implements HostSelector {
+        static final String NAME = "p2c";
+
+        @Override
+        public int selectHost(Host[] availableHosts) {
+            return select(availableHosts.length, i -> availableHosts[i].stats);
+        }
+
+        static int select(int size, IntFunction<HostStats> stats) {
+            if (size <= 1) return 0;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) second++;
+            return stats.apply(first).getLoad() <= stats.apply(second).getLoad() ? first : second;
+        }
+    }
+
+    /**
+     * Start the tracking of a request to the selected host. The response time is recorded by the
+     * LoadTrackingConnection when the ProxyHandler receives the response from the host.
+     */
+    private static final class LoadTrackingCallback implements ProxyCallback<ProxyConnection> {
+        private final HostStats stats;
+        private final ProxyCallback<ProxyConnection> callback;
+        private final long start = System.nanoTime();
+
+        private LoadTrackingCallback(HostStats stats, ProxyCallback<ProxyConnection> callback) {
+            this.stats = stats;
+            this.callback = callback;
+            stats.start();
+        }
+
+        @Override
+        public void completed(HttpServerExchange exchange, ProxyConnection result) {
+            LoadTrackingConnection connection = new LoadTrackingConnection(result, stats, start);
+            // a request that ends without a response from the host, for example on a timeout, is a failure.
+            exchange.addExchangeCompleteListener((exchange1, nextListener) -> {
+                connection.failed();
+                nextListener.proceed();
+            });
+            callback.completed(exchange, connection);
+        }
+
+        @Override
+        public void failed(HttpServerExchange exchange) {
+            stats.failed();
+            callback.failed(exchange);
+        }
+
+        @Override
+        public void queuedRequestFailed(HttpServerExchange exchange) {
+            stats.failed();
+            callback.queuedRequestFailed(exchange);
+        }
+
+        @Override
+        public void couldNotResolveBackend(HttpServerExchange exchange) {
+            stats.failed();
+            callback.couldNotResolveBackend(exchange);
+        }
+    }
+
+    /**
+     * The connection to the selected host that records the outcome of the request in the stats of the
+     * host once. The ProxyHandler reports the response or the failure of each attempt, so a hedged or
+     * retried request records the latency or the failure of every host that it was sent to.
+     */
+    static final class LoadTrackingConnection extends ProxyConnection implements ProxyAttemptListener {
+        private final HostStats stats;
+        private final long start;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        LoadTrackingConnection(ProxyConnection connection, HostStats stats, long start) {
+            super(connection.getConnection(), connection.getTargetPath());
+            this.stats = stats;
+            this.start = start;
+        }
+
+        @Override
+        public void responseReceived() {
+            if (recorded.compareAndSet(false, true)) stats.complete(System.nanoTime() - start);
+        }
+
+        @Override
+        public void failed() {
+            if (recorded.compareAndSet(false, true)) stats.failed();
+        }
+    }
+
 }
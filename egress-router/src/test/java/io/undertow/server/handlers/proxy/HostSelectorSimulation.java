@@ -0,0 +1,101 @@
+package io.undertow.server.handlers.proxy;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * A discrete event simulation of the router in front of a service with several instances and one of
+ * them degraded. Each instance serves a fixed number of requests concurrently with an exponential
+ * service time and queues the rest. The requests arrive as a Poisson process and are distributed with
+ * the round-robin selector or the p2c least loaded selector, and the response time percentiles are
+ * printed for both.
+ *
+ * Run it from the IDE or with the test classpath after mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+public class HostSelectorSimulation {
+    static final int HOSTS = 5;
+    static final int CONCURRENCY = 8;
+    static final double SERVICE_TIME = 10;
+    static final double DEGRADED_FACTOR = 2.5;
+    static final double ARRIVAL_RATE = 1.5;
+
+    /**
+     * Run the simulation.
+     *
+     * @param leastLoaded true for the p2c selector and false for round-robin
+     * @param requests the number of requests
+     * @param seed the random seed of the arrivals and the service times
+     * @return the sorted response times in milliseconds
+     */
+    static double[] run(boolean leastLoaded, int requests, long seed) {
+        Random random = new Random(seed);
+        HostStats[] stats = new HostStats[HOSTS];
+        int[] busy = new int[HOSTS];
+        ArrayDeque<Double>[] queues = new ArrayDeque[HOSTS];
+        for (int i = 0; i < HOSTS; i++) {
+            stats[i] = new HostStats();
+            queues[i] = new ArrayDeque<>();
+        }
+        // each event is the completion time, the host and the arrival time of a request.
+        PriorityQueue<double[]> events = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        double[] latencies = new double[requests];
+        double nextArrival = exponential(random, 1 / ARRIVAL_RATE);
+        int arrived = 0;
+        int done = 0;
+        int next = 0;
+        while (done < requests) {
+            if (arrived < requests && (events.isEmpty() || nextArrival <= events.peek()[0])) {
+                double now = nextArrival;
+                arrived++;
+                int host = leastLoaded ? LoadBalancingRouterProxyClient.LeastLoadedHostSelector.select(HOSTS, i -> stats[i]) : next++ % HOSTS;
+                stats[host].start();
+                if (busy[host] < CONCURRENCY) {
+                    busy[host]++;
+                    events.add(new double[]{now + serviceTime(random, host), host, now});
+                } else {
+                    queues[host].add(now);
+                }
+                nextArrival = now + exponential(random, 1 / ARRIVAL_RATE);
+            } else {
+                double[] event = events.poll();
+                int host = (int) event[1];
+                double latency = event[0] - event[2];
+                latencies[done++] = latency;
+                stats[host].complete((long) (latency * 1_000_000));
+                Double queued = queues[host].poll();
+                if (queued != null) {
+                    events.add(new double[]{event[0] + serviceTime(random, host), host, queued});
+                } else {
+                    busy[host]--;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    static double percentile(double[] sorted, double percentile) {
+        return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length / 100) - 1)];
+    }
+
+    private static double serviceTime(Random random, int host) {
+        return exponential(random, host == 0 ? SERVICE_TIME * DEGRADED_FACTOR : SERVICE_TIME);
+    }
+
+    private static double exponential(Random random, double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+    public static void main(String[] args) {
+        for (boolean leastLoaded : new boolean[]{false, true}) {
+            double[] latencies = run(leastLoaded, 200_000, 42);
+            System.out.printf("%-11s p50 %8.1f ms  p90 %8.1f ms  p99 %8.1f ms  p99.9 %8.1f ms%n",
+                    leastLoaded ? "p2c" : "roundRobin",
+                    percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99), percentile(latencies, 99.9));
+        }
+    }
+}
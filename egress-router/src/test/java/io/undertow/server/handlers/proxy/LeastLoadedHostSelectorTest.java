@@ -0,0 +1,77 @@
+package io.undertow.server.handlers.proxy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LeastLoadedHostSelectorTest {
+
+    @Test
+    public void testSelectLessLoadedHost() {
+        HostStats slow = new HostStats();
+        HostStats fast = new HostStats();
+        slow.start();
+        slow.complete(TimeUnit.MILLISECONDS.toNanos(100));
+        fast.start();
+        fast.complete(TimeUnit.MILLISECONDS.toNanos(10));
+        HostStats[] stats = {slow, fast};
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(1, LoadBalancingRouterProxyClient.LeastLoadedHostSelector.select(2, j -> stats[j]));
+        }
+        // the requests in flight of the fast host outweigh the latency of the slow host.
+        for (int i = 0; i < 20; i++) {
+            fast.start();
+        }
+        Assertions.assertEquals(0, LoadBalancingRouterProxyClient.LeastLoadedHostSelector.select(2, j -> stats[j]));
+        Assertions.assertEquals(0, LoadBalancingRouterProxyClient.LeastLoadedHostSelector.select(1, j -> stats[j]));
+    }
+
+    @Test
+    public void testMovingAverage() {
+        HostStats stats = new HostStats();
+        stats.start();
+        stats.complete(TimeUnit.MILLISECONDS.toNanos(10));
+        Assertions.assertEquals(10_000, stats.getLatency(), 0.001);
+        stats.start();
+        stats.failed();
+        Assertions.assertEquals(10_000 + HostStats.ALPHA * (HostStats.FAILURE_PENALTY - 10_000), stats.getLatency(), 0.001);
+        Assertions.assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    public void testTrackingConnectionRecordsOnce() {
+        HostStats winner = new HostStats();
+        HostStats loser = new HostStats();
+        winner.start();
+        loser.start();
+        LoadBalancingRouterProxyClient.LoadTrackingConnection winnerConnection = new LoadBalancingRouterProxyClient.LoadTrackingConnection(new ProxyConnection(null, "/"), winner, System.nanoTime());
+        LoadBalancingRouterProxyClient.LoadTrackingConnection loserConnection = new LoadBalancingRouterProxyClient.LoadTrackingConnection(new ProxyConnection(null, "/"), loser, System.nanoTime());
+        // the response of the winner arrives and the other attempt is abandoned.
+        winnerConnection.responseReceived();
+        loserConnection.failed();
+        // the exchange complete listener doesn't record the attempts again.
+        winnerConnection.failed();
+        loserConnection.responseReceived();
+        Assertions.assertEquals(0, winner.getInFlight());
+        Assertions.assertEquals(0, loser.getInFlight());
+        Assertions.assertTrue(winner.getLatency() < HostStats.FAILURE_PENALTY);
+        Assertions.assertEquals(HostStats.FAILURE_PENALTY, loser.getLatency(), 0.001);
+    }
+
+    @Test
+    public void testCreateHostSelector() {
+        Assertions.assertTrue(LoadBalancingRouterProxyClient.createHostSelector("p2c") instanceof LoadBalancingRouterProxyClient.LeastLoadedHostSelector);
+        Assertions.assertTrue(LoadBalancingRouterProxyClient.createHostSelector("roundRobin") instanceof LoadBalancingRouterProxyClient.RoundRobinHostSelector);
+        Assertions.assertTrue(LoadBalancingRouterProxyClient.createHostSelector(null) instanceof LoadBalancingRouterProxyClient.RoundRobinHostSelector);
+    }
+
+    @Test
+    public void testTailLatencyWithDegradedHost() {
+        double[] roundRobin = HostSelectorSimulation.run(false, 20_000, 7);
+        double[] leastLoaded = HostSelectorSimulation.run(true, 20_000, 7);
+        double p99RoundRobin = HostSelectorSimulation.percentile(roundRobin, 99);
+        double p99LeastLoaded = HostSelectorSimulation.percentile(leastLoaded, 99);
+        Assertions.assertTrue(p99LeastLoaded * 1.5 < p99RoundRobin, "p2c p99 " + p99LeastLoaded + " round-robin p99 " + p99RoundRobin);
+    }
+}
@@ -0,0 +1,83 @@
+package io.undertow.server.handlers.proxy;
+
+import com.networknt.httpstring.HttpStringConstants;
+import io.undertow.server.HttpServerExchange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.xnio.OptionMap;
+import org.xnio.Xnio;
+import org.xnio.XnioWorker;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class LoadBalancingRouterProxyClientTest {
+    private static XnioWorker worker;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        worker = Xnio.getInstance().createWorker(OptionMap.EMPTY);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    public void testHedgeOnAnotherHost() throws Exception {
+        LoadBalancingRouterProxyClient client = new LoadBalancingRouterProxyClient();
+        for (int i = 0; i < 4; i++) {
+            URI[] uris = onIoThread(() -> {
+                HttpServerExchange exchange = exchange("com.networknt.hedge-1.0.0", null);
+                LoadBalancingRouterProxyClient.Host primary = client.selectHost(exchange);
+                exchange.addToAttachmentList(LoadBalancingRouterProxyClient.ATTEMPTED_HOSTS, primary);
+                Assertions.assertTrue(client.hasOtherHost(exchange));
+                return new URI[]{primary.getUri(), client.selectHost(exchange, true).getUri()};
+            });
+            // the primary and the hedged attempts hit different hosts.
+            Assertions.assertNotEquals(uris[0], uris[1]);
+        }
+    }
+
+    @Test
+    public void testNoHedgeOnSingleUri() throws Exception {
+        LoadBalancingRouterProxyClient client = new LoadBalancingRouterProxyClient();
+        onIoThread(() -> {
+            HttpServerExchange exchange = exchange("com.networknt.test-1.0.0", "dev");
+            LoadBalancingRouterProxyClient.Host primary = client.selectHost(exchange);
+            exchange.addToAttachmentList(LoadBalancingRouterProxyClient.ATTEMPTED_HOSTS, primary);
+            // the single uri is duplicated for the retry, but the hedge would wait for the same host.
+            LoadBalancingRouterProxyClient.Host retry = client.selectHost(exchange);
+            Assertions.assertNotSame(primary, retry);
+            Assertions.assertEquals(primary.getUri(), retry.getUri());
+            Assertions.assertFalse(client.hasOtherHost(exchange));
+            Assertions.assertNull(client.selectHost(exchange, true));
+            return null;
+        });
+    }
+
+    private static HttpServerExchange exchange(String serviceId, String envTag) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getRequestHeaders().put(HttpStringConstants.SERVICE_ID, serviceId);
+        if (envTag != null) exchange.getRequestHeaders().put(HttpStringConstants.ENV_TAG, envTag);
+        return exchange;
+    }
+
+    // the connection pools of the hosts can only be checked on an IO thread.
+    private static <T> T onIoThread(Supplier<T> task) throws Exception {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        worker.getIoThread().execute(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future.get(10, TimeUnit.SECONDS);
+    }
+}
@@ -22,6 +22,7 @@ import com.networknt.config.ConfigException;
 import com.networknt.config.schema.ArrayField;
 import com.networknt.config.schema.BooleanField;
 import com.networknt.config.schema.ConfigSchema;
+import com.networknt.config.schema.IntegerField;
 import com.networknt.config.schema.OutputFormat;
 import com.networknt.server.ModuleRegistry;
 import org.slf4j.Logger;
@@ -39,6 +40,13 @@ public class ResponseEncodeConfig {
     public static final String CONFIG_NAME = "response-encode";
     public static final String ENABLED = "enabled";
     public static final String ENCODERS = "encoders";
+    public static final String MIN_CONTENT_LENGTH = "minContentLength";
+    public static final String COMPRESSION_LEVEL = "compressionLevel";
+    public static final String DEFLATER_POOL_SIZE = "deflaterPoolSize";
+    public static final String INCLUDE_CONTENT_TYPES = "includeContentTypes";
+    public static final String EXCLUDE_CONTENT_TYPES = "excludeContentTypes";
+    static final List<String> DEFAULT_EXCLUDE_CONTENT_TYPES = List.of("image/*", "audio/*", "video/*", "font/woff", "font/woff2",
+            "application/zip", "application/gzip", "application/x-gzip", "application/zstd", "application/pdf");
     private Map<String, Object> mappedConfig;
 
 
@@ -59,6 +67,51 @@ public class ResponseEncodeConfig {
     )
     List<String> encoders;
 
+    @IntegerField(
+            configFieldName = MIN_CONTENT_LENGTH,
+            externalizedKeyName = MIN_CONTENT_LENGTH,
+            defaultValue = "1024",
+            description = "The minimum Content-Length in bytes of a response to be encoded. A small response is sent as it is\n" +
+                    "because the encoding saves few bytes for the CPU it costs. A response without Content-Length is encoded."
+    )
+    int minContentLength = 1024;
+
+    @IntegerField(
+            configFieldName = COMPRESSION_LEVEL,
+            externalizedKeyName = COMPRESSION_LEVEL,
+            defaultValue = "-1",
+            description = "The compression level from 1 (fastest) to 9 (smallest) of the encoders. -1 is the default level 6."
+    )
+    int compressionLevel = -1;
+
+    @IntegerField(
+            configFieldName = DEFLATER_POOL_SIZE,
+            externalizedKeyName = DEFLATER_POOL_SIZE,
+            defaultValue = "64",
+            description = "The max number of idle Deflater instances that are kept in the pool of each encoder for reuse."
+    )
+    int deflaterPoolSize = 64;
+
+    @ArrayField(
+            configFieldName = INCLUDE_CONTENT_TYPES,
+            externalizedKeyName = INCLUDE_CONTENT_TYPES,
+            defaultValue = "[]",
+            items = String.class,
+            description = "The response content types to encode. A type ending with /* matches all the subtypes. If it is\n" +
+                    "empty, all the content types that are not excluded are encoded."
+    )
+    List<String> includeContentTypes = new ArrayList<>();
+
+    @ArrayField(
+            configFieldName = EXCLUDE_CONTENT_TYPES,
+            externalizedKeyName = EXCLUDE_CONTENT_TYPES,
+            defaultValue = "[\"image/*\", \"audio/*\", \"video/*\", \"font/woff\", \"font/woff2\", \"application/zip\", \"application/gzip\", \"application/x-gzip\", \"application/zstd\", \"application/pdf\"]",
+            items = String.class,
+            description = "The response content types that are already compressed and not encoded again. A type ending\n" +
+                    "with /* matches all the subtypes."
+    )
+    List<String> excludeContentTypes = new ArrayList<>(DEFAULT_EXCLUDE_CONTENT_TYPES);
+
     private static volatile ResponseEncodeConfig instance;
 
     private ResponseEncodeConfig(String configName) {
@@ -110,6 +163,46 @@ public class ResponseEncodeConfig {
         this.encoders = encoders;
     }
 
+    public int getMinContentLength() {
+        return minContentLength;
+    }
+
+    public void setMinContentLength(int minContentLength) {
+        this.minContentLength = minContentLength;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public int getDeflaterPoolSize() {
+        return deflaterPoolSize;
+    }
+
+    public void setDeflaterPoolSize(int deflaterPoolSize) {
+        this.deflaterPoolSize = deflaterPoolSize;
+    }
+
+    public List<String> getIncludeContentTypes() {
+        return includeContentTypes;
+    }
+
+    public void setIncludeContentTypes(List<String> includeContentTypes) {
+        this.includeContentTypes = includeContentTypes;
+    }
+
+    public List<String> getExcludeContentTypes() {
+        return excludeContentTypes;
+    }
+
+    public void setExcludeContentTypes(List<String> excludeContentTypes) {
+        this.excludeContentTypes = excludeContentTypes;
+    }
+
     public Map<String, Object> getMappedConfig() {
         return mappedConfig;
     }
@@ -120,37 +213,52 @@ public class ResponseEncodeConfig {
         if (getMappedConfig() != null) {
             Object object = getMappedConfig().get(ENABLED);
             if(object != null) enabled = Config.loadBooleanValue(ENABLED, object);
+            object = getMappedConfig().get(MIN_CONTENT_LENGTH);
+            if(object != null) minContentLength = Config.loadIntegerValue(MIN_CONTENT_LENGTH, object);
+            object = getMappedConfig().get(COMPRESSION_LEVEL);
+            if(object != null) compressionLevel = Config.loadIntegerValue(COMPRESSION_LEVEL, object);
+            object = getMappedConfig().get(DEFLATER_POOL_SIZE);
+            if(object != null) deflaterPoolSize = Config.loadIntegerValue(DEFLATER_POOL_SIZE, object);
+        }
+        if(compressionLevel < -1 || compressionLevel > 9) {
+            throw new ConfigException("compressionLevel must be -1 or between 0 and 9.");
         }
     }
 
     private void setConfigList() {
-        if (mappedConfig != null && mappedConfig.get(ENCODERS) != null) {
-            Object object = mappedConfig.get(ENCODERS);
-            encoders = new ArrayList<>();
-            if(object instanceof String) {
-                String s = (String)object;
-                s = s.trim();
-                if(logger.isTraceEnabled()) logger.trace("s = " + s);
-                if(s.startsWith("[")) {
-                    // json format
-                    try {
-                        encoders = Config.getInstance().getMapper().readValue(s, new TypeReference<List<String>>() {});
-                    } catch (Exception e) {
-                        throw new ConfigException("could not parse the encoders json with a list of strings.");
-                    }
-                } else {
-                    // comma separated
-                    encoders = Arrays.asList(s.split("\\s*,\\s*"));
+        if (mappedConfig != null) {
+            if (mappedConfig.get(ENCODERS) != null) encoders = loadList(ENCODERS, mappedConfig.get(ENCODERS));
+            if (mappedConfig.get(INCLUDE_CONTENT_TYPES) != null) includeContentTypes = loadList(INCLUDE_CONTENT_TYPES, mappedConfig.get(INCLUDE_CONTENT_TYPES));
+            if (mappedConfig.get(EXCLUDE_CONTENT_TYPES) != null) excludeContentTypes = loadList(EXCLUDE_CONTENT_TYPES, mappedConfig.get(EXCLUDE_CONTENT_TYPES));
+        }
+    }
+
+    private static List<String> loadList(String name, Object object) {
+        List<String> list = new ArrayList<>();
+        if(object instanceof String) {
+            String s = (String)object;
+            s = s.trim();
+            if(logger.isTraceEnabled()) logger.trace("s = " + s);
+            if(s.startsWith("[")) {
+                // json format
+                try {
+                    list = Config.getInstance().getMapper().readValue(s, new TypeReference<List<String>>() {});
+                } catch (Exception e) {
+                    throw new ConfigException("could not parse the " + name + " json with a list of strings.");
                 }
-            } else if (object instanceof List) {
-                List prefixes = (List)object;
-                prefixes.forEach(item -> {
-                    encoders.add((String)item);
-                });
-            } else {
-                throw new ConfigException("encoders must be a string or a list of strings.");
+            } else if(!s.isEmpty()) {
+                // comma separated
+                list = Arrays.asList(s.split("\\s*,\\s*"));
+            }
+        } else if (object instanceof List) {
+            List items = (List)object;
+            for (Object item : items) {
+                list.add((String)item);
             }
+        } else {
+            throw new ConfigException(name + " must be a string or a list of strings.");
         }
+        return list;
     }
 
 }
@@ -22,19 +22,25 @@ import com.networknt.handler.MiddlewareHandler;
 import com.networknt.utility.Constants;
 import com.networknt.server.ModuleRegistry;
 import io.undertow.Handlers;
+import io.undertow.conduits.DeflatingStreamSinkConduit;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.encoding.AllowedContentEncodings;
 import io.undertow.server.handlers.encoding.ContentEncodingRepository;
 import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
 import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.util.ObjectPool;
 
 import java.util.List;
+import java.util.zip.Deflater;
 
 /**
  * This is a middleware handler that you can wire in to the response chain to gzip large content
  * body in order to speed up the delivery and reduce the bandwidth usage.
  *
+ * Only the responses that pass the ResponseEncodePolicy are encoded, and each encoder compresses
+ * with the configured level and reuses the Deflater instances from a pool.
+ *
  * @author Steve Hu
  */
 public class ResponseEncodeHandler implements MiddlewareHandler {
@@ -61,13 +67,14 @@ public class ResponseEncodeHandler implements MiddlewareHandler {
 
     private void buildRepository(ResponseEncodeConfig config) {
         ContentEncodingRepository repository = new ContentEncodingRepository();
+        ResponseEncodePolicy policy = new ResponseEncodePolicy(config);
         List<String> encoders = config.getEncoders();
         if(encoders != null) {
             for (String encoder : encoders) {
                 if (Constants.ENCODE_GZIP.equals(encoder)) {
-                    repository.addEncodingHandler(encoder, new GzipEncodingProvider(), 100);
+                    repository.addEncodingHandler(encoder, new GzipEncodingProvider(deflaterPool(config)), 100, policy);
                 } else if (Constants.ENCODE_DEFLATE.equals(encoder)) {
-                    repository.addEncodingHandler(encoder, new DeflateEncodingProvider(), 10);
+                    repository.addEncodingHandler(encoder, new DeflateEncodingProvider(deflaterPool(config)), 10, policy);
                 } else {
                     throw new RuntimeException("Invalid encoder " + encoder + " for ResponseEncodeHandler.");
                 }
@@ -76,6 +83,10 @@ public class ResponseEncodeHandler implements MiddlewareHandler {
         this.contentEncodingRepository = repository;
     }
 
+    private static ObjectPool<Deflater> deflaterPool(ResponseEncodeConfig config) {
+        return DeflatingStreamSinkConduit.simpleDeflaterPool(Math.max(1, config.getDeflaterPoolSize()), config.getCompressionLevel());
+    }
+
     @Override
     public HttpHandler getNext() {
         return next;
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The encoding policy of the ResponseEncodeHandler. It is evaluated when the response is committed,
+ * so that a response smaller than the minContentLength or with a content type that is excluded or not
+ * included is sent without encoding. The decision is cached by the media type without the parameters,
+ * so the distinct charsets or multipart boundaries of the same type share one entry. The media types of
+ * the responses are a small set, so the cache is a plain ConcurrentHashMap without eviction. It stops
+ * adding entries at the max size, and it is dropped with the policy when the config is reloaded.
+ *
+ * @author Steve Hu
+ */
+final class ResponseEncodePolicy implements Predicate {
+    static final int MAX_CACHE_SIZE = 1000;
+
+    private final long minContentLength;
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final Map<String, Boolean> cache = new ConcurrentHashMap<>();
+
+    ResponseEncodePolicy(ResponseEncodeConfig config) {
+        this.minContentLength = config.getMinContentLength();
+        this.includes = normalize(config.getIncludeContentTypes());
+        this.excludes = normalize(config.getExcludeContentTypes());
+    }
+
+    @Override
+    public boolean resolve(HttpServerExchange exchange) {
+        long length = exchange.getResponseContentLength();
+        if (length >= 0 && length < minContentLength) return false;
+        return isEncodable(exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE));
+    }
+
+    /**
+     * @param contentType the Content-Type header of the response
+     * @return true if the content type is not excluded and is included if there is an include list
+     */
+    boolean isEncodable(String contentType) {
+        if (contentType == null) return includes.isEmpty();
+        String mediaType = mediaType(contentType);
+        Boolean encodable = cache.get(mediaType);
+        if (encodable == null) {
+            encodable = match(mediaType);
+            if (cache.size() < MAX_CACHE_SIZE) cache.put(mediaType, encodable);
+        }
+        return encodable;
+    }
+
+    int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * @param contentType the Content-Type header
+     * @return the lower case media type without the parameters
+     */
+    private static String mediaType(String contentType) {
+        int semicolon = contentType.indexOf(';');
+        return (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private boolean match(String mediaType) {
+        if (matches(excludes, mediaType)) return false;
+        return includes.isEmpty() || matches(includes, mediaType);
+    }
+
+    private static boolean matches(List<String> types, String mediaType) {
+        for (String type : types) {
+            // a wildcard type is kept as the prefix up to and including the slash.
+            if (type.endsWith("/") ? mediaType.startsWith(type) : mediaType.equals(type)) return true;
+        }
+        return false;
+    }
+
+    private static List<String> normalize(List<String> types) {
+        List<String> normalized = new ArrayList<>();
+        if (types != null) {
+            for (String type : types) {
+                String t = type.trim().toLowerCase(Locale.ROOT);
+                if (t.isEmpty()) continue;
+                normalized.add(t.endsWith("/*") ? t.substring(0, t.length() - 1) : t);
+            }
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import io.undertow.conduits.DeflatingStreamSinkConduit;
+import io.undertow.util.ObjectPool;
+import io.undertow.util.PooledObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Measure the CPU time to compress a JSON response of 256 bytes, 4 KB and 64 KB at the levels 1, 6
+ * and 9 with a Deflater from the pool that the ResponseEncodeHandler uses and with a new Deflater for
+ * each response like before. The compressed size of each combination is printed in the setup as the
+ * bytes per request.
+ *
+ * Run it from the IDE or with the test classpath after mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodeBenchmark {
+
+    @Param({"256", "4096", "65536"})
+    public int size;
+
+    @Param({"1", "6", "9"})
+    public int level;
+
+    private byte[] body;
+    private byte[] buffer;
+    private ObjectPool<Deflater> pool;
+
+    @Setup
+    public void setup() {
+        body = json(size);
+        buffer = new byte[size + 1024];
+        pool = DeflatingStreamSinkConduit.simpleDeflaterPool(64, level);
+        System.out.printf("%n%d bytes at level %d are compressed to %d bytes%n", size, level, pooled());
+    }
+
+    @Benchmark
+    public int pooled() {
+        try (PooledObject<Deflater> pooled = pool.allocate()) {
+            return deflate(pooled.getObject());
+        }
+    }
+
+    @Benchmark
+    public int perExchange() {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            return deflate(deflater);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private int deflate(Deflater deflater) {
+        deflater.setInput(body);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(buffer);
+        }
+        return length;
+    }
+
+    static byte[] json(int size) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; sb.length() < size - 1; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"name\":\"customer").append(i)
+                    .append("\",\"status\":\"").append(i % 3 == 0 ? "active" : "inactive").append("\",\"balance\":")
+                    .append((i * 7919) % 100000 / 100.0).append('}');
+        }
+        sb.setLength(size - 1);
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ResponseEncodeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -25,5 +25,9 @@ public class ResponseEncodeConfigTest {
     public void loadConfig() {
         ResponseEncodeConfig config = ResponseEncodeConfig.load();
         Assertions.assertEquals(config.getEncoders().size(), 2);
+        Assertions.assertEquals(1024, config.getMinContentLength());
+        Assertions.assertEquals(-1, config.getCompressionLevel());
+        Assertions.assertTrue(config.getIncludeContentTypes().isEmpty());
+        Assertions.assertEquals(ResponseEncodeConfig.DEFAULT_EXCLUDE_CONTENT_TYPES, config.getExcludeContentTypes());
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ResponseEncodePolicyTest {
+
+    @Test
+    public void testMinContentLength() {
+        ResponseEncodeConfig config = ResponseEncodeConfig.load();
+        ResponseEncodePolicy policy = new ResponseEncodePolicy(config);
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, 1023);
+        Assertions.assertFalse(policy.resolve(exchange));
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, 1024);
+        Assertions.assertTrue(policy.resolve(exchange));
+        // the length of a chunked response is unknown and it is encoded.
+        exchange.getResponseHeaders().remove(Headers.CONTENT_LENGTH);
+        Assertions.assertTrue(policy.resolve(exchange));
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "video/mp4");
+        Assertions.assertFalse(policy.resolve(exchange));
+    }
+
+    @Test
+    public void testContentTypes() {
+        ResponseEncodeConfig config = ResponseEncodeConfig.load();
+        ResponseEncodePolicy policy = new ResponseEncodePolicy(config);
+        Assertions.assertTrue(policy.isEncodable("application/json"));
+        Assertions.assertTrue(policy.isEncodable(null));
+        Assertions.assertFalse(policy.isEncodable("image/png"));
+        Assertions.assertFalse(policy.isEncodable("Application/ZIP; charset=binary"));
+        Assertions.assertFalse(policy.isEncodable("application/pdf"));
+
+        ResponseEncodeConfig includeConfig = ResponseEncodeConfig.load("response-encode-include");
+        includeConfig.setIncludeContentTypes(List.of("text/*", "application/json"));
+        includeConfig.setExcludeContentTypes(List.of("text/event-stream"));
+        policy = new ResponseEncodePolicy(includeConfig);
+        Assertions.assertTrue(policy.isEncodable("text/html; charset=UTF-8"));
+        Assertions.assertTrue(policy.isEncodable("application/json"));
+        Assertions.assertFalse(policy.isEncodable("text/event-stream"));
+        Assertions.assertFalse(policy.isEncodable("application/xml"));
+        Assertions.assertFalse(policy.isEncodable(null));
+        // the wildcard only matches the full type.
+        Assertions.assertFalse(policy.isEncodable("textual/plain"));
+    }
+
+    @Test
+    public void testCacheKeyedByMediaType() {
+        ResponseEncodePolicy policy = new ResponseEncodePolicy(ResponseEncodeConfig.load());
+        for (int i = 0; i < ResponseEncodePolicy.MAX_CACHE_SIZE * 2; i++) {
+            Assertions.assertTrue(policy.isEncodable("multipart/mixed; boundary=" + i));
+        }
+        Assertions.assertTrue(policy.isEncodable("Application/JSON; charset=UTF-8"));
+        Assertions.assertTrue(policy.isEncodable("application/json"));
+        // the parameters don't add entries to the cache.
+        Assertions.assertEquals(2, policy.getCacheSize());
+        // the distinct media types are not cached beyond the max size.
+        for (int i = 0; i < ResponseEncodePolicy.MAX_CACHE_SIZE * 2; i++) {
+            Assertions.assertTrue(policy.isEncodable("text/x-" + i));
+        }
+        Assertions.assertEquals(ResponseEncodePolicy.MAX_CACHE_SIZE, policy.getCacheSize());
+        Assertions.assertFalse(policy.isEncodable("image/png"));
+    }
+}
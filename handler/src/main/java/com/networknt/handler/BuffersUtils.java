@@ -19,6 +19,7 @@
  */
 package com.networknt.handler;
 
+import com.networknt.httpstring.AttachmentConstants;
 import io.undertow.connector.PooledByteBuffer;
 import io.undertow.server.HttpServerExchange;
 import org.slf4j.Logger;
@@ -26,8 +27,12 @@ import org.slf4j.LoggerFactory;
 import org.xnio.Buffers;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Utility class for working with PooledByteBuffer and ByteBuffer.
@@ -47,65 +52,34 @@ public class BuffersUtils {
     public static final RequestInjectionConfig config = RequestInjectionConfig.load();
 
     /**
-     * Maximum content size allowed based on configuration.
+     * Maximum content size of the in-memory buffers based on configuration. A body spilled to disk is
+     * larger, and it is read from the spill segments without this limit.
      */
     public static final int MAX_CONTENT_SIZE = 16 * 1024 * config.getMaxBuffers(); // 16KB * maxBuffers
 
     private static final Logger LOG = LoggerFactory.getLogger(BuffersUtils.class);
 
     /**
-     * Converts an array of PooledByteBuffers to a single ByteBuffer.
+     * Converts an array of PooledByteBuffers to a single ByteBuffer of the exact size of the content.
      * @param srcs An array of PooledByteBuffer to be converted.
      * @return a ByteBuffer containing the content of the srcs
-     * @throws IOException If the content exceeds the MAX_CONTENT_SIZE
+     * @throws IOException If the content is too large for a single array
      */
     public static ByteBuffer toByteBuffer(final PooledByteBuffer[] srcs) throws IOException {
         if (srcs == null)
             return null;
 
-        var dst = ByteBuffer.allocate(MAX_CONTENT_SIZE);
-
-        for (PooledByteBuffer src : srcs) {
-
-            if (src != null) {
-                final var srcBuffer = src.getBuffer();
-
-                if (srcBuffer.remaining() > dst.remaining()) {
-
-                    if (LOG.isErrorEnabled())
-                        LOG.error("Request content exceeded {} bytes limit", MAX_CONTENT_SIZE);
-
-                    throw new IOException("Request content exceeded " + MAX_CONTENT_SIZE + " bytes limit");
-                }
-
-                if (srcBuffer.hasRemaining()) {
-                    Buffers.copy(dst, srcBuffer);
-                    srcBuffer.flip();
-                }
-            }
-        }
-
-        return dst.flip();
+        return ByteBuffer.wrap(copyOf(srcs));
     }
 
     /**
      * Converts an array of PooledByteBuffers to a byte array.
      * @param src An array of PooledByteBuffer to be converted.
      * @return a byte array containing the content of the src
-     * @throws IOException If the content exceeds the MAX_CONTENT_SIZE
+     * @throws IOException If the content is too large for a single array
      */
     public static byte[] toByteArray(final PooledByteBuffer[] src) throws IOException {
-        ByteBuffer content = toByteBuffer(src);
-
-        if (content == null)
-            return new byte[]{};
-
-        byte[] ret = new byte[content.remaining()];
-        content.rewind();
-
-        /* 'get' actually copies the bytes from the ByteBuffer to our destination 'ret' byte array. */
-        content.get(ret);
-        return ret;
+        return copyOf(src);
     }
 
     /**
@@ -113,26 +87,162 @@ public class BuffersUtils {
      *
      * @param src An array of PooledByteBuffer to get the byte array from.
      * @return a byte array containing the content of the src
-     * @throws IOException If the content exceeds the MAX_CONTENT_SIZE
+     * @throws IOException If the content is too large for a single array
      */
     public static byte[] getByteArray(final PooledByteBuffer[] src) throws IOException {
-        ByteBuffer content = toByteBuffer(src);
-
-        if (content != null && content.hasArray())
-            return content.array();
-
-        return new byte[]{};
+        return copyOf(src);
     }
 
     /**
-     * Converts an array of PooledByteBuffers to a String using the specified charset.
+     * Converts an array of PooledByteBuffers to a String using the specified charset. The buffers,
+     * including the memory-mapped segments of a body spilled to disk, are decoded one after another
+     * into the String without copying the content into a single byte array first.
      * @param srcs An array of PooledByteBuffer to be converted.
      * @param cs The Charset to be used for decoding.
      * @return The resulting String.
      * @throws IOException If an I/O error occurs.
      */
     public static String toString(final PooledByteBuffer[] srcs, Charset cs) throws IOException {
-        return new String(toByteArray(srcs), cs);
+        if (srcs == null)
+            return "";
+
+        long size = remaining(srcs);
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IOException("Request content of " + size + " bytes is too large for a String");
+
+        var decoder = cs.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        var out = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(size * (double) decoder.maxCharsPerByte())));
+        // the bytes of a character that is split between two buffers are carried to the next one.
+        var carry = ByteBuffer.allocate(16);
+        for (PooledByteBuffer src : srcs) {
+            if (src == null)
+                continue;
+
+            var in = src.getBuffer().duplicate();
+            while (carry.position() > 0 && in.hasRemaining()) {
+                carry.put(in.get());
+                carry.flip();
+                decoder.decode(carry, out, false);
+                carry.compact();
+            }
+            decoder.decode(in, out, false);
+            carry.put(in);
+        }
+        carry.flip();
+        decoder.decode(carry, out, true);
+        decoder.flush(out);
+        return out.flip().toString();
+    }
+
+    /**
+     * Copy the content of the pooled buffers into a byte array of the exact size without changing
+     * the position of the pooled buffers.
+     *
+     * @param srcs An array of PooledByteBuffer to be copied.
+     * @return a byte array containing the content of the srcs
+     * @throws IOException If the content is too large for a single array
+     */
+    private static byte[] copyOf(final PooledByteBuffer[] srcs) throws IOException {
+        if (srcs == null)
+            return new byte[]{};
+
+        long size = remaining(srcs);
+        if (size > Integer.MAX_VALUE - 8) {
+
+            if (LOG.isErrorEnabled())
+                LOG.error("Request content of {} bytes is too large for a byte array", size);
+
+            throw new IOException("Request content of " + size + " bytes is too large for a byte array");
+        }
+
+        byte[] ret = new byte[(int) size];
+        int offset = 0;
+        for (PooledByteBuffer src : srcs) {
+            if (src != null) {
+                var buffer = src.getBuffer().duplicate();
+                int n = buffer.remaining();
+                buffer.get(ret, offset, n);
+                offset += n;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the number of bytes in the pooled buffers.
+     *
+     * @param srcs An array of PooledByteBuffer.
+     * @return the total remaining bytes of the srcs
+     */
+    public static long remaining(final PooledByteBuffer[] srcs) {
+        long size = 0;
+        if (srcs != null) {
+            for (PooledByteBuffer src : srcs)
+                if (src != null)
+                    size += src.getBuffer().remaining();
+        }
+        return size;
+    }
+
+    /**
+     * Returns an InputStream that reads the content of the pooled buffers without copying them.
+     * The position of the pooled buffers is not changed, so the content can still be forwarded
+     * to the backend. It allows the JSON body to be parsed without creating a String first.
+     *
+     * @param srcs An array of PooledByteBuffer to be read.
+     * @return InputStream of the srcs
+     */
+    public static InputStream toInputStream(final PooledByteBuffer[] srcs) {
+        return new PooledBuffersInputStream(srcs == null ? new PooledByteBuffer[0] : srcs);
+    }
+
+    /**
+     * Returns the first byte of the pooled buffers that is not a whitespace. It is used to detect
+     * a JSON object or array without converting the body to a String.
+     *
+     * @param srcs An array of PooledByteBuffer.
+     * @return the first non-whitespace byte or -1 if there is none
+     */
+    public static int firstNonWhitespace(final PooledByteBuffer[] srcs) {
+        if (srcs == null)
+            return -1;
+
+        for (PooledByteBuffer src : srcs) {
+            if (src != null) {
+                var buffer = src.getBuffer();
+                for (int i = buffer.position(); i < buffer.limit(); i++) {
+                    byte b = buffer.get(i);
+                    if (b != ' ' && b != '\t' && b != '\n' && b != '\r')
+                        return b & 0xFF;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the request body string of the exchange for an interceptor. It is the string cached by
+     * the RequestBodyInterceptor if cacheRequestBody is enabled. Otherwise, it is converted from the
+     * buffered request data on demand and it is not cached in the exchange.
+     *
+     * @param exchange HttpServerExchange
+     * @return the request body string or null if the request data is not buffered
+     */
+    public static String getRequestBodyString(final HttpServerExchange exchange) {
+        var body = exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING);
+        if (body == null) {
+            var buffers = exchange.getAttachment(AttachmentConstants.BUFFERED_REQUEST_DATA_KEY);
+            if (buffers != null) {
+                try {
+                    body = toString(buffers, StandardCharsets.UTF_8).trim();
+                } catch (IOException e) {
+                    LOG.error("Failed to convert the request body to string", e);
+                }
+            }
+        }
+        return body;
     }
 
     /**
@@ -143,7 +253,7 @@ public class BuffersUtils {
      * @throws IOException If an I/O error occurs.
      */
     public static String toString(final PooledByteBuffer[] srcs, String charsetName) throws IOException {
-        return new String(toByteArray(srcs), charsetName);
+        return toString(srcs, Charset.forName(charsetName));
     }
 
     /**
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.config.Config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parse a JSON request body into a Map or a List with the Jackson non-blocking parser while the
+ * body is still arriving. Each buffer read from the request channel is fed into the parser and the
+ * tree is built from the tokens that are available, so a malformed body is detected with the first
+ * invalid buffer instead of after the whole body is buffered.
+ *
+ * Like ObjectMapper.readValue used by the RequestBodyInterceptor, the content after the root object
+ * or array is ignored, so a body like {@code {} {}} is accepted with the first object as the result.
+ *
+ * The buffers are fed as duplicates, and the position of the pooled buffers is not changed. This
+ * class is not thread safe and it is used by one exchange only.
+ *
+ * @author Steve Hu
+ */
+public class IncrementalJsonParser {
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final boolean bigDecimal;
+    private final Deque<Object> stack = new ArrayDeque<>();
+    private String fieldName;
+    private Object result;
+
+    /**
+     * Create a parser with the ObjectMapper from the Config.
+     *
+     * @throws IOException if the parser cannot be created
+     */
+    public IncrementalJsonParser() throws IOException {
+        this(Config.getInstance().getMapper());
+    }
+
+    /**
+     * Create a parser with the factory and the features of the mapper.
+     *
+     * @param mapper ObjectMapper
+     * @throws IOException if the parser cannot be created
+     */
+    public IncrementalJsonParser(ObjectMapper mapper) throws IOException {
+        this.parser = mapper.getFactory().createNonBlockingByteBufferParser();
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.bigDecimal = mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    /**
+     * Feed a buffer of the body and process all the tokens that are available.
+     *
+     * @param buffer ByteBuffer with the position and limit of the data
+     * @throws IOException if the data is not a valid JSON object or array
+     */
+    public void feed(ByteBuffer buffer) throws IOException {
+        // the trailing content after the root is not parsed.
+        if (result != null || !buffer.hasRemaining()) return;
+        feeder.feedInput(buffer.duplicate());
+        drain();
+    }
+
+    /**
+     * Indicate that there is no more data and verify that the body is complete.
+     *
+     * @throws IOException if the body is not a complete JSON object or array
+     */
+    public void endOfInput() throws IOException {
+        if (result != null) return;
+        feeder.endOfInput();
+        drain();
+        if (result == null) {
+            throw new JsonParseException(parser, "Unexpected end of the JSON body");
+        }
+    }
+
+    /**
+     * @return true if the root object or array is completed
+     */
+    public boolean isComplete() {
+        return result != null;
+    }
+
+    /**
+     * @return the parsed Map or List, or null if the body is not completed
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (result == null && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (stack.isEmpty() && token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "The JSON body must be an object or an array");
+            }
+            switch (token) {
+                case START_OBJECT:
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    add(map);
+                    stack.push(map);
+                    break;
+                case START_ARRAY:
+                    List<Object> list = new ArrayList<>();
+                    add(list);
+                    stack.push(list);
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    Object container = stack.pop();
+                    if (stack.isEmpty()) result = container;
+                    break;
+                case FIELD_NAME:
+                    fieldName = parser.currentName();
+                    break;
+                case VALUE_STRING:
+                    add(parser.getText());
+                    break;
+                case VALUE_NUMBER_INT:
+                    add(parser.getNumberValue());
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    add(bigDecimal ? parser.getDecimalValue() : parser.getDoubleValue());
+                    break;
+                case VALUE_TRUE:
+                    add(Boolean.TRUE);
+                    break;
+                case VALUE_FALSE:
+                    add(Boolean.FALSE);
+                    break;
+                case VALUE_NULL:
+                    add(null);
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unexpected token " + token);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(Object value) {
+        Object parent = stack.peek();
+        if (parent instanceof Map) {
+            ((Map<String, Object>) parent).put(fieldName, value);
+        } else if (parent instanceof List) {
+            ((List<Object>) parent).add(value);
+        }
+    }
+}
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.networknt.common.ContentType;
 import com.networknt.config.Config;
+import io.undertow.connector.PooledByteBuffer;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.AttachmentKey;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -115,6 +118,35 @@ public interface Interceptor extends MiddlewareHandler {
         }
     }
 
+    /**
+     * Parses the JSON body directly from the pooled buffers into a Map or a List based on the first
+     * non-whitespace byte and attaches it to the exchange. The body is not converted into a String, and
+     * the pooled buffers are not changed so that they can be forwarded to the backend.
+     *
+     * @param ex      The HttpServerExchange.
+     * @param key     The attachment key.
+     * @param buffers The buffered body data.
+     * @return true if successful, false otherwise.
+     */
+    default boolean parseJsonBody(final HttpServerExchange ex, final AttachmentKey<Object> key, PooledByteBuffer[] buffers) {
+        int first = BuffersUtils.firstNonWhitespace(buffers);
+        if (first != JSON_MAP_OBJECT_STARTING_CHAR && first != JSON_ARRAY_OBJECT_STARTING_CHAR) {
+            setExchangeStatus(ex, CONTENT_TYPE_MISMATCH, ContentType.APPLICATION_JSON.value());
+            return false;
+        }
+        try (InputStream is = BuffersUtils.toInputStream(buffers)) {
+            if (first == JSON_MAP_OBJECT_STARTING_CHAR) {
+                ex.putAttachment(key, Config.getInstance().getMapper().readValue(is, new TypeReference<Map<String, Object>>() {}));
+            } else {
+                ex.putAttachment(key, Config.getInstance().getMapper().readValue(is, new TypeReference<List<Object>>() {}));
+            }
+            return true;
+        } catch (IOException e) {
+            setExchangeStatus(ex, CONTENT_TYPE_MISMATCH, ContentType.APPLICATION_JSON.value());
+            return false;
+        }
+    }
+
     /**
      * Finds a matching prefix for a given URL from a list of prefixes.
      *
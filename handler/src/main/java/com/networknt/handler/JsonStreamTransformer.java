@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.config.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A ResponseChunkTransformer that works on the JSON token stream of the response body. Each chunk is
+ * fed into the Jackson non-blocking parser and the tokens that are available are copied to the output,
+ * except the fields that are excluded by the includeField. It is used for field-level filters such as
+ * the column filter of the ResponseFilterInterceptor without buffering the entire response.
+ *
+ * The pointer passed to the includeField contains the array indexes, for example, /accounts/0/balance,
+ * and the subclass can ignore them to match a column in all the rows. This class is not thread safe and
+ * a new instance is created for each exchange.
+ *
+ * @author Steve Hu
+ */
+public abstract class JsonStreamTransformer implements ResponseChunkTransformer {
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final JsonGenerator generator;
+    private boolean skipping;
+    private int depth;
+    private boolean started;
+
+    /**
+     * Create a transformer with the ObjectMapper from the Config.
+     *
+     * @throws IOException if the parser or the generator cannot be created
+     */
+    protected JsonStreamTransformer() throws IOException {
+        this(Config.getInstance().getMapper());
+    }
+
+    /**
+     * Create a transformer with the factory of the mapper.
+     *
+     * @param mapper ObjectMapper
+     * @throws IOException if the parser or the generator cannot be created
+     */
+    protected JsonStreamTransformer(ObjectMapper mapper) throws IOException {
+        this.parser = mapper.getFactory().createNonBlockingByteBufferParser();
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.generator = mapper.getFactory().createGenerator(out);
+    }
+
+    /**
+     * Decide if a field and its value are written to the output.
+     *
+     * @param pointer JsonPointer of the field from the root of the body
+     * @return true to keep the field, false to remove it
+     */
+    protected abstract boolean includeField(JsonPointer pointer);
+
+    @Override
+    public ByteBuffer transform(ByteBuffer chunk) throws IOException {
+        if (!chunk.hasRemaining()) return null;
+        started = true;
+        feeder.feedInput(chunk);
+        return drain();
+    }
+
+    @Override
+    public ByteBuffer finish() throws IOException {
+        if (!started) return null;
+        feeder.endOfInput();
+        drain();
+        generator.close();
+        return output();
+    }
+
+    private ByteBuffer drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (skipping) {
+                // skip the value of an excluded field including all the nested tokens.
+                if (token.isStructStart()) depth++;
+                else if (token.isStructEnd()) depth--;
+                skipping = depth > 0;
+                continue;
+            }
+            if (token == JsonToken.FIELD_NAME && !includeField(parser.getParsingContext().pathAsPointer())) {
+                skipping = true;
+                continue;
+            }
+            generator.copyCurrentEvent(parser);
+        }
+        generator.flush();
+        return output();
+    }
+
+    private ByteBuffer output() {
+        if (out.size() == 0) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        out.reset();
+        return buffer;
+    }
+}
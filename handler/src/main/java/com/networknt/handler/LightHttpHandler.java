@@ -111,9 +111,17 @@ public interface LightHttpHandler extends HttpHandler {
         status = statusWrapper == null ? status : statusWrapper.wrap(status, ex);
         ex.setStatusCode(status.getStatusCode());
         ex.getResponseHeaders().put(Headers.CONTENT_TYPE, ContentType.APPLICATION_JSON.value());
-        status.setDescription(status.getDescription().replaceAll("\\\\", "\\\\\\\\").replaceAll("\"", "\\\\\""));
+        // the description is only replaced when it has a character to escape so that the precomputed
+        // response of a constant status defined in the status.yml is still used.
+        String description = status.getDescription();
+        if (description != null) {
+            String escaped = description.replace("\\", "\\\\").replace("\"", "\\\"");
+            if (!escaped.equals(description))
+                status.setDescription(escaped);
+        }
 
-        var elements = Thread.currentThread().getStackTrace();
+        // the stack trace is only captured when it is logged or audited.
+        var elements = logger.isTraceEnabled() || AUDIT_STACK_TRACE ? Thread.currentThread().getStackTrace() : null;
 
         if (logger.isErrorEnabled())
             logger.error(status.toString());
@@ -138,6 +146,6 @@ public interface LightHttpHandler extends HttpHandler {
         if (AUDIT_STACK_TRACE)
             auditInfo.put(Constants.STACK_TRACE, Arrays.toString(elements));
 
-        ex.getResponseSender().send(status.toStringConditionally());
+        ex.getResponseSender().send(status.toByteBufferConditionally());
     }
 }
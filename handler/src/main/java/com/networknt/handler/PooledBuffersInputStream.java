@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import io.undertow.connector.PooledByteBuffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream over the buffered request or response data that reads from duplicates of the
+ * pooled buffers. The position and limit of the pooled buffers are not changed, so the same data
+ * can still be forwarded to the backend after it is parsed.
+ *
+ * @author Steve Hu
+ */
+final class PooledBuffersInputStream extends InputStream {
+    private final PooledByteBuffer[] buffers;
+    private int index = -1;
+    private ByteBuffer current;
+
+    PooledBuffersInputStream(PooledByteBuffer[] buffers) {
+        this.buffers = buffers;
+    }
+
+    /**
+     * Move to the next buffer that has data.
+     *
+     * @return false if there is no more data
+     */
+    private boolean advance() {
+        while (current == null || !current.hasRemaining()) {
+            if (++index >= buffers.length) {
+                current = null;
+                return false;
+            }
+            PooledByteBuffer buffer = buffers[index];
+            current = buffer == null ? null : buffer.getBuffer().duplicate();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() {
+        if (!advance()) return -1;
+        return current.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) return 0;
+        if (!advance()) return -1;
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.remaining();
+    }
+}
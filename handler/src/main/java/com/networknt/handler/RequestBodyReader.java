@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.server.HttpServerExchange;
+import org.xnio.IoUtils;
+import org.xnio.channels.Channels;
+import org.xnio.channels.StreamSourceChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Read the request body from the request channel into the pooled buffers for the interceptors. The
+ * state is kept between the calls, so the same reader is used by the RequestInterceptorInjectionHandler
+ * and the read listener when the body is not available at once.
+ *
+ * Up to maxBuffers are kept in memory. If spillToDisk is enabled, the rest of the body is written to a
+ * temp file with one staging buffer; otherwise, or once the spill limits are reached, the reading stops
+ * and the rest of the body is left in the channel for the downstream handler. The file is not written on
+ * the IO thread: the reading stops with the spill pending once the memory buffers are full, and the caller
+ * dispatches the exchange to a worker thread to read the rest with the spill.
+ *
+ * @author Steve Hu
+ */
+final class RequestBodyReader {
+    private final HttpServerExchange exchange;
+    private final RequestInjectionConfig config;
+    private final IncrementalJsonParser parser;
+    private final PooledByteBuffer[] bufferedData;
+    private int readBuffers;
+    private PooledByteBuffer buffer;
+    private RequestBodySpill spill;
+    private boolean spillPending;
+    private PooledByteBuffer last;
+
+    RequestBodyReader(HttpServerExchange exchange, RequestInjectionConfig config, IncrementalJsonParser parser) {
+        this.exchange = exchange;
+        this.config = config;
+        this.parser = parser;
+        this.bufferedData = new PooledByteBuffer[config.getMaxBuffers()];
+        this.buffer = exchange.getConnection().getByteBufferPool().allocate();
+    }
+
+    /**
+     * Read the available data from the channel.
+     *
+     * @param channel request channel
+     * @return true if the reading is done, false if the channel has no data available now
+     * @throws IOException if the channel cannot be read or the JSON body is invalid
+     */
+    boolean read(StreamSourceChannel channel) throws IOException {
+        for (; ; ) {
+            var b = buffer.getBuffer();
+            int r = channel.read(b);
+
+            if (r == -1) {
+                this.endOfStream(b);
+                return true;
+
+            } else if (r == 0)
+                return false;
+
+            else if (!b.hasRemaining()) {
+                b.flip();
+
+                if (parser != null)
+                    parser.feed(b);
+
+                if (!this.store(b))
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Keep the full buffer in memory or write it to the spill file.
+     *
+     * @param b the flipped buffer
+     * @return false if no more data can be buffered
+     * @throws IOException if the spill file cannot be written
+     */
+    private boolean store(ByteBuffer b) throws IOException {
+        if (spill != null) {
+
+            if (spill.write(b)) {
+                b.clear();
+                return true;
+            }
+
+            // the spill limit is reached, keep the staging buffer and leave the rest in the channel.
+            last = buffer;
+            buffer = null;
+            return false;
+        }
+
+        bufferedData[readBuffers++] = buffer;
+        buffer = null;
+
+        if (readBuffers == bufferedData.length) {
+            if (config.isSpillToDisk() && exchange.isInIoThread()) {
+                spillPending = true;
+                return false;
+            }
+            spill = RequestBodySpill.create(exchange, config);
+
+            if (spill == null)
+                return false;
+        }
+
+        buffer = exchange.getConnection().getByteBufferPool().allocate();
+        return true;
+    }
+
+    /**
+     * @return true if the memory buffers are full on the IO thread and the rest of the body should be read
+     * with the spill on a worker thread
+     */
+    boolean isSpillPending() {
+        return spillPending;
+    }
+
+    /**
+     * Read the rest of the body into the spill file with blocking reads. It must be called on a worker
+     * thread after the reading stops with the spill pending.
+     *
+     * @param channel request channel
+     * @throws IOException if the channel cannot be read, the file cannot be written or the JSON body is invalid
+     */
+    void spill(StreamSourceChannel channel) throws IOException {
+        spillPending = false;
+        spill = RequestBodySpill.create(exchange, config);
+
+        if (spill == null)
+            return;
+
+        buffer = exchange.getConnection().getByteBufferPool().allocate();
+        for (; ; ) {
+            var b = buffer.getBuffer();
+
+            if (Channels.readBlocking(channel, b) == -1) {
+                this.endOfStream(b);
+                return;
+
+            } else if (!b.hasRemaining()) {
+                b.flip();
+
+                if (parser != null)
+                    parser.feed(b);
+
+                if (!this.store(b))
+                    return;
+            }
+        }
+    }
+
+    private void endOfStream(ByteBuffer b) throws IOException {
+        if (b.position() == 0)
+            buffer.close();
+
+        else {
+            b.flip();
+
+            if (parser != null)
+                parser.feed(b);
+
+            if (spill == null)
+                bufferedData[readBuffers++] = buffer;
+
+            else if (spill.write(b))
+                buffer.close();
+
+            else
+                last = buffer;
+        }
+        buffer = null;
+
+        if (parser != null)
+            parser.endOfInput();
+    }
+
+    /**
+     * @return the buffered data with the memory-mapped segments of the spill file if any
+     * @throws IOException if the spill file cannot be mapped
+     */
+    PooledByteBuffer[] getBufferedData() throws IOException {
+        if (spill == null)
+            return bufferedData;
+
+        var segments = spill.map();
+        var data = Arrays.copyOf(bufferedData, bufferedData.length + segments.length + (last == null ? 0 : 1));
+        System.arraycopy(segments, 0, data, bufferedData.length, segments.length);
+
+        if (last != null)
+            data[data.length - 1] = last;
+
+        return data;
+    }
+
+    IncrementalJsonParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Close the buffers and release the spill file when an issue occurs.
+     */
+    void close() {
+        for (var b : bufferedData)
+            IoUtils.safeClose(b);
+
+        if (buffer != null && buffer.isOpen())
+            IoUtils.safeClose(buffer);
+
+        if (last != null)
+            IoUtils.safeClose(last);
+
+        if (spill != null)
+            spill.release();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import com.networknt.utility.StringUtils;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpServerExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A temp file that holds the part of a request body beyond the maxBuffers in request-injection.yml.
+ * The data is written while the body is read and then memory-mapped into segments that are exposed
+ * as PooledByteBuffer, so the interceptors and the downstream proxy read them the same way as the
+ * pooled buffers. The size of each file is limited by the maxSpillSize, and the total size of all
+ * the files by the maxTotalSpillSize. The file is deleted when the exchange is completed.
+ *
+ * @author Steve Hu
+ */
+final class RequestBodySpill implements ExchangeCompletionListener {
+    private static final Logger logger = LoggerFactory.getLogger(RequestBodySpill.class);
+    /** The size of each memory-mapped segment. */
+    static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final AtomicLong totalSize = new AtomicLong();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long maxSize;
+    private final long maxTotalSize;
+    private long size;
+    private boolean released;
+
+    RequestBodySpill(Path path, long maxSize, long maxTotalSize) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.maxSize = maxSize;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * Create a spill file for the exchange if it is enabled. It is released when the exchange is completed.
+     *
+     * @param exchange HttpServerExchange
+     * @param config RequestInjectionConfig
+     * @return RequestBodySpill or null if it is disabled or the file cannot be created
+     */
+    static RequestBodySpill create(HttpServerExchange exchange, RequestInjectionConfig config) {
+        if (!config.isSpillToDisk() || totalSize.get() >= config.getMaxTotalSpillSize())
+            return null;
+
+        try {
+            Path dir = Path.of(StringUtils.isBlank(config.getSpillDirectory()) ? System.getProperty("java.io.tmpdir") : config.getSpillDirectory());
+            Files.createDirectories(dir);
+            RequestBodySpill spill = new RequestBodySpill(Files.createTempFile(dir, "request-body-", ".spill"), config.getMaxSpillSize(), config.getMaxTotalSpillSize());
+            exchange.addExchangeCompleteListener(spill);
+            return spill;
+        } catch (IOException e) {
+            logger.error("Failed to create the request body spill file", e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the buffer to the file if it is within the per request and the total limits.
+     *
+     * @param buffer ByteBuffer
+     * @return false if the limit is reached and the buffer is not written
+     * @throws IOException if the buffer cannot be written
+     */
+    boolean write(ByteBuffer buffer) throws IOException {
+        int n = buffer.remaining();
+        if (size + n > maxSize)
+            return false;
+
+        if (totalSize.addAndGet(n) > maxTotalSize) {
+            totalSize.addAndGet(-n);
+            return false;
+        }
+        size += n;
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        return true;
+    }
+
+    /**
+     * Map the file into segments once all the data is written.
+     *
+     * @return an array of PooledByteBuffer backed by the file
+     * @throws IOException if the file cannot be mapped
+     */
+    PooledByteBuffer[] map() throws IOException {
+        var segments = new PooledByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            long position = (long) i * SEGMENT_SIZE;
+            // read and write so that an interceptor can transform the body in place.
+            segments[i] = new MappedBuffer(channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(SEGMENT_SIZE, size - position)));
+        }
+        return segments;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    static long getTotalSize() {
+        return totalSize.get();
+    }
+
+    /**
+     * Delete the file and return its size to the total budget. The mapped segments remain valid until
+     * they are garbage collected.
+     */
+    synchronized void release() {
+        if (released)
+            return;
+
+        released = true;
+        totalSize.addAndGet(-size);
+        IoUtils.safeClose(channel);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete the request body spill file {}", path, e);
+        }
+    }
+
+    @Override
+    public void exchangeEvent(HttpServerExchange exchange, NextListener nextListener) {
+        try {
+            release();
+        } finally {
+            nextListener.proceed();
+        }
+    }
+
+    /**
+     * A segment of the spill file. It is not returned to any pool when it is closed.
+     */
+    static final class MappedBuffer implements PooledByteBuffer {
+        private final ByteBuffer buffer;
+        private volatile boolean open = true;
+
+        MappedBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+    }
+}
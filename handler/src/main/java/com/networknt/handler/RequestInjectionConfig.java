@@ -26,6 +26,11 @@ public class RequestInjectionConfig {
     private static final String ENABLED = "enabled";
     private static final String APPLIED_BODY_INJECTION_PATH_PREFIXES = "appliedBodyInjectionPathPrefixes";
     private static final String MAX_BUFFERS = "maxBuffers";
+    private static final String INCREMENTAL_JSON_PARSE = "incrementalJsonParse";
+    private static final String SPILL_TO_DISK = "spillToDisk";
+    private static final String SPILL_DIRECTORY = "spillDirectory";
+    private static final String MAX_SPILL_SIZE = "maxSpillSize";
+    private static final String MAX_TOTAL_SPILL_SIZE = "maxTotalSpillSize";
 
     @BooleanField(
             configFieldName = ENABLED,
@@ -68,6 +73,53 @@ public class RequestInjectionConfig {
      * Max number of buffers for the interceptor.
      */
     private int maxBuffers;
+
+    @BooleanField(
+            configFieldName = INCREMENTAL_JSON_PARSE,
+            externalizedKeyName = INCREMENTAL_JSON_PARSE,
+            defaultValue = "false",
+            description = "Parse the JSON request body with the non-blocking parser while the buffers are read from the request channel.\n" +
+                    "A malformed body is rejected as soon as the invalid buffer arrives without waiting for the rest of the body, and the parsed\n" +
+                    "body is attached to the exchange so that the RequestBodyInterceptor doesn't need to parse it again. The default value is false."
+    )
+    private boolean incrementalJsonParse;
+
+    @BooleanField(
+            configFieldName = SPILL_TO_DISK,
+            externalizedKeyName = SPILL_TO_DISK,
+            defaultValue = "false",
+            description = "Write the part of the request body beyond the maxBuffers to a temp file instead of truncating it. The first maxBuffers\n" +
+                    "are kept in memory and the rest is memory-mapped from the file, so the interceptors and the downstream handler can read the\n" +
+                    "whole body without increasing the maxBuffers for all requests. The file is deleted when the exchange is completed."
+    )
+    private boolean spillToDisk;
+
+    @StringField(
+            configFieldName = SPILL_DIRECTORY,
+            externalizedKeyName = SPILL_DIRECTORY,
+            description = "The directory of the spill files. If it is empty, the java.io.tmpdir is used."
+    )
+    private String spillDirectory;
+
+    @IntegerField(
+            configFieldName = MAX_SPILL_SIZE,
+            externalizedKeyName = MAX_SPILL_SIZE,
+            defaultValue = "104857600",
+            format = Format.int64,
+            description = "The max number of bytes that can be written to the spill file of one request. The default value is 100MB. If the\n" +
+                    "request body is bigger, the rest of the body is not buffered and the body is truncated for the interceptors."
+    )
+    private long maxSpillSize = 104857600L;
+
+    @IntegerField(
+            configFieldName = MAX_TOTAL_SPILL_SIZE,
+            externalizedKeyName = MAX_TOTAL_SPILL_SIZE,
+            defaultValue = "1073741824",
+            format = Format.int64,
+            description = "The max number of bytes of all the spill files of the concurrent requests. The default value is 1GB. Once it is\n" +
+                    "reached, the request bodies are truncated at the maxBuffers until some of the requests are completed."
+    )
+    private long maxTotalSpillSize = 1073741824L;
     private Map<String, Object> mappedConfig;
 
     private static volatile RequestInjectionConfig instance;
@@ -138,6 +190,46 @@ public class RequestInjectionConfig {
         return maxBuffers;
     }
 
+    /**
+     * Returns true if the JSON request body is parsed while it is read.
+     * @return true if incremental JSON parse is enabled.
+     */
+    public boolean isIncrementalJsonParse() {
+        return incrementalJsonParse;
+    }
+
+    /**
+     * Returns true if the request body beyond the maxBuffers is written to a temp file.
+     * @return true if spill to disk is enabled.
+     */
+    public boolean isSpillToDisk() {
+        return spillToDisk;
+    }
+
+    /**
+     * Returns the directory of the spill files.
+     * @return The spill directory or null to use java.io.tmpdir.
+     */
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Returns the max number of bytes spilled for one request.
+     * @return The max spill size.
+     */
+    public long getMaxSpillSize() {
+        return maxSpillSize;
+    }
+
+    /**
+     * Returns the max number of bytes spilled for all requests.
+     * @return The max total spill size.
+     */
+    public long getMaxTotalSpillSize() {
+        return maxTotalSpillSize;
+    }
+
     /**
      * Returns the list of applied body injection path prefixes.
      * @return A list of path prefixes.
@@ -155,6 +247,16 @@ public class RequestInjectionConfig {
         if (object != null) enabled = Config.loadBooleanValue(ENABLED, object);
         object = getMappedConfig().get(MAX_BUFFERS);
         if (object != null) maxBuffers = Config.loadIntegerValue(MAX_BUFFERS, object);
+        object = getMappedConfig().get(INCREMENTAL_JSON_PARSE);
+        if (object != null) incrementalJsonParse = Config.loadBooleanValue(INCREMENTAL_JSON_PARSE, object);
+        object = getMappedConfig().get(SPILL_TO_DISK);
+        if (object != null) spillToDisk = Config.loadBooleanValue(SPILL_TO_DISK, object);
+        object = getMappedConfig().get(SPILL_DIRECTORY);
+        if (object != null) spillDirectory = (String) object;
+        object = getMappedConfig().get(MAX_SPILL_SIZE);
+        if (object != null) maxSpillSize = Config.loadLongValue(MAX_SPILL_SIZE, object);
+        object = getMappedConfig().get(MAX_TOTAL_SPILL_SIZE);
+        if (object != null) maxTotalSpillSize = Config.loadLongValue(MAX_TOTAL_SPILL_SIZE, object);
     }
 
     private void setConfigList() {
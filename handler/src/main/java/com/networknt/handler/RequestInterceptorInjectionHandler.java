@@ -1,5 +1,7 @@
 package com.networknt.handler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.networknt.common.ContentType;
 import com.networknt.httpstring.AttachmentConstants;
 import com.networknt.service.SingletonServiceFactory;
 import io.undertow.Handlers;
@@ -13,10 +15,9 @@ import io.undertow.util.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.ChannelListener;
-import org.xnio.IoUtils;
 import org.xnio.channels.StreamSourceChannel;
 
-import java.nio.ByteBuffer;
+import java.io.IOException;
 import java.util.Arrays;
 
 /**
@@ -87,47 +88,24 @@ public class RequestInterceptorInjectionHandler implements MiddlewareHandler {
         if (this.shouldReadBody(httpServerExchange, config)) {
             if(logger.isTraceEnabled()) logger.trace("Trying to read body");
             final var channel = httpServerExchange.getRequestChannel();
-            final var bufferedData = new PooledByteBuffer[config.getMaxBuffers()];
-
-            int readBuffers = 0;
-            var buffer = httpServerExchange.getConnection().getByteBufferPool().allocate();
+            final var reader = new RequestBodyReader(httpServerExchange, config, this.createJsonParser(httpServerExchange, config));
 
             try {
-                for (; ; ) {
-                    int r;
-                    var b = buffer.getBuffer();
-                    r = channel.read(b);
-
-                    if (r == -1) {
-                        handleEndOfStream(b, bufferedData, readBuffers, buffer);
-                        break;
-
-                    } else if (r == 0) {
-                        this.setChannelRead(channel, buffer, readBuffers, bufferedData, httpServerExchange, config);
-                        channel.resumeReads();
-                        return;
-
-                    } else if (!b.hasRemaining()) {
-                        b.flip();
-                        bufferedData[readBuffers++] = buffer;
-
-                        if (readBuffers == config.getMaxBuffers())
-                            break;
+                if (!reader.read(channel)) {
+                    this.setChannelRead(channel, reader, httpServerExchange);
+                    channel.resumeReads();
+                    return;
+                }
 
-                        buffer = httpServerExchange.getConnection().getByteBufferPool().allocate();
-                    }
+                if (reader.isSpillPending()) {
+                    // the spill file is written on a worker thread instead of the IO thread.
+                    httpServerExchange.dispatch(ex -> this.spill(ex, reader, channel));
+                    return;
                 }
 
-                this.saveBufferAndResetUndertowConnector(httpServerExchange, bufferedData);
-            } catch (RequestTooBigException e) {
-                logger.error(e.getMessage(), e);
-                safeCloseBuffers(bufferedData, buffer);
-                setExchangeStatus(httpServerExchange, PAYLOAD_TOO_LARGE);
-                return;
+                this.saveBufferAndResetUndertowConnector(httpServerExchange, reader);
             } catch (Exception | Error e) {
-                logger.error(e.getMessage(), e);
-                safeCloseBuffers(bufferedData, buffer);
-                setExchangeStatus(httpServerExchange, GENERIC_EXCEPTION, e.getMessage());
+                this.readFailed(httpServerExchange, reader, e);
                 return;
             }
         } else {
@@ -145,6 +123,51 @@ public class RequestInterceptorInjectionHandler implements MiddlewareHandler {
 
     }
 
+    /**
+     * Read the rest of the body into the spill file on a worker thread and call the next handler.
+     *
+     * @param ex     current httpServerExchange dispatched to a worker thread.
+     * @param reader the request body reader with the memory buffers full.
+     * @param c      request channel.
+     * @throws Exception if the next handler fails.
+     */
+    private void spill(final HttpServerExchange ex, final RequestBodyReader reader, final StreamSourceChannel c) throws Exception {
+        try {
+            reader.spill(c);
+            this.saveBufferAndResetUndertowConnector(ex, reader);
+        } catch (Exception | Error e) {
+            this.readFailed(ex, reader, e);
+            return;
+        }
+
+        if(!ex.isResponseStarted())
+            Handler.next(ex, next);
+    }
+
+    /**
+     * Release the body read so far and respond with the error of the read.
+     *
+     * @param ex     current httpServerExchange.
+     * @param reader the request body reader.
+     * @param e      the error of the read.
+     */
+    private void readFailed(final HttpServerExchange ex, final RequestBodyReader reader, final Throwable e) {
+        if (e instanceof JsonProcessingException) {
+            // reject the malformed JSON body without reading the rest of it.
+            if(logger.isDebugEnabled()) logger.debug("Invalid JSON request body: {}", ((JsonProcessingException) e).getOriginalMessage());
+            reader.close();
+            setExchangeStatus(ex, Interceptor.CONTENT_TYPE_MISMATCH, ContentType.APPLICATION_JSON.value());
+        } else if (e instanceof RequestTooBigException) {
+            logger.error(e.getMessage(), e);
+            reader.close();
+            setExchangeStatus(ex, PAYLOAD_TOO_LARGE);
+        } else {
+            logger.error(e.getMessage(), e);
+            reader.close();
+            setExchangeStatus(ex, GENERIC_EXCEPTION, e.getMessage());
+        }
+    }
+
     private boolean shouldReadBody(final HttpServerExchange ex, RequestInjectionConfig config) {
         var headers = ex.getRequestHeaders();
         var requestMethod = ex.getRequestMethod().toString();
@@ -174,79 +197,53 @@ public class RequestInterceptorInjectionHandler implements MiddlewareHandler {
     /**
      * Create a new read channel listener for the request channel. This is needed for 'chunked' requests larger than our server buffer set.
      *
-     * @param c            the request channel.
-     * @param cPooledBuffer the pooled byte buffer to read from.
-     * @param cRead        the number of bytes already read.
-     * @param bufferedData total buffered data array.
-     * @param ex           current httpServerExchange.
-     * @param config       RequestInjectionConfig to use.
+     * @param c      the request channel.
+     * @param reader the request body reader with the data already read.
+     * @param ex     current httpServerExchange.
      */
-    private void setChannelRead(final StreamSourceChannel c, final PooledByteBuffer cPooledBuffer, final int cRead, final PooledByteBuffer[] bufferedData, final HttpServerExchange ex, RequestInjectionConfig config) {
+    private void setChannelRead(final StreamSourceChannel c, final RequestBodyReader reader, final HttpServerExchange ex) {
         c.getReadSetter().set(new ChannelListener<StreamSourceChannel>() {
-            PooledByteBuffer buffer = cPooledBuffer;
-            int readBuffers = cRead;
 
             @Override
             public void handleEvent(StreamSourceChannel channel) {
                 try {
 
-                    for (; ; ) {
-                        int r;
-                        var b = buffer.getBuffer();
-                        r = channel.read(b);
-
-                        if (r == -1) {
-                            handleEndOfStream(b, bufferedData, readBuffers, buffer);
-                            suspendReads(ex, bufferedData, channel, next);
-                            return;
-
-                        } else if (r == 0)
-                            return;
-
-                        else if (!b.hasRemaining()) {
-                            b.flip();
-                            bufferedData[readBuffers++] = buffer;
-
-                            if (readBuffers == config.getMaxBuffers()) {
-                                suspendReads(ex, bufferedData, channel, next);
-                                return;
-                            }
-
-                            buffer = ex.getConnection().getByteBufferPool().allocate();
-                        }
+                    if (reader.read(channel)) {
+                        if (reader.isSpillPending()) {
+                            // the spill file is written on a worker thread instead of the IO thread.
+                            channel.getReadSetter().set(null);
+                            channel.suspendReads();
+                            ex.dispatch(exchange -> spill(exchange, reader, channel));
+                        } else
+                            suspendReads(ex, reader, channel, next);
                     }
+
+                } catch (JsonProcessingException e) {
+                    // reject the malformed JSON body as soon as the invalid buffer arrives.
+                    if(logger.isDebugEnabled()) logger.debug("Invalid JSON request body: {}", e.getOriginalMessage());
+                    channel.getReadSetter().set(null);
+                    channel.suspendReads();
+                    reader.close();
+                    setExchangeStatus(ex, Interceptor.CONTENT_TYPE_MISMATCH, ContentType.APPLICATION_JSON.value());
                 } catch (Throwable e) {
-                    safeCloseBuffers(bufferedData, buffer);
+                    reader.close();
                     ex.endExchange();
                 }
             }
         });
     }
 
-    /**
-     * Close our buffers when issue occurs
-     *
-     * @param buffers the array of pooled byte buffers to close.
-     * @param buf     the current pooled byte buffer to close.
-     */
-    private static void safeCloseBuffers(final PooledByteBuffer[] buffers, PooledByteBuffer buf) {
-        for (var b : buffers)
-            IoUtils.safeClose(b);
-
-        if (buf != null && buf.isOpen())
-            IoUtils.safeClose(buf);
-    }
-
     /**
      * Suspend our reads and remove the channel listener we created.
      *
-     * @param ex           current httpServerExchange.
-     * @param bufferedData total buffered data array.
-     * @param c            request channel.
-     * @param next         next http handler.
+     * @param ex     current httpServerExchange.
+     * @param reader the request body reader.
+     * @param c      request channel.
+     * @param next   next http handler.
+     * @throws IOException if the buffered data cannot be saved.
      */
-    private void suspendReads(final HttpServerExchange ex, final PooledByteBuffer[] bufferedData, StreamSourceChannel c, HttpHandler next) {
-        saveBufferAndResetUndertowConnector(ex, bufferedData);
+    private void suspendReads(final HttpServerExchange ex, final RequestBodyReader reader, StreamSourceChannel c, HttpHandler next) throws IOException {
+        saveBufferAndResetUndertowConnector(ex, reader);
 
         c.getReadSetter().set(null);
         c.suspendReads();
@@ -261,12 +258,19 @@ public class RequestInterceptorInjectionHandler implements MiddlewareHandler {
     /**
      * Save the total buffer as an attachment. Update content length just in case
      *
-     * @param ex           current httpServerExchange.
-     * @param bufferedData total buffered data array.
+     * @param ex     current httpServerExchange.
+     * @param reader the request body reader.
+     * @throws IOException if the spilled data cannot be mapped.
      */
-    private void saveBufferAndResetUndertowConnector(final HttpServerExchange ex, final PooledByteBuffer[] bufferedData) {
+    private void saveBufferAndResetUndertowConnector(final HttpServerExchange ex, final RequestBodyReader reader) throws IOException {
         if(logger.isTraceEnabled()) logger.trace("saveBufferAndResetUndertowConnector is called.");
+        final var bufferedData = reader.getBufferedData();
+        final var parser = reader.getParser();
         ex.putAttachment(AttachmentConstants.BUFFERED_REQUEST_DATA_KEY, bufferedData);
+        // the body parsed while reading is attached so that the RequestBodyInterceptor doesn't parse it again.
+        // a body truncated by the maxBuffers or the spill limits is not completed and is left to the interceptors.
+        if (parser != null && parser.isComplete())
+            ex.putAttachment(AttachmentConstants.REQUEST_BODY, parser.getResult());
         this.updateContentLength(ex, bufferedData);
         Connectors.ungetRequestBytes(ex, bufferedData);
         Connectors.resetRequestChannel(ex);
@@ -286,15 +290,20 @@ public class RequestInterceptorInjectionHandler implements MiddlewareHandler {
         }
     }
 
-    private static void handleEndOfStream(ByteBuffer b, PooledByteBuffer[] bufferedData, int readBuffers, PooledByteBuffer buffer) {
-
-        if (b.position() == 0)
-            buffer.close();
+    /**
+     * Create an incremental JSON parser if it is enabled and the request body is JSON.
+     *
+     * @param ex     current httpServerExchange.
+     * @param config RequestInjectionConfig to use.
+     * @return IncrementalJsonParser or null
+     * @throws IOException if the parser cannot be created
+     */
+    private IncrementalJsonParser createJsonParser(final HttpServerExchange ex, RequestInjectionConfig config) throws IOException {
+        if (!config.isIncrementalJsonParse())
+            return null;
 
-        else {
-            b.flip();
-            bufferedData[readBuffers] = buffer;
-        }
+        var contentType = ex.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
+        return contentType != null && contentType.startsWith(ContentType.APPLICATION_JSON.value()) ? new IncrementalJsonParser() : null;
     }
 
     /**
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Transform the response body of one exchange chunk by chunk while it is written to the client. An
+ * instance is created by a StreamingResponseInterceptor for each exchange, and the chunks are passed
+ * in the order they are written by the handler or the backend.
+ *
+ * The chunk passed in is only valid during the call. The transformer must consume all of it, and it
+ * can keep a partial token or record internally until the next chunk arrives.
+ *
+ * @author Steve Hu
+ */
+public interface ResponseChunkTransformer {
+
+    /**
+     * Transform a chunk of the response body.
+     *
+     * @param chunk ByteBuffer with the position and limit of the data
+     * @return the transformed data or null if there is nothing to write for now
+     * @throws IOException if the chunk cannot be transformed
+     */
+    ByteBuffer transform(ByteBuffer chunk) throws IOException;
+
+    /**
+     * Called once after the last chunk to write the data that is kept internally.
+     *
+     * @return the remaining data or null if there is nothing to write
+     * @throws IOException if the body is incomplete
+     */
+    default ByteBuffer finish() throws IOException {
+        return null;
+    }
+}
@@ -2,6 +2,7 @@ package com.networknt.handler;
 
 import com.networknt.handler.conduit.ContentStreamSinkConduit;
 import com.networknt.handler.conduit.ModifiableContentSinkConduit;
+import com.networknt.handler.conduit.StreamingContentSinkConduit;
 import com.networknt.service.SingletonServiceFactory;
 import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
@@ -14,7 +15,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.conduits.StreamSinkConduit;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * This is a middleware handle that is responsible for injecting the SinkConduit in order to update
@@ -108,20 +111,74 @@ public class ResponseInterceptorInjectionHandler implements MiddlewareHandler {
         // of the response buffering it if any interceptor resolvers the request
         // and requires the content from the backend
         exchange.addResponseWrapper((ConduitFactory<StreamSinkConduit> factory, HttpServerExchange currentExchange) -> {
-            if (this.requiresContentSinkConduit(exchange, config)) {
-                var mcsc = new ModifiableContentSinkConduit(factory.create(), currentExchange);
+            var requiresContent = this.requiresContentSinkConduit(exchange, config);
+            var transformers = this.createTransformers(currentExchange, config);
+
+            // the length of the transformed body is unknown unless it is buffered and counted afterward.
+            if (transformers != null && !requiresContent)
+                currentExchange.getResponseHeaders().remove(Headers.CONTENT_LENGTH);
+
+            StreamSinkConduit conduit;
+
+            if (requiresContent) {
+                conduit = new ModifiableContentSinkConduit(factory.create(), currentExchange);
 
                 if (LOG.isTraceEnabled())
-                    LOG.trace("created a ModifiableContentSinkConduit instance " + mcsc);
+                    LOG.trace("created a ModifiableContentSinkConduit instance " + conduit);
 
-                return mcsc;
+            } else conduit = new ContentStreamSinkConduit(factory.create(), currentExchange);
 
-            } else return new ContentStreamSinkConduit(factory.create(), currentExchange);
+            return transformers == null ? conduit : new StreamingContentSinkConduit(conduit, transformers);
         });
 
         Handler.next(exchange, next);
     }
 
+    /**
+     * Creates the transformers of the streaming interceptors for the response if the path prefix applies
+     * and the response is not compressed.
+     *
+     * @param exchange The HttpServerExchange.
+     * @param config   The ResponseInjectionConfig.
+     * @return list of transformers or null if the body is passed through.
+     */
+    private List<ResponseChunkTransformer> createTransformers(final HttpServerExchange exchange, ResponseInjectionConfig config) {
+        if (!this.hasStreamingInterceptors()
+                || !isAppliedBodyInjectionPathPrefix(exchange.getRequestPath(), config)
+                || isCompressed(exchange))
+            return null;
+
+        List<ResponseChunkTransformer> transformers = null;
+
+        try {
+
+            for (var interceptor : this.interceptors) {
+
+                if (!(interceptor instanceof StreamingResponseInterceptor) || !interceptor.isEnabled())
+                    continue;
+
+                var transformer = ((StreamingResponseInterceptor) interceptor).createTransformer(exchange);
+
+                if (transformer != null) {
+
+                    if (transformers == null)
+                        transformers = new ArrayList<>();
+
+                    transformers.add(transformer);
+                }
+            }
+
+        } catch (Exception e) {
+
+            if (LOG.isErrorEnabled())
+                LOG.error("Error creating the response transformers", e);
+
+            throw new RuntimeException(e);
+        }
+
+        return transformers;
+    }
+
     /**
      * Checks if the response is compressed.
      *
@@ -179,6 +236,10 @@ public class ResponseInterceptorInjectionHandler implements MiddlewareHandler {
         );
     }
 
+    private boolean hasStreamingInterceptors() {
+        return interceptors != null && Arrays.stream(interceptors).anyMatch(ri -> ri instanceof StreamingResponseInterceptor);
+    }
+
     private boolean interceptorsRequireContent() {
         return interceptors != null && Arrays.stream(interceptors).anyMatch(ri -> ri.isRequiredContent());
     }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import io.undertow.server.HttpServerExchange;
+
+/**
+ * A response interceptor that transforms the response body while it is streamed to the client instead
+ * of buffering the entire body in the ModifiableContentSinkConduit. It is used for header-only or
+ * field-level transforms, so the first byte of the response is sent as soon as it is available from
+ * the handler or the backend.
+ *
+ * The createTransformer is called when the response channel is created, before the headers are sent,
+ * for the requests that match the appliedBodyInjectionPathPrefixes in response-injection.yml and the
+ * responses that are not compressed. The handleRequest is called afterward with the other response
+ * interceptors, and it can still update the response headers.
+ *
+ * @author Steve Hu
+ */
+public interface StreamingResponseInterceptor extends ResponseInterceptor {
+
+    /**
+     * Create a transformer for the response body of the exchange. When a transformer is returned, the
+     * Content-Length header is removed and the response is sent with chunked encoding.
+     *
+     * @param exchange HttpServerExchange
+     * @return ResponseChunkTransformer or null if the body of this response is passed through
+     * @throws Exception if the transformer cannot be created
+     */
+    ResponseChunkTransformer createTransformer(HttpServerExchange exchange) throws Exception;
+
+    /**
+     * The body is not buffered for a streaming interceptor.
+     *
+     * @return false
+     */
+    @Override
+    default boolean isRequiredContent() {
+        return false;
+    }
+
+    /**
+     * Nothing to do by default as the body is handled by the transformer.
+     *
+     * @param exchange HttpServerExchange
+     * @throws Exception if any exception happens
+     */
+    @Override
+    default void handleRequest(HttpServerExchange exchange) throws Exception {
+    }
+}
@@ -0,0 +1,194 @@
+package com.networknt.handler.conduit;
+
+import com.networknt.handler.ResponseChunkTransformer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * A conduit that passes each chunk of the response body through the transformers of the streaming
+ * response interceptors and writes the result to the next conduit right away. The transformed data
+ * that the next conduit cannot accept is kept until the next write or flush, so the source buffer is
+ * always consumed once it is accepted.
+ */
+public class StreamingContentSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingContentSinkConduit.class);
+
+    private final ResponseChunkTransformer[] transformers;
+
+    private ByteBuffer pending;
+
+    private boolean terminating;
+
+    private boolean nextTerminated;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param next         the delegate conduit to set
+     * @param transformers the transformers in the order of the interceptors
+     */
+    public StreamingContentSinkConduit(StreamSinkConduit next, List<ResponseChunkTransformer> transformers) {
+        super(next);
+        this.transformers = transformers.toArray(new ResponseChunkTransformer[0]);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+
+        if (!this.flushPending())
+            return 0;
+
+        int length = src.remaining();
+        var chunk = src.duplicate();
+        src.position(src.limit());
+        this.writeToNext(this.transform(chunk, 0));
+        return length;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+        long total = 0;
+
+        for (int i = offs; i < offs + len; i++) {
+
+            if (!srcs[i].hasRemaining())
+                continue;
+
+            int written = this.write(srcs[i]);
+
+            if (written == 0)
+                break;
+
+            total += written;
+        }
+
+        return total;
+    }
+
+    @Override
+    public long transferFrom(final FileChannel src, final long position, final long count) throws IOException {
+        return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+    }
+
+    @Override
+    public long transferFrom(final StreamSourceChannel source, final long count, final ByteBuffer throughBuffer) throws IOException {
+        return IoUtils.transfer(source, count, throughBuffer, new ConduitWritableByteChannel(this));
+    }
+
+    @Override
+    public int writeFinal(ByteBuffer src) throws IOException {
+        return Conduits.writeFinalBasic(this, src);
+    }
+
+    @Override
+    public long writeFinal(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        return Conduits.writeFinalBasic(this, srcs, offset, length);
+    }
+
+    @Override
+    public void terminateWrites() throws IOException {
+
+        if (this.terminating)
+            return;
+
+        this.terminating = true;
+
+        // the data kept by a transformer still goes through the transformers after it.
+        for (int i = 0; i < this.transformers.length; i++) {
+            var tail = this.transformers[i].finish();
+
+            if (tail != null)
+                this.writeToNext(this.transform(tail, i + 1));
+        }
+
+        if (LOG.isTraceEnabled())
+            LOG.trace("terminating writes with pending = {}", this.pending == null ? 0 : this.pending.remaining());
+
+        if (this.flushPending())
+            this.terminateNext();
+    }
+
+    @Override
+    public boolean flush() throws IOException {
+
+        if (!this.flushPending())
+            return false;
+
+        if (this.terminating)
+            this.terminateNext();
+
+        return next.flush();
+    }
+
+    private void terminateNext() throws IOException {
+
+        if (!this.nextTerminated) {
+            this.nextTerminated = true;
+            next.terminateWrites();
+        }
+    }
+
+    private ByteBuffer transform(ByteBuffer chunk, int from) throws IOException {
+
+        for (int i = from; i < this.transformers.length && chunk != null; i++)
+            chunk = this.transformers[i].transform(chunk);
+
+        return chunk;
+    }
+
+    /**
+     * Write the transformed data to the next conduit and keep a copy of the rest.
+     *
+     * @param data transformed data
+     * @throws IOException if the next conduit cannot be written
+     */
+    private void writeToNext(ByteBuffer data) throws IOException {
+
+        if (data == null || !data.hasRemaining())
+            return;
+
+        if (this.pending == null)
+            while (data.hasRemaining() && next.write(data) > 0) ;
+
+        if (!data.hasRemaining())
+            return;
+
+        if (this.pending == null)
+            this.pending = ByteBuffer.allocate(data.remaining()).put(data).flip();
+
+        else {
+            var merged = ByteBuffer.allocate(this.pending.remaining() + data.remaining());
+            this.pending = merged.put(this.pending).put(data).flip();
+        }
+    }
+
+    /**
+     * @return true if there is no pending data
+     * @throws IOException if the next conduit cannot be written
+     */
+    private boolean flushPending() throws IOException {
+
+        if (this.pending == null)
+            return true;
+
+        while (this.pending.hasRemaining() && next.write(this.pending) > 0) ;
+
+        if (this.pending.hasRemaining())
+            return false;
+
+        this.pending = null;
+        return true;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import com.networknt.config.Config;
+import com.networknt.httpstring.AttachmentConstants;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.server.HttpServerExchange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class BuffersUtilsTest {
+
+    static PooledByteBuffer[] split(String s, int size, int length) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        PooledByteBuffer[] buffers = new PooledByteBuffer[length];
+        for (int i = 0, j = 0; i < bytes.length; i += size, j++) {
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.put(bytes, i, Math.min(size, bytes.length - i)).flip();
+            buffers[j] = new TestPooledByteBuffer(buffer);
+        }
+        return buffers;
+    }
+
+    @Test
+    public void testInputStreamAcrossBuffers() throws Exception {
+        String body = "  \r\n {\"name\":\"über\",\"list\":[1,2,3]}";
+        PooledByteBuffer[] buffers = split(body, 4, 16);
+        Assertions.assertEquals('{', BuffersUtils.firstNonWhitespace(buffers));
+        Assertions.assertEquals(body.getBytes(StandardCharsets.UTF_8).length, BuffersUtils.remaining(buffers));
+        try (InputStream is = BuffersUtils.toInputStream(buffers)) {
+            Map<String, Object> map = Config.getInstance().getMapper().readValue(is, Map.class);
+            Assertions.assertEquals("über", map.get("name"));
+        }
+        // the pooled buffers are not consumed and can be read again.
+        Assertions.assertEquals(body, BuffersUtils.toString(buffers, StandardCharsets.UTF_8));
+        Assertions.assertEquals(0, buffers[0].getBuffer().position());
+    }
+
+    @Test
+    public void testFirstNonWhitespaceEmpty() {
+        Assertions.assertEquals(-1, BuffersUtils.firstNonWhitespace(split(" \n\t ", 2, 4)));
+        Assertions.assertEquals(-1, BuffersUtils.firstNonWhitespace(new PooledByteBuffer[2]));
+    }
+
+    @Test
+    public void testRequestBodyStringOnDemand() {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        Assertions.assertNull(BuffersUtils.getRequestBodyString(exchange));
+        exchange.putAttachment(AttachmentConstants.BUFFERED_REQUEST_DATA_KEY, split("[1, 2] ", 3, 4));
+        Assertions.assertEquals("[1, 2]", BuffersUtils.getRequestBodyString(exchange));
+        // the string converted on demand is not cached in the exchange
+        Assertions.assertNull(exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING));
+        exchange.putAttachment(AttachmentConstants.REQUEST_BODY_STRING, "cached");
+        Assertions.assertEquals("cached", BuffersUtils.getRequestBodyString(exchange));
+    }
+
+    static class TestPooledByteBuffer implements PooledByteBuffer {
+        private final ByteBuffer buffer;
+
+        TestPooledByteBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class IncrementalJsonParserTest {
+
+    static void feed(IncrementalJsonParser parser, String s, int size) throws Exception {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += size) {
+            parser.feed(ByteBuffer.wrap(bytes, i, Math.min(size, bytes.length - i)));
+        }
+    }
+
+    @Test
+    public void testSameAsMapper() throws Exception {
+        String json = "{\"name\":\"über\",\"age\":42,\"big\":12345678901234,\"rate\":1.5,\"ok\":true,\"none\":null,"
+                + "\"tags\":[\"a\",{\"b\":[1,2,[]]}],\"empty\":{}}";
+        for (int size : new int[]{1, 3, 16, 1024}) {
+            IncrementalJsonParser parser = new IncrementalJsonParser();
+            feed(parser, json, size);
+            Assertions.assertTrue(parser.isComplete());
+            parser.endOfInput();
+            Assertions.assertEquals(Config.getInstance().getMapper().readValue(json, Map.class), parser.getResult());
+        }
+    }
+
+    @Test
+    public void testArray() throws Exception {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+        feed(parser, " [1, \"two\", 3.0] ", 2);
+        parser.endOfInput();
+        Assertions.assertEquals(List.of(1, "two", 3.0), parser.getResult());
+    }
+
+    @Test
+    public void testMalformedIsDetectedEarly() throws Exception {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+        parser.feed(ByteBuffer.wrap("{\"a\":1,".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertFalse(parser.isComplete());
+        Assertions.assertThrows(JsonProcessingException.class,
+                () -> parser.feed(ByteBuffer.wrap("2:\"b\"}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testInvalidRoot() throws Exception {
+        Assertions.assertThrows(JsonProcessingException.class, () -> feed(new IncrementalJsonParser(), "\"text\"", 4));
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+        feed(parser, "{\"a\":[1,2", 4);
+        Assertions.assertThrows(JsonProcessingException.class, parser::endOfInput);
+    }
+
+    @Test
+    public void testTrailingContentIsIgnored() throws Exception {
+        // the same as the ObjectMapper.readValue in the RequestBodyInterceptor
+        for (String json : new String[]{"{\"a\":1} {}", "{\"a\":1} trailing", "{\"a\":1}]"}) {
+            IncrementalJsonParser parser = new IncrementalJsonParser();
+            feed(parser, json, 3);
+            parser.endOfInput();
+            Assertions.assertEquals(Map.of("a", 1), parser.getResult());
+            Assertions.assertEquals(Config.getInstance().getMapper().readValue(json, Map.class), parser.getResult());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import com.networknt.httpstring.AttachmentConstants;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.server.HttpServerExchange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class RequestBodySpillTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWriteAndMap() throws Exception {
+        Path file = Files.createTempFile(dir, "request-body-", ".spill");
+        RequestBodySpill spill = new RequestBodySpill(file, 4L * RequestBodySpill.SEGMENT_SIZE, Long.MAX_VALUE);
+        byte[] chunk = new byte[16384];
+        int chunks = (RequestBodySpill.SEGMENT_SIZE / chunk.length) * 2 + 1;
+        for (int i = 0; i < chunks; i++) {
+            Arrays.fill(chunk, (byte) i);
+            Assertions.assertTrue(spill.write(ByteBuffer.wrap(chunk)));
+        }
+        Assertions.assertEquals((long) chunks * chunk.length, spill.getSize());
+        PooledByteBuffer[] segments = spill.map();
+        Assertions.assertEquals(3, segments.length);
+        Assertions.assertEquals(chunk.length, segments[2].getBuffer().remaining());
+        Assertions.assertEquals(spill.getSize(), BuffersUtils.remaining(segments));
+        try (InputStream is = BuffersUtils.toInputStream(segments)) {
+            byte[] data = is.readAllBytes();
+            Assertions.assertEquals(0, data[0]);
+            Assertions.assertEquals((byte) (chunks - 1), data[data.length - 1]);
+        }
+        spill.release();
+        Assertions.assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        long total = RequestBodySpill.getTotalSize();
+        RequestBodySpill spill = new RequestBodySpill(Files.createTempFile(dir, "request-body-", ".spill"), 100, Long.MAX_VALUE);
+        Assertions.assertTrue(spill.write(ByteBuffer.allocate(60)));
+        // the per request limit
+        Assertions.assertFalse(spill.write(ByteBuffer.allocate(60)));
+        Assertions.assertEquals(total + 60, RequestBodySpill.getTotalSize());
+
+        // the total limit across the requests
+        RequestBodySpill other = new RequestBodySpill(Files.createTempFile(dir, "request-body-", ".spill"), 100, total + 100);
+        Assertions.assertFalse(other.write(ByteBuffer.allocate(60)));
+        Assertions.assertTrue(other.write(ByteBuffer.allocate(40)));
+
+        spill.release();
+        spill.release();
+        other.release();
+        Assertions.assertEquals(total, RequestBodySpill.getTotalSize());
+    }
+
+    @Test
+    public void testSpilledBodyString() throws Exception {
+        // a text body larger than the in-memory limit with a character split between two segments
+        int head = 8192;
+        int size = BuffersUtils.MAX_CONTENT_SIZE + RequestBodySpill.SEGMENT_SIZE;
+        StringBuilder sb = new StringBuilder(size);
+        sb.append("{\"data\":\"");
+        while (sb.length() < head + RequestBodySpill.SEGMENT_SIZE - 1) sb.append('a');
+        sb.append('\u00fc');
+        while (sb.length() < size) sb.append('b');
+        sb.append("\"}");
+        String body = sb.toString();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        // the first buffer in memory and the rest spilled to the file
+        RequestBodySpill spill = new RequestBodySpill(Files.createTempFile(dir, "request-body-", ".spill"), Long.MAX_VALUE, Long.MAX_VALUE);
+        Assertions.assertTrue(spill.write(ByteBuffer.wrap(bytes, head, bytes.length - head)));
+        PooledByteBuffer[] segments = spill.map();
+        PooledByteBuffer[] data = new PooledByteBuffer[segments.length + 1];
+        data[0] = new RequestBodySpill.MappedBuffer(ByteBuffer.wrap(bytes, 0, head).slice());
+        System.arraycopy(segments, 0, data, 1, segments.length);
+        Assertions.assertTrue(BuffersUtils.remaining(data) > BuffersUtils.MAX_CONTENT_SIZE);
+        Assertions.assertEquals((byte) 0xC3, segments[0].getBuffer().get(RequestBodySpill.SEGMENT_SIZE - 1));
+
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.putAttachment(AttachmentConstants.BUFFERED_REQUEST_DATA_KEY, data);
+        Assertions.assertEquals(body, BuffersUtils.getRequestBodyString(exchange));
+        // the request transformer converts the buffers with the encoding name
+        Assertions.assertEquals(body, BuffersUtils.toString(data, "UTF-8"));
+        Assertions.assertArrayEquals(bytes, BuffersUtils.toByteArray(data));
+        // the buffers are not consumed and can still be forwarded
+        Assertions.assertEquals(bytes.length, BuffersUtils.remaining(data));
+        spill.release();
+    }
+}
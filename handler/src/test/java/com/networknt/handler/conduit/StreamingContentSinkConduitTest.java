@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.networknt.handler.conduit;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.networknt.handler.JsonStreamTransformer;
+import com.networknt.handler.ResponseChunkTransformer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.StreamSinkConduit;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class StreamingContentSinkConduitTest {
+
+    static ByteBuffer chunk(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static class FieldFilter extends JsonStreamTransformer {
+        FieldFilter() throws IOException {
+            super();
+        }
+
+        @Override
+        protected boolean includeField(JsonPointer pointer) {
+            // remove the ssn column from all the rows regardless of the index.
+            return !pointer.last().getMatchingProperty().equals("ssn");
+        }
+    }
+
+    @Test
+    public void testJsonFieldFilterAcrossChunks() throws Exception {
+        var next = new SlowSinkConduit(5);
+        var conduit = new StreamingContentSinkConduit(next, List.of(new FieldFilter()));
+        String[] chunks = {"[{\"name\":\"a\",\"ss", "n\":{\"v\":[1,2]},\"age\":3", "},{\"ssn\":\"x\",\"name\":\"b\"}]"};
+        for (String s : chunks) {
+            var src = chunk(s);
+            while (src.hasRemaining()) {
+                // the source is consumed once it is accepted even if the next conduit is slow.
+                if (conduit.write(src) == 0) next.full = false;
+            }
+        }
+        conduit.terminateWrites();
+        while (!conduit.flush()) next.full = false;
+        Assertions.assertTrue(next.terminated);
+        Assertions.assertEquals("[{\"name\":\"a\",\"age\":3},{\"name\":\"b\"}]", next.out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTransformerChainWithFinish() throws Exception {
+        // the first transformer keeps the last byte until the next chunk and emits it on finish.
+        ResponseChunkTransformer holdLast = new ResponseChunkTransformer() {
+            ByteBuffer kept;
+
+            @Override
+            public ByteBuffer transform(ByteBuffer chunk) {
+                var out = ByteBuffer.allocate((kept == null ? 0 : 1) + chunk.remaining() - 1);
+                if (kept != null) out.put(kept);
+                kept = ByteBuffer.allocate(1);
+                while (out.hasRemaining()) out.put(chunk.get());
+                kept.put(chunk.get()).flip();
+                return out.flip();
+            }
+
+            @Override
+            public ByteBuffer finish() {
+                return kept;
+            }
+        };
+        ResponseChunkTransformer upper = chunk -> chunk(StandardCharsets.UTF_8.decode(chunk).toString().toUpperCase());
+        var next = new SlowSinkConduit(Integer.MAX_VALUE);
+        var conduit = new StreamingContentSinkConduit(next, List.of(holdLast, upper));
+        Assertions.assertEquals(3, conduit.write(chunk("abc")));
+        Assertions.assertEquals("AB", next.out.toString(StandardCharsets.UTF_8));
+        conduit.write(new ByteBuffer[]{chunk("de"), chunk("f")}, 0, 2);
+        conduit.terminateWrites();
+        Assertions.assertTrue(conduit.flush());
+        Assertions.assertEquals("ABCDEF", next.out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A next conduit that accepts a limited number of bytes for each write.
+     */
+    static class SlowSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int max;
+        boolean terminated;
+        boolean full;
+
+        SlowSinkConduit(int max) {
+            // the next conduit of this test conduit is never used.
+            super((StreamSinkConduit) Proxy.newProxyInstance(StreamSinkConduit.class.getClassLoader(), new Class<?>[]{StreamSinkConduit.class}, (proxy, method, args) -> null));
+            this.max = max;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            // accept one write and then report that the channel is full until the test resets it.
+            if (full) return 0;
+            int n = Math.min(max, src.remaining());
+            for (int i = 0; i < n; i++) out.write(src.get());
+            full = max != Integer.MAX_VALUE;
+            return n;
+        }
+
+        @Override
+        public void terminateWrites() {
+            terminated = true;
+        }
+
+        @Override
+        public boolean flush() {
+            return true;
+        }
+    }
+}
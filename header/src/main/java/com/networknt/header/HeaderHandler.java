@@ -19,17 +19,10 @@ package com.networknt.header;
 import com.networknt.handler.Handler;
 import com.networknt.handler.MiddlewareHandler;
 import io.undertow.Handlers;
-import io.undertow.server.ConduitWrapper;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import io.undertow.util.ConduitFactory;
-import io.undertow.util.HttpString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xnio.conduits.StreamSinkConduit;
-
-import java.util.List;
-import java.util.Map;
 
 /**
  * This is a handler that manipulate request and response headers based on the configuration.
@@ -49,6 +42,7 @@ public class HeaderHandler implements MiddlewareHandler {
     private String configName = HeaderConfig.CONFIG_NAME;
 
     private volatile HttpHandler next;
+    private volatile HeaderPlan plan;
 
     public HeaderHandler() {
         HeaderConfig.load(configName);
@@ -62,8 +56,8 @@ public class HeaderHandler implements MiddlewareHandler {
     }
 
     /**
-     * Check iterate the configuration on both request and response section and update
-     * headers accordingly.
+     * Apply the compiled header plan of the configuration on both request and response section
+     * and update headers accordingly.
      *
      * @param exchange HttpServerExchange
      * @throws Exception Exception
@@ -72,99 +66,55 @@ public class HeaderHandler implements MiddlewareHandler {
     public void handleRequest(final HttpServerExchange exchange) throws Exception {
         logger.debug("HeaderHandler.handleRequest starts.");
 
-        HeaderConfig config = HeaderConfig.load(configName);
+        HeaderPlan plan = getPlan(HeaderConfig.load(configName));
         // handle all request header
-        List<String> requestHeaderRemove = config.getRequestRemoveList();
-        if (requestHeaderRemove != null) {
-            requestHeaderRemove.forEach(s -> exchange.getRequestHeaders().remove(s));
-        }
-
-        Map<String, String> requestHeaderUpdate = config.getRequestUpdateMap();
-        if (requestHeaderUpdate != null) {
-            requestHeaderUpdate.forEach((k, v) -> exchange.getRequestHeaders().put(new HttpString(k), v));
+        HeaderPlan.Mutation request = plan.getRequest();
+        if (request != null) {
+            request.apply(exchange.getRequestHeaders());
         }
 
         // handle all response header
-        List<String> responseHeaderRemove = config.getResponseRemoveList();
-        if (responseHeaderRemove != null) {
-            responseHeaderRemove.forEach(s -> exchange.getResponseHeaders().remove(s));
-        }
-
-        Map<String, String> responseHeaderUpdate = config.getResponseUpdateMap();
-        if (responseHeaderUpdate != null) {
-            responseHeaderUpdate.forEach((k, v) -> exchange.getResponseHeaders().put(new HttpString(k), v));
+        HeaderPlan.Mutation response = plan.getResponse();
+        if (response != null) {
+            response.apply(exchange.getResponseHeaders());
         }
 
         // handler per path prefix header if configured.
-        Map<String, HeaderPathPrefixConfig> pathPrefixHeader = config.getPathPrefixHeader();
-
-        if (pathPrefixHeader != null) {
-            String requestPath = exchange.getRequestPath();
-
-            for (Map.Entry<String, HeaderPathPrefixConfig> entry : config.getPathPrefixHeader().entrySet()) {
-
-                if (requestPath.startsWith(entry.getKey())) {
-                    logger.trace("found with requestPath = {} prefix = {}", requestPath, entry.getKey());
-
-                    HeaderPathPrefixConfig pathPrefixConfig = entry.getValue();
-
-                    // handle the request header for the request path
-                    HeaderRequestConfig requestHeaderMap = pathPrefixConfig.getRequest();
-                    if (requestHeaderMap != null) {
-
-                        List<String> requestHeaderRemoveList = requestHeaderMap.getRemove();
-                        if (requestHeaderRemoveList != null) {
-                            requestHeaderRemoveList.forEach(s -> {
-                                exchange.getRequestHeaders().remove(s);
-                                logger.trace("remove request header {}", s);
-                            });
-                        }
-
-                        Map<String, String> requestHeaderUpdateMap = requestHeaderMap.getUpdate();
-                        if (requestHeaderUpdateMap != null) {
-                            requestHeaderUpdateMap.forEach((k, v) -> {
-                                exchange.getRequestHeaders().put(new HttpString(k), v);
-                                logger.trace("update request header {} with value {}", k, v);
-                            });
-                        }
-                    }
-
-                    if (pathPrefixConfig.getResponse() != null) {
-
-                        // Add response header manipulation after the response is ready to send back.
-                        exchange.addResponseWrapper(new ConduitWrapper<>() {
-                            final HeaderResponseConfig responseHeaderMap = pathPrefixConfig.getResponse();
-                            @Override
-                            public StreamSinkConduit wrap(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange responseExchange) {
-                                List<String> responseHeaderRemoveList = responseHeaderMap.getRemove();
-                                if (responseHeaderRemoveList != null) {
-                                    responseHeaderRemoveList.forEach(s -> {
-                                        responseExchange.getResponseHeaders().remove(s);
-                                        logger.trace("remove response header {}", s);
-                                    });
-                                }
-
-                                Map<String, String> responseHeaderUpdateMap = responseHeaderMap.getUpdate();
-                                if (responseHeaderUpdateMap != null) {
-                                    responseHeaderUpdateMap.forEach((k, v) -> {
-                                        responseExchange.getResponseHeaders().put(new HttpString(k), v);
-                                        logger.trace("update response header {} with value {}", k, v);
-                                    });
-                                }
-                                return factory.create();
-                            }
-                        });
-
-                    }
-
-
-                }
+        HeaderPlan.Route route = plan.resolve(exchange.getRequestPath());
+        if (route != null) {
+            if(logger.isTraceEnabled()) logger.trace("found with requestPath = {} prefix = {}", exchange.getRequestPath(), route.getPrefix());
+            // handle the request header for the request path
+            HeaderPlan.Mutation pathRequest = route.getRequest();
+            if (pathRequest != null) {
+                pathRequest.apply(exchange.getRequestHeaders());
+                if(logger.isTraceEnabled()) logger.trace("mutate request headers {}", pathRequest);
+            }
+            // Add response header manipulation after the response is ready to send back.
+            HeaderPlan.Mutation pathResponse = route.getResponse();
+            if (pathResponse != null) {
+                exchange.addResponseWrapper(pathResponse);
             }
         }
         logger.debug("HeaderHandler.handleRequest ends.");
         Handler.next(exchange, next);
     }
 
+    /**
+     * Get the header plan of the config. It is compiled once for each loaded config, so it is compiled
+     * again only when the config is reloaded.
+     *
+     * @param config HeaderConfig
+     * @return HeaderPlan
+     */
+    HeaderPlan getPlan(HeaderConfig config) {
+        HeaderPlan current = plan;
+        if (current == null || current.getMappedConfig() != config.getMappedConfig()) {
+            current = new HeaderPlan(config);
+            plan = current;
+        }
+        return current;
+    }
+
     @Override
     public HttpHandler getNext() {
         return next;
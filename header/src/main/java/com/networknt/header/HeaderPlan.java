@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.header;
+
+import com.networknt.utility.PathPrefixTrie;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ConduitFactory;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HttpString;
+import org.xnio.conduits.StreamSinkConduit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The header mutations of the HeaderHandler compiled once for each loaded header config, so that the
+ * handler does not iterate the lists and maps or create the header names for each request.
+ *
+ * The path prefixes are kept in a PathPrefixTrie. A request path is matched by all the prefixes that it
+ * starts with, and the longest one decides the route. Each route has the request mutations of all its
+ * matching prefixes concatenated in the order of the config, which gives the same result as applying them
+ * one by one. The response mutations used to be added as one response wrapper per prefix, and Undertow
+ * runs the wrapper added last first, so they are concatenated in the reverse order of the prefixes and
+ * the first configured prefix still wins.
+ *
+ * @author Steve Hu
+ */
+final class HeaderPlan {
+    private final Map<String, Object> mappedConfig;
+    private final Mutation request;
+    private final Mutation response;
+    private final PathPrefixTrie<Route> routes;
+
+    HeaderPlan(HeaderConfig config) {
+        this.mappedConfig = config.getMappedConfig();
+        this.request = Mutation.of(config.getRequestRemoveList(), config.getRequestUpdateMap());
+        this.response = Mutation.of(config.getResponseRemoveList(), config.getResponseUpdateMap());
+        Map<String, HeaderPathPrefixConfig> pathPrefixHeader = config.getPathPrefixHeader();
+        this.routes = pathPrefixHeader == null || pathPrefixHeader.isEmpty() ? null : compile(pathPrefixHeader);
+    }
+
+    Map<String, Object> getMappedConfig() {
+        return mappedConfig;
+    }
+
+    /**
+     * @return the global request header mutation or null if there is none
+     */
+    Mutation getRequest() {
+        return request;
+    }
+
+    /**
+     * @return the global response header mutation or null if there is none
+     */
+    Mutation getResponse() {
+        return response;
+    }
+
+    /**
+     * Find the route of the request path with the longest matching prefix.
+     *
+     * @param requestPath the request path
+     * @return the route or null if no prefix matches the path
+     */
+    Route resolve(String requestPath) {
+        return routes == null ? null : routes.longestMatch(requestPath);
+    }
+
+    private static PathPrefixTrie<Route> compile(Map<String, HeaderPathPrefixConfig> pathPrefixHeader) {
+        PathPrefixTrie<Route> routes = new PathPrefixTrie<>();
+        for (String prefix : pathPrefixHeader.keySet()) {
+            List<HttpString> requestNames = new ArrayList<>();
+            List<String> requestValues = new ArrayList<>();
+            List<HttpString> responseNames = new ArrayList<>();
+            List<String> responseValues = new ArrayList<>();
+            List<HeaderPathPrefixConfig> matches = new ArrayList<>();
+            for (Map.Entry<String, HeaderPathPrefixConfig> entry : pathPrefixHeader.entrySet()) {
+                if (prefix.startsWith(entry.getKey())) matches.add(entry.getValue());
+            }
+            for (HeaderPathPrefixConfig pathPrefixConfig : matches) {
+                HeaderRequestConfig requestConfig = pathPrefixConfig.getRequest();
+                if (requestConfig != null) {
+                    Mutation.add(requestNames, requestValues, requestConfig.getRemove(), requestConfig.getUpdate());
+                }
+            }
+            for (int i = matches.size() - 1; i >= 0; i--) {
+                HeaderResponseConfig responseConfig = matches.get(i).getResponse();
+                if (responseConfig != null) {
+                    Mutation.add(responseNames, responseValues, responseConfig.getRemove(), responseConfig.getUpdate());
+                }
+            }
+            routes.put(prefix, new Route(prefix, Mutation.of(requestNames, requestValues), Mutation.of(responseNames, responseValues)));
+        }
+        return routes;
+    }
+
+    /**
+     * The request and response header mutations of the matching path prefixes.
+     */
+    static final class Route {
+        private final String prefix;
+        private final Mutation request;
+        private final Mutation response;
+
+        private Route(String prefix, Mutation request, Mutation response) {
+            this.prefix = prefix;
+            this.request = request;
+            this.response = response;
+        }
+
+        String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * @return the request header mutation or null if there is none
+         */
+        Mutation getRequest() {
+            return request;
+        }
+
+        /**
+         * @return the response header mutation applied before the response is committed or null if there is none
+         */
+        Mutation getResponse() {
+            return response;
+        }
+    }
+
+    /**
+     * A list of header operations applied in order. A null value removes the header and the others replace
+     * the header with the value. It is stateless and shared by all the requests, and it is added as a response
+     * wrapper to apply the operations to the response headers just before they are sent.
+     */
+    static final class Mutation implements ConduitWrapper<StreamSinkConduit> {
+        private final HttpString[] names;
+        private final String[] values;
+
+        private Mutation(HttpString[] names, String[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        static Mutation of(List<String> remove, Map<String, String> update) {
+            List<HttpString> names = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            add(names, values, remove, update);
+            return of(names, values);
+        }
+
+        private static Mutation of(List<HttpString> names, List<String> values) {
+            return names.isEmpty() ? null : new Mutation(names.toArray(new HttpString[0]), values.toArray(new String[0]));
+        }
+
+        private static void add(List<HttpString> names, List<String> values, List<String> remove, Map<String, String> update) {
+            if (remove != null) {
+                for (String name : remove) {
+                    names.add(new HttpString(name));
+                    values.add(null);
+                }
+            }
+            if (update != null) {
+                for (Map.Entry<String, String> entry : update.entrySet()) {
+                    names.add(new HttpString(entry.getKey()));
+                    values.add(entry.getValue());
+                }
+            }
+        }
+
+        void apply(HeaderMap headers) {
+            for (int i = 0; i < names.length; i++) {
+                if (values[i] == null) {
+                    headers.remove(names[i]);
+                } else {
+                    headers.put(names[i], values[i]);
+                }
+            }
+        }
+
+        int size() {
+            return names.length;
+        }
+
+        @Override
+        public StreamSinkConduit wrap(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange) {
+            apply(exchange.getResponseHeaders());
+            return factory.create();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(values[i] == null ? "remove " : "put ").append(names[i]);
+                if (values[i] != null) sb.append('=').append(values[i]);
+            }
+            return sb.toString();
+        }
+    }
+}
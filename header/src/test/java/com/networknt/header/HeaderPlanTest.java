@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.header;
+
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HttpString;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the path prefix trie and the order of the mutations of the compiled header plan.
+ */
+public class HeaderPlanTest {
+    static final HeaderPlan plan = new HeaderPlan(HeaderConfig.load("header-plan"));
+
+    @Test
+    public void testResolveLongestPrefix() {
+        Assertions.assertEquals("/v1", plan.resolve("/v1").getPrefix());
+        Assertions.assertEquals("/v1", plan.resolve("/v1/orders").getPrefix());
+        Assertions.assertEquals("/v1/pets", plan.resolve("/v1/pets").getPrefix());
+        Assertions.assertEquals("/v1/pets", plan.resolve("/v1/pets/1").getPrefix());
+        Assertions.assertEquals("/v2", plan.resolve("/v2x").getPrefix());
+        Assertions.assertNull(plan.resolve("/v"));
+        Assertions.assertNull(plan.resolve("/market"));
+        Assertions.assertNull(plan.resolve(""));
+    }
+
+    @Test
+    public void testMutationsInConfigOrder() {
+        HeaderMap headers = new HeaderMap();
+        headers.put(new HttpString("header1"), "1");
+        headers.put(new HttpString("headerA"), "A");
+        plan.getRequest().apply(headers);
+        HeaderPlan.Route route = plan.resolve("/v1/pets/1");
+        route.getRequest().apply(headers);
+        Assertions.assertNull(headers.getFirst("header1"));
+        Assertions.assertEquals("value1", headers.getFirst("key1"));
+        Assertions.assertNull(headers.getFirst("headerA"));
+        // the keyA put by the /v1 prefix is removed by the /v1/pets prefix after it.
+        Assertions.assertNull(headers.getFirst("keyA"));
+        Assertions.assertEquals("valueB", headers.getFirst("keyB"));
+        Assertions.assertEquals(4, route.getRequest().size());
+        Assertions.assertEquals(1, route.getResponse().size());
+
+        // the empty global response and the /v1 route without response have no mutation.
+        Assertions.assertNull(plan.getResponse());
+        Assertions.assertNull(plan.resolve("/v1/orders").getResponse());
+        Assertions.assertNull(plan.resolve("/v2").getRequest());
+    }
+
+    @Test
+    public void testResponseMutationsFirstPrefixWins() {
+        HeaderMap headers = new HeaderMap();
+        HeaderPlan.Route route = plan.resolve("/v3/items/1");
+        Assertions.assertEquals("/v3/items", route.getPrefix());
+        route.getResponse().apply(headers);
+        // the response wrapper of each prefix used to run in the reverse order, so the /v3 prefix configured
+        // first overwrites the keyE of /v3/items and puts back the keyF removed by it.
+        Assertions.assertEquals("valueE3", headers.getFirst("keyE"));
+        Assertions.assertEquals("valueF", headers.getFirst("keyF"));
+        Assertions.assertEquals("remove keyF, put keyE=valueE, put keyE=valueE3, put keyF=valueF", route.getResponse().toString());
+    }
+}
@@ -41,6 +41,7 @@ public class HealthConfig {
     private static final String DOWNSTREAM_ENABLED = "downstreamEnabled";
     private static final String DOWNSTREAM_HOST = "downstreamHost";
     private static final String DOWNSTREAM_PATH = "downstreamPath";
+    private static final String CACHE_TTL = "cacheTtl";
 
     private Map<String, Object> mappedConfig;
     private static HealthConfig instance;
@@ -99,6 +100,17 @@ public class HealthConfig {
     )
     String downstreamPath;
 
+    @IntegerField(
+            configFieldName = CACHE_TTL,
+            externalizedKeyName = CACHE_TTL,
+            defaultValue = "5000",
+            description = "time to live in milliseconds of the aggregated result of the health indicators. The probes within the\n" +
+                    "duration are served from memory and an expired result is refreshed in the background while it is\n" +
+                    "still returned, so that the load balancer probes don't hit the databases and the downstream services.\n" +
+                    "0 to run the health indicators for each request."
+    )
+    int cacheTtl = 5000;
+
     private HealthConfig(String configName) {
         mappedConfig = Config.getInstance().getJsonMapConfig(configName);
         setConfigData();
@@ -178,6 +190,14 @@ public class HealthConfig {
         this.downstreamPath = downstreamPath;
     }
 
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(int cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
     public Map<String, Object> getMappedConfig() {
         return mappedConfig;
     }
@@ -198,6 +218,8 @@ public class HealthConfig {
             if(object != null) downstreamHost = (String)object;
             object = getMappedConfig().get(DOWNSTREAM_PATH);
             if(object != null) downstreamPath = (String)object;
+            object = getMappedConfig().get(CACHE_TTL);
+            if(object != null) cacheTtl = Config.loadIntegerValue(CACHE_TTL, object);
         }
     }
 
@@ -1,5 +1,6 @@
 package com.networknt.health;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 public class HealthConfigTest {
@@ -8,4 +9,11 @@ public class HealthConfigTest {
         HealthConfig config = HealthConfig.load();
         assert(config != null);
     }
+
+    @Test
+    public void testCacheTtlDefault() {
+        Assertions.assertEquals(5000, HealthConfig.load().getCacheTtl());
+        // the result is cached without a health config file.
+        Assertions.assertEquals(5000, HealthConfig.load("health-missing").getCacheTtl());
+    }
 }
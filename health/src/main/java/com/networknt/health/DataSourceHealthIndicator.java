@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import com.networknt.service.SingletonServiceFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * The health indicator of the javax.sql.DataSource in the service.yml, which is normally the HikariDataSource
+ * of a GenericDataSource. A connection is borrowed from the pool and validated with the driver.
+ *
+ * @author Steve Hu
+ */
+public class DataSourceHealthIndicator implements HealthIndicator {
+    private final DataSource dataSource;
+
+    public DataSourceHealthIndicator() {
+        this(SingletonServiceFactory.getBean(DataSource.class));
+    }
+
+    public DataSourceHealthIndicator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public boolean isHealthy() throws Exception {
+        if (dataSource == null) return true;
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(Math.max(1, HealthConfig.load().getTimeout() / 1000));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * The health indicator of the downstream API with the downstreamHost and downstreamPath in the health.yml.
+ * It is added by the HealthGetHandler when the downstreamEnabled is true, and the downstream is healthy if
+ * its health endpoint returns a status code less than 400. The connection of the client is reused, and
+ * an https downstream is verified with the default truststore of the JVM.
+ *
+ * @author Steve Hu
+ */
+public class DownstreamHealthIndicator implements HealthIndicator {
+    static final Logger logger = LoggerFactory.getLogger(DownstreamHealthIndicator.class);
+
+    private final HttpClient client;
+    private final URI uri;
+    private final Duration timeout;
+
+    public DownstreamHealthIndicator(HealthConfig config) {
+        this.timeout = Duration.ofMillis(Math.max(1, config.getTimeout()));
+        this.uri = URI.create(config.getDownstreamHost() + config.getDownstreamPath());
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public String getName() {
+        return "downstream " + uri;
+    }
+
+    @Override
+    public boolean isHealthy() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).timeout(timeout).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            logger.error("Error response from the downstream health check with status code = " + response.statusCode() + " body = " + response.body());
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Evaluate the health indicators concurrently and cache the aggregated result for the cacheTtl in the
+ * health.yml so that the probes of the load balancers are served from memory.
+ *
+ * Each indicator runs on a daemon thread and is unhealthy if it doesn't complete within its timeout. An
+ * indicator that is still running from the previous evaluation is not started again, so a hanging database
+ * or downstream doesn't pile up the threads. The first request waits for the evaluation and after that an
+ * expired result is returned while it is refreshed in the background by one thread. The HealthGetHandler
+ * dispatches a request that would wait to a worker thread, so the IO thread is never blocked.
+ *
+ * @author Steve Hu
+ */
+final class HealthAggregator {
+    static final Logger logger = LoggerFactory.getLogger(HealthAggregator.class);
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "health-indicator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Object> mappedConfig;
+    private final HealthIndicator[] indicators;
+    private final AtomicBoolean[] running;
+    private final long timeout;
+    private final long ttl;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Result result;
+
+    HealthAggregator(HealthConfig config, HealthIndicator[] indicators) {
+        this.mappedConfig = config.getMappedConfig();
+        this.indicators = indicators;
+        this.running = new AtomicBoolean[indicators.length];
+        for (int i = 0; i < indicators.length; i++) {
+            running[i] = new AtomicBoolean();
+        }
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getTimeout()));
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getCacheTtl()));
+    }
+
+    Map<String, Object> getMappedConfig() {
+        return mappedConfig;
+    }
+
+    int size() {
+        return indicators.length;
+    }
+
+    /**
+     * @return true if isHealthy waits for the indicators as there is no cached result to return
+     */
+    boolean isBlocking() {
+        return indicators.length > 0 && (ttl == 0 || result == null);
+    }
+
+    /**
+     * @return true if all the health indicators are healthy
+     */
+    boolean isHealthy() {
+        if (indicators.length == 0) return true;
+        if (ttl == 0) return evaluate().healthy;
+        Result cached = result;
+        if (cached == null) {
+            synchronized (this) {
+                cached = result;
+                if (cached == null) {
+                    cached = evaluate();
+                    result = cached;
+                }
+            }
+        } else if (System.nanoTime() - cached.time > ttl && refreshing.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    result = evaluate();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return cached.healthy;
+    }
+
+    Result evaluate() {
+        long start = System.nanoTime();
+        Future<?>[] futures = new Future<?>[indicators.length];
+        boolean healthy = true;
+        for (int i = 0; i < indicators.length; i++) {
+            if (running[i].get()) {
+                logger.error("Health indicator " + indicators[i].getName() + " is still running from the previous check.");
+                healthy = false;
+                continue;
+            }
+            HealthIndicator indicator = indicators[i];
+            AtomicBoolean flag = running[i];
+            futures[i] = executor.submit(() -> {
+                // the flag is set by the task so that it is not left set if the task is cancelled before it starts.
+                flag.set(true);
+                try {
+                    return indicator.isHealthy();
+                } finally {
+                    flag.set(false);
+                }
+            });
+        }
+        for (int i = 0; i < indicators.length; i++) {
+            if (futures[i] == null) continue;
+            long deadline = start + (indicators[i].getTimeout() > 0 ? TimeUnit.MILLISECONDS.toNanos(indicators[i].getTimeout()) : timeout);
+            try {
+                if (!Boolean.TRUE.equals(futures[i].get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))) {
+                    logger.error("Health indicator " + indicators[i].getName() + " is unhealthy.");
+                    healthy = false;
+                }
+            } catch (TimeoutException e) {
+                logger.error("Health indicator " + indicators[i].getName() + " timed out.");
+                futures[i].cancel(true);
+                healthy = false;
+            } catch (ExecutionException e) {
+                logger.error("Health indicator " + indicators[i].getName() + " failed:", e.getCause());
+                healthy = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                healthy = false;
+            }
+        }
+        return new Result(healthy, System.nanoTime());
+    }
+
+    static final class Result {
+        final boolean healthy;
+        final long time;
+
+        Result(boolean healthy, long time) {
+            this.healthy = healthy;
+            this.time = time;
+        }
+    }
+}
@@ -18,11 +18,17 @@ package com.networknt.health;
 
 import com.networknt.config.JsonMapper;
 import com.networknt.handler.LightHttpHandler;
+import com.networknt.server.WarmUpStatus;
+import com.networknt.service.SingletonServiceFactory;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * This is a server health handler that output OK to indicate the server is alive. Normally,
  * it will be use by F5 to check if the server is health before route request to it. Another
@@ -36,7 +42,10 @@ import org.slf4j.LoggerFactory;
  * native and browser SPA and aggregate other services in the backend. For services deployed
  * in the cloud dynamically, there is no reverse proxy but using client side service discovery.
  *
- * TODO support cascade health check with configuration, for example, database etc.
+ * The cascade health check of the databases, the registry and the downstream API is done with the
+ * HealthIndicator implementations in the service.yml and the downstreamEnabled in the health.yml. The
+ * indicators are evaluated concurrently and the result is cached for the cacheTtl. If any of them is
+ * unhealthy, ERROR is returned with 503 without the details for security reason.
  *
  * @author Steve Hu
  */
@@ -45,10 +54,19 @@ public class HealthGetHandler implements LightHttpHandler {
     public static final String HEALTH_RESULT_OK = "OK";
     /** health result OK in JSON format */
     public static final String HEALTH_RESULT_OK_JSON = JsonMapper.toJson(new HealthResult("OK"));
+    /** health result when the server is warming up */
+    public static final String HEALTH_RESULT_WARMING_UP = "WARMING_UP";
+    /** health result when the server is warming up in JSON format */
+    public static final String HEALTH_RESULT_WARMING_UP_JSON = JsonMapper.toJson(new HealthResult("WARMING_UP"));
+    /** health result when any of the health indicators is unhealthy */
+    public static final String HEALTH_RESULT_ERROR = "ERROR";
+    /** health result when any of the health indicators is unhealthy in JSON format */
+    public static final String HEALTH_RESULT_ERROR_JSON = JsonMapper.toJson(new HealthResult("ERROR"));
 
     static final Logger logger = LoggerFactory.getLogger(HealthGetHandler.class);
 
     private String configName = HealthConfig.CONFIG_NAME;
+    private volatile HealthAggregator aggregator;
 
     /**
      * Default constructor for HealthGetHandler.
@@ -70,6 +88,33 @@ public class HealthGetHandler implements LightHttpHandler {
     @Override
     public void handleRequest(final HttpServerExchange exchange) throws Exception {
         HealthConfig config = HealthConfig.load(configName);
+        // the server is not ready until the downstream services are warmed up by the startup hooks.
+        if (!WarmUpStatus.isComplete()) {
+            exchange.setStatusCode(503);
+            if (config != null && config.isUseJson()) {
+                exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+                exchange.getResponseSender().send(HEALTH_RESULT_WARMING_UP_JSON);
+            } else {
+                exchange.getResponseSender().send(HEALTH_RESULT_WARMING_UP);
+            }
+            return;
+        }
+        HealthAggregator current = config == null ? null : getAggregator(config);
+        if (current != null && current.isBlocking() && exchange.isInIoThread()) {
+            // the indicators are evaluated in a worker thread as the first check or a check without the cache waits for them.
+            exchange.dispatch(this);
+            return;
+        }
+        if (current != null && !current.isHealthy()) {
+            exchange.setStatusCode(503);
+            if (config.isUseJson()) {
+                exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+                exchange.getResponseSender().send(HEALTH_RESULT_ERROR_JSON);
+            } else {
+                exchange.getResponseSender().send(HEALTH_RESULT_ERROR);
+            }
+            return;
+        }
         if (config != null && config.isUseJson()) {
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
             exchange.getResponseSender().send(HEALTH_RESULT_OK_JSON);
@@ -78,6 +123,31 @@ public class HealthGetHandler implements LightHttpHandler {
         }
     }
 
+    /**
+     * Get the aggregator of the health indicators in the service.yml and the downstream indicator if it is
+     * enabled. It is created again when the health.yml is reloaded.
+     *
+     * @param config HealthConfig
+     * @return HealthAggregator
+     */
+    HealthAggregator getAggregator(HealthConfig config) {
+        HealthAggregator current = aggregator;
+        if (current == null || current.getMappedConfig() != config.getMappedConfig()) {
+            synchronized (this) {
+                current = aggregator;
+                if (current == null || current.getMappedConfig() != config.getMappedConfig()) {
+                    List<HealthIndicator> indicators = new ArrayList<>();
+                    HealthIndicator[] beans = SingletonServiceFactory.getBeans(HealthIndicator.class);
+                    if (beans != null) indicators.addAll(Arrays.asList(beans));
+                    if (config.isDownstreamEnabled()) indicators.add(new DownstreamHealthIndicator(config));
+                    current = new HealthAggregator(config, indicators.toArray(new HealthIndicator[0]));
+                    aggregator = current;
+                }
+            }
+        }
+        return current;
+    }
+
     static class HealthResult {
 
         private String result;
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+/**
+ * A health indicator checks one dependency of the service like a database, the registry or a downstream
+ * API for the HealthGetHandler. The implementations are configured in the service.yml and all of them
+ * are evaluated concurrently, each within its own timeout, and the server is healthy only if all of
+ * them are healthy.
+ *
+ * <pre>
+ * - com.networknt.health.HealthIndicator:
+ *   - com.networknt.health.DataSourceHealthIndicator
+ *   - com.networknt.health.RegistryHealthIndicator
+ * </pre>
+ *
+ * @author Steve Hu
+ */
+public interface HealthIndicator {
+    /**
+     * The name of the indicator in the log when it is unhealthy.
+     *
+     * @return the name of the indicator
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * The timeout in milliseconds of this indicator. An indicator that doesn't complete within the timeout
+     * is unhealthy.
+     *
+     * @return the timeout or 0 to use the timeout in the health.yml
+     */
+    default int getTimeout() {
+        return 0;
+    }
+
+    /**
+     * Check the dependency.
+     *
+     * @return true if the dependency is healthy
+     * @throws Exception if the dependency cannot be checked, and it is unhealthy
+     */
+    boolean isHealthy() throws Exception;
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import com.networknt.registry.Registry;
+import com.networknt.registry.URL;
+import com.networknt.service.SingletonServiceFactory;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * The health indicator of the Consul or the portal registry in the service.yml. It connects to the host
+ * and port of the registry URL to verify that the registry is reachable for the service registration and
+ * the discovery. A registry without a port, like the direct registry, is always healthy.
+ *
+ * @author Steve Hu
+ */
+public class RegistryHealthIndicator implements HealthIndicator {
+    private final Registry registry;
+
+    public RegistryHealthIndicator() {
+        this(SingletonServiceFactory.getBean(Registry.class));
+    }
+
+    public RegistryHealthIndicator(Registry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean isHealthy() throws Exception {
+        URL url = registry == null ? null : registry.getUrl();
+        if (url == null || url.getHost() == null || url.getPort() == null || url.getPort() <= 0) return true;
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(url.getHost(), url.getPort()), HealthConfig.load().getTimeout());
+            return true;
+        }
+    }
+}
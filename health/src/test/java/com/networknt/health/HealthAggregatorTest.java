@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HealthAggregatorTest {
+
+    static HealthConfig config(int timeout, int cacheTtl) {
+        // a config with a non-default name is a new instance that can be changed by the test.
+        HealthConfig config = HealthConfig.load("health-aggregator");
+        config.setTimeout(timeout);
+        config.setCacheTtl(cacheTtl);
+        return config;
+    }
+
+    @Test
+    public void testAggregateResult() {
+        HealthIndicator up = () -> true;
+        HealthIndicator down = () -> false;
+        HealthIndicator failed = () -> {
+            throw new IllegalStateException("database is down");
+        };
+        Assertions.assertTrue(new HealthAggregator(config(500, 0), new HealthIndicator[0]).isHealthy());
+        Assertions.assertTrue(new HealthAggregator(config(500, 0), new HealthIndicator[]{up, up}).isHealthy());
+        Assertions.assertFalse(new HealthAggregator(config(500, 0), new HealthIndicator[]{up, down}).isHealthy());
+        Assertions.assertFalse(new HealthAggregator(config(500, 0), new HealthIndicator[]{failed, up}).isHealthy());
+    }
+
+    @Test
+    public void testConcurrentWithTimeout() {
+        HealthIndicator slow = () -> {
+            Thread.sleep(300);
+            return true;
+        };
+        long start = System.nanoTime();
+        Assertions.assertTrue(new HealthAggregator(config(1000, 0), new HealthIndicator[]{slow, slow, slow}).isHealthy());
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(800));
+
+        HealthIndicator limited = new HealthIndicator() {
+            @Override
+            public int getTimeout() {
+                return 50;
+            }
+
+            @Override
+            public boolean isHealthy() throws Exception {
+                Thread.sleep(300);
+                return true;
+            }
+        };
+        start = System.nanoTime();
+        Assertions.assertFalse(new HealthAggregator(config(1000, 0), new HealthIndicator[]{limited, slow}).isHealthy());
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(800));
+    }
+
+    @Test
+    public void testHangingIndicatorNotStartedAgain() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        HealthIndicator hanging = () -> {
+            calls.incrementAndGet();
+            // ignore the interrupt like a blocking JDBC driver.
+            while (true) {
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        };
+        HealthAggregator aggregator = new HealthAggregator(config(50, 0), new HealthIndicator[]{hanging});
+        Assertions.assertFalse(aggregator.isHealthy());
+        Assertions.assertFalse(aggregator.isHealthy());
+        Assertions.assertEquals(1, calls.get());
+        release.countDown();
+        Thread.sleep(50);
+        Assertions.assertTrue(aggregator.isHealthy());
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testBlockingOnlyWithoutCachedResult() {
+        HealthIndicator up = () -> true;
+        Assertions.assertFalse(new HealthAggregator(config(500, 0), new HealthIndicator[0]).isBlocking());
+        Assertions.assertTrue(new HealthAggregator(config(500, 0), new HealthIndicator[]{up}).isBlocking());
+        HealthAggregator cached = new HealthAggregator(config(500, 100), new HealthIndicator[]{up});
+        // the first check waits for the indicators and the handler dispatches it from the IO thread.
+        Assertions.assertTrue(cached.isBlocking());
+        Assertions.assertTrue(cached.isHealthy());
+        Assertions.assertFalse(cached.isBlocking());
+    }
+
+    @Test
+    public void testCachedAndRefreshedInBackground() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        HealthIndicator counting = () -> calls.incrementAndGet() == 1;
+        HealthAggregator aggregator = new HealthAggregator(config(500, 100), new HealthIndicator[]{counting});
+        Assertions.assertTrue(aggregator.isHealthy());
+        Assertions.assertTrue(aggregator.isHealthy());
+        Assertions.assertEquals(1, calls.get());
+
+        // the expired result is returned while it is refreshed in the background.
+        Thread.sleep(150);
+        Assertions.assertTrue(aggregator.isHealthy());
+        for (int i = 0; i < 100 && aggregator.isHealthy(); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertFalse(aggregator.isHealthy());
+        Assertions.assertEquals(2, calls.get());
+    }
+}
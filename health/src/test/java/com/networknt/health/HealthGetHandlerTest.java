@@ -19,6 +19,7 @@ package com.networknt.health;
 import com.networknt.client.Http2Client;
 import com.networknt.client.simplepool.SimpleConnectionState;
 import com.networknt.exception.ClientException;
+import com.networknt.server.WarmUpStatus;
 import io.undertow.Handlers;
 import io.undertow.Undertow;
 import io.undertow.client.ClientConnection;
@@ -89,10 +90,36 @@ public class HealthGetHandlerTest {
         testHealth(true);
     }
 
+    @Test
+    public void testHealthWarmingUp() throws Exception {
+        config.setUseJson(false);
+        WarmUpStatus.begin();
+        try {
+            ClientResponse response = getHealth();
+            Assertions.assertEquals(503, response.getResponseCode());
+            Assertions.assertEquals(HealthGetHandler.HEALTH_RESULT_WARMING_UP, response.getAttachment(Http2Client.RESPONSE_BODY));
+        } finally {
+            WarmUpStatus.end();
+        }
+        Assertions.assertEquals(200, getHealth().getResponseCode());
+    }
+
     public void testHealth(boolean useJson) throws Exception {
 
         config.setUseJson(useJson);
+        ClientResponse response = getHealth();
+        int statusCode = response.getResponseCode();
+        String body = response.getAttachment(Http2Client.RESPONSE_BODY);
+        Assertions.assertEquals(200, statusCode);
+        Assertions.assertEquals(useJson ? HealthGetHandler.HEALTH_RESULT_OK_JSON : HealthGetHandler.HEALTH_RESULT_OK, body);
 
+        if (useJson) {
+            Assertions.assertEquals("application/json",
+                    response.getResponseHeaders().get(Headers.CONTENT_TYPE).getFirst());
+        }
+    }
+
+    private ClientResponse getHealth() throws Exception {
         final Http2Client client = Http2Client.getInstance();
         final CountDownLatch latch = new CountDownLatch(1);
         final SimpleConnectionState.ConnectionToken token;
@@ -122,14 +149,6 @@ public class HealthGetHandlerTest {
             client.restore(token);
 
         }
-        int statusCode = reference.get().getResponseCode();
-        String body = reference.get().getAttachment(Http2Client.RESPONSE_BODY);
-        Assertions.assertEquals(200, statusCode);
-        Assertions.assertEquals(useJson ? HealthGetHandler.HEALTH_RESULT_OK_JSON : HealthGetHandler.HEALTH_RESULT_OK, body);
-
-        if (useJson) {
-            Assertions.assertEquals("application/json",
-                    reference.get().getResponseHeaders().get(Headers.CONTENT_TYPE).getFirst());
-        }
+        return reference.get();
     }
 }
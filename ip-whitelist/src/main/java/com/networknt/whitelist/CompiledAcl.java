@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.whitelist;
+
+import com.networknt.utility.PathPrefixTrie;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.Map;
+
+/**
+ * The IP access control list of a loaded WhitelistConfig compiled for the lookup on each request.
+ * The path prefixes are kept in a PathPrefixTrie, and the IPv4 and IPv6 rules of each path prefix
+ * are kept in an IpPrefixTrie. The cost of a request depends on the length of the path and the
+ * address instead of the number of path prefixes and rules.
+ *
+ * When several path prefixes match the request path, the longest one is used.
+ *
+ * @author Steve Hu
+ */
+final class CompiledAcl {
+    private final WhitelistConfig config;
+    private final PathPrefixTrie<Entry> paths = new PathPrefixTrie<>();
+
+    CompiledAcl(WhitelistConfig config) {
+        this.config = config;
+        for (Map.Entry<String, IpAcl> entry : config.getPrefixAcl().entrySet()) {
+            paths.put(entry.getKey(), new Entry(entry.getValue()));
+        }
+    }
+
+    WhitelistConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Find the rules of the longest path prefix of the request path.
+     *
+     * @param path the request path
+     * @return the entry or null if no path prefix matches
+     */
+    Entry find(String path) {
+        return paths.longestMatch(path);
+    }
+
+    /**
+     * The compiled rules of one path prefix.
+     */
+    static final class Entry {
+        private final IpAcl ipAcl;
+        private final IpPrefixTrie ipv4;
+        private final IpPrefixTrie ipv6;
+
+        Entry(IpAcl ipAcl) {
+            this.ipAcl = ipAcl;
+            this.ipv4 = new IpPrefixTrie(ipAcl.getIpv4acl());
+            this.ipv6 = new IpPrefixTrie(ipAcl.getIpv6acl());
+        }
+
+        IpAcl getIpAcl() {
+            return ipAcl;
+        }
+
+        /**
+         * @param address the IPv4 or IPv6 address of the peer
+         * @return the first defined rule that matches the address or null
+         */
+        WhitelistHandler.PeerMatch match(InetAddress address) {
+            return address instanceof Inet4Address ? ipv4.match(address) : ipv6.match(address);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.whitelist;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A path compressed binary trie (Patricia trie) of the IP rules of one address family. The rules are
+ * keyed on the bits of their network prefix, so a lookup only walks the nodes on the path of the
+ * address and the cost depends on the address length instead of the number of rules.
+ *
+ * All the prefixes of the address are found along the path, and the rule that is defined first wins
+ * as it does with the linear scan of the rules. The wildcard rules that are not a prefix, for example
+ * 10.*.0.1, are checked one by one after the trie.
+ *
+ * @author Steve Hu
+ */
+final class IpPrefixTrie {
+    private final Node root = new Node(new byte[0], 0, null, Integer.MAX_VALUE);
+    private final List<WhitelistHandler.PeerMatch> others = new ArrayList<>();
+    private final List<Integer> otherOrders = new ArrayList<>();
+
+    IpPrefixTrie(List<WhitelistHandler.PeerMatch> rules) {
+        for (int i = 0; i < rules.size(); i++) {
+            WhitelistHandler.PeerMatch rule = rules.get(i);
+            byte[] prefix = rule.getPrefix();
+            if (prefix == null) {
+                others.add(rule);
+                otherOrders.add(i);
+            } else if (isNetwork(prefix, rule.getPrefixLength())) {
+                add(prefix, rule.getPrefixLength(), rule, i);
+            }
+            // a prefix with the host bits set never matches any address, so the rule is dropped.
+        }
+    }
+
+    /**
+     * Find the first defined rule that matches the address.
+     *
+     * @param inetAddress the address
+     * @return the rule or null if no rule matches
+     */
+    WhitelistHandler.PeerMatch match(InetAddress inetAddress) {
+        byte[] address = inetAddress.getAddress();
+        WhitelistHandler.PeerMatch best = null;
+        int order = Integer.MAX_VALUE;
+        int bits = address.length * 8;
+        Node node = root;
+        while (node != null && node.bits <= bits && matches(address, node.key, node.bits)) {
+            if (node.rule != null && node.order < order) {
+                best = node.rule;
+                order = node.order;
+            }
+            if (node.bits == bits) break;
+            node = bit(address, node.bits) == 0 ? node.zero : node.one;
+        }
+        for (int i = 0; i < others.size() && otherOrders.get(i) < order; i++) {
+            WhitelistHandler.PeerMatch rule = others.get(i);
+            if (rule.matches(inetAddress)) return rule;
+        }
+        return best;
+    }
+
+    private boolean matches(byte[] address, byte[] key, int bits) {
+        int bytes = bits >>> 3;
+        for (int i = 0; i < bytes; i++) {
+            if (address[i] != key[i]) return false;
+        }
+        int rest = bits & 7;
+        if (rest == 0) return true;
+        int mask = (0xFF << (8 - rest)) & 0xFF;
+        return ((address[bytes] ^ key[bytes]) & mask) == 0;
+    }
+
+    private void add(byte[] prefix, int bits, WhitelistHandler.PeerMatch rule, int order) {
+        Node parent = null;
+        Node node = root;
+        for (; ; ) {
+            int common = commonBits(prefix, bits, node.key, node.bits);
+            if (common == node.bits) {
+                if (bits == node.bits) {
+                    // the same prefix is defined again and the first one wins.
+                    if (node.rule == null || order < node.order) {
+                        node.rule = rule;
+                        node.order = order;
+                    }
+                    return;
+                }
+                Node child = node.child(bit(prefix, node.bits));
+                if (child == null) {
+                    node.setChild(bit(prefix, node.bits), new Node(prefix, bits, rule, order));
+                    return;
+                }
+                parent = node;
+                node = child;
+            } else {
+                Node inserted;
+                if (common == bits) {
+                    // the new prefix is a parent of the node.
+                    inserted = new Node(prefix, bits, rule, order);
+                    inserted.setChild(bit(node.key, bits), node);
+                } else {
+                    inserted = new Node(prefix, common, null, Integer.MAX_VALUE);
+                    inserted.setChild(bit(node.key, common), node);
+                    inserted.setChild(bit(prefix, common), new Node(prefix, bits, rule, order));
+                }
+                parent.setChild(bit(prefix, parent.bits), inserted);
+                return;
+            }
+        }
+    }
+
+    private static int commonBits(byte[] a, int aBits, byte[] b, int bBits) {
+        int max = Math.min(aBits, bBits);
+        int common = 0;
+        for (int i = 0; common < max; i++) {
+            int diff = (a[i] ^ b[i]) & 0xFF;
+            if (diff != 0) {
+                common += Integer.numberOfLeadingZeros(diff) - 24;
+                break;
+            }
+            common += 8;
+        }
+        return Math.min(common, max);
+    }
+
+    private static int bit(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static boolean isNetwork(byte[] prefix, int bits) {
+        for (int i = bits; i < prefix.length * 8; i++) {
+            if (bit(prefix, i) != 0) return false;
+        }
+        return true;
+    }
+
+    private static final class Node {
+        final byte[] key;
+        final int bits;
+        WhitelistHandler.PeerMatch rule;
+        int order;
+        Node zero;
+        Node one;
+
+        Node(byte[] key, int bits, WhitelistHandler.PeerMatch rule, int order) {
+            this.key = key;
+            this.bits = bits;
+            this.rule = rule;
+            this.order = order;
+        }
+
+        Node child(int bit) {
+            return bit == 0 ? zero : one;
+        }
+
+        void setChild(int bit, Node child) {
+            if (bit == 0) zero = child; else one = child;
+        }
+    }
+}
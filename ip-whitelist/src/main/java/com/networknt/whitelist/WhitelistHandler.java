@@ -29,7 +29,6 @@ import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.Arrays;
-import java.util.Map;
 
 public class WhitelistHandler implements MiddlewareHandler {
     private static final Logger logger = LoggerFactory.getLogger(WhitelistHandler.class);
@@ -38,6 +37,7 @@ public class WhitelistHandler implements MiddlewareHandler {
     private String configName = WhitelistConfig.CONFIG_NAME;
 
     private volatile HttpHandler next;
+    private volatile CompiledAcl compiledAcl;
 
     public WhitelistHandler(String configName) {
         this.configName = configName;
@@ -85,44 +85,43 @@ public class WhitelistHandler implements MiddlewareHandler {
         return WhitelistConfig.load(configName).isEnabled();
     }
 
-    IpAcl findIpAcl(String reqPath, WhitelistConfig config) {
-        for(Map.Entry<String, IpAcl> entry: config.getPrefixAcl().entrySet()) {
-            if(reqPath.startsWith(entry.getKey())) {
-                return entry.getValue();
-            }
+    /**
+     * Get the compiled ACL of the config. It is built once for each loaded config instance, so it is
+     * built again only when the config is reloaded.
+     *
+     * @param config WhitelistConfig
+     * @return CompiledAcl
+     */
+    CompiledAcl getCompiledAcl(WhitelistConfig config) {
+        CompiledAcl acl = compiledAcl;
+        if(acl == null || acl.getConfig() != config) {
+            acl = new CompiledAcl(config);
+            compiledAcl = acl;
+            if(logger.isDebugEnabled()) logger.debug("Compiled the IP ACL of {} path prefixes.", config.getPrefixAcl().size());
         }
-        return null;
+        return acl;
+    }
+
+    IpAcl findIpAcl(String reqPath, WhitelistConfig config) {
+        CompiledAcl.Entry entry = getCompiledAcl(config).find(reqPath);
+        return entry == null ? null : entry.getIpAcl();
     }
+
     boolean isAllowed(InetAddress address, String reqPath, WhitelistConfig config) {
-        boolean isWhitelisted = false;
-        if(address instanceof Inet4Address) {
-            IpAcl ipAcl = findIpAcl(reqPath, config);
-            if(ipAcl != null) {
-                if(logger.isTraceEnabled()) logger.trace("IPv4 address and found a prefix entry for the request path");
-                for (PeerMatch rule : ipAcl.getIpv4acl()) {
-                    if (rule.matches(address)) {
-                        if(logger.isTraceEnabled()) logger.trace("Found matched rule for address and rule isAllow {}", !rule.isDeny());
-                        return !rule.isDeny();
-                    }
-                }
-                // the path is defined but the IP is not in the list. Will allow if defaultAllow is false and will reject is defaultAllow is true
-                return !config.defaultAllow;
-            }
-        } else if(address instanceof Inet6Address) {
-            IpAcl ipAcl = findIpAcl(reqPath, config);
-            if(ipAcl != null) {
-                if(logger.isTraceEnabled()) logger.trace("IPv6 address {} and found a prefix entry for the request path {}", address, reqPath);
-                for (PeerMatch rule : ipAcl.getIpv6acl()) {
-                    if (rule.matches(address)) {
-                        if(logger.isTraceEnabled()) logger.trace("Found matched rule for address and rule isAllow {}", !rule.isDeny());
-                        return !rule.isDeny();
-                    }
+        if(address instanceof Inet4Address || address instanceof Inet6Address) {
+            CompiledAcl.Entry entry = getCompiledAcl(config).find(reqPath);
+            if(entry != null) {
+                if(logger.isTraceEnabled()) logger.trace("Address {} and found a prefix entry for the request path {}", address, reqPath);
+                PeerMatch rule = entry.match(address);
+                if(rule != null) {
+                    if(logger.isTraceEnabled()) logger.trace("Found matched rule for address and rule isAllow {}", !rule.isDeny());
+                    return !rule.isDeny();
                 }
                 // the path is defined but the IP is not in the list. Will allow if defaultAllow is false and will reject is defaultAllow is true
                 return !config.defaultAllow;
             }
         }
-        if(logger.isTraceEnabled()) logger.trace("No matched path is found. isWhitelist is {} and defaultAllow is {}", isWhitelisted, config.defaultAllow);
+        if(logger.isTraceEnabled()) logger.trace("No matched path is found and defaultAllow is {}", config.defaultAllow);
         return config.defaultAllow;
     }
 
@@ -140,6 +139,17 @@ public class WhitelistHandler implements MiddlewareHandler {
 
         abstract boolean matches(final InetAddress address);
 
+        /**
+         * @return the network prefix of the rule or null if the mask is not contiguous and the rule
+         * cannot be put into the prefix trie
+         */
+        abstract byte[] getPrefix();
+
+        /**
+         * @return the number of leading bits of the prefix that must match
+         */
+        abstract int getPrefixLength();
+
         boolean isDeny() {
             return deny;
         }
@@ -166,6 +176,16 @@ public class WhitelistHandler implements MiddlewareHandler {
         boolean matches(final InetAddress address) {
             return Arrays.equals(address.getAddress(), this.address);
         }
+
+        @Override
+        byte[] getPrefix() {
+            return address;
+        }
+
+        @Override
+        int getPrefixLength() {
+            return address.length * 8;
+        }
     }
 
     static class ExactIpV6PeerMatch extends WhitelistHandler.PeerMatch {
@@ -181,6 +201,16 @@ public class WhitelistHandler implements MiddlewareHandler {
         boolean matches(final InetAddress address) {
             return Arrays.equals(address.getAddress(), this.address);
         }
+
+        @Override
+        byte[] getPrefix() {
+            return address;
+        }
+
+        @Override
+        int getPrefixLength() {
+            return address.length * 8;
+        }
     }
 
     static class PrefixIpV4PeerMatch extends WhitelistHandler.PeerMatch {
@@ -203,6 +233,20 @@ public class WhitelistHandler implements MiddlewareHandler {
             int addressInt = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
             return (addressInt & mask) == prefix;
         }
+
+        @Override
+        byte[] getPrefix() {
+            int length = getPrefixLength();
+            if (length < 0) return null;
+            return new byte[]{(byte) (prefix >>> 24), (byte) (prefix >>> 16), (byte) (prefix >>> 8), (byte) prefix};
+        }
+
+        @Override
+        int getPrefixLength() {
+            int length = Integer.bitCount(mask);
+            // a wildcard in the middle like 10.*.0.1 is not a prefix.
+            return length == 0 || mask == -1 << (32 - length) ? length : -1;
+        }
     }
 
     static class PrefixIpV6PeerMatch extends WhitelistHandler.PeerMatch {
@@ -233,5 +277,29 @@ public class WhitelistHandler implements MiddlewareHandler {
             }
             return true;
         }
+
+        @Override
+        byte[] getPrefix() {
+            return getPrefixLength() < 0 ? null : prefix;
+        }
+
+        @Override
+        int getPrefixLength() {
+            int length = 0;
+            boolean end = false;
+            for (byte b : mask) {
+                int m = b & 0xFF;
+                if (end && m != 0) return -1;
+                if (m != 0xFF) {
+                    int bits = Integer.bitCount(m);
+                    if (m != ((0xFF << (8 - bits)) & 0xFF)) return -1;
+                    length += bits;
+                    end = true;
+                } else {
+                    length += 8;
+                }
+            }
+            return length;
+        }
     }
 }
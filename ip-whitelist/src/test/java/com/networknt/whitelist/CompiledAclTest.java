@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.whitelist;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CompiledAclTest {
+
+    @Test
+    public void testLongestPathPrefix() {
+        WhitelistConfig config = WhitelistConfig.load("whitelist-map");
+        Map<String, Object> paths = new HashMap<>();
+        paths.put("/data/v2", List.of("10.0.0.1"));
+        config.setPaths(paths);
+        CompiledAcl acl = new CompiledAcl(config);
+        Assertions.assertSame(config.getPrefixAcl().get("/data/v2"), acl.find("/data/v2/account").getIpAcl());
+        Assertions.assertSame(config.getPrefixAcl().get("/data"), acl.find("/data/v1").getIpAcl());
+        Assertions.assertSame(config.getPrefixAcl().get("/data"), acl.find("/data").getIpAcl());
+        Assertions.assertNull(acl.find("/dat"));
+        Assertions.assertNull(acl.find("/other"));
+    }
+
+    @Test
+    public void testIsAllowed() throws Exception {
+        // defaultAllow is false in whitelist-map, so the listed addresses are denied.
+        WhitelistConfig config = WhitelistConfig.load("whitelist-map");
+        WhitelistHandler handler = new WhitelistHandler("whitelist-map");
+        Assertions.assertFalse(handler.isAllowed(InetAddress.getByName("127.0.0.2"), "/data", config));
+        Assertions.assertFalse(handler.isAllowed(InetAddress.getByName("127.0.0.50"), "/data", config));
+        Assertions.assertFalse(handler.isAllowed(InetAddress.getByName("10.10.3.4"), "/data", config));
+        Assertions.assertTrue(handler.isAllowed(InetAddress.getByName("127.0.0.52"), "/data", config));
+        Assertions.assertFalse(handler.isAllowed(InetAddress.getByName("FE45:0:0:0:0:AAA:FFFF:01F5"), "/prometheus", config));
+        Assertions.assertTrue(handler.isAllowed(InetAddress.getByName("FE45:0:0:0:0:AAA:FFFE:01F5"), "/prometheus", config));
+        Assertions.assertFalse(handler.isAllowed(InetAddress.getByName("127.0.0.1"), "/unknown", config));
+    }
+
+    @Test
+    public void testSameAsLinearScan() throws Exception {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            IpAcl ipAcl = new IpAcl();
+            for (int i = 0; i < 200; i++) {
+                ipAcl.getIpv4acl().add(randomIpv4Rule(random));
+                ipAcl.getIpv6acl().add(randomIpv6Rule(random));
+            }
+            CompiledAcl.Entry entry = new CompiledAcl.Entry(ipAcl);
+            for (int i = 0; i < 2000; i++) {
+                byte[] v4 = new byte[4];
+                byte[] v6 = new byte[16];
+                random.nextBytes(v4);
+                random.nextBytes(v6);
+                // keep the addresses close to the rules so that most of them match something.
+                v4[0] = (byte) (10 + random.nextInt(2));
+                v6[0] = (byte) 0xFE;
+                InetAddress ipv4 = InetAddress.getByAddress(v4);
+                InetAddress ipv6 = InetAddress.getByAddress(v6);
+                Assertions.assertSame(linear(ipAcl.getIpv4acl(), ipv4), entry.match(ipv4), ipv4.toString());
+                Assertions.assertSame(linear(ipAcl.getIpv6acl(), ipv6), entry.match(ipv6), ipv6.toString());
+            }
+        }
+    }
+
+    private static WhitelistHandler.PeerMatch linear(List<WhitelistHandler.PeerMatch> rules, InetAddress address) {
+        for (WhitelistHandler.PeerMatch rule : rules) {
+            if (rule.matches(address)) return rule;
+        }
+        return null;
+    }
+
+    static WhitelistHandler.PeerMatch randomIpv4Rule(Random random) {
+        boolean deny = random.nextBoolean();
+        int address = (10 + random.nextInt(2)) << 24 | random.nextInt(4) << 16 | random.nextInt(1 << 16);
+        switch (random.nextInt(4)) {
+            case 0:
+                byte[] bytes = {(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address};
+                return new WhitelistHandler.ExactIpV4PeerMatch(deny, "exact", bytes);
+            case 1:
+                // a wildcard in the middle is not a prefix.
+                return new WhitelistHandler.PrefixIpV4PeerMatch(deny, "wildcard", 0xFF00FFFF, address & 0xFF00FFFF);
+            default:
+                int length = 8 + random.nextInt(25);
+                int mask = -1 << (32 - length);
+                // a slash rule with the host bits set never matches.
+                int prefix = random.nextInt(10) == 0 ? address : address & mask;
+                return new WhitelistHandler.PrefixIpV4PeerMatch(deny, "slash", mask, prefix);
+        }
+    }
+
+    static WhitelistHandler.PeerMatch randomIpv6Rule(Random random) {
+        boolean deny = random.nextBoolean();
+        byte[] address = new byte[16];
+        random.nextBytes(address);
+        address[0] = (byte) 0xFE;
+        address[1] = (byte) random.nextInt(2);
+        if (random.nextInt(4) == 0) {
+            return new WhitelistHandler.ExactIpV6PeerMatch(deny, "exact", address);
+        }
+        int length = 8 + random.nextInt(17);
+        byte[] mask = new byte[16];
+        byte[] prefix = new byte[16];
+        for (int i = 0; i < 16; i++) {
+            int bits = Math.max(0, Math.min(8, length - i * 8));
+            mask[i] = (byte) ((0xFF << (8 - bits)) & 0xFF);
+            prefix[i] = (byte) (address[i] & mask[i]);
+        }
+        return new WhitelistHandler.PrefixIpV6PeerMatch(deny, "slash", mask, prefix);
+    }
+}
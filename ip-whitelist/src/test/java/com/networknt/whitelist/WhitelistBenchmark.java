@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.whitelist;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the linear scan of the path prefixes and the IP rules with the compiled ACL for 10k IPv4
+ * rules under one path prefix or spread over 100 path prefixes. The addresses are a mix of matched and unmatched ones, and
+ * the handler logging is left out. Run it from the IDE or with the test classpath after mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhitelistBenchmark {
+    private static final int RULES = 10_000;
+    private static final int ADDRESSES = 1024;
+
+    @Param({"1", "100"})
+    public int pathCount;
+
+    private WhitelistConfig config;
+    private CompiledAcl acl;
+    private InetAddress[] addresses;
+    private String[] paths;
+    private int next;
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        Random random = new Random(42);
+        config = WhitelistConfig.load("whitelist-map");
+        Map<String, Object> rules = new HashMap<>();
+        List<String> matched = new ArrayList<>();
+        for (int p = 0; p < pathCount; p++) {
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < RULES / pathCount; i++) {
+                int a = random.nextInt(256);
+                int b = random.nextInt(256);
+                int c = random.nextInt(256);
+                switch (i % 3) {
+                    case 0 -> list.add("10." + a + "." + b + "." + c);
+                    case 1 -> list.add("11." + a + "." + b + ".*");
+                    default -> list.add("12." + a + "." + b + ".0/24");
+                }
+            }
+            rules.put("/v1/partner" + p, list);
+            matched.add(list.get(random.nextInt(list.size())).replace("*", "1").replaceAll("/.*", ""));
+        }
+        config.setPaths(rules);
+        acl = new WhitelistHandler("whitelist-map").getCompiledAcl(config);
+        addresses = new InetAddress[ADDRESSES];
+        paths = new String[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            int p = random.nextInt(pathCount);
+            paths[i] = "/v1/partner" + p + "/orders";
+            addresses[i] = InetAddress.getByName(i % 2 == 0 ? matched.get(p) : "10.1.2." + random.nextInt(256));
+        }
+    }
+
+    @Benchmark
+    public boolean linear() {
+        int i = next++ & (ADDRESSES - 1);
+        InetAddress address = addresses[i];
+        for (Map.Entry<String, IpAcl> entry : config.getPrefixAcl().entrySet()) {
+            if (paths[i].startsWith(entry.getKey())) {
+                for (WhitelistHandler.PeerMatch rule : entry.getValue().getIpv4acl()) {
+                    if (rule.matches(address)) return !rule.isDeny();
+                }
+                return !config.defaultAllow;
+            }
+        }
+        return config.defaultAllow;
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        int i = next++ & (ADDRESSES - 1);
+        CompiledAcl.Entry entry = acl.find(paths[i]);
+        if (entry != null) {
+            WhitelistHandler.PeerMatch rule = entry.match(addresses[i]);
+            return rule != null ? !rule.isDeny() : !config.defaultAllow;
+        }
+        return config.defaultAllow;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(WhitelistBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
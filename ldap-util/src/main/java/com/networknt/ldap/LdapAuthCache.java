@@ -0,0 +1,120 @@
+package com.networknt.ldap;
+
+import com.networknt.utility.LruCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The short lived caches of the successful user binds and the groups of the users.
+ *
+ * A bind is cached with a SHA-256 hash of a random salt, the username and the password as the key,
+ * so that neither the password nor an unsalted hash of it is kept in memory, and a changed password
+ * never matches an old entry. Only the successful binds are cached so that a failed login is always
+ * verified by the LDAP server. Both caches are bounded LRU caches owned by the cache instance of the
+ * loaded config, so a flood of distinct users only evicts the cold entries and a reload drops them.
+ *
+ * @author Steve Hu
+ */
+final class LdapAuthCache {
+    static final int MAX_CACHE_SIZE = 10000;
+    private static final int SALT_LENGTH = 16;
+
+    private final LdapConfig config;
+    private final byte[] salt = new byte[SALT_LENGTH];
+    private final long bindTtl;
+    private final long groupTtl;
+    private final LruCache<String, Long> binds = new LruCache<>(MAX_CACHE_SIZE);
+    private final LruCache<String, Groups> groups = new LruCache<>(MAX_CACHE_SIZE);
+
+    LdapAuthCache(LdapConfig config) {
+        this.config = config;
+        this.bindTtl = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getBindCacheTtl()));
+        this.groupTtl = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getGroupCacheTtl()));
+        new SecureRandom().nextBytes(salt);
+    }
+
+    LdapConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @param username String
+     * @param password String
+     * @return true if the same username and password have been bound successfully within the bindCacheTtl
+     */
+    boolean isBound(String username, String password) {
+        if (bindTtl == 0) return false;
+        String key = key(username, password);
+        if (key == null) return false;
+        Long expiry = binds.get(key);
+        if (expiry == null) return false;
+        if (expiry - System.nanoTime() < 0) {
+            binds.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    void putBind(String username, String password) {
+        if (bindTtl == 0) return;
+        String key = key(username, password);
+        if (key != null) binds.put(key, System.nanoTime() + bindTtl);
+    }
+
+    /**
+     * @param username String
+     * @return a copy of the cached groups of the user or null if they are not cached or expired
+     */
+    Set<String> getGroups(String username) {
+        if (groupTtl == 0 || username == null) return null;
+        Groups cached = groups.get(username);
+        if (cached == null) return null;
+        if (cached.expiry - System.nanoTime() < 0) {
+            groups.remove(username);
+            return null;
+        }
+        return new HashSet<>(cached.groups);
+    }
+
+    void putGroups(String username, Set<String> userGroups) {
+        if (groupTtl == 0 || username == null) return;
+        groups.put(username, new Groups(new HashSet<>(userGroups), System.nanoTime() + groupTtl));
+    }
+
+    /**
+     * @param username String
+     * @param password String
+     * @return the salted hash of the credentials or null if the username or the password is null
+     */
+    String key(String username, String password) {
+        if (username == null || password == null) return null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            // the separator keeps user "ab" with password "c" apart from user "a" with password "bc".
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Groups {
+        private final Set<String> groups;
+        private final long expiry;
+
+        private Groups(Set<String> groups, long expiry) {
+            this.groups = groups;
+            this.expiry = expiry;
+        }
+    }
+}
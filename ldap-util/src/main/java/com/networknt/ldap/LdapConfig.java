@@ -2,6 +2,7 @@ package com.networknt.ldap;
 
 import com.networknt.config.Config;
 import com.networknt.config.schema.ConfigSchema; // REQUIRED IMPORT
+import com.networknt.config.schema.IntegerField; // REQUIRED IMPORT
 import com.networknt.config.schema.OutputFormat; // REQUIRED IMPORT
 import com.networknt.config.schema.StringField; // REQUIRED IMPORT
 import com.networknt.server.ModuleRegistry;
@@ -30,6 +31,11 @@ public class LdapConfig {
     public static final String CREDENTIAL = "credential";
     public static final String SEARCH_FILTER = "searchFilter";
     public static final String SEARCH_BASE = "searchBase";
+    public static final String POOL_MAX_SIZE = "poolMaxSize";
+    public static final String POOL_MAX_WAIT = "poolMaxWait";
+    public static final String POOL_IDLE_TIMEOUT = "poolIdleTimeout";
+    public static final String BIND_CACHE_TTL = "bindCacheTtl";
+    public static final String GROUP_CACHE_TTL = "groupCacheTtl";
 
     // --- Annotated Fields ---
     private final Config config;
@@ -77,6 +83,48 @@ public class LdapConfig {
     )
     String searchBase;
 
+    @IntegerField(
+            configFieldName = POOL_MAX_SIZE,
+            externalizedKeyName = POOL_MAX_SIZE,
+            defaultValue = "8",
+            description = "The max number of the pooled connections bound with the principal to search the users and groups."
+    )
+    int poolMaxSize = 8;
+
+    @IntegerField(
+            configFieldName = POOL_MAX_WAIT,
+            externalizedKeyName = POOL_MAX_WAIT,
+            defaultValue = "5000",
+            description = "The max time in milliseconds to wait for a pooled connection when all of them are in use."
+    )
+    int poolMaxWait = 5000;
+
+    @IntegerField(
+            configFieldName = POOL_IDLE_TIMEOUT,
+            externalizedKeyName = POOL_IDLE_TIMEOUT,
+            defaultValue = "300000",
+            description = "The time in milliseconds after which an idle pooled connection is closed."
+    )
+    int poolIdleTimeout = 300000;
+
+    @IntegerField(
+            configFieldName = BIND_CACHE_TTL,
+            externalizedKeyName = BIND_CACHE_TTL,
+            defaultValue = "0",
+            description = "The time in milliseconds to cache a successful user bind so that the repeated requests of the\n" +
+                    "same user with the same password are not sent to the LDAP server. A disabled account or a changed\n" +
+                    "password is only verified by the LDAP server after the ttl. 0 disables the cache by default."
+    )
+    int bindCacheTtl = 0;
+
+    @IntegerField(
+            configFieldName = GROUP_CACHE_TTL,
+            externalizedKeyName = GROUP_CACHE_TTL,
+            defaultValue = "300000",
+            description = "The time in milliseconds to cache the groups of a user. 0 disables the cache."
+    )
+    int groupCacheTtl = 300000;
+
     // --- Constructor and Loading Logic ---
 
     private static volatile LdapConfig instance;
@@ -159,6 +207,26 @@ public class LdapConfig {
 
     public void setSearchBase(String searchBase) { this.searchBase = searchBase; }
 
+    public int getPoolMaxSize() { return poolMaxSize; }
+
+    public void setPoolMaxSize(int poolMaxSize) { this.poolMaxSize = poolMaxSize; }
+
+    public int getPoolMaxWait() { return poolMaxWait; }
+
+    public void setPoolMaxWait(int poolMaxWait) { this.poolMaxWait = poolMaxWait; }
+
+    public int getPoolIdleTimeout() { return poolIdleTimeout; }
+
+    public void setPoolIdleTimeout(int poolIdleTimeout) { this.poolIdleTimeout = poolIdleTimeout; }
+
+    public int getBindCacheTtl() { return bindCacheTtl; }
+
+    public void setBindCacheTtl(int bindCacheTtl) { this.bindCacheTtl = bindCacheTtl; }
+
+    public int getGroupCacheTtl() { return groupCacheTtl; }
+
+    public void setGroupCacheTtl(int groupCacheTtl) { this.groupCacheTtl = groupCacheTtl; }
+
     private void setConfigData() {
         Object object = mappedConfig.get(URI);
         if (object != null) uri = (String)object;
@@ -177,5 +245,20 @@ public class LdapConfig {
 
         object = mappedConfig.get(SEARCH_BASE);
         if (object != null) searchBase = (String)object;
+
+        object = mappedConfig.get(POOL_MAX_SIZE);
+        if (object != null) poolMaxSize = Config.loadIntegerValue(POOL_MAX_SIZE, object);
+
+        object = mappedConfig.get(POOL_MAX_WAIT);
+        if (object != null) poolMaxWait = Config.loadIntegerValue(POOL_MAX_WAIT, object);
+
+        object = mappedConfig.get(POOL_IDLE_TIMEOUT);
+        if (object != null) poolIdleTimeout = Config.loadIntegerValue(POOL_IDLE_TIMEOUT, object);
+
+        object = mappedConfig.get(BIND_CACHE_TTL);
+        if (object != null) bindCacheTtl = Config.loadIntegerValue(BIND_CACHE_TTL, object);
+
+        object = mappedConfig.get(GROUP_CACHE_TTL);
+        if (object != null) groupCacheTtl = Config.loadIntegerValue(GROUP_CACHE_TTL, object);
     }
 }
@@ -0,0 +1,178 @@
+package com.networknt.ldap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.CommunicationException;
+import javax.naming.InterruptedNamingException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of the connections bound with the principal in ldap.yml to search the users and
+ * groups, so that the TCP and TLS handshake and the bind are not repeated for each request.
+ *
+ * The idle connections are kept in a stack so that the most recently used one is reused first and
+ * the ones at the bottom are closed once they have been idle longer than the poolIdleTimeout. A
+ * connection that has been idle longer than the VALIDATION_INTERVAL is validated with a read of the
+ * base entry before it is reused, and a connection that fails with a communication error is closed
+ * instead of being returned to the pool. No more than poolMaxSize connections are in use at the same
+ * time and a caller waits up to poolMaxWait milliseconds for one.
+ *
+ * @author Steve Hu
+ */
+final class LdapConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(LdapConnectionPool.class);
+    static final long VALIDATION_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+    private static final String[] VALIDATION_ATTRIBUTES = {"objectClass"};
+
+    private final LdapConfig config;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Pooled> idle = new ConcurrentLinkedDeque<>();
+    private final long maxWait;
+    private final long idleTimeout;
+    private volatile boolean closed;
+
+    LdapConnectionPool(LdapConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(Math.max(1, config.getPoolMaxSize()), true);
+        this.maxWait = Math.max(0, config.getPoolMaxWait());
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getPoolIdleTimeout()));
+    }
+
+    LdapConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Run an operation with a pooled connection and return the connection to the pool afterward.
+     *
+     * @param operation the operation to run
+     * @param <T> the result type
+     * @return the result of the operation
+     * @throws NamingException if no connection is available within the poolMaxWait or the operation fails
+     */
+    <T> T execute(Operation<T> operation) throws NamingException {
+        DirContext ctx = borrow();
+        boolean valid = true;
+        try {
+            return operation.apply(ctx);
+        } catch (CommunicationException | ServiceUnavailableException e) {
+            valid = false;
+            throw e;
+        } finally {
+            release(ctx, valid);
+        }
+    }
+
+    DirContext borrow() throws NamingException {
+        try {
+            if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new ServiceUnavailableException("Timed out after " + maxWait + "ms waiting for a pooled LDAP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedNamingException("Interrupted while waiting for a pooled LDAP connection");
+        }
+        try {
+            long now = System.nanoTime();
+            Pooled pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                long idleTime = now - pooled.lastUsed;
+                if (idleTime > idleTimeout || (idleTime > VALIDATION_INTERVAL && !validate(pooled.ctx))) {
+                    close(pooled.ctx);
+                    continue;
+                }
+                return pooled.ctx;
+            }
+            return new InitialDirContext(LdapUtil.environment(config, config.getPrincipal(), config.getCredential()));
+        } catch (NamingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(DirContext ctx, boolean valid) {
+        try {
+            if (valid && !closed) {
+                long now = System.nanoTime();
+                idle.offerFirst(new Pooled(ctx, now));
+                evict(now);
+                if (closed) drain();
+            } else {
+                close(ctx);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close all the idle connections. The connections in use are closed when they are released.
+     */
+    void close() {
+        closed = true;
+        drain();
+    }
+
+    int getIdleCount() {
+        return idle.size();
+    }
+
+    private void evict(long now) {
+        Pooled last;
+        while ((last = idle.peekLast()) != null && now - last.lastUsed > idleTimeout) {
+            if (idle.removeLastOccurrence(last)) close(last.ctx);
+        }
+    }
+
+    private void drain() {
+        Pooled pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            close(pooled.ctx);
+        }
+    }
+
+    private static boolean validate(DirContext ctx) {
+        try {
+            ctx.getAttributes("", VALIDATION_ATTRIBUTES);
+            return true;
+        } catch (NamingException e) {
+            if(logger.isDebugEnabled()) logger.debug("Pooled LDAP connection is invalid: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void close(DirContext ctx) {
+        try {
+            ctx.close();
+        } catch (NamingException e) {
+            if(logger.isDebugEnabled()) logger.debug("Failed to close LDAP connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * An operation on a pooled connection.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface Operation<T> {
+        T apply(DirContext ctx) throws NamingException;
+    }
+
+    private static final class Pooled {
+        private final DirContext ctx;
+        private final long lastUsed;
+
+        private Pooled(DirContext ctx, long lastUsed) {
+            this.ctx = ctx;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -20,25 +20,36 @@ public class LdapUtil {
     private final static String contextFactory = "com.sun.jndi.ldap.LdapCtxFactory";
     private final static String CONFIG_LDAP = "ldap";
 
+    private static volatile LdapConnectionPool pool;
+    private static volatile LdapAuthCache cache;
 
     /**
      *
      * Bind the username and password with LDAP context to verify the password. Return true
      * if there is no NamingException. No further activity to retrieve group or memberOf
-     * from LDAP server.
+     * from LDAP server. A successful bind is cached for the bindCacheTtl in ldap.yml.
      *
      * @param username String
      * @param password String
      * @return boolean true if authenticated
      */
     public static boolean authenticate(String username, String password) {
-        LdapConfig config = LdapConfig.load();
+        return authenticate(username, password, LdapConfig.load());
+    }
+
+    static boolean authenticate(String username, String password, LdapConfig config) {
+        LdapAuthCache authCache = getCache(config);
+        if (authCache.isBound(username, password)) {
+            if(logger.isDebugEnabled()) logger.debug("user '" + username + "' authentication succeeded from cache");
+            return true;
+        }
         try {
             String dn = getUid(username, config);
             if (dn != null) {
                 /* Found user - test password */
                 if ( testBind( dn, password, config ) ) {
                     if(logger.isDebugEnabled()) logger.debug("user '" + username + "' authentication succeeded");
+                    authCache.putBind(username, password);
                     return true;
                 } else {
                     if(logger.isDebugEnabled()) logger.debug("user '" + username + "' authentication failed");
@@ -58,39 +69,48 @@ public class LdapUtil {
      *
      * @param username String
      * @return A set of memberOf attributes for the username on LDAP server. You can only call
-     * this method if the username has been authenticated with SPNEGO/Kerberos
+     * this method if the username has been authenticated with SPNEGO/Kerberos. The groups are
+     * cached for the groupCacheTtl in ldap.yml.
      */
     public static Set<String> authorize(String username) {
-        LdapConfig config = LdapConfig.load();
-        Set<String> groups = new HashSet();
-        DirContext ctx = null;
-        try {
-            ctx = ldapContext(config);
-            SearchControls ctrls = new SearchControls();
-            ctrls.setSearchScope(SearchControls.SUBTREE_SCOPE);
-            String filter = String.format(config.searchFilter, username);
-            NamingEnumeration<SearchResult> results = ctx.search(config.searchBase, filter, ctrls);
-            if(!results.hasMore()) {
-                logger.error("Principal name '" + username + "' not found");
-                return null;
-            }
-            SearchResult result = results.next();
-            if(logger.isDebugEnabled()) logger.debug("distinguisedName: " + result.getNameInNamespace());
+        return authorize(username, LdapConfig.load());
+    }
 
-            Attribute memberOf = result.getAttributes().get("memberOf");
-            if(memberOf!=null) {
-                for(int idx=0; idx<memberOf.size(); idx++) {
-                    groups.add(memberOf.get(idx).toString());
+    static Set<String> authorize(String username, LdapConfig config) {
+        LdapAuthCache authCache = getCache(config);
+        Set<String> groups = authCache.getGroups(username);
+        if(groups != null) return groups;
+        try {
+            groups = getPool(config).execute(ctx -> {
+                SearchControls ctrls = new SearchControls();
+                ctrls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+                String filter = String.format(config.searchFilter, username);
+                NamingEnumeration<SearchResult> results = ctx.search(config.searchBase, filter, ctrls);
+                try {
+                    if(!results.hasMore()) {
+                        logger.error("Principal name '" + username + "' not found");
+                        return null;
+                    }
+                    SearchResult result = results.next();
+                    if(logger.isDebugEnabled()) logger.debug("distinguisedName: " + result.getNameInNamespace());
+
+                    Set<String> memberOfs = new HashSet<>();
+                    Attribute memberOf = result.getAttributes().get("memberOf");
+                    if(memberOf!=null) {
+                        for(int idx=0; idx<memberOf.size(); idx++) {
+                            memberOfs.add(memberOf.get(idx).toString());
+                        }
+                    }
+                    return memberOfs;
+                } finally {
+                    results.close();
                 }
-            }
+            });
         } catch (Exception e) {
             logger.error("Failed to authorize user " + username, e);
             return null;
-        } finally {
-            try {
-                if(ctx != null) ctx.close();
-            } catch(Exception e) {}
         }
+        if(groups != null) authCache.putGroups(username, groups);
         return groups;
     }
 
@@ -109,12 +129,43 @@ public class LdapUtil {
         return null;
     }
 
-    private static DirContext ldapContext (LdapConfig config) throws Exception {
-        Hashtable<String,String> env = new Hashtable <String,String>();
-        return ldapContext(env, config);
+    /**
+     * Get the connection pool of the config and close the pool of the previous config after a reload.
+     *
+     * @param config LdapConfig
+     * @return LdapConnectionPool
+     */
+    static LdapConnectionPool getPool(LdapConfig config) {
+        LdapConnectionPool current = pool;
+        if (current == null || current.getConfig() != config) {
+            synchronized (LdapUtil.class) {
+                current = pool;
+                if (current == null || current.getConfig() != config) {
+                    if (current != null) current.close();
+                    current = new LdapConnectionPool(config);
+                    pool = current;
+                }
+            }
+        }
+        return current;
     }
 
-    private static DirContext ldapContext (Hashtable<String,String> env, LdapConfig config) throws Exception {
+    static LdapAuthCache getCache(LdapConfig config) {
+        LdapAuthCache current = cache;
+        if (current == null || current.getConfig() != config) {
+            synchronized (LdapUtil.class) {
+                current = cache;
+                if (current == null || current.getConfig() != config) {
+                    current = new LdapAuthCache(config);
+                    cache = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    static Hashtable<String,String> environment(LdapConfig config, String principal, String credential) {
+        Hashtable<String,String> env = new Hashtable<>();
         env.put(Context.INITIAL_CONTEXT_FACTORY, contextFactory);
         env.put(Context.PROVIDER_URL, config.getUri());
         if(config.getUri().toUpperCase().startsWith("LDAPS://")) {
@@ -122,46 +173,38 @@ public class LdapUtil {
             env.put("java.naming.ldap.factory.socket", "com.networknt.ldap.LdapSSLSocketFactory");
         }
         env.put(Context.SECURITY_AUTHENTICATION, "simple");
-        env.put(Context.SECURITY_PRINCIPAL, config.getPrincipal());
-        env.put(Context.SECURITY_CREDENTIALS, config.getCredential());
-
-        DirContext ctx = new InitialDirContext(env);
-        return ctx;
+        env.put(Context.SECURITY_PRINCIPAL, principal);
+        env.put(Context.SECURITY_CREDENTIALS, credential);
+        return env;
     }
 
     private static String getUid (String username, LdapConfig config) throws Exception {
-        DirContext ctx = ldapContext(config);
-        String filter = String.format(config.searchFilter, username);
-        SearchControls ctrl = new SearchControls();
-        ctrl.setSearchScope(SearchControls.SUBTREE_SCOPE);
-        NamingEnumeration answer = ctx.search(config.searchBase, filter, ctrl);
-
-        String dn;
-        if (answer.hasMore()) {
-            SearchResult result = (SearchResult) answer.next();
-            dn = result.getNameInNamespace();
-        }
-        else {
-            dn = null;
-        }
-        answer.close();
-        return dn;
+        return getPool(config).execute(ctx -> {
+            String filter = String.format(config.searchFilter, username);
+            SearchControls ctrl = new SearchControls();
+            ctrl.setSearchScope(SearchControls.SUBTREE_SCOPE);
+            NamingEnumeration<SearchResult> answer = ctx.search(config.searchBase, filter, ctrl);
+
+            String dn;
+            try {
+                if (answer.hasMore()) {
+                    SearchResult result = answer.next();
+                    dn = result.getNameInNamespace();
+                }
+                else {
+                    dn = null;
+                }
+            } finally {
+                answer.close();
+            }
+            return dn;
+        });
     }
 
     private static boolean testBind (String dn, String password, LdapConfig config) throws Exception {
-        Hashtable<String,String> env = new Hashtable();
-        env.put(Context.INITIAL_CONTEXT_FACTORY, contextFactory);
-        env.put(Context.PROVIDER_URL, config.getUri());
-        if(config.getUri().toUpperCase().startsWith("LDAPS://")) {
-            env.put(Context.SECURITY_PROTOCOL, "ssl");
-            env.put("java.naming.ldap.factory.socket", "com.networknt.ldap.LdapSSLSocketFactory");
-        }
-        env.put(Context.SECURITY_AUTHENTICATION, "simple");
-        env.put(Context.SECURITY_PRINCIPAL, dn);
-        env.put(Context.SECURITY_CREDENTIALS, password);
         DirContext ctx = null;
         try {
-            ctx = new InitialDirContext(env);
+            ctx = new InitialDirContext(environment(config, dn, password));
         }
         catch (javax.naming.AuthenticationException e) {
             return false;
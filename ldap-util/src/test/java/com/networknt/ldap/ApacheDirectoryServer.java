@@ -102,7 +102,7 @@ public class ApacheDirectoryServer {
         ldapServer.setServiceName("DefaultLDAP");
         Transport ldap = new TcpTransport( "0.0.0.0", LDAPS_PORT, 3, 5 );
         ldap.enableSSL(true);
-        ldapServer.addTransports(ldap);
+        ldapServer.addTransports(ldap, new TcpTransport("0.0.0.0", LDAP_PORT, 3, 5));
         ldapServer.setKeystoreFile(ApacheDirectoryServer.class.getResource("/config/server.keystore").getFile());
         ldapServer.setCertificatePassword("password");
         ldapServer.loadKeyStore();
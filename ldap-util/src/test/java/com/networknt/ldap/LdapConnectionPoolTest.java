@@ -0,0 +1,133 @@
+package com.networknt.ldap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ServiceUnavailableException;
+import javax.naming.directory.DirContext;
+import java.util.Set;
+
+/**
+ * Test the connection pool and the caches of the LdapUtil with the in-memory Apache Directory Server
+ * on the plain LDAP port.
+ */
+public class LdapConnectionPoolTest {
+    static LdapConfig config;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        ApacheDirectoryServer.startServer();
+        // a config with a non-default name is a new instance for each load, so it is loaded once.
+        config = LdapConfig.load("ldap-pool");
+    }
+
+    @Test
+    public void testAuthenticateWithPooledConnection() {
+        Assertions.assertTrue(LdapUtil.authenticate("jduke", "theduke", config));
+        Assertions.assertTrue(LdapUtil.getCache(config).isBound("jduke", "theduke"));
+        Assertions.assertTrue(LdapUtil.authenticate("jduke", "theduke", config));
+
+        Assertions.assertFalse(LdapUtil.authenticate("jduke", "wrong", config));
+        Assertions.assertFalse(LdapUtil.getCache(config).isBound("jduke", "wrong"));
+        Assertions.assertFalse(LdapUtil.authenticate("unknown", "theduke", config));
+
+        // the search connection is returned to the pool and reused.
+        LdapConnectionPool pool = LdapUtil.getPool(config);
+        Assertions.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testAuthorizeWithGroupCache() {
+        Set<String> groups = LdapUtil.authorize("jduke", config);
+        Assertions.assertEquals(Set.of("cn=just-users,ou=users,dc=undertow,dc=io", "cn=best-users,ou=users,dc=undertow,dc=io"), groups);
+        Assertions.assertEquals(groups, LdapUtil.getCache(config).getGroups("jduke"));
+        // the caller can change the returned set without changing the cache.
+        groups.clear();
+        Assertions.assertEquals(2, LdapUtil.authorize("jduke", config).size());
+
+        Assertions.assertNull(LdapUtil.authorize("unknown", config));
+        Assertions.assertNull(LdapUtil.getCache(config).getGroups("unknown"));
+    }
+
+    @Test
+    public void testPoolMaxWait() throws Exception {
+        LdapConnectionPool pool = new LdapConnectionPool(config);
+        DirContext first = pool.borrow();
+        DirContext second = pool.borrow();
+        long start = System.nanoTime();
+        Assertions.assertThrows(ServiceUnavailableException.class, pool::borrow);
+        Assertions.assertTrue(System.nanoTime() - start >= 150_000_000L);
+
+        pool.release(first, true);
+        Assertions.assertSame(first, pool.borrow());
+        // an invalid connection is closed instead of being returned to the pool.
+        pool.release(second, false);
+        Assertions.assertEquals(0, pool.getIdleCount());
+        pool.release(first, true);
+        Assertions.assertEquals(1, pool.getIdleCount());
+        pool.close();
+        Assertions.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        LdapConfig evictConfig = LdapConfig.load("ldap-pool");
+        evictConfig.setPoolIdleTimeout(0);
+        LdapConnectionPool pool = new LdapConnectionPool(evictConfig);
+        DirContext first = pool.borrow();
+        DirContext second = pool.borrow();
+        pool.release(first, true);
+        Thread.sleep(5);
+        // the release of the second connection evicts the first one that has been idle too long.
+        pool.release(second, true);
+        Assertions.assertEquals(1, pool.getIdleCount());
+        Thread.sleep(5);
+        Assertions.assertNotSame(second, pool.borrow());
+        pool.close();
+    }
+
+    @Test
+    public void testBindCacheKeyAndExpiry() throws Exception {
+        LdapConfig cacheConfig = LdapConfig.load("ldap-pool");
+        cacheConfig.setBindCacheTtl(20);
+        LdapAuthCache authCache = new LdapAuthCache(cacheConfig);
+        Assertions.assertNotEquals(authCache.key("ab", "c"), authCache.key("a", "bc"));
+        Assertions.assertFalse(authCache.key("jduke", "theduke").contains("theduke"));
+        // the salt is random so the key of the same credentials is different in another cache.
+        Assertions.assertNotEquals(authCache.key("jduke", "theduke"), new LdapAuthCache(cacheConfig).key("jduke", "theduke"));
+
+        authCache.putBind("jduke", "theduke");
+        Assertions.assertTrue(authCache.isBound("jduke", "theduke"));
+        Assertions.assertFalse(authCache.isBound("jduke", "other"));
+        Thread.sleep(40);
+        Assertions.assertFalse(authCache.isBound("jduke", "theduke"));
+
+        // the credentials without a username or a password are never cached.
+        Assertions.assertNull(authCache.key(null, "theduke"));
+        authCache.putBind(null, "theduke");
+        Assertions.assertFalse(authCache.isBound(null, "theduke"));
+        Assertions.assertFalse(authCache.isBound("jduke", null));
+
+        cacheConfig.setBindCacheTtl(0);
+        LdapAuthCache disabled = new LdapAuthCache(cacheConfig);
+        disabled.putBind("jduke", "theduke");
+        Assertions.assertFalse(disabled.isBound("jduke", "theduke"));
+        // the bind cache is opt-in.
+        Assertions.assertEquals(0, LdapConfig.load().getBindCacheTtl());
+    }
+
+    @Test
+    public void testGroupCacheEvictsLeastRecentlyUsed() {
+        LdapAuthCache authCache = new LdapAuthCache(LdapConfig.load("ldap-pool"));
+        Set<String> groups = Set.of("admin");
+        authCache.putGroups("hot", groups);
+        for (int i = 0; i < LdapAuthCache.MAX_CACHE_SIZE; i++) {
+            authCache.putGroups("user" + i, groups);
+            // the user that is authorized on every request is not evicted by the distinct users.
+            Assertions.assertEquals(groups, authCache.getGroups("hot"));
+        }
+        Assertions.assertNull(authCache.getGroups("user0"));
+        Assertions.assertNull(authCache.getGroups(null));
+    }
+}
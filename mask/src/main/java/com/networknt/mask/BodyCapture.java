@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.mask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Capture the first N bytes of a request or response body for audit and dump. Only the prefix
+ * is copied; the rest of the body is counted and optionally hashed without being kept, so the
+ * memory used is bounded by the limit no matter how large the body is.
+ *
+ * The bytes can be passed in from the pooled buffers of a conduit with {@link #update(ByteBuffer, int, int)}
+ * or written to it as an OutputStream, for example by serializing a parsed body with Jackson.
+ * Masking is only applied to the captured prefix and the result is marked if the body was truncated.
+ * A value cut at the end of a truncated prefix is dropped before masking, as a pattern that matches the
+ * whole value would not match the cut part and it would be logged in clear.
+ *
+ * @author Steve Hu
+ */
+public class BodyCapture extends OutputStream {
+    static final Logger logger = LoggerFactory.getLogger(BodyCapture.class);
+    private static final int INITIAL_SIZE = 1024;
+    private static final int CHAR_CHUNK = 8192;
+    private static final String DELIMITERS = "&?;,\"'<>(){}[]";
+
+    private final int maxBytes;
+    private final MessageDigest digest;
+    private byte[] buffer;
+    private int captured;
+    private long totalLength;
+    private String hash;
+
+    /**
+     * Create a capture that keeps at most maxBytes without hashing.
+     *
+     * @param maxBytes int the max number of bytes to keep
+     */
+    public BodyCapture(int maxBytes) {
+        this(maxBytes, false);
+    }
+
+    /**
+     * Create a capture that keeps at most maxBytes.
+     *
+     * @param maxBytes int the max number of bytes to keep
+     * @param hash boolean true to compute the SHA-256 of the entire body
+     */
+    public BodyCapture(int maxBytes, boolean hash) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.buffer = new byte[Math.min(this.maxBytes, INITIAL_SIZE)];
+        MessageDigest md = null;
+        if (hash) {
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                logger.error("SHA-256 is not available, the body hash is disabled", e);
+            }
+        }
+        this.digest = md;
+    }
+
+    /**
+     * Capture a string body. The string is encoded in chunks so that the entire body is never
+     * copied into a byte array.
+     *
+     * @param body String the body
+     * @param maxBytes int the max number of bytes to keep
+     * @return BodyCapture the capture
+     */
+    public static BodyCapture of(String body, int maxBytes) {
+        BodyCapture capture = new BodyCapture(maxBytes);
+        capture.append(body);
+        return capture;
+    }
+
+    /**
+     * Add the bytes between position and position + length of the buffer. The position and limit of
+     * the buffer are not changed, so it can be called after the bytes have been written to the next conduit.
+     *
+     * @param src ByteBuffer the source buffer, heap or direct
+     * @param position int the absolute position of the first byte
+     * @param length int the number of bytes
+     */
+    public void update(ByteBuffer src, int position, int length) {
+        if (length <= 0) return;
+        int n = Math.min(length, maxBytes - captured);
+        if (n > 0) {
+            ensureCapacity(captured + n);
+            src.get(position, buffer, captured, n);
+            captured += n;
+        }
+        if (digest != null) {
+            digest.update(src.duplicate().limit(position + length).position(position));
+        }
+        totalLength += length;
+    }
+
+    /**
+     * Add the characters of a string encoded as UTF-8. The string is encoded in chunks and only
+     * until the prefix is full, and the length of the rest is counted without encoding it unless
+     * the entire body is hashed.
+     *
+     * @param s String the characters to add
+     */
+    public void append(String s) {
+        if (s == null) return;
+        int len = s.length();
+        int start = 0;
+        while (start < len) {
+            if (digest == null && captured >= maxBytes) {
+                totalLength += utf8Length(s, start, len);
+                return;
+            }
+            // each char is at least one byte, so no more chars than the free bytes are encoded.
+            int chunk = digest == null ? Math.min(CHAR_CHUNK, Math.max(2, maxBytes - captured)) : CHAR_CHUNK;
+            int end = Math.min(len, start + chunk);
+            // don't split a surrogate pair across two chunks
+            if (end < len && Character.isHighSurrogate(s.charAt(end - 1))) end--;
+            byte[] bytes = s.substring(start, end).getBytes(StandardCharsets.UTF_8);
+            write(bytes, 0, bytes.length);
+            start = end;
+        }
+    }
+
+    /*
+     * The number of bytes of the chars between start and end encoded as UTF-8 like String.getBytes
+     * does, which encodes a lone surrogate as a single '?'.
+     */
+    static long utf8Length(String s, int start, int end) {
+        long length = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public void write(int b) {
+        if (captured < maxBytes) {
+            ensureCapacity(captured + 1);
+            buffer[captured++] = (byte) b;
+        }
+        if (digest != null) digest.update((byte) b);
+        totalLength++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len <= 0) return;
+        int n = Math.min(len, maxBytes - captured);
+        if (n > 0) {
+            ensureCapacity(captured + n);
+            System.arraycopy(b, off, buffer, captured, n);
+            captured += n;
+        }
+        if (digest != null) digest.update(b, off, len);
+        totalLength += len;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxBytes, Math.max(size, buffer.length << 1)));
+        }
+    }
+
+    /**
+     * @return byte[] a copy of the captured prefix
+     */
+    public byte[] getCaptured() {
+        return Arrays.copyOf(buffer, captured);
+    }
+
+    /**
+     * @return int the number of bytes captured
+     */
+    public int getCapturedLength() {
+        return captured;
+    }
+
+    /**
+     * @return long the number of bytes of the entire body
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * @return boolean true if the body is larger than the captured prefix
+     */
+    public boolean isTruncated() {
+        return totalLength > captured;
+    }
+
+    /**
+     * The SHA-256 of the entire body. The hash is finished on the first call, so it should only be
+     * called after all the bytes are added.
+     *
+     * @return String lowercase hex hash or null if hashing is disabled
+     */
+    public String getHash() {
+        if (hash == null && digest != null) hash = HexFormat.of().formatHex(digest.digest());
+        return hash;
+    }
+
+    /**
+     * @return String the marker appended to a truncated body or an empty string if it is not truncated
+     */
+    public String getTruncationMarker() {
+        if (!isTruncated()) return "";
+        StringBuilder sb = new StringBuilder("...[truncated ").append(captured).append(" of ").append(totalLength).append(" bytes");
+        if (getHash() != null) sb.append(", sha256 ").append(hash);
+        return sb.append(']').toString();
+    }
+
+    /**
+     * @return String the captured prefix without masking and with the truncation marker
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, utf8Boundary(), StandardCharsets.UTF_8) + getTruncationMarker();
+    }
+
+    /**
+     * Mask the captured prefix as json with the key in the json section of mask.yml.
+     *
+     * @param key String The key maps to a list of json path for masking
+     * @return String the masked prefix with the truncation marker
+     */
+    public String maskJson(String key) {
+        return Mask.maskJsonPrefix(buffer, utf8Boundary(), isTruncated(), key) + getTruncationMarker();
+    }
+
+    /**
+     * Mask the captured prefix as text with the key in the string section of mask.yml.
+     *
+     * @param key String The key that maps to a list of patterns for masking
+     * @return String the masked prefix with the truncation marker
+     */
+    public String maskString(String key) {
+        String prefix = new String(buffer, 0, utf8Boundary(), StandardCharsets.UTF_8);
+        if (isTruncated()) prefix = prefix.substring(0, tokenBoundary(prefix));
+        return Mask.maskString(prefix, key) + getTruncationMarker();
+    }
+
+    /*
+     * The length of a truncated prefix without the token that might be cut at the end. A token is a run
+     * of the chars other than the whitespace and the delimiters of the query strings, headers and json.
+     */
+    static int tokenBoundary(String prefix) {
+        int i = prefix.length();
+        while (i > 0) {
+            char c = prefix.charAt(i - 1);
+            if (Character.isWhitespace(c) || DELIMITERS.indexOf(c) >= 0) break;
+            i--;
+        }
+        return i;
+    }
+
+    /*
+     * The length of the captured prefix without a multibyte UTF-8 sequence that is cut at the end.
+     */
+    int utf8Boundary() {
+        if (!isTruncated() || captured == 0) return captured;
+        int i = captured - 1;
+        int continuation = 0;
+        while (i >= 0 && continuation < 3 && (buffer[i] & 0xC0) == 0x80) {
+            i--;
+            continuation++;
+        }
+        if (i < 0) return captured;
+        int lead = buffer[i] & 0xFF;
+        int expected = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        return continuation + 1 < expected ? i : captured;
+    }
+}
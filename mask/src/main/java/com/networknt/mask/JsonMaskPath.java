@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.mask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A json path expression compiled into a list of steps that can be matched against the
+ * location of a token while the document is being streamed. Only the definite subset of
+ * the json path syntax is supported: dot and bracket child names, array indexes, the
+ * wildcard and the deep scan operator. Expressions with filters, slices or unions return
+ * null from {@link #compile(String, Pattern)} and are handled by the JsonPath DOM instead.
+ *
+ * The match state is kept as a bit set in a long where bit i means that the first i steps
+ * have been consumed by the current location. This limits a path to 62 steps.
+ *
+ * @author Steve Hu
+ */
+final class JsonMaskPath {
+    private static final int MAX_STEPS = 62;
+
+    private static final int FIELD = 0;
+    private static final int INDEX = 1;
+    private static final int WILDCARD = 2;
+
+    private final String expression;
+    private final Pattern pattern;
+    private final int[] types;
+    private final String[] names;
+    private final int[] indexes;
+    private final boolean[] deep;
+    private final long accept;
+
+    private record Step(int type, String name, int index, boolean deep) {}
+
+    private JsonMaskPath(String expression, Pattern pattern, List<Step> steps) {
+        this.expression = expression;
+        this.pattern = pattern;
+        int size = steps.size();
+        this.types = new int[size];
+        this.names = new String[size];
+        this.indexes = new int[size];
+        this.deep = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Step step = steps.get(i);
+            types[i] = step.type();
+            names[i] = step.name();
+            indexes[i] = step.index();
+            deep[i] = step.deep();
+        }
+        this.accept = 1L << size;
+    }
+
+    /**
+     * Compile a json path expression.
+     *
+     * @param expression the json path expression from the mask config
+     * @param pattern the compiled mask regex applied to the matched values
+     * @return the compiled path or null if the expression cannot be matched while streaming
+     */
+    static JsonMaskPath compile(String expression, Pattern pattern) {
+        if (expression == null || !expression.startsWith("$")) return null;
+        List<Step> steps = new ArrayList<>();
+        int i = 1;
+        int len = expression.length();
+        while (i < len) {
+            char c = expression.charAt(i);
+            boolean deepScan = false;
+            if (c == '.') {
+                i++;
+                if (i < len && expression.charAt(i) == '.') {
+                    deepScan = true;
+                    i++;
+                }
+                if (i >= len) return null;
+                c = expression.charAt(i);
+                if (c == '*') {
+                    steps.add(new Step(WILDCARD, null, -1, deepScan));
+                    i++;
+                    continue;
+                }
+                if (c != '[') {
+                    int start = i;
+                    while (i < len && expression.charAt(i) != '.' && expression.charAt(i) != '[') i++;
+                    String name = expression.substring(start, i);
+                    if (name.isEmpty() || name.indexOf('(') >= 0) return null;
+                    steps.add(new Step(FIELD, name, -1, deepScan));
+                    continue;
+                }
+            }
+            if (c != '[') return null;
+            int end = expression.indexOf(']', i);
+            if (end < 0) return null;
+            String inner = expression.substring(i + 1, end).trim();
+            i = end + 1;
+            if (inner.equals("*")) {
+                steps.add(new Step(WILDCARD, null, -1, deepScan));
+            } else if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')
+                    && inner.charAt(inner.length() - 1) == inner.charAt(0)) {
+                String name = inner.substring(1, inner.length() - 1);
+                if (name.indexOf('\'') >= 0 || name.indexOf('"') >= 0) return null;
+                steps.add(new Step(FIELD, name, -1, deepScan));
+            } else {
+                int index;
+                try {
+                    index = Integer.parseInt(inner);
+                } catch (NumberFormatException e) {
+                    // filters, slices and unions are left to the JsonPath DOM
+                    return null;
+                }
+                if (index < 0) return null;
+                steps.add(new Step(INDEX, null, index, deepScan));
+            }
+        }
+        if (steps.isEmpty() || steps.size() > MAX_STEPS) return null;
+        return new JsonMaskPath(expression, pattern, steps);
+    }
+
+    /**
+     * The initial state before the root of the document is entered.
+     *
+     * @return state with no step consumed
+     */
+    static long start() {
+        return 1L;
+    }
+
+    /**
+     * Move the state one level down the document.
+     *
+     * @param state the state of the parent location
+     * @param name the field name of the child or null if the child is an array element
+     * @param index the array index of the child or -1 if the child is an object field
+     * @return the state of the child location, 0 if the path can never match below it
+     */
+    long advance(long state, String name, int index) {
+        long next = 0L;
+        long bits = state & (accept - 1);
+        while (bits != 0) {
+            int i = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            if (deep[i]) next |= 1L << i;
+            if (matches(i, name, index)) next |= 1L << (i + 1);
+        }
+        return next;
+    }
+
+    boolean accepts(long state) {
+        return (state & accept) != 0;
+    }
+
+    private boolean matches(int i, String name, int index) {
+        switch (types[i]) {
+            case WILDCARD:
+                return true;
+            case FIELD:
+                return name != null && names[i].equals(name);
+            default:
+                return name == null && indexes[i] == index;
+        }
+    }
+
+    String getExpression() {
+        return expression;
+    }
+
+    Pattern getPattern() {
+        return pattern;
+    }
+}
@@ -16,7 +16,6 @@
 
 package com.networknt.mask;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.jayway.jsonpath.*;
 import com.networknt.config.Config;
 import com.networknt.server.ModuleRegistry;
@@ -25,10 +24,11 @@ import org.owasp.encoder.Encode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -48,12 +48,23 @@ public class Mask {
 
     static final Logger logger = LoggerFactory.getLogger(Mask.class);
     private static final Map<String, Object> config;
+    private static final MaskEngine engine;
 
     static {
         config = Config.getInstance().getJsonMapConfigNoCache(MASK_CONFIG);
+        engine = MaskEngine.compile(getConfigMap(MASK_TYPE_STRING), getConfigMap(MASK_TYPE_REGEX), getConfigMap(MASK_TYPE_JSON), Config.getInstance().getMapper());
         ModuleRegistry.registerModule(MASK_CONFIG, Mask.class.getName(), Config.getNoneDecryptedInstance().getJsonMapConfigNoCache(MASK_CONFIG), null);
     }
 
+    /**
+     * Get the mask engine compiled from the mask config when the class is loaded.
+     *
+     * @return MaskEngine the compiled engine
+     */
+    public static MaskEngine getEngine() {
+        return engine;
+    }
+
     /**
      * Mask the input string with a list of patterns indexed by key in string section in mask.json
      * This is usually used to mask header values, query parameters and uri parameters
@@ -67,18 +78,7 @@ public class Mask {
             return null;
         if(config == null)
             return input;
-        String output = input;
-        Map<String, Object> stringConfig = getConfigMap(MASK_TYPE_STRING);
-        if (stringConfig != null) {
-            Map<String, Object> keyConfig = (Map<String, Object>) stringConfig.get(key);
-            if (keyConfig != null) {
-                Set<String> patterns = keyConfig.keySet();
-                for (String pattern : patterns) {
-                    output = output.replaceAll(pattern, (String) keyConfig.get(pattern));
-                }
-            }
-        }
-        return output;
+        return engine.maskString(input, key);
     }
 
     /**
@@ -93,48 +93,22 @@ public class Mask {
     public static String maskRegex(String input, String key, String name) {
         if(config == null)
             return input;
-        Map<String, Object> regexConfig = getConfigMap(MASK_TYPE_REGEX);
-        if (regexConfig != null) {
-            Map<String, Object> keyConfig = (Map<String, Object>) regexConfig.get(key);
-            if (keyConfig != null) {
-                String regex = (String) keyConfig.get(name);
-                if (regex != null && regex.length() > 0) {
-                    return replaceWithMask(input, MASK_REPLACEMENT_CHAR.charAt(0), regex);
-                }
-            }
-        }
-        return input;
+        return engine.maskRegex(input, key, name);
     }
 
     private static String replaceWithMask(String stringToBeMasked, char maskingChar, String regex) {
-        if (stringToBeMasked == null || stringToBeMasked.length() == 0)
-            return stringToBeMasked;
-        String replacementString = "";
-        String padGroup;
-        if (!StringUtils.isEmpty(regex)) {
+        if (StringUtils.isEmpty(regex))
+            return MaskEngine.replaceWithMask(stringToBeMasked, maskingChar, null);
+        Pattern pattern = patternCache.get(regex);
+        if (pattern == null) {
             try {
-                Pattern pattern = patternCache.get(regex);
-                if (pattern == null) {
-                    pattern = Pattern.compile(regex);
-                    patternCache.put(regex, pattern);
-                }
-                Matcher matcher = pattern.matcher(stringToBeMasked);
-                if (matcher.matches()) {
-                    String currentGroup;
-                    for (int i = 0; i < matcher.groupCount(); i++) {
-                        currentGroup = matcher.group(i + 1);
-                        padGroup = StringUtils.rightPad("", currentGroup.length(), maskingChar);
-                        stringToBeMasked = StringUtils.replace(stringToBeMasked, currentGroup, padGroup, 1);
-                    }
-                    replacementString = stringToBeMasked;
-                }
+                pattern = Pattern.compile(regex);
             } catch (Exception e) {
-                replacementString = StringUtils.rightPad("", stringToBeMasked.length(), maskingChar);
+                return MaskEngine.replaceWithMask(stringToBeMasked, maskingChar, null);
             }
-        } else {
-            replacementString = StringUtils.rightPad("", stringToBeMasked.length(), maskingChar);
+            patternCache.put(regex, pattern);
         }
-        return replacementString;
+        return MaskEngine.replaceWithMask(stringToBeMasked, maskingChar, pattern);
     }
 
 
@@ -147,6 +121,10 @@ public class Mask {
     public static String maskJson(String input, String key) {
         if(input == null)
             return null;
+        if(config != null && engine.canStream(key)) {
+            if(!engine.hasJsonKey(key)) logger.warn("mask.json doesn't contain the key {} ", Encode.forJava(key));
+            return engine.maskJson(input, key);
+        }
         DocumentContext ctx = JsonPath.parse(input);
         return maskJson(ctx, key);
     }
@@ -160,6 +138,10 @@ public class Mask {
     public static String maskJson(InputStream input, String key) {
         if(input == null)
             return null;
+        if(config != null && engine.canStream(key)) {
+            if(!engine.hasJsonKey(key)) logger.warn("mask.json doesn't contain the key {} ", Encode.forJava(key));
+            return engine.maskJson(input, key);
+        }
         DocumentContext ctx = JsonPath.parse(input);
         return maskJson(ctx, key);
     }
@@ -173,6 +155,10 @@ public class Mask {
     public static String maskJson(Object input, String key) {
         if(input == null)
             return null;
+        if(config != null && engine.canStream(key) && (input instanceof Map || input instanceof List)) {
+            if(!engine.hasJsonKey(key)) logger.warn("mask.json doesn't contain the key {} ", Encode.forJava(key));
+            return engine.maskJson(input, key);
+        }
         DocumentContext ctx = JsonPath.parse(input);
         return maskJson(ctx, key);
     }
@@ -182,24 +168,42 @@ public class Mask {
             return null;
         if(config == null)
             return ctx.jsonString();
-        Map<String, Object> jsonConfig = getConfigMap(MASK_TYPE_JSON);
-        if (jsonConfig != null) {
-            Map<String, Object> patternMap = (Map<String, Object>) jsonConfig.get(key);
-            if (patternMap != null) {
-                JsonNode configNode = Config.getInstance().getMapper().valueToTree(patternMap);
-                Iterator<Map.Entry<String, JsonNode>> iterator = configNode.fields();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, JsonNode> entry = iterator.next();
-                    applyMask(entry, ctx);
-                }
-                return ctx.jsonString();
-            } else {
-                logger.warn("mask.json doesn't contain the key {} ", Encode.forJava(key));
-            }
+        Map<String, String> jsonPathRules = engine.getFallbackRules(key);
+        if (jsonPathRules != null) {
+            return maskJson(ctx, jsonPathRules);
+        }
+        if (engine.hasJsonKey(key)) {
+            return engine.maskJson((Object) ctx.json(), key);
         }
+        logger.warn("mask.json doesn't contain the key {} ", Encode.forJava(key));
         return ctx.jsonString();
     }
 
+    /**
+     * Mask the leading part of a json document that might have been cut at a size limit. For a key
+     * that can only be masked with the JsonPath DOM, an empty string is returned for a truncated
+     * document as it cannot be parsed.
+     *
+     * @param data byte[] UTF-8 json bytes
+     * @param length int the number of bytes in data
+     * @param truncated boolean true if the document was cut at length
+     * @param key String The key maps to a list of json path for masking
+     * @return String Masked result
+     */
+    public static String maskJsonPrefix(byte[] data, int length, boolean truncated, String key) {
+        if(data == null)
+            return null;
+        if(!truncated)
+            return maskJson(new ByteArrayInputStream(data, 0, length), key);
+        if(config == null)
+            return new String(data, 0, length, StandardCharsets.UTF_8);
+        if(!engine.canStream(key)) {
+            logger.warn("mask.json key {} cannot be applied to a truncated body", Encode.forJava(key));
+            return "";
+        }
+        return engine.maskJsonPrefix(data, 0, length, key);
+    }
+
     /**
      * Replace values in JSON using dynamically provided json path rules
      * @param input String The source of the string that needs to be masked
@@ -228,10 +232,6 @@ public class Mask {
         return ctx.jsonString();
     }
 
-    private static void applyMask(Map.Entry<String, JsonNode> entry, DocumentContext ctx) {
-        applyMask(entry.getKey(), entry.getValue().asText(), ctx);
-    }
-
     private static void applyMask(String jsonPath, String expression, DocumentContext ctx) {
         Object value;
         try {
@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.mask;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.jayway.jsonpath.InvalidJsonException;
+import com.networknt.utility.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The mask config compiled into an immutable form. All the regex patterns and json paths are
+ * compiled once when the engine is created so that masking a value doesn't need to compile
+ * anything. The json masking is done in a single pass from a Jackson parser to a generator and
+ * the paths are matched while the tokens are copied, so no document tree is built.
+ *
+ * A json key that contains any path that cannot be matched while streaming (filters, slices or
+ * unions) is not compiled and {@link #canStream(String)} returns false for it. The caller should
+ * use the JsonPath DOM for such a key.
+ *
+ * @author Steve Hu
+ */
+public final class MaskEngine {
+    static final Logger logger = LoggerFactory.getLogger(MaskEngine.class);
+
+    private static final char MASK_CHAR = Mask.MASK_REPLACEMENT_CHAR.charAt(0);
+    // used when the configured regex is invalid so that the whole value is masked.
+    private static final Pattern MASK_ALL = Pattern.compile("(?s)(.*)");
+
+    private final Map<String, StringRule[]> stringRules;
+    private final Map<String, Map<String, Pattern>> regexRules;
+    private final Map<String, JsonMaskPath[]> jsonRules;
+    private final Map<String, Map<String, String>> jsonFallback;
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+
+    private record StringRule(Pattern pattern, String replacement) {}
+
+    private MaskEngine(Map<String, StringRule[]> stringRules, Map<String, Map<String, Pattern>> regexRules,
+                       Map<String, JsonMaskPath[]> jsonRules, Map<String, Map<String, String>> jsonFallback, ObjectMapper mapper) {
+        this.stringRules = stringRules;
+        this.regexRules = regexRules;
+        this.jsonRules = jsonRules;
+        this.jsonFallback = jsonFallback;
+        this.mapper = mapper;
+        this.factory = mapper.getFactory();
+    }
+
+    /**
+     * Compile the string, regex and json sections of the mask config.
+     *
+     * @param stringConfig the string section with key to pattern/replacement map
+     * @param regexConfig the regex section with key to name/regex map
+     * @param jsonConfig the json section with key to json path/regex map
+     * @param mapper the object mapper that provides the json factory
+     * @return MaskEngine the compiled engine
+     */
+    @SuppressWarnings("unchecked")
+    public static MaskEngine compile(Map<String, Object> stringConfig, Map<String, Object> regexConfig,
+                                     Map<String, Object> jsonConfig, ObjectMapper mapper) {
+        Map<String, StringRule[]> stringRules = new HashMap<>();
+        if (stringConfig != null) {
+            for (Map.Entry<String, Object> entry : stringConfig.entrySet()) {
+                if (!(entry.getValue() instanceof Map)) continue;
+                List<StringRule> rules = new ArrayList<>();
+                for (Map.Entry<String, Object> rule : ((Map<String, Object>) entry.getValue()).entrySet()) {
+                    try {
+                        rules.add(new StringRule(Pattern.compile(rule.getKey()), String.valueOf(rule.getValue())));
+                    } catch (Exception e) {
+                        logger.error("Invalid string mask pattern {} for key {}", rule.getKey(), entry.getKey(), e);
+                    }
+                }
+                stringRules.put(entry.getKey(), rules.toArray(new StringRule[0]));
+            }
+        }
+        Map<String, Map<String, Pattern>> regexRules = new HashMap<>();
+        if (regexConfig != null) {
+            for (Map.Entry<String, Object> entry : regexConfig.entrySet()) {
+                if (!(entry.getValue() instanceof Map)) continue;
+                Map<String, Pattern> patterns = new HashMap<>();
+                for (Map.Entry<String, Object> rule : ((Map<String, Object>) entry.getValue()).entrySet()) {
+                    if (rule.getValue() == null || rule.getValue().toString().isEmpty()) continue;
+                    patterns.put(rule.getKey(), compileMask(rule.getValue().toString()));
+                }
+                regexRules.put(entry.getKey(), Collections.unmodifiableMap(patterns));
+            }
+        }
+        Map<String, JsonMaskPath[]> jsonRules = new HashMap<>();
+        Map<String, Map<String, String>> jsonFallback = new HashMap<>();
+        if (jsonConfig != null) {
+            for (Map.Entry<String, Object> entry : jsonConfig.entrySet()) {
+                if (!(entry.getValue() instanceof Map)) continue;
+                Map<String, String> raw = new LinkedHashMap<>();
+                List<JsonMaskPath> paths = new ArrayList<>();
+                boolean streamable = true;
+                for (Map.Entry<String, Object> rule : ((Map<String, Object>) entry.getValue()).entrySet()) {
+                    String expression = rule.getValue() == null ? null : rule.getValue().toString();
+                    raw.put(rule.getKey(), expression);
+                    JsonMaskPath path = JsonMaskPath.compile(rule.getKey(), StringUtils.isEmpty(expression) ? null : compileMask(expression));
+                    if (path == null) {
+                        streamable = false;
+                    } else {
+                        paths.add(path);
+                    }
+                }
+                if (streamable) {
+                    jsonRules.put(entry.getKey(), paths.toArray(new JsonMaskPath[0]));
+                } else {
+                    if (logger.isDebugEnabled()) logger.debug("json mask key {} contains a path that cannot be streamed", entry.getKey());
+                    jsonFallback.put(entry.getKey(), Collections.unmodifiableMap(raw));
+                }
+            }
+        }
+        return new MaskEngine(Collections.unmodifiableMap(stringRules), Collections.unmodifiableMap(regexRules),
+                Collections.unmodifiableMap(jsonRules), Collections.unmodifiableMap(jsonFallback), mapper);
+    }
+
+    private static Pattern compileMask(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (Exception e) {
+            logger.error("Invalid mask regex {}, the entire value will be masked", regex, e);
+            return MASK_ALL;
+        }
+    }
+
+    /**
+     * Apply all the patterns of the key in the string section in order.
+     *
+     * @param input String The source of the string that needs to be masked
+     * @param key String The key that maps to a list of patterns for masking
+     * @return Masked result
+     */
+    public String maskString(String input, String key) {
+        if (input == null) return null;
+        StringRule[] rules = stringRules.get(key);
+        if (rules == null) return input;
+        String output = input;
+        for (StringRule rule : rules) {
+            output = rule.pattern().matcher(output).replaceAll(rule.replacement());
+        }
+        return output;
+    }
+
+    /**
+     * Replace the groups of the named pattern in the regex section with stars.
+     *
+     * @param input String The source of the string that needs to be masked
+     * @param key String The key maps to a list of name to pattern pair
+     * @param name String The name of the pattern in the key list
+     * @return Masked result
+     */
+    public String maskRegex(String input, String key, String name) {
+        Map<String, Pattern> patterns = regexRules.get(key);
+        if (patterns == null) return input;
+        Pattern pattern = patterns.get(name);
+        if (pattern == null) return input;
+        return replaceWithMask(input, MASK_CHAR, pattern);
+    }
+
+    /**
+     * Check if the json section of the key has been compiled for streaming.
+     *
+     * @param key String The key maps to a list of json path for masking
+     * @return true if the key doesn't exist or all of its paths are streamable
+     */
+    public boolean canStream(String key) {
+        return !jsonFallback.containsKey(key);
+    }
+
+    /**
+     * Check if the json section has the key at all.
+     *
+     * @param key String The key maps to a list of json path for masking
+     * @return true if the key is defined
+     */
+    public boolean hasJsonKey(String key) {
+        return jsonRules.containsKey(key) || jsonFallback.containsKey(key);
+    }
+
+    /**
+     * Get the raw json path rules of a key that cannot be streamed.
+     *
+     * @param key String The key maps to a list of json path for masking
+     * @return the json path to regex map or null if the key is streamable
+     */
+    public Map<String, String> getFallbackRules(String key) {
+        return jsonFallback.get(key);
+    }
+
+    /**
+     * Mask a json string in a single streaming pass.
+     *
+     * @param input String json text
+     * @param key String The key maps to a list of json path for masking
+     * @return Masked result
+     */
+    public String maskJson(String input, String key) {
+        if (input == null) return null;
+        JsonMaskPath[] paths = jsonRules.get(key);
+        if (paths == null || paths.length == 0) return input;
+        try (JsonParser parser = factory.createParser(input)) {
+            return maskToString(parser, paths);
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    /**
+     * Mask a json byte array in a single streaming pass.
+     *
+     * @param input byte[] UTF-8 json bytes
+     * @param key String The key maps to a list of json path for masking
+     * @return Masked result
+     */
+    public String maskJson(byte[] input, String key) {
+        if (input == null) return null;
+        try (JsonParser parser = factory.createParser(input)) {
+            return maskToString(parser, paths(key));
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    /**
+     * Mask a json input stream in a single streaming pass.
+     *
+     * @param input InputStream json stream, it is not closed
+     * @param key String The key maps to a list of json path for masking
+     * @return Masked result
+     */
+    public String maskJson(InputStream input, String key) {
+        if (input == null) return null;
+        try (JsonParser parser = factory.createParser(input)) {
+            return maskToString(parser, paths(key));
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    /**
+     * Mask a POJO, usually a Map or List parsed from the body, without serializing it to text first.
+     *
+     * @param input Object POJO of json that needs to be masked
+     * @param key String The key maps to a list of json path for masking
+     * @return Masked result
+     */
+    public String maskJson(Object input, String key) {
+        if (input == null) return null;
+        try (TokenBuffer buffer = new TokenBuffer(mapper, false)) {
+            mapper.writeValue(buffer, input);
+            try (JsonParser parser = buffer.asParser(mapper)) {
+                return maskToString(parser, paths(key));
+            }
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    /**
+     * Mask a json stream into an output stream. Both streams are left open.
+     *
+     * @param input InputStream json stream
+     * @param output OutputStream the masked json is written to
+     * @param key String The key maps to a list of json path for masking
+     * @throws IOException if the input is not valid json or the output cannot be written
+     */
+    public void maskJson(InputStream input, OutputStream output, String key) throws IOException {
+        try (JsonParser parser = factory.createParser(input);
+             JsonGenerator generator = factory.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            mask(parser, generator, paths(key));
+        }
+    }
+
+    /**
+     * Mask the leading part of a json document that has been cut at a byte limit. The tokens are
+     * copied until the end of the input or the first token that cannot be parsed, so a value that
+     * is cut in the middle is dropped instead of being written unmasked. The result is not valid
+     * json if the input is truncated.
+     *
+     * @param data byte[] UTF-8 json bytes
+     * @param offset int the offset of the first byte
+     * @param length int the number of bytes
+     * @param key String The key maps to a list of json path for masking
+     * @return Masked prefix
+     */
+    public String maskJsonPrefix(byte[] data, int offset, int length, String key) {
+        if (data == null) return null;
+        SegmentedStringWriter writer = new SegmentedStringWriter(new BufferRecycler());
+        try {
+            try (JsonParser parser = factory.createParser(data, offset, length);
+                 JsonGenerator generator = factory.createGenerator(writer)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                try {
+                    mask(parser, generator, paths(key));
+                } catch (JsonProcessingException e) {
+                    // reached the end of the captured prefix.
+                    if (logger.isTraceEnabled()) logger.trace("json prefix ends at {}", parser.currentLocation());
+                }
+            }
+            return writer.getAndClear();
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    private JsonMaskPath[] paths(String key) {
+        JsonMaskPath[] paths = jsonRules.get(key);
+        return paths == null ? new JsonMaskPath[0] : paths;
+    }
+
+    private String maskToString(JsonParser parser, JsonMaskPath[] paths) throws IOException {
+        SegmentedStringWriter writer = new SegmentedStringWriter(new BufferRecycler());
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            mask(parser, generator, paths);
+        }
+        return writer.getAndClear();
+    }
+
+    private static void mask(JsonParser parser, JsonGenerator generator, JsonMaskPath[] paths) throws IOException {
+        if (parser.nextToken() == null) return;
+        long[] states = new long[paths.length];
+        for (int i = 0; i < paths.length; i++) states[i] = JsonMaskPath.start();
+        copyValue(parser, generator, paths, states, null);
+        generator.flush();
+    }
+
+    /*
+     * Copy the value at the current token. The states are the match states of the paths at the
+     * location of the value and inherited is the pattern of a matched parent array, if any.
+     */
+    private static void copyValue(JsonParser parser, JsonGenerator generator, JsonMaskPath[] paths,
+                                  long[] states, Pattern inherited) throws IOException {
+        boolean alive = false;
+        Pattern matched = null;
+        for (int i = 0; i < paths.length; i++) {
+            if (states[i] == 0L) continue;
+            alive = true;
+            if (matched == null && paths[i].accepts(states[i])) matched = paths[i].getPattern();
+        }
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case START_OBJECT:
+                if (!alive) {
+                    generator.copyCurrentStructure(parser);
+                    return;
+                }
+                generator.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    generator.writeFieldName(name);
+                    long[] child = new long[paths.length];
+                    for (int i = 0; i < paths.length; i++) child[i] = states[i] == 0L ? 0L : paths[i].advance(states[i], name, -1);
+                    parser.nextToken();
+                    copyValue(parser, generator, paths, child, null);
+                }
+                generator.writeEndObject();
+                return;
+            case START_ARRAY:
+                if (!alive) {
+                    generator.copyCurrentStructure(parser);
+                    return;
+                }
+                generator.writeStartArray();
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    long[] child = new long[paths.length];
+                    for (int i = 0; i < paths.length; i++) child[i] = states[i] == 0L ? 0L : paths[i].advance(states[i], null, index);
+                    copyValue(parser, generator, paths, child, matched);
+                    index++;
+                }
+                generator.writeEndArray();
+                return;
+            case VALUE_STRING:
+            case VALUE_NUMBER_INT:
+                Pattern pattern = matched != null ? matched : inherited;
+                if (pattern != null) {
+                    generator.writeString(replaceWithMask(parser.getText(), MASK_CHAR, pattern));
+                    return;
+                }
+                generator.copyCurrentEvent(parser);
+                return;
+            default:
+                generator.copyCurrentEvent(parser);
+        }
+    }
+
+    /**
+     * Replace each group matched by the pattern with the mask char. If the pattern doesn't match
+     * the entire input, an empty string is returned.
+     *
+     * @param stringToBeMasked String the value to be masked
+     * @param maskingChar char the mask char
+     * @param pattern Pattern the compiled mask regex
+     * @return String the masked value
+     */
+    static String replaceWithMask(String stringToBeMasked, char maskingChar, Pattern pattern) {
+        if (stringToBeMasked == null || stringToBeMasked.length() == 0)
+            return stringToBeMasked;
+        if (pattern == null)
+            return StringUtils.rightPad("", stringToBeMasked.length(), maskingChar);
+        String replacementString = "";
+        try {
+            Matcher matcher = pattern.matcher(stringToBeMasked);
+            if (matcher.matches()) {
+                String currentGroup;
+                for (int i = 0; i < matcher.groupCount(); i++) {
+                    currentGroup = matcher.group(i + 1);
+                    if (currentGroup == null) continue;
+                    String padGroup = StringUtils.rightPad("", currentGroup.length(), maskingChar);
+                    stringToBeMasked = StringUtils.replace(stringToBeMasked, currentGroup, padGroup, 1);
+                }
+                replacementString = stringToBeMasked;
+            }
+        } catch (Exception e) {
+            replacementString = StringUtils.rightPad("", stringToBeMasked.length(), maskingChar);
+        }
+        return replacementString;
+    }
+}
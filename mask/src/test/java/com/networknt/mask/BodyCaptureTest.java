@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.mask;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class BodyCaptureTest {
+
+    @Test
+    public void testNotTruncated() {
+        String body = "{\"name\":\"Steve\",\"password\":\"secret\"}";
+        BodyCapture capture = BodyCapture.of(body, 1024);
+        Assertions.assertFalse(capture.isTruncated());
+        Assertions.assertEquals(body.length(), capture.getTotalLength());
+        Assertions.assertEquals(body, capture.toString());
+        Assertions.assertEquals("{\"name\":\"Steve\",\"password\":\"******\"}", capture.maskJson("test1"));
+    }
+
+    @Test
+    public void testTruncatedJsonMasksPrefix() {
+        String body = "{\"password\":\"secret\",\"contact\":{\"phone\":\"416-111-1111\"},\"name\":\"Steve\"}";
+        BodyCapture capture = BodyCapture.of(body, 45);
+        Assertions.assertTrue(capture.isTruncated());
+        Assertions.assertEquals(45, capture.getCapturedLength());
+        // the phone number is cut in the middle so it is dropped instead of being logged unmasked.
+        Assertions.assertEquals("{\"password\":\"******\",\"contact\":{\"phone\"...[truncated 45 of " + body.length() + " bytes]", capture.maskJson("test1"));
+    }
+
+    @Test
+    public void testTruncatedString() {
+        // the password might be cut at the limit, so it is dropped with its name.
+        BodyCapture capture = BodyCapture.of("/v1/customer?password=secret&number=1234567890123456", 28);
+        Assertions.assertEquals("/v1/customer?...[truncated 28 of 52 bytes]", capture.maskString("uri"));
+        capture = BodyCapture.of("/v1/customer?password=secret&number=1234567890123456", 32);
+        Assertions.assertEquals("/v1/customer?password=******&...[truncated 32 of 52 bytes]", capture.maskString("uri"));
+    }
+
+    @Test
+    public void testSecretStraddlingLimit() {
+        String body = "card 4111111111111111 expires 12/30";
+        Assertions.assertEquals("card **************** expires 12/30", BodyCapture.of(body, 1024).maskString("card"));
+        // the card number is cut at the limit and the pattern of 16 digits doesn't match the first 10.
+        BodyCapture capture = BodyCapture.of(body, 15);
+        Assertions.assertEquals("card 4111111111", capture.toString().substring(0, 15));
+        Assertions.assertEquals("card ...[truncated 15 of 35 bytes]", capture.maskString("card"));
+        Assertions.assertEquals(5, BodyCapture.tokenBoundary("card 4111111111"));
+    }
+
+    @Test
+    public void testByteBufferAndHash() {
+        byte[] bytes = "abcdefghij".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        BodyCapture capture = new BodyCapture(4, true);
+        capture.update(direct, 0, 6);
+        capture.update(direct, 6, 4);
+        Assertions.assertEquals(0, direct.position());
+        Assertions.assertEquals("abcd", new String(capture.getCaptured(), StandardCharsets.UTF_8));
+        Assertions.assertEquals(10, capture.getTotalLength());
+        // sha256 of abcdefghij
+        Assertions.assertEquals("72399361da6a7754fec986dca5b7cbaf1c810a28ded4abaf56b2106d06cb78b0", capture.getHash());
+        Assertions.assertTrue(capture.getTruncationMarker().contains(capture.getHash()));
+    }
+
+    @Test
+    public void testMultibyteBoundary() {
+        // é is two bytes in UTF-8 and the limit cuts it in half.
+        BodyCapture capture = BodyCapture.of("abé", 3);
+        Assertions.assertEquals(2, capture.utf8Boundary());
+        Assertions.assertEquals("ab...[truncated 3 of 4 bytes]", capture.toString());
+    }
+
+    @Test
+    public void testAppendLargeStringCountsTheRest() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("aé€\uD83D\uDE00");
+        }
+        // a lone surrogate is encoded as '?' by String.getBytes.
+        String body = sb.append('\uD83D').toString();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        BodyCapture capture = BodyCapture.of(body, 100);
+        Assertions.assertEquals(bytes.length, capture.getTotalLength());
+        Assertions.assertEquals(100, capture.getCapturedLength());
+        Assertions.assertArrayEquals(Arrays.copyOf(bytes, 100), capture.getCaptured());
+
+        BodyCapture hashed = new BodyCapture(100, true);
+        hashed.append(body);
+        Assertions.assertEquals(bytes.length, hashed.getTotalLength());
+    }
+}
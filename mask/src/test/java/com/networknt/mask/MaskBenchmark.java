@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.mask;
+
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the JsonPath DOM masking with the streaming mask engine on 1 KB, 100 KB and 5 MB
+ * payloads. Run it from the IDE or with the test classpath after mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaskBenchmark {
+    private static final Map<String, String> RULES = Map.of("$.list.*.name", "(.*)", "$.list.*.accounts.*", "(.*)", "$.password", "(.*)");
+
+    @Param({"1024", "102400", "5242880"})
+    public int size;
+
+    private String json;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{\"password\":\"secret\",\"list\":[");
+        int i = 0;
+        while (sb.length() < size) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"name\":\"name").append(i)
+                    .append("\",\"description\":\"some text that is not masked\",\"accounts\":[\"")
+                    .append(1000000 + i).append("\",\"").append(2000000 + i).append("\"]}");
+            i++;
+        }
+        sb.append("]}");
+        json = sb.toString();
+    }
+
+    @Benchmark
+    public String dom() {
+        return Mask.maskJson(JsonPath.parse(json), RULES);
+    }
+
+    @Benchmark
+    public String streaming() {
+        return Mask.getEngine().maskJson(json, "test2");
+    }
+
+    @Benchmark
+    public String maskString() {
+        return Mask.maskString("/v1/customer?sin=123456789&password=secret&number=1234567890123456", "uri");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(MaskBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.mask;
+
+import com.jayway.jsonpath.JsonPath;
+import com.networknt.config.Config;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class MaskEngineTest {
+
+    @Test
+    public void testCompilePath() {
+        Pattern pattern = Pattern.compile("(.*)");
+        Assertions.assertNotNull(JsonMaskPath.compile("$.contact.phone", pattern));
+        Assertions.assertNotNull(JsonMaskPath.compile("$.list.[*].creditCardNumber", pattern));
+        Assertions.assertNotNull(JsonMaskPath.compile("$['contact']['phone']", pattern));
+        Assertions.assertNotNull(JsonMaskPath.compile("$..ssn", pattern));
+        Assertions.assertNotNull(JsonMaskPath.compile("$.product[*].item[*].name[0]", pattern));
+        Assertions.assertNull(JsonMaskPath.compile("$.list[?(@.type == 'card')].number", pattern));
+        Assertions.assertNull(JsonMaskPath.compile("$.list[0:2]", pattern));
+        Assertions.assertNull(JsonMaskPath.compile("$.list[-1]", pattern));
+        Assertions.assertNull(JsonMaskPath.compile("contact.phone", pattern));
+    }
+
+    @Test
+    public void testPathState() {
+        JsonMaskPath path = JsonMaskPath.compile("$.list[*].name", null);
+        long state = path.advance(JsonMaskPath.start(), "list", -1);
+        state = path.advance(state, null, 3);
+        Assertions.assertFalse(path.accepts(state));
+        Assertions.assertTrue(path.accepts(path.advance(state, "name", -1)));
+        Assertions.assertEquals(0L, path.advance(state, "other", -1));
+    }
+
+    @Test
+    public void testSameResultAsDom() {
+        String input = "{\"name\":\"Steve\",\"contact\":{\"phone\":\"416-111-1111\"},\"password\":\"secret\"}";
+        Map<String, String> rules = Map.of("$.contact.phone", "(.*)", "$.password", "(.*)");
+        String dom = Mask.maskJson(JsonPath.parse(input), rules);
+        String streaming = Mask.getEngine().maskJson(input, "test1");
+        Assertions.assertEquals(dom, streaming);
+    }
+
+    @Test
+    public void testDeepScanAndIndex() {
+        String input = "{\"ssn\":\"123\",\"accounts\":[\"1111\",\"2222\"],\"children\":[{\"ssn\":\"4567\",\"age\":5}]}";
+        String output = Mask.maskJson(input, "testDeepScan");
+        Assertions.assertEquals("{\"ssn\":\"***\",\"accounts\":[\"****\",\"2222\"],\"children\":[{\"ssn\":\"****\",\"age\":5}]}", output);
+    }
+
+    @Test
+    public void testMatchedArrayMasksElements() {
+        String input = "{\"list1\":[\"1\",333,\"55555\"],\"password\":\"secret\"}";
+        String output = Mask.maskJson(input, "test2");
+        Assertions.assertEquals("{\"list1\":[\"*\",\"***\",\"*****\"],\"password\":\"******\"}", output);
+    }
+
+    @Test
+    public void testMaskPojoAndStream() throws Exception {
+        Map<String, Object> body = Map.of("contact", Map.of("phone", "416-111-1111"), "tags", List.of("a", "b"));
+        String output = Mask.maskJson((Object) body, "test1");
+        Assertions.assertEquals("************", JsonPath.parse(output).read("$.contact.phone"));
+
+        byte[] bytes = "{\"password\":\"secret\",\"other\":{\"a\":[1,2,{\"b\":true}]}}".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Mask.getEngine().maskJson(new ByteArrayInputStream(bytes), out, "test1");
+        Assertions.assertEquals("{\"password\":\"******\",\"other\":{\"a\":[1,2,{\"b\":true}]}}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFilterFallsBackToDom() {
+        Assertions.assertFalse(Mask.getEngine().canStream("testFilter"));
+        String input = "{\"list\":[{\"type\":\"card\",\"number\":\"1234\"},{\"type\":\"cash\",\"number\":\"5678\"}]}";
+        String output = Mask.maskJson(input, "testFilter");
+        Assertions.assertEquals("****", JsonPath.parse(output).read("$.list[0].number"));
+        Assertions.assertEquals("5678", JsonPath.parse(output).read("$.list[1].number"));
+    }
+
+    @Test
+    public void testUnknownKey() {
+        String input = "{\"password\":\"secret\"}";
+        Assertions.assertEquals(input, Mask.maskJson(input, "unknown"));
+        Assertions.assertEquals("abc", Mask.maskString("abc", "unknown"));
+        Assertions.assertEquals("abc", Mask.maskRegex("abc", "unknown", "name"));
+    }
+
+    @Test
+    public void testInvalidRegexMasksAll() {
+        MaskEngine engine = MaskEngine.compile(null, Map.of("header", Map.of("bad", "(.*")), null, Config.getInstance().getMapper());
+        Assertions.assertEquals("*****", engine.maskRegex("value", "header", "bad"));
+    }
+}
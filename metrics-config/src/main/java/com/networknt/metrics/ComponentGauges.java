@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.metrics;
+
+import io.dropwizard.metrics.Gauge;
+import io.dropwizard.metrics.MetricName;
+import io.dropwizard.metrics.MetricRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The gauges of the components that are not middleware handlers, like the service registry watchers.
+ * A component registers its gauges once with a name and a supplier of the current value, and they are
+ * reported with the JVM metrics in each period of the JVMMetricsDbReporter.
+ *
+ * This class is in the metrics-config module so that a component can register its gauges without a
+ * dependency on the metrics handlers.
+ *
+ * @author Steve Hu
+ */
+public final class ComponentGauges {
+    private static final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    private ComponentGauges() {
+    }
+
+    /**
+     * Register or replace a gauge.
+     *
+     * @param name the name of the gauge, for example consul.watcher_count
+     * @param value the supplier of the current value
+     */
+    public static void register(String name, Supplier<? extends Number> value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Remove all the gauges with the name that starts with the prefix.
+     *
+     * @param prefix the prefix of the gauge names, for example consul.
+     */
+    public static void unregister(String prefix) {
+        gauges.keySet().removeIf(name -> name.startsWith(prefix));
+    }
+
+    /**
+     * @param name the name of the gauge
+     * @return the current value of the gauge or null if it is not registered
+     */
+    public static Number getValue(String name) {
+        Supplier<? extends Number> value = gauges.get(name);
+        return value == null ? null : value.get();
+    }
+
+    /**
+     * Put the current values of all the registered gauges into the registry with the common tags. The
+     * gauges that have been unregistered since the last period are removed from the registry.
+     *
+     * @param registry the registry of the reporter
+     * @param commonTags the common tags
+     */
+    public static void trackAll(final MetricRegistry registry, final Map<String, String> commonTags) {
+        registry.removeMatching((name, metric) -> metric instanceof ComponentGauge);
+        for (Map.Entry<String, Supplier<? extends Number>> entry : gauges.entrySet()) {
+            Number value = entry.getValue().get();
+            if (value != null) {
+                registry.register(MetricRegistry.name(entry.getKey()).tagged(commonTags), new ComponentGauge(value));
+            }
+        }
+    }
+
+    private static final class ComponentGauge implements Gauge<Number> {
+        private final Number value;
+
+        private ComponentGauge(Number value) {
+            this.value = value;
+        }
+
+        @Override
+        public Number getValue() {
+            return value;
+        }
+    }
+}
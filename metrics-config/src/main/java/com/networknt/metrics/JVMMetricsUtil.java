@@ -53,6 +53,9 @@ public class JVMMetricsUtil {
 		}
 
 		track("thread.count", ManagementFactory.getThreadMXBean().getThreadCount(), registry, commonTags);
+
+		// the gauges of the components like the registry watchers
+		ComponentGauges.trackAll(registry, commonTags);
 	}
 
 	private static void track(String name, MemoryUsage m, final MetricRegistry registry, final Map<String, String> commonTags) {
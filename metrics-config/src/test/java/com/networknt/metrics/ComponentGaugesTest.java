@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.metrics;
+
+import io.dropwizard.metrics.MetricName;
+import io.dropwizard.metrics.MetricRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ComponentGaugesTest {
+
+    @Test
+    public void testTrackAndUnregister() {
+        AtomicInteger count = new AtomicInteger(3);
+        ComponentGauges.register("test.count", count::get);
+        MetricRegistry registry = new MetricRegistry();
+        Map<String, String> tags = Map.of("api", "test");
+        ComponentGauges.trackAll(registry, tags);
+        MetricName name = MetricRegistry.name("test.count").tagged(tags);
+        Assertions.assertEquals(3, registry.getGauges().get(name).getValue());
+
+        count.set(5);
+        ComponentGauges.trackAll(registry, tags);
+        Assertions.assertEquals(5, registry.getGauges().get(name).getValue());
+
+        ComponentGauges.unregister("test.");
+        Assertions.assertNull(ComponentGauges.getValue("test.count"));
+        ComponentGauges.trackAll(registry, tags);
+        Assertions.assertFalse(registry.getGauges().containsKey(name));
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+/**
+ * The outcome of one attempt of the ProxyHandler on a downstream host. A ProxyClient that tracks the
+ * hosts returns a ProxyConnection implementing this interface, and the ProxyHandler calls it when
+ * the response of the attempt arrives, or when the attempt fails, is retried on another host or is
+ * abandoned for the hedged attempt. An implementation should only record the first call.
+ *
+ * @author Steve Hu
+ */
+public interface ProxyAttemptListener {
+    /**
+     * The response headers of the attempt have arrived from the host.
+     */
+    void responseReceived();
+
+    /**
+     * The attempt has failed or is abandoned without a response.
+     */
+    void failed();
+}
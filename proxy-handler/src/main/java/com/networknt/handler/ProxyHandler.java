@@ -138,6 +138,8 @@ public class ProxyHandler implements HttpHandler {
 
     private final Predicate idempotentRequestPredicate;
 
+    private final ProxyHedgePolicy hedgePolicy;
+
     private ProxyHandler(Builder builder) {
         this.proxyClient = builder.proxyClient;
         this.maxRequestTime = builder.maxRequestTime;
@@ -158,6 +160,10 @@ public class ProxyHandler implements HttpHandler {
         this.queryParamRewriteRules = builder.queryParamRewriteRules;
         this.headerRewriteRules = builder.headerRewriteRules;
         this.idempotentRequestPredicate = builder.idempotentRequestPredicate;
+        List<String> hedgePathPrefixes = normalizeStringList(builder.hedgePathPrefixes, Collections.emptyList());
+        this.hedgePolicy = builder.hedgeEnabled && !hedgePathPrefixes.isEmpty()
+                ? new ProxyHedgePolicy(hedgePathPrefixes, builder.hedgePercentile, builder.hedgeMinDelay, builder.hedgeBudgetPercent)
+                : null;
         for (Map.Entry<HttpString, ExchangeAttribute> e : builder.requestHeaders.entrySet()) {
             requestHeaders.put(e.getKey(), e.getValue());
         }
@@ -207,6 +213,23 @@ public class ProxyHandler implements HttpHandler {
             });
         }
 
+        // hedge the idempotent request with a complete body if it is slower than the recent latency of the path prefix.
+        if (hedgePolicy != null && !streamingRequest && exchange.isRequestComplete() && idempotentRequestPredicate.resolve(exchange)) {
+            final ProxyHedgePolicy.Route route = hedgePolicy.match(reqPath);
+            if (route != null) {
+                clientHandler.hedge = route.start();
+                long delay = route.getDelay();
+                if (delay > 0) {
+                    LOG.trace("Adding hedge after {} us to exchange: {}", delay, exchange);
+                    final XnioExecutor.Key key = WorkerUtils.executeAfter(exchange.getIoThread(), () -> clientHandler.hedge(exchange), delay, TimeUnit.MICROSECONDS);
+                    exchange.addExchangeCompleteListener((exchange1, nextListener) -> {
+                        key.remove();
+                        nextListener.proceed();
+                    });
+                }
+            }
+        }
+
 
         if (exchange.isInIoThread()) exchange.dispatch(lightThreadExecutor, clientHandler);
 
@@ -385,6 +408,11 @@ public class ProxyHandler implements HttpHandler {
         private final Predicate idempotentPredicate;
         private final boolean streamingRequest;
         private ProxyClient.ProxyTarget target;
+        // the hedge state shared by the primary attempt 0 and the hedged attempt 1.
+        private ProxyHedgePolicy.Hedge hedge;
+        private int attempt;
+        // the connection of the current try, so that its host can be told when the try fails.
+        private ProxyConnection connection;
 
         ProxyClientHandler(HttpServerExchange exchange, ProxyClient.ProxyTarget target, long timeout, int maxRetryAttempts, Predicate idempotentPredicate, boolean streamingRequest) {
             this.exchange = exchange;
@@ -400,10 +428,89 @@ public class ProxyHandler implements HttpHandler {
             proxyClient.getConnection(this.target, this.exchange, this, -1, TimeUnit.MILLISECONDS);
         }
 
+        /**
+         * Send the hedged attempt to another host if the primary attempt has not received a response.
+         *
+         * @param exchange HttpServerExchange
+         */
+        void hedge(final HttpServerExchange exchange) {
+            if (proxyClient instanceof ProxyHedgeClient && !((ProxyHedgeClient) proxyClient).hasOtherHost(exchange)) {
+                LOG.trace("No other host to send the hedged request for exchange: {}", exchange);
+                return;
+            }
+
+            if (!this.hedge.begin())
+                return;
+
+            final long time = System.currentTimeMillis();
+            final long remaining = this.timeout > 0 ? this.timeout - time : -1;
+            final ProxyClient.ProxyTarget hedgeTarget = proxyClient.findTarget(exchange);
+
+            if (hedgeTarget == null || (this.timeout > 0 && remaining <= 0)) {
+                this.hedge.failed(1);
+                return;
+            }
+
+            LOG.debug("Sending hedged request with remaining = {} for exchange: {}", remaining, exchange);
+            final ProxyClientHandler hedgeHandler = new ProxyClientHandler(exchange, hedgeTarget, this.timeout, Math.max(0, this.maxRetryAttempts - this.tries), this.idempotentPredicate, false);
+            hedgeHandler.hedge = this.hedge;
+            hedgeHandler.attempt = 1;
+
+            if (proxyClient instanceof ProxyHedgeClient)
+                ((ProxyHedgeClient) proxyClient).getHedgeConnection(hedgeTarget, exchange, hedgeHandler, remaining, TimeUnit.MILLISECONDS);
+
+            else proxyClient.getConnection(hedgeTarget, exchange, hedgeHandler, remaining, TimeUnit.MILLISECONDS);
+        }
+
+        void prepared() {
+            if (this.hedge != null && this.attempt == 0)
+                this.hedge.prepared();
+        }
+
+        boolean isHedgeLoser() {
+            return this.hedge != null && this.hedge.isLoser(this.attempt);
+        }
+
+        /**
+         * Tell the host of the current try that it has failed or is abandoned.
+         */
+        void attemptFailed() {
+            ProxyHandler.attemptFailed(this.connection);
+        }
+
+        /**
+         * Claim the response for the exchange. The response of the losing attempt is discarded.
+         *
+         * @param result ClientExchange of the attempt
+         * @return true if the response should be sent to the client
+         */
+        boolean claimResponse(final ClientExchange result) {
+            if (this.hedge == null || this.hedge.win(this.attempt))
+                return true;
+
+            LOG.debug("Discard the response of the cancelled attempt {} for exchange: {}", this.attempt, exchange);
+            IoUtils.safeClose(result.getResponseChannel());
+
+            if (!result.getConnection().isMultiplexingSupported())
+                IoUtils.safeClose(result.getConnection());
+
+            return false;
+        }
+
         @Override
         public void completed(final HttpServerExchange exchange, final ProxyConnection connection) {
             LOG.trace("ProxyCallback completed for exchange: {}", exchange);
-            exchange.putAttachment(CONNECTION, connection);
+            this.connection = connection;
+
+            if (this.hedge != null && !this.hedge.connected(this.attempt, connection.getConnection())) {
+                LOG.trace("Attempt {} is not sent as the other attempt has won for exchange: {}", this.attempt, exchange);
+                attemptFailed();
+                return;
+            }
+
+            if (this.attempt == 0)
+                exchange.putAttachment(CONNECTION, connection);
+
             exchange.dispatch(lightThreadExecutor, new ProxyAction(connection, exchange, requestHeaders, rewriteHostHeader, reuseXForwarded, exchange.isRequestComplete() ? this : null, idempotentPredicate, urlRewriteRules, methodRewriteRules, queryParamRewriteRules, headerRewriteRules, streamingRequest, streamResponseContentTypes, streamIdleTimeout, streamResponseHeaderOverwrite));
         }
 
@@ -411,6 +518,11 @@ public class ProxyHandler implements HttpHandler {
         public void failed(final HttpServerExchange exchange) {
             LOG.debug("Failed calling backend with tries = {} maxRetryAttempts = {} for exchange: {}", this.tries, this.maxRetryAttempts, exchange);
 
+            if (this.hedge != null && !this.hedge.failed(this.attempt)) {
+                LOG.debug("Ignore the failure of attempt {} as the other attempt is in flight for exchange: {}", this.attempt, exchange);
+                return;
+            }
+
             final long time = System.currentTimeMillis();
 
             if (this.tries++ < this.maxRetryAttempts) {
@@ -424,19 +536,23 @@ public class ProxyHandler implements HttpHandler {
                     LOG.trace("Retry target = {}", target);
 
                     if (this.target != null) {
+
+                        if (this.hedge != null)
+                            this.hedge.retry();
+
                         final long remaining = this.timeout > 0 ? this.timeout - time : -1;
                         LOG.trace("Retry with remaining = {} for exchange: {}", remaining, exchange);
                         proxyClient.getConnection(target, exchange, this, remaining, TimeUnit.MILLISECONDS);
 
                     } else {
                         LOG.trace("Target is null, cannot resolve the backend");
-                        couldNotResolveBackend(exchange); // The context was registered when we started, so return 503
+                        serviceUnavailable(exchange); // The context was registered when we started, so return 503
                     }
                 }
 
             } else {
                 LOG.trace("Max number fo retry attempts reached for exchange: {}", exchange);
-                couldNotResolveBackend(exchange);
+                serviceUnavailable(exchange);
             }
         }
 
@@ -448,6 +564,16 @@ public class ProxyHandler implements HttpHandler {
         @Override
         public void couldNotResolveBackend(HttpServerExchange ex) {
 
+            if (this.hedge != null && !this.hedge.failed(this.attempt)) {
+                LOG.debug("Ignore the unresolved backend of attempt {} as the other attempt is in flight for exchange: {}", this.attempt, ex);
+                return;
+            }
+
+            serviceUnavailable(ex);
+        }
+
+        private void serviceUnavailable(HttpServerExchange ex) {
+
             if (ex.isResponseStarted())
                 IoUtils.safeClose(ex.getConnection());
 
@@ -469,6 +595,9 @@ public class ProxyHandler implements HttpHandler {
         void cancel(final HttpServerExchange exchange) {
 
             //NOTE: this method is called only in context of timeouts.
+            if (this.hedge != null)
+                this.hedge.cancel();
+
             final ProxyConnection connectionAttachment = exchange.getAttachment(CONNECTION);
 
             if (connectionAttachment != null) {
@@ -572,6 +701,9 @@ public class ProxyHandler implements HttpHandler {
 
             LOG.debug("Sending request {} to target {} for exchange {}", request, this.clientConnection.getConnection().getPeerAddress(), exchange);
 
+            if (this.proxyClientHandler != null)
+                this.proxyClientHandler.prepared();
+
             this.sendWithCallback(request, remoteHost);
         }
 
@@ -908,7 +1040,7 @@ public class ProxyHandler implements HttpHandler {
                     if (exchange.getConnection().isPushSupported() && result.getConnection().isPushSupported())
                         this.handleServerPush(result);
 
-                    result.setResponseListener(new ResponseCallback(exchange, proxyClientHandler, idempotentPredicate, headerRewriteRules, streamingRequest, streamResponseContentTypes, streamIdleTimeout, streamResponseHeaderOverwrite));
+                    result.setResponseListener(new ResponseCallback(exchange, clientConnection, proxyClientHandler, idempotentPredicate, headerRewriteRules, streamingRequest, streamResponseContentTypes, streamIdleTimeout, streamResponseHeaderOverwrite));
 
                     final IoExceptionHandler handler = new IoExceptionHandler(exchange, clientConnection.getConnection());
 
@@ -930,6 +1062,7 @@ public class ProxyHandler implements HttpHandler {
 
                 @Override
                 public void failed(IOException e) {
+                    attemptFailed(clientConnection);
                     handleFailure(exchange, proxyClientHandler, idempotentPredicate, e);
                 }
 
@@ -1018,7 +1151,36 @@ public class ProxyHandler implements HttpHandler {
         }
     }
 
+    /**
+     * Tell the host of the connection that the response of the attempt has arrived.
+     *
+     * @param connection ProxyConnection of the attempt
+     */
+    static void attemptResponded(ProxyConnection connection) {
+        if (connection instanceof ProxyAttemptListener)
+            ((ProxyAttemptListener) connection).responseReceived();
+    }
+
+    /**
+     * Tell the host of the connection that the attempt has failed or is abandoned.
+     *
+     * @param connection ProxyConnection of the attempt
+     */
+    static void attemptFailed(ProxyConnection connection) {
+        if (connection instanceof ProxyAttemptListener)
+            ((ProxyAttemptListener) connection).failed();
+    }
+
     static void handleFailure(HttpServerExchange exchange, ProxyClientHandler proxyClientHandler, Predicate idempotentRequestPredicate, IOException e) {
+
+        // the host of the failed try is told before the retry gets a connection to another host.
+        if (proxyClientHandler != null)
+            proxyClientHandler.attemptFailed();
+
+        if (proxyClientHandler != null && proxyClientHandler.isHedgeLoser()) {
+            LOG.trace("Cancelled hedge attempt failed for exchange {}", exchange);
+            return;
+        }
         UndertowLogger.PROXY_REQUEST_LOGGER.proxyRequestFailed(exchange.getRequestURI(), e);
 
         if (exchange.isResponseStarted()) {
@@ -1037,6 +1199,7 @@ public class ProxyHandler implements HttpHandler {
     private static final class ResponseCallback implements ClientCallback<ClientExchange> {
 
         private final HttpServerExchange exchange;
+        private final ProxyConnection connection;
         private final ProxyClientHandler proxyClientHandler;
         private final Predicate idempotentPredicate;
         private final Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules;
@@ -1045,9 +1208,10 @@ public class ProxyHandler implements HttpHandler {
         private final int streamIdleTimeout;
         private final List<HttpString> streamResponseHeaderOverwrite;
 
-        private ResponseCallback(HttpServerExchange exchange, ProxyClientHandler proxyClientHandler, Predicate idempotentPredicate, Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules,
+        private ResponseCallback(HttpServerExchange exchange, ProxyConnection connection, ProxyClientHandler proxyClientHandler, Predicate idempotentPredicate, Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules,
                                  boolean streamingRequest, List<String> streamResponseContentTypes, int streamIdleTimeout, List<HttpString> streamResponseHeaderOverwrite) {
             this.exchange = exchange;
+            this.connection = connection;
             this.proxyClientHandler = proxyClientHandler;
             this.idempotentPredicate = idempotentPredicate;
             this.headerRewriteRules = headerRewriteRules;
@@ -1060,6 +1224,12 @@ public class ProxyHandler implements HttpHandler {
         @Override
         public void completed(final ClientExchange result) {
 
+            // the latency is recorded for the host that produced the response even if the other attempt has won.
+            attemptResponded(connection);
+
+            if (proxyClientHandler != null && !proxyClientHandler.claimResponse(result))
+                return;
+
             final ClientResponse response = result.getResponse();
 
             LOG.debug("Received response {} for request {} for exchange {}", response, result.getRequest(), exchange);
@@ -1122,6 +1292,7 @@ public class ProxyHandler implements HttpHandler {
 
         @Override
         public void failed(IOException e) {
+            attemptFailed(connection);
             handleFailure(exchange, proxyClientHandler, idempotentPredicate, e);
         }
     }
@@ -1426,6 +1597,11 @@ public class ProxyHandler implements HttpHandler {
         private int streamMaxRequestTime;
         private int streamIdleTimeout;
         private List<String> streamResponseHeaderOverwrite;
+        private boolean hedgeEnabled;
+        private List<String> hedgePathPrefixes;
+        private int hedgePercentile = 95;
+        private int hedgeMinDelay = 10;
+        private int hedgeBudgetPercent = 5;
 
         Builder() {
         }
@@ -1532,6 +1708,31 @@ public class ProxyHandler implements HttpHandler {
             return this;
         }
 
+        public Builder setHedgeEnabled(boolean hedgeEnabled) {
+            this.hedgeEnabled = hedgeEnabled;
+            return this;
+        }
+
+        public Builder setHedgePathPrefixes(List<String> hedgePathPrefixes) {
+            this.hedgePathPrefixes = hedgePathPrefixes;
+            return this;
+        }
+
+        public Builder setHedgePercentile(int hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+            return this;
+        }
+
+        public Builder setHedgeMinDelay(int hedgeMinDelay) {
+            this.hedgeMinDelay = hedgeMinDelay;
+            return this;
+        }
+
+        public Builder setHedgeBudgetPercent(int hedgeBudgetPercent) {
+            this.hedgeBudgetPercent = hedgeBudgetPercent;
+            return this;
+        }
+
         public Builder setMaxConnectionRetries(int maxConnectionRetries) {
             this.maxConnectionRetries = maxConnectionRetries;
             return this;
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.proxy.ProxyCallback;
+import io.undertow.server.handlers.proxy.ProxyClient;
+import io.undertow.server.handlers.proxy.ProxyConnection;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A ProxyClient that selects the host inside the getConnection can implement this interface, so
+ * that the hedged attempt of the ProxyHandler is sent to a host other than the hosts the request
+ * has been sent to. The ProxyHandler skips the hedge if there is no other host, as a hedge on the
+ * same host would wait for the same slow host.
+ *
+ * @author Steve Hu
+ */
+public interface ProxyHedgeClient {
+    /**
+     * @param exchange HttpServerExchange
+     * @return true if there is a host other than the hosts already attempted by the exchange
+     */
+    boolean hasOtherHost(HttpServerExchange exchange);
+
+    /**
+     * Get the connection of the hedged attempt from a host other than the hosts already attempted
+     * by the exchange. It is called like the getConnection of the ProxyClient.
+     *
+     * @param target the proxy target
+     * @param exchange HttpServerExchange
+     * @param callback the callback of the hedged attempt
+     * @param timeout the timeout
+     * @param timeUnit the unit of the timeout
+     */
+    void getHedgeConnection(ProxyClient.ProxyTarget target, HttpServerExchange exchange, ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit);
+}
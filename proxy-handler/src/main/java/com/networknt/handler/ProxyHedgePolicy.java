@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.handler;
+
+import com.networknt.metrics.AbstractMetricsHandler;
+import io.dropwizard.metrics.Counter;
+import io.dropwizard.metrics.MetricName;
+import io.undertow.client.ClientConnection;
+import org.xnio.IoUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The hedging policy of the ProxyHandler. For an idempotent request under one of the path prefixes,
+ * a second attempt is sent to another host if no response arrives within the configured percentile
+ * of the recent latency of the path prefix. The first response is used and the other attempt is
+ * cancelled.
+ *
+ * The latency is kept in a ring of the most recent responses per path prefix and the delay is only
+ * computed again every RECOMPUTE_INTERVAL responses. No hedge is sent until MIN_SAMPLES responses
+ * are recorded. The extra load is limited by a budget that earns a fraction of a hedge with each
+ * request and allows a burst of MAX_BURST hedges. The latency of the primary attempt is recorded
+ * whether it wins or not, so the hedges that win don't hide the slow responses from the history.
+ *
+ * @author Steve Hu
+ */
+final class ProxyHedgePolicy {
+    static final int WINDOW_SIZE = 1024;
+    static final int MIN_SAMPLES = 100;
+    static final int RECOMPUTE_INTERVAL = 64;
+    static final int MAX_BURST = 10;
+    private static final long TOKEN = 1000;
+    private static final int CANCELLED = 2;
+
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+    private final int percentile;
+    private final long minDelay;
+    private final long deposit;
+    private final AtomicLong tokens = new AtomicLong();
+
+    /**
+     * @param pathPrefixes the path prefixes of the requests that can be hedged
+     * @param percentile the latency percentile to wait for before the hedge is sent
+     * @param minDelay the minimum delay in milliseconds before the hedge is sent
+     * @param budgetPercent the max extra load in percent of the requests under the path prefixes
+     */
+    ProxyHedgePolicy(List<String> pathPrefixes, int percentile, int minDelay, int budgetPercent) {
+        for (String prefix : pathPrefixes) {
+            routes.put(prefix, new Route(prefix));
+        }
+        this.percentile = Math.max(1, Math.min(100, percentile));
+        this.minDelay = TimeUnit.MILLISECONDS.toMicros(Math.max(0, minDelay));
+        this.deposit = Math.max(0, budgetPercent) * TOKEN / 100;
+    }
+
+    /**
+     * @param path the request path
+     * @return the route of the first matching path prefix or null
+     */
+    Route match(String path) {
+        for (Route route : routes.values()) {
+            if (path.startsWith(route.prefix)) return route;
+        }
+        return null;
+    }
+
+    Route getRoute(String prefix) {
+        return routes.get(prefix);
+    }
+
+    private boolean withdraw() {
+        for (; ; ) {
+            long current = tokens.get();
+            if (current < TOKEN) return false;
+            if (tokens.compareAndSet(current, current - TOKEN)) return true;
+        }
+    }
+
+    private void earn() {
+        for (; ; ) {
+            long current = tokens.get();
+            long next = Math.min(MAX_BURST * TOKEN, current + deposit);
+            if (next == current || tokens.compareAndSet(current, next)) return;
+        }
+    }
+
+    /**
+     * The latency history and the metrics of a path prefix.
+     */
+    final class Route {
+        private final String prefix;
+        private final AtomicLongArray samples = new AtomicLongArray(WINDOW_SIZE);
+        private final AtomicLong count = new AtomicLong();
+        private volatile long delay = -1;
+        private final Counter requests;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter budgetExhausted;
+
+        private Route(String prefix) {
+            this.prefix = prefix;
+            this.requests = counter("proxy-hedge-request");
+            this.sent = counter("proxy-hedge-sent");
+            this.won = counter("proxy-hedge-won");
+            this.budgetExhausted = counter("proxy-hedge-budget-exhausted");
+        }
+
+        private Counter counter(String name) {
+            return AbstractMetricsHandler.registry.counter(new MetricName(name).tagged("pathPrefix", prefix));
+        }
+
+        /**
+         * Start the hedge state of a request and earn the budget for it.
+         *
+         * @return Hedge
+         */
+        Hedge start() {
+            requests.inc();
+            earn();
+            return new Hedge(this);
+        }
+
+        /**
+         * @return the delay in microseconds before the hedge is sent or -1 if there is not enough history
+         */
+        long getDelay() {
+            return delay;
+        }
+
+        long getRecorded() {
+            return count.get();
+        }
+
+        void record(long nanos) {
+            long n = count.getAndIncrement();
+            samples.lazySet((int) (n % WINDOW_SIZE), TimeUnit.NANOSECONDS.toMicros(nanos));
+            n++;
+            if (n == MIN_SAMPLES || (n > MIN_SAMPLES && n % RECOMPUTE_INTERVAL == 0)) {
+                int size = (int) Math.min(n, WINDOW_SIZE);
+                long[] sorted = new long[size];
+                for (int i = 0; i < size; i++) sorted[i] = samples.get(i);
+                Arrays.sort(sorted);
+                int index = Math.max(0, (int) Math.ceil(percentile * size / 100.0) - 1);
+                delay = Math.max(minDelay, sorted[index]);
+            }
+        }
+
+        private boolean withdraw() {
+            return ProxyHedgePolicy.this.withdraw();
+        }
+
+        Counter getSent() {
+            return sent;
+        }
+
+        Counter getWon() {
+            return won;
+        }
+
+        Counter getBudgetExhausted() {
+            return budgetExhausted;
+        }
+    }
+
+    /**
+     * The attempts of one request. The primary attempt is 0 and the hedge is 1. The first attempt
+     * with a response wins, and the failure of an attempt is only handled by the caller if no other
+     * attempt is in flight.
+     */
+    static final class Hedge {
+        private final Route route;
+        private final long start = System.nanoTime();
+        private final AtomicInteger winner = new AtomicInteger(-1);
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicReferenceArray<ClientConnection> connections = new AtomicReferenceArray<>(2);
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private volatile boolean prepared;
+
+        private Hedge(Route route) {
+            this.route = route;
+        }
+
+        /**
+         * Mark the request of the primary attempt as prepared. The hedge is only sent after it so that
+         * the two attempts don't rewrite the exchange at the same time.
+         */
+        void prepared() {
+            prepared = true;
+        }
+
+        /**
+         * Check the state and the budget before the hedge is sent.
+         *
+         * @return true if the hedge should be sent
+         */
+        boolean begin() {
+            if (winner.get() != -1 || !prepared) return false;
+            if (!route.withdraw()) {
+                route.budgetExhausted.inc();
+                return false;
+            }
+            for (; ; ) {
+                int current = pending.get();
+                if (current <= 0 || winner.get() != -1) return false;
+                if (pending.compareAndSet(current, current + 1)) break;
+            }
+            route.sent.inc();
+            return true;
+        }
+
+        /**
+         * Register the connection of an attempt so that it can be cancelled.
+         *
+         * @return false if another attempt has won already and the connection should not be used
+         */
+        boolean connected(int attempt, ClientConnection connection) {
+            connections.set(attempt, connection);
+            return !isLoser(attempt);
+        }
+
+        /**
+         * Claim the response of an attempt and cancel the other attempt if its connection cannot be shared.
+         *
+         * @return true if the attempt is the winner
+         */
+        boolean win(int attempt) {
+            if (!winner.compareAndSet(-1, attempt)) {
+                // the late response of the primary attempt on a shared connection.
+                if (attempt == 0) recordPrimary();
+                return winner.get() == attempt;
+            }
+            if (attempt == 1) route.won.inc();
+            ClientConnection other = connections.get(1 - attempt);
+            boolean abandoned = other == null || !other.isMultiplexingSupported();
+            if (other != null && abandoned) IoUtils.safeClose(other);
+            // the primary attempt abandoned for the hedge has taken at least the time until now.
+            if (attempt == 0 || abandoned) recordPrimary();
+            return true;
+        }
+
+        private void recordPrimary() {
+            if (recorded.compareAndSet(false, true)) route.record(System.nanoTime() - start);
+        }
+
+        /**
+         * @return true if the failure of the attempt should be handled as the failure of the request
+         */
+        boolean failed(int attempt) {
+            int w = winner.get();
+            if (w != -1) {
+                if (attempt == 0 && w == 1) recordPrimary();
+                return w == attempt;
+            }
+            return pending.decrementAndGet() <= 0;
+        }
+
+        void retry() {
+            pending.incrementAndGet();
+        }
+
+        boolean isLoser(int attempt) {
+            int w = winner.get();
+            return w != -1 && w != attempt;
+        }
+
+        /**
+         * Cancel all the attempts when the request times out.
+         */
+        void cancel() {
+            winner.compareAndSet(-1, CANCELLED);
+            for (int i = 0; i < connections.length(); i++) {
+                ClientConnection connection = connections.get(i);
+                if (connection != null) IoUtils.safeClose(connection);
+            }
+        }
+    }
+}
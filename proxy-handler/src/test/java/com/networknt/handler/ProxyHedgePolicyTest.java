@@ -0,0 +1,248 @@
+package com.networknt.handler;
+
+import com.networknt.metrics.AbstractMetricsHandler;
+import io.dropwizard.metrics.MetricName;
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.proxy.LoadBalancingProxyClient;
+import io.undertow.server.handlers.proxy.ProxyCallback;
+import io.undertow.server.handlers.proxy.ProxyClient;
+import io.undertow.server.handlers.proxy.ProxyConnection;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ProxyHedgePolicyTest {
+
+    private final List<Undertow> servers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (Undertow server : servers) {
+            server.stop();
+        }
+        servers.clear();
+    }
+
+    @Test
+    void shouldComputeDelayFromPercentileAfterMinSamples() {
+        ProxyHedgePolicy policy = new ProxyHedgePolicy(List.of("/delay"), 95, 0, 5);
+        ProxyHedgePolicy.Route route = policy.match("/delay/1");
+        Assertions.assertNotNull(route);
+        Assertions.assertNull(policy.match("/other"));
+        for (int i = 1; i < ProxyHedgePolicy.MIN_SAMPLES; i++) {
+            route.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        Assertions.assertEquals(-1, route.getDelay());
+        route.record(TimeUnit.MILLISECONDS.toNanos(ProxyHedgePolicy.MIN_SAMPLES));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toMicros(95), route.getDelay());
+    }
+
+    @Test
+    void shouldLimitHedgesWithBudget() {
+        ProxyHedgePolicy policy = new ProxyHedgePolicy(List.of("/budget"), 95, 0, 5);
+        ProxyHedgePolicy.Route route = policy.getRoute("/budget");
+        ProxyHedgePolicy.Hedge hedge = null;
+        // 5 percent of 20 requests earns one hedge.
+        for (int i = 0; i < 20; i++) {
+            hedge = route.start();
+        }
+        hedge.prepared();
+        Assertions.assertTrue(hedge.begin());
+        ProxyHedgePolicy.Hedge next = route.start();
+        next.prepared();
+        Assertions.assertFalse(next.begin());
+        Assertions.assertEquals(1, route.getSent().getCount());
+        Assertions.assertEquals(1, route.getBudgetExhausted().getCount());
+    }
+
+    @Test
+    void shouldIgnoreFailureWhileOtherAttemptIsInFlight() {
+        ProxyHedgePolicy policy = new ProxyHedgePolicy(List.of("/state"), 95, 0, 100);
+        ProxyHedgePolicy.Hedge hedge = policy.getRoute("/state").start();
+        // the hedge is not sent before the primary request is prepared.
+        Assertions.assertFalse(hedge.begin());
+        hedge.prepared();
+        Assertions.assertTrue(hedge.begin());
+        Assertions.assertFalse(hedge.failed(0));
+        Assertions.assertTrue(hedge.win(1));
+        Assertions.assertTrue(hedge.isLoser(0));
+        Assertions.assertFalse(hedge.win(0));
+        Assertions.assertFalse(hedge.failed(0));
+        Assertions.assertTrue(hedge.failed(1));
+        Assertions.assertEquals(1, policy.getRoute("/state").getWon().getCount());
+
+        ProxyHedgePolicy.Hedge single = policy.getRoute("/state").start();
+        Assertions.assertTrue(single.failed(0));
+    }
+
+    @Test
+    void shouldRecordPrimaryLatencyWhenHedgeWins() {
+        ProxyHedgePolicy policy = new ProxyHedgePolicy(List.of("/latency"), 95, 0, 100);
+        ProxyHedgePolicy.Route route = policy.getRoute("/latency");
+        ProxyHedgePolicy.Hedge hedge = route.start();
+        hedge.prepared();
+        Assertions.assertTrue(hedge.begin());
+        // the primary attempt is abandoned and its elapsed time is recorded once.
+        Assertions.assertTrue(hedge.win(1));
+        Assertions.assertEquals(1, route.getRecorded());
+        Assertions.assertFalse(hedge.win(0));
+        Assertions.assertFalse(hedge.failed(0));
+        Assertions.assertEquals(1, route.getRecorded());
+
+        ProxyHedgePolicy.Hedge primary = route.start();
+        Assertions.assertTrue(primary.win(0));
+        Assertions.assertEquals(2, route.getRecorded());
+    }
+
+    @Test
+    void shouldSkipHedgeWithoutOtherHost() throws Exception {
+        boolean[] slow = new boolean[1];
+        Undertow backend = startServer(exchange -> exchange.dispatch(() -> {
+            if (slow[0]) sleep(300);
+            exchange.getResponseSender().send("slow");
+        }));
+        AtomicInteger checked = new AtomicInteger();
+        ProxyHandler proxy = ProxyHandler.builder()
+                .setProxyClient(new SingleHostClient(new LoadBalancingProxyClient().addHost(uri(backend)), checked))
+                .setRewriteHostHeader(false)
+                .setMaxConnectionRetries(0)
+                .setMaxRequestTime(3000)
+                .setHedgeEnabled(true)
+                .setHedgePathPrefixes(List.of("/single"))
+                .setHedgeMinDelay(50)
+                .build();
+        Undertow frontend = startServer(proxy);
+
+        for (int i = 0; i < ProxyHedgePolicy.MIN_SAMPLES; i++) {
+            Assertions.assertEquals(StatusCodes.OK, get(uri(frontend).resolve("/single")).code);
+        }
+        slow[0] = true;
+        Assertions.assertEquals("slow", get(uri(frontend).resolve("/single")).body);
+        Assertions.assertTrue(checked.get() > 0);
+        Assertions.assertEquals(0, AbstractMetricsHandler.registry.counter(new MetricName("proxy-hedge-sent").tagged("pathPrefix", "/single")).getCount());
+    }
+
+    @Test
+    void shouldHedgeSlowBackendToAnotherHost() throws Exception {
+        boolean[] slow = new boolean[1];
+        Undertow slowBackend = startServer(exchange -> exchange.dispatch(() -> {
+            if (slow[0]) sleep(1000);
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+            exchange.getResponseSender().send("slow");
+        }));
+        Undertow fastBackend = startServer(exchange -> {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+            exchange.getResponseSender().send("fast");
+        });
+        LoadBalancingProxyClient client = new LoadBalancingProxyClient()
+                .addHost(uri(slowBackend))
+                .addHost(uri(fastBackend))
+                .setConnectionsPerThread(4);
+        ProxyHandler proxy = ProxyHandler.builder()
+                .setProxyClient(client)
+                .setRewriteHostHeader(false)
+                .setMaxConnectionRetries(0)
+                .setMaxRequestTime(3000)
+                .setHedgeEnabled(true)
+                .setHedgePathPrefixes(List.of("/hedge"))
+                .setHedgeMinDelay(50)
+                .build();
+        Undertow frontend = startServer(proxy);
+
+        for (int i = 0; i < ProxyHedgePolicy.MIN_SAMPLES; i++) {
+            Assertions.assertEquals(StatusCodes.OK, get(uri(frontend).resolve("/hedge")).code);
+        }
+        slow[0] = true;
+        int fast = 0;
+        for (int i = 0; i < 4; i++) {
+            long start = System.nanoTime();
+            Response response = get(uri(frontend).resolve("/hedge"));
+            Assertions.assertEquals(StatusCodes.OK, response.code);
+            Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 800);
+            if ("fast".equals(response.body)) fast++;
+        }
+        Assertions.assertEquals(4, fast);
+    }
+
+    private Response get(URI uri) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setConnectTimeout(1000);
+        connection.setReadTimeout(3000);
+        try (InputStream is = connection.getInputStream()) {
+            return new Response(connection.getResponseCode(), new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private Undertow startServer(HttpHandler handler) {
+        Undertow server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(handler)
+                .build();
+        server.start();
+        servers.add(server);
+        return server;
+    }
+
+    private URI uri(Undertow server) {
+        InetSocketAddress address = (InetSocketAddress) server.getListenerInfo().get(0).getAddress();
+        return URI.create("http://localhost:" + address.getPort());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Response(int code, String body) {}
+
+    private static final class SingleHostClient implements ProxyClient, ProxyHedgeClient {
+        private final ProxyClient client;
+        private final AtomicInteger checked;
+
+        private SingleHostClient(ProxyClient client, AtomicInteger checked) {
+            this.client = client;
+            this.checked = checked;
+        }
+
+        @Override
+        public ProxyTarget findTarget(HttpServerExchange exchange) {
+            return client.findTarget(exchange);
+        }
+
+        @Override
+        public void getConnection(ProxyTarget target, HttpServerExchange exchange, ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit) {
+            client.getConnection(target, exchange, callback, timeout, timeUnit);
+        }
+
+        @Override
+        public boolean hasOtherHost(HttpServerExchange exchange) {
+            checked.incrementAndGet();
+            return false;
+        }
+
+        @Override
+        public void getHedgeConnection(ProxyTarget target, HttpServerExchange exchange, ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit) {
+            Assertions.fail("the hedge must not be sent to the same host");
+        }
+    }
+}
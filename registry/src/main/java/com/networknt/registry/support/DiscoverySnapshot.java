@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.registry.support;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.networknt.config.Config;
+import com.networknt.registry.URL;
+import com.networknt.registry.URLImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keep the last known service to urls mapping in a local file. The key is the serviceId or the
+ * serviceId and the environment tag separated with a vertical bar, the same key that is used by
+ * the cluster and the registries.
+ *
+ * The snapshot is loaded once when the instance is created so that the cluster and the router
+ * can route to the last known instances before the registry has responded or when it is down.
+ * Updates are written after the writeDelay to a temporary file that is moved over the snapshot
+ * file atomically, so a crash during the write never leaves a partial file behind. Empty url
+ * lists are not recorded so that a registry outage doesn't erase the last known instances.
+ *
+ * @author Steve Hu
+ */
+public class DiscoverySnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(DiscoverySnapshot.class);
+    private static final String TIMESTAMP = "timestamp";
+    private static final String SERVICES = "services";
+    private static volatile DiscoverySnapshot instance;
+
+    private final boolean enabled;
+    private final Path path;
+    private final int writeDelay;
+    private final Map<String, List<URL>> loaded;
+    private final ConcurrentHashMap<String, List<URL>> services = new ConcurrentHashMap<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private ScheduledExecutorService writer;
+
+    /**
+     * Get the snapshot configured in discovery-snapshot.yml. The snapshot file is loaded on the first call.
+     *
+     * @return DiscoverySnapshot the shared instance
+     */
+    public static DiscoverySnapshot getInstance() {
+        if (instance == null) {
+            synchronized (DiscoverySnapshot.class) {
+                if (instance == null) {
+                    DiscoverySnapshotConfig config = DiscoverySnapshotConfig.load();
+                    instance = new DiscoverySnapshot(config.isEnabled(), Paths.get(config.getSnapshotFile()), config.getWriteDelay(), config.getMaxAge());
+                }
+            }
+        }
+        return instance;
+    }
+
+    DiscoverySnapshot(boolean enabled, Path path, int writeDelay, int maxAge) {
+        this.enabled = enabled;
+        this.path = path.toAbsolutePath();
+        this.writeDelay = Math.max(0, writeDelay);
+        if (enabled) {
+            loaded = Collections.unmodifiableMap(read(this.path, maxAge));
+            services.putAll(loaded);
+            if(logger.isInfoEnabled()) logger.info("Discovery snapshot {} loaded with {} services", this.path, loaded.size());
+        } else {
+            loaded = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * @return boolean true if the snapshot is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The services that were loaded from the snapshot file at startup. It is empty if the snapshot
+     * is disabled, the file doesn't exist or it is older than the maxAge.
+     *
+     * @return Map the service key to urls mapping
+     */
+    public Map<String, List<URL>> getServices() {
+        return loaded;
+    }
+
+    /**
+     * Record the urls of a service after discovery or a registry notification. The file is written
+     * after the writeDelay if the urls are different from the recorded ones.
+     *
+     * @param key the serviceId or serviceId|tag
+     * @param urls the discovered urls
+     */
+    public void update(String key, List<URL> urls) {
+        if (!enabled || key == null || urls == null || urls.isEmpty()) return;
+        List<URL> copy = new ArrayList<>(urls.size());
+        for (URL url : urls) copy.add(url.createCopy());
+        List<URL> old = services.put(key, copy);
+        if (old == null || !toStrings(old).equals(toStrings(copy))) {
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Write the snapshot immediately if there are pending changes.
+     */
+    public void flush() {
+        if (writeScheduled.compareAndSet(true, false)) {
+            save();
+        }
+    }
+
+    private void scheduleWrite() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            getWriter().schedule(this::flush, writeDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized ScheduledExecutorService getWriter() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "discovery-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            // write the pending changes when the server is shutting down.
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "discovery-snapshot-flush"));
+        }
+        return writer;
+    }
+
+    private synchronized void save() {
+        try {
+            write(path, new TreeMap<>(services));
+            if(logger.isDebugEnabled()) logger.debug("Discovery snapshot {} is written with {} services", path, services.size());
+        } catch (IOException e) {
+            logger.error("Failed to write the discovery snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Write the services to the file atomically.
+     *
+     * @param path the snapshot file
+     * @param services the service key to urls mapping
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path path, Map<String, List<URL>> services) throws IOException {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put(TIMESTAMP, System.currentTimeMillis());
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (Map.Entry<String, List<URL>> entry : services.entrySet()) {
+            map.put(entry.getKey(), toStrings(entry.getValue()));
+        }
+        snapshot.put(SERVICES, map);
+        byte[] bytes = Config.getInstance().getMapper().writeValueAsBytes(snapshot);
+
+        Path dir = path.getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir == null ? Paths.get(".") : dir, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Read the services from the file.
+     *
+     * @param path the snapshot file
+     * @param maxAge max age in seconds, 0 means no limit
+     * @return Map the service key to urls mapping or an empty map if the file is missing, invalid or expired
+     */
+    static Map<String, List<URL>> read(Path path, int maxAge) {
+        Map<String, List<URL>> result = new HashMap<>();
+        if (!Files.isRegularFile(path)) return result;
+        try {
+            Map<String, Object> snapshot = Config.getInstance().getMapper().readValue(path.toFile(), new TypeReference<Map<String, Object>>(){});
+            Object timestamp = snapshot.get(TIMESTAMP);
+            if (maxAge > 0 && timestamp instanceof Number
+                    && System.currentTimeMillis() - ((Number)timestamp).longValue() > maxAge * 1000L) {
+                logger.warn("Discovery snapshot {} is older than {} seconds and it is ignored", path, maxAge);
+                return result;
+            }
+            Object object = snapshot.get(SERVICES);
+            if (object instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>)object).entrySet()) {
+                    if (!(entry.getValue() instanceof List)) continue;
+                    List<URL> urls = new ArrayList<>();
+                    for (Object s : (List<?>)entry.getValue()) {
+                        urls.add(URLImpl.valueOf((String)s));
+                    }
+                    if (!urls.isEmpty()) result.put((String)entry.getKey(), urls);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to read the discovery snapshot " + path, e);
+            result.clear();
+        }
+        return result;
+    }
+
+    private static List<String> toStrings(List<URL> urls) {
+        List<String> list = new ArrayList<>(urls.size());
+        for (URL url : urls) {
+            String s = url.toFullStr();
+            // remove the trailing separator from the full string.
+            if (s.endsWith("?") || s.endsWith("&")) s = s.substring(0, s.length() - 1);
+            list.add(s);
+        }
+        Collections.sort(list);
+        return list;
+    }
+}
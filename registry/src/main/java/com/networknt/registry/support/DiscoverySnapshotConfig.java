@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.registry.support;
+
+import com.networknt.config.Config;
+import com.networknt.config.schema.BooleanField;
+import com.networknt.config.schema.ConfigSchema;
+import com.networknt.config.schema.IntegerField;
+import com.networknt.config.schema.OutputFormat;
+import com.networknt.config.schema.StringField;
+import com.networknt.server.ModuleRegistry;
+
+import java.util.Map;
+
+/**
+ * Configuration for the discovery snapshot that persists the last known service to urls
+ * mapping to a local file so that the cluster can be warmed up without the registry.
+ *
+ * @author Steve Hu
+ */
+@ConfigSchema(
+        configKey = "discovery-snapshot",
+        configName = "discovery-snapshot",
+        configDescription = "Discovery snapshot configuration",
+        outputFormats = {OutputFormat.JSON_SCHEMA, OutputFormat.YAML, OutputFormat.CLOUD})
+public class DiscoverySnapshotConfig {
+    /** Constant for configuration name */
+    public static final String CONFIG_NAME = "discovery-snapshot";
+    private static final String ENABLED = "enabled";
+    private static final String SNAPSHOT_FILE = "snapshotFile";
+    private static final String WRITE_DELAY = "writeDelay";
+    private static final String MAX_AGE = "maxAge";
+
+    @BooleanField(
+            configFieldName = ENABLED,
+            externalizedKeyName = ENABLED,
+            defaultValue = "false",
+            description = "Enable the discovery snapshot. When it is enabled, the service urls discovered from the registry are\n" +
+                    "written to the snapshotFile on change and loaded at startup to warm up the cluster before the registry\n" +
+                    "responds. The snapshot is reconciled with the registry in the background."
+    )
+    boolean enabled;
+
+    @StringField(
+            configFieldName = SNAPSHOT_FILE,
+            externalizedKeyName = SNAPSHOT_FILE,
+            defaultValue = "discovery-snapshot.json",
+            description = "The path of the snapshot file. A relative path is resolved against the working directory. The directory\n" +
+                    "must be writable as the file is written to a temporary file and moved atomically."
+    )
+    String snapshotFile = "discovery-snapshot.json";
+
+    @IntegerField(
+            configFieldName = WRITE_DELAY,
+            externalizedKeyName = WRITE_DELAY,
+            defaultValue = "1000",
+            description = "Delay in milliseconds before the snapshot is written after a change. All the changes within the delay are\n" +
+                    "written together."
+    )
+    int writeDelay = 1000;
+
+    @IntegerField(
+            configFieldName = MAX_AGE,
+            externalizedKeyName = MAX_AGE,
+            defaultValue = "0",
+            description = "Max age in seconds of a snapshot that can be used at startup. An older snapshot is ignored. 0 means the\n" +
+                    "snapshot is always used so that the service can start when the registry is down for a long time."
+    )
+    int maxAge = 0;
+
+    private static volatile DiscoverySnapshotConfig instance;
+    private final Map<String, Object> mappedConfig;
+
+    private DiscoverySnapshotConfig(String configName) {
+        mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+        setConfigData();
+    }
+
+    /**
+     * Loads the discovery snapshot configuration from the default config name.
+     *
+     * @return DiscoverySnapshotConfig object
+     */
+    public static DiscoverySnapshotConfig load() {
+        return load(CONFIG_NAME);
+    }
+
+    /**
+     * Loads the discovery snapshot configuration from a specific config name.
+     *
+     * @param configName config name
+     * @return DiscoverySnapshotConfig object
+     */
+    public static DiscoverySnapshotConfig load(String configName) {
+        if (CONFIG_NAME.equals(configName)) {
+            Map<String, Object> mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+            if (instance != null && instance.getMappedConfig() == mappedConfig) {
+                return instance;
+            }
+            synchronized (DiscoverySnapshotConfig.class) {
+                mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+                if (instance != null && instance.getMappedConfig() == mappedConfig) {
+                    return instance;
+                }
+                instance = new DiscoverySnapshotConfig(configName);
+                ModuleRegistry.registerModule(CONFIG_NAME, DiscoverySnapshotConfig.class.getName(), Config.getNoneDecryptedInstance().getJsonMapConfigNoCache(CONFIG_NAME), null);
+                return instance;
+            }
+        }
+        return new DiscoverySnapshotConfig(configName);
+    }
+
+    /**
+     * Gets the mapped configuration.
+     *
+     * @return Map mapped configuration
+     */
+    public Map<String, Object> getMappedConfig() {
+        return mappedConfig;
+    }
+
+    /**
+     * Checks if the discovery snapshot is enabled.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets if the discovery snapshot is enabled.
+     *
+     * @param enabled true if enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the snapshot file path.
+     *
+     * @return String snapshot file
+     */
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Sets the snapshot file path.
+     *
+     * @param snapshotFile snapshot file
+     */
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Gets the write delay in milliseconds.
+     *
+     * @return int write delay
+     */
+    public int getWriteDelay() {
+        return writeDelay;
+    }
+
+    /**
+     * Sets the write delay in milliseconds.
+     *
+     * @param writeDelay write delay
+     */
+    public void setWriteDelay(int writeDelay) {
+        this.writeDelay = writeDelay;
+    }
+
+    /**
+     * Gets the max age of the snapshot in seconds.
+     *
+     * @return int max age, 0 means no limit
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Sets the max age of the snapshot in seconds.
+     *
+     * @param maxAge max age, 0 means no limit
+     */
+    public void setMaxAge(int maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    private void setConfigData() {
+        if(mappedConfig != null) {
+            Object object = mappedConfig.get(ENABLED);
+            if(object != null) enabled = Config.loadBooleanValue(ENABLED, object);
+            object = mappedConfig.get(SNAPSHOT_FILE);
+            if(object != null && !((String)object).isBlank()) snapshotFile = (String)object;
+            object = mappedConfig.get(WRITE_DELAY);
+            if(object != null) writeDelay = Config.loadIntegerValue(WRITE_DELAY, object);
+            object = mappedConfig.get(MAX_AGE);
+            if(object != null) maxAge = Config.loadIntegerValue(MAX_AGE, object);
+        }
+    }
+}
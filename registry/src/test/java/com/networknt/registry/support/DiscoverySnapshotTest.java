@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.registry.support;
+
+import com.networknt.registry.URL;
+import com.networknt.registry.URLImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class DiscoverySnapshotTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Path file = dir.resolve("snapshot.json");
+        URL url1 = URLImpl.valueOf("https://192.168.1.100:8443/com.networknt.petstore-1.0.0?environment=dev");
+        URL url2 = URLImpl.valueOf("https://192.168.1.101:8443/com.networknt.petstore-1.0.0?environment=dev");
+        DiscoverySnapshot.write(file, Map.of("com.networknt.petstore-1.0.0|dev", List.of(url1, url2)));
+        // no temporary file is left behind.
+        try (var files = Files.list(dir)) {
+            Assertions.assertEquals(1, files.count());
+        }
+        Map<String, List<URL>> services = DiscoverySnapshot.read(file, 0);
+        List<URL> urls = services.get("com.networknt.petstore-1.0.0|dev");
+        Assertions.assertEquals(2, urls.size());
+        Assertions.assertEquals("192.168.1.100", urls.get(0).getHost());
+        Assertions.assertEquals(8443, urls.get(0).getPort());
+        Assertions.assertEquals("dev", urls.get(0).getParameter("environment"));
+    }
+
+    @Test
+    public void testMissingAndInvalidFile() throws Exception {
+        Assertions.assertTrue(DiscoverySnapshot.read(dir.resolve("missing.json"), 0).isEmpty());
+        Path file = dir.resolve("invalid.json");
+        Files.writeString(file, "{\"services\":");
+        Assertions.assertTrue(DiscoverySnapshot.read(file, 0).isEmpty());
+    }
+
+    @Test
+    public void testMaxAge() throws Exception {
+        Path file = dir.resolve("old.json");
+        Files.writeString(file, "{\"timestamp\":1000,\"services\":{\"code\":[\"http://localhost:6881/code\"]}}");
+        Assertions.assertTrue(DiscoverySnapshot.read(file, 60).isEmpty());
+        Assertions.assertEquals(1, DiscoverySnapshot.read(file, 0).get("code").size());
+    }
+
+    @Test
+    public void testUpdateAndLoad() throws Exception {
+        Path file = dir.resolve("update.json");
+        DiscoverySnapshot snapshot = new DiscoverySnapshot(true, file, 60000, 0);
+        Assertions.assertTrue(snapshot.getServices().isEmpty());
+        snapshot.update("code", List.of(URLImpl.valueOf("http://localhost:6881/code")));
+        // an empty list from a registry outage doesn't remove the last known urls.
+        snapshot.update("code", List.of());
+        snapshot.flush();
+        DiscoverySnapshot reloaded = new DiscoverySnapshot(true, file, 0, 0);
+        Assertions.assertEquals("localhost", reloaded.getServices().get("code").get(0).getHost());
+
+        DiscoverySnapshot disabled = new DiscoverySnapshot(false, file, 0, 0);
+        Assertions.assertTrue(disabled.getServices().isEmpty());
+    }
+}
@@ -109,7 +109,7 @@ public class RequestTransformerInterceptor implements RequestInterceptor {
                         // This object contains the reference to the request data buffer. Any modification done to this will be reflected in the request. We only want to transform the request body if
                         // the body is json or xml which is text based. If it is binary, we will not touch it. We first try to get the injected attachment from the RequestBodyInterceptor. However, if
                         // the RequestBodyInterceptor is not configured run first, we need to get the buffer from the exchange directly.
-                        String bodyString = exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING);
+                        String bodyString = BuffersUtils.getRequestBodyString(exchange);
                         if(bodyString != null) {
                             objMap.put("requestBody", bodyString);
                         } else {
@@ -28,7 +28,7 @@ import java.util.Map;
         configDescription = "Path Resource Config",
         outputFormats = {OutputFormat.JSON_SCHEMA, OutputFormat.YAML, OutputFormat.CLOUD}
 )
-public class PathResourceConfig {
+public class PathResourceConfig implements StaticResourceSettings {
     public static final String CONFIG_NAME = "path-resource";
 
     @StringField(
@@ -71,6 +71,58 @@ public class PathResourceConfig {
     )
     boolean directoryListingEnabled;
 
+    @BooleanField(
+            configFieldName = "cacheEnabled",
+            externalizedKeyName = "cacheEnabled",
+            description = "If true, the metadata of the resources and the content of the small files are cached in memory and\n" +
+                    "invalidated by a file watcher on the base directory.",
+            defaultValue = "true"
+    )
+    boolean cacheEnabled = true;
+
+    @IntegerField(
+            configFieldName = "cacheMetadataSize",
+            externalizedKeyName = "cacheMetadataSize",
+            description = "The max number of resources whose metadata (size, last modified and ETag) is cached.",
+            defaultValue = "1024"
+    )
+    int cacheMetadataSize = 1024;
+
+    @IntegerField(
+            configFieldName = "cacheMaxFileSize",
+            externalizedKeyName = "cacheMaxFileSize",
+            description = "The max size in bytes of a file whose content is cached in memory. A larger file is read from the\n" +
+                    "filesystem and sent with the zero copy transfer if it is not smaller than the transferMinSize.",
+            defaultValue = "65536"
+    )
+    int cacheMaxFileSize = 65536;
+
+    @IntegerField(
+            configFieldName = "cacheMaxMemory",
+            externalizedKeyName = "cacheMaxMemory",
+            description = "The max size in bytes of the direct memory used to cache the content of the files.",
+            defaultValue = "10485760"
+    )
+    int cacheMaxMemory = 10485760;
+
+    @IntegerField(
+            configFieldName = "cacheMaxAge",
+            externalizedKeyName = "cacheMaxAge",
+            description = "The max time in milliseconds a cached resource is used before it is checked against the filesystem\n" +
+                    "again. It bounds the staleness on a volume that does not deliver the file watcher events. -1 means no expiry.",
+            defaultValue = "60000"
+    )
+    int cacheMaxAge = 60000;
+
+    @BooleanField(
+            configFieldName = "preCompressed",
+            externalizedKeyName = "preCompressed",
+            description = "If true, the precompressed sibling file.br or file.gz is served instead of the file when the client\n" +
+                    "accepts the br or gzip encoding, so the static resources are compressed once at build time.",
+            defaultValue = "true"
+    )
+    boolean preCompressed = true;
+
     private static volatile PathResourceConfig instance;
     private final Config config;
     private java.util.Map<String, Object> mappedConfig;
@@ -128,6 +180,24 @@ public class PathResourceConfig {
         if (mappedConfig.containsKey("directoryListingEnabled")) {
             directoryListingEnabled = Config.loadBooleanValue("directoryListingEnabled", mappedConfig.get("directoryListingEnabled"));
         }
+        if (mappedConfig.containsKey("cacheEnabled")) {
+            cacheEnabled = Config.loadBooleanValue("cacheEnabled", mappedConfig.get("cacheEnabled"));
+        }
+        if (mappedConfig.containsKey("cacheMetadataSize")) {
+            cacheMetadataSize = Config.loadIntegerValue("cacheMetadataSize", mappedConfig.get("cacheMetadataSize"));
+        }
+        if (mappedConfig.containsKey("cacheMaxFileSize")) {
+            cacheMaxFileSize = Config.loadIntegerValue("cacheMaxFileSize", mappedConfig.get("cacheMaxFileSize"));
+        }
+        if (mappedConfig.containsKey("cacheMaxMemory")) {
+            cacheMaxMemory = Config.loadIntegerValue("cacheMaxMemory", mappedConfig.get("cacheMaxMemory"));
+        }
+        if (mappedConfig.containsKey("cacheMaxAge")) {
+            cacheMaxAge = Config.loadIntegerValue("cacheMaxAge", mappedConfig.get("cacheMaxAge"));
+        }
+        if (mappedConfig.containsKey("preCompressed")) {
+            preCompressed = Config.loadBooleanValue("preCompressed", mappedConfig.get("preCompressed"));
+        }
     }
 
     public String getPath() {
@@ -170,4 +240,52 @@ public class PathResourceConfig {
         this.directoryListingEnabled = directoryListingEnabled;
     }
 
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public int getCacheMetadataSize() {
+        return cacheMetadataSize;
+    }
+
+    public void setCacheMetadataSize(int cacheMetadataSize) {
+        this.cacheMetadataSize = cacheMetadataSize;
+    }
+
+    public int getCacheMaxFileSize() {
+        return cacheMaxFileSize;
+    }
+
+    public void setCacheMaxFileSize(int cacheMaxFileSize) {
+        this.cacheMaxFileSize = cacheMaxFileSize;
+    }
+
+    public int getCacheMaxMemory() {
+        return cacheMaxMemory;
+    }
+
+    public void setCacheMaxMemory(int cacheMaxMemory) {
+        this.cacheMaxMemory = cacheMaxMemory;
+    }
+
+    public int getCacheMaxAge() {
+        return cacheMaxAge;
+    }
+
+    public void setCacheMaxAge(int cacheMaxAge) {
+        this.cacheMaxAge = cacheMaxAge;
+    }
+
+    public boolean isPreCompressed() {
+        return preCompressed;
+    }
+
+    public void setPreCompressed(boolean preCompressed) {
+        this.preCompressed = preCompressed;
+    }
+
 }
@@ -20,16 +20,16 @@ import com.networknt.config.Config;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.PathHandler;
-import io.undertow.server.handlers.resource.PathResourceManager;
 import io.undertow.server.handlers.resource.ResourceHandler;
 
-import java.nio.file.Paths;
-
 /**
  * This is a wrapper of PathHandler of Undertow with external configuration. The config
  * name for this handler is path-resource.yml and the base should be an absolute path
  * in your docker volume mapping.
  *
+ * The resources are cached in memory and the precompressed siblings are served based on
+ * the cache and preCompressed properties. See ResourceHelpers.createResourceHandler.
+ *
  * @author Steve Hu
  */
 public class PathResourceHandler implements HttpHandler {
@@ -38,14 +38,11 @@ public class PathResourceHandler implements HttpHandler {
 
     public PathResourceHandler() {
         PathResourceConfig config = PathResourceConfig.load();
+        ResourceHandler resourceHandler = ResourceHelpers.createResourceHandler(config);
         if(config.isPrefix()) {
-            pathHandler = new PathHandler()
-                    .addPrefixPath(config.getPath(), new ResourceHandler(new PathResourceManager(Paths.get(config.getBase()), config.getTransferMinSize()))
-                            .setDirectoryListingEnabled(config.isDirectoryListingEnabled()));
+            pathHandler = new PathHandler().addPrefixPath(config.getPath(), resourceHandler);
         } else {
-            pathHandler = new PathHandler()
-                    .addExactPath(config.getPath(), new ResourceHandler(new PathResourceManager(Paths.get(config.getBase()), config.getTransferMinSize()))
-                            .setDirectoryListingEnabled(config.isDirectoryListingEnabled()));
+            pathHandler = new PathHandler().addExactPath(config.getPath(), resourceHandler);
         }
     }
 
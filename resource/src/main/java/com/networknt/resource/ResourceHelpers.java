@@ -18,8 +18,19 @@ package com.networknt.resource;
 
 import io.undertow.server.handlers.PathHandler;
 import io.undertow.server.handlers.builder.PredicatedHandler;
+import io.undertow.server.handlers.cache.DirectBufferCache;
+import io.undertow.server.handlers.resource.CachingResourceManager;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.PreCompressedResourceSupplier;
 import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.util.ETag;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,6 +39,8 @@ import java.util.List;
  * Created on April 21, 2018
  */
 public class ResourceHelpers {
+    static final int CACHE_SLICE_SIZE = 1024;
+    static final int CACHE_SLICES_PER_PAGE = 64;
 
     /**
      * Helper to add given PathResourceProviders to a PathHandler.
@@ -81,4 +94,58 @@ public class ResourceHelpers {
         }
         return isResourcePath;
     }
+
+    /**
+     * Helper to create the ResourceHandler of a static resource base directory. The files are served by
+     * a PathResourceManager that sends a file not smaller than the transferMinSize with the zero copy
+     * transfer and adds an ETag of the last modified time and the size for the conditional requests.
+     *
+     * If the cache is enabled, the manager is wrapped by a CachingResourceManager that keeps the metadata
+     * and the content of the small files in memory. The cache is invalidated by the file watcher of the
+     * PathResourceManager when the base directory exists, and each entry expires after the cacheMaxAge.
+     *
+     * If preCompressed is enabled, the file.br or file.gz next to a file is served with the Content-Encoding
+     * when the client accepts it, and the encoding handler does not compress the response again.
+     *
+     * @param settings The settings of the base directory.
+     * @return The ResourceHandler
+     */
+    public static ResourceHandler createResourceHandler(StaticResourceSettings settings) {
+        Path base = Paths.get(settings.getBase());
+        ResourceManager resourceManager = PathResourceManager.builder()
+                .setBase(base)
+                .setTransferMinSize(settings.getTransferMinSize())
+                .setAllowResourceChangeListeners(settings.isCacheEnabled() && Files.isDirectory(base))
+                .setETagFunction(ResourceHelpers::eTag)
+                .build();
+        if (settings.isCacheEnabled()) {
+            DirectBufferCache dataCache = new DirectBufferCache(CACHE_SLICE_SIZE, CACHE_SLICES_PER_PAGE, settings.getCacheMaxMemory());
+            resourceManager = new CachingResourceManager(settings.getCacheMetadataSize(), settings.getCacheMaxFileSize(), dataCache, resourceManager, settings.getCacheMaxAge());
+        }
+        ResourceHandler resourceHandler;
+        if (settings.isPreCompressed()) {
+            resourceHandler = new ResourceHandler(new PreCompressedResourceSupplier(resourceManager)
+                    .addEncoding("br", ".br")
+                    .addEncoding("gzip", ".gz"));
+        } else {
+            resourceHandler = new ResourceHandler(resourceManager);
+        }
+        return resourceHandler.setDirectoryListingEnabled(settings.isDirectoryListingEnabled());
+    }
+
+    /**
+     * The ETag of a file with the last modified time and the size like most of the web servers, so that it
+     * is changed when the file is replaced without reading the content.
+     *
+     * @param path The path of the file.
+     * @return The strong ETag or null if the attributes cannot be read.
+     */
+    static ETag eTag(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new ETag(false, Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-" + Long.toHexString(attributes.size()));
+        } catch (IOException e) {
+            return null;
+        }
+    }
 }
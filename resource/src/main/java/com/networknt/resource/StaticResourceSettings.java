@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.resource;
+
+/**
+ * The settings of a static resource base directory that are shared by the path-resource.yml and
+ * each host in the virtual-host.yml to create the ResourceHandler with ResourceHelpers.
+ *
+ * @author Steve Hu
+ */
+public interface StaticResourceSettings {
+    String getBase();
+
+    int getTransferMinSize();
+
+    boolean isDirectoryListingEnabled();
+
+    boolean isCacheEnabled();
+
+    int getCacheMetadataSize();
+
+    int getCacheMaxFileSize();
+
+    int getCacheMaxMemory();
+
+    int getCacheMaxAge();
+
+    boolean isPreCompressed();
+}
@@ -20,7 +20,7 @@ import com.networknt.config.schema.BooleanField;
 import com.networknt.config.schema.IntegerField;
 import com.networknt.config.schema.StringField;
 
-public class VirtualHost {
+public class VirtualHost implements StaticResourceSettings {
     @StringField(
             configFieldName = "path",
             externalizedKeyName = "path",
@@ -61,6 +61,58 @@ public class VirtualHost {
     )
     boolean directoryListingEnabled;
 
+    @BooleanField(
+            configFieldName = "cacheEnabled",
+            externalizedKeyName = "cacheEnabled",
+            description = "If true, the metadata of the resources and the content of the small files are cached in memory and\n" +
+                    "invalidated by a file watcher on the base directory.",
+            defaultValue = "true"
+    )
+    boolean cacheEnabled = true;
+
+    @IntegerField(
+            configFieldName = "cacheMetadataSize",
+            externalizedKeyName = "cacheMetadataSize",
+            description = "The max number of resources whose metadata (size, last modified and ETag) is cached.",
+            defaultValue = "1024"
+    )
+    int cacheMetadataSize = 1024;
+
+    @IntegerField(
+            configFieldName = "cacheMaxFileSize",
+            externalizedKeyName = "cacheMaxFileSize",
+            description = "The max size in bytes of a file whose content is cached in memory. A larger file is read from the\n" +
+                    "filesystem and sent with the zero copy transfer if it is not smaller than the transferMinSize.",
+            defaultValue = "65536"
+    )
+    int cacheMaxFileSize = 65536;
+
+    @IntegerField(
+            configFieldName = "cacheMaxMemory",
+            externalizedKeyName = "cacheMaxMemory",
+            description = "The max size in bytes of the direct memory used to cache the content of the files.",
+            defaultValue = "10485760"
+    )
+    int cacheMaxMemory = 10485760;
+
+    @IntegerField(
+            configFieldName = "cacheMaxAge",
+            externalizedKeyName = "cacheMaxAge",
+            description = "The max time in milliseconds a cached resource is used before it is checked against the filesystem\n" +
+                    "again. It bounds the staleness on a volume that does not deliver the file watcher events. -1 means no expiry.",
+            defaultValue = "60000"
+    )
+    int cacheMaxAge = 60000;
+
+    @BooleanField(
+            configFieldName = "preCompressed",
+            externalizedKeyName = "preCompressed",
+            description = "If true, the precompressed sibling file.br or file.gz is served instead of the file when the client\n" +
+                    "accepts the br or gzip encoding, so the static resources are compressed once at build time.",
+            defaultValue = "true"
+    )
+    boolean preCompressed = true;
+
     public VirtualHost() {
     }
 
@@ -103,4 +155,52 @@ public class VirtualHost {
     public void setDirectoryListingEnabled(boolean directoryListingEnabled) {
         this.directoryListingEnabled = directoryListingEnabled;
     }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public int getCacheMetadataSize() {
+        return cacheMetadataSize;
+    }
+
+    public void setCacheMetadataSize(int cacheMetadataSize) {
+        this.cacheMetadataSize = cacheMetadataSize;
+    }
+
+    public int getCacheMaxFileSize() {
+        return cacheMaxFileSize;
+    }
+
+    public void setCacheMaxFileSize(int cacheMaxFileSize) {
+        this.cacheMaxFileSize = cacheMaxFileSize;
+    }
+
+    public int getCacheMaxMemory() {
+        return cacheMaxMemory;
+    }
+
+    public void setCacheMaxMemory(int cacheMaxMemory) {
+        this.cacheMaxMemory = cacheMaxMemory;
+    }
+
+    public int getCacheMaxAge() {
+        return cacheMaxAge;
+    }
+
+    public void setCacheMaxAge(int cacheMaxAge) {
+        this.cacheMaxAge = cacheMaxAge;
+    }
+
+    public boolean isPreCompressed() {
+        return preCompressed;
+    }
+
+    public void setPreCompressed(boolean preCompressed) {
+        this.preCompressed = preCompressed;
+    }
 }
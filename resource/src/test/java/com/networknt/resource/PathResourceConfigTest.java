@@ -25,5 +25,8 @@ public class PathResourceConfigTest {
     public void testLoadConfig() {
         PathResourceConfig config = (PathResourceConfig) Config.getInstance().getJsonObjectConfig(PathResourceConfig.CONFIG_NAME, PathResourceConfig.class);
         Assertions.assertEquals(config.directoryListingEnabled, false);
+        Assertions.assertTrue(config.isCacheEnabled());
+        Assertions.assertEquals(65536, config.getCacheMaxFileSize());
+        Assertions.assertTrue(config.isPreCompressed());
     }
 }
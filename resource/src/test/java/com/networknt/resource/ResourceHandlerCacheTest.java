@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.resource;
+
+import io.undertow.Undertow;
+import io.undertow.server.handlers.PathHandler;
+import io.undertow.util.Headers;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test the cache, the ETag and the precompressed resources of the ResourceHandler created by
+ * the ResourceHelpers with a temporary base directory.
+ *
+ * @author Steve Hu
+ */
+public class ResourceHandlerCacheTest {
+    static final int PORT = 7081;
+    static final String APP_JS = "console.log('light-4j portal');\n";
+
+    static Undertow server = null;
+    static Path base;
+    static HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        base = Files.createTempDirectory("path-resource");
+        Files.writeString(base.resolve("index.html"), "<html>This is just a test</html>");
+        Files.writeString(base.resolve("app.js"), APP_JS);
+        Files.write(base.resolve("app.js.gz"), gzip(APP_JS));
+        VirtualHost settings = new VirtualHost();
+        settings.setBase(base.toString());
+        settings.setTransferMinSize(1024);
+        server = Undertow.builder()
+                .addHttpListener(PORT, "localhost")
+                .setHandler(new PathHandler().addPrefixPath("/view", ResourceHelpers.createResourceHandler(settings)))
+                .build();
+        server.start();
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testConditionalRequest() throws Exception {
+        HttpResponse<String> response = get("/view/index.html", null, null);
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.body().contains("This is just a test"));
+        String eTag = response.headers().firstValue(Headers.ETAG_STRING).orElse(null);
+        Assertions.assertNotNull(eTag);
+        Assertions.assertTrue(response.headers().firstValue(Headers.LAST_MODIFIED_STRING).isPresent());
+
+        response = get("/view/index.html", Headers.IF_NONE_MATCH_STRING, eTag);
+        Assertions.assertEquals(304, response.statusCode());
+        Assertions.assertEquals("", response.body());
+    }
+
+    @Test
+    public void testPreCompressedResource() throws Exception {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/view/app.js"))
+                .header(Headers.ACCEPT_ENCODING_STRING, "br;q=0, gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("gzip", response.headers().firstValue(Headers.CONTENT_ENCODING_STRING).orElse(null));
+        Assertions.assertArrayEquals(Files.readAllBytes(base.resolve("app.js.gz")), response.body());
+
+        // without the Accept-Encoding, the file itself is served.
+        HttpResponse<String> plain = get("/view/app.js", null, null);
+        Assertions.assertEquals(APP_JS, plain.body());
+        Assertions.assertFalse(plain.headers().firstValue(Headers.CONTENT_ENCODING_STRING).isPresent());
+    }
+
+    @Test
+    public void testCachedResourceInvalidated() throws Exception {
+        Path file = base.resolve("version.txt");
+        Files.writeString(file, "1.0.0");
+        Assertions.assertEquals("1.0.0", get("/view/version.txt", null, null).body());
+        Assertions.assertEquals("1.0.0", get("/view/version.txt", null, null).body());
+
+        // the file watcher invalidates the cached resource after the file is changed.
+        Files.writeString(file, "1.0.1");
+        String body = null;
+        for (int i = 0; i < 100 && !"1.0.1".equals(body); i++) {
+            Thread.sleep(50);
+            body = get("/view/version.txt", null, null).body();
+        }
+        Assertions.assertEquals("1.0.1", body);
+    }
+
+    private static HttpResponse<String> get(String path, String header, String value) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + path));
+        if (header != null) builder.header(header, value);
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gzip(String content) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -6,6 +6,7 @@ import com.networknt.handler.MiddlewareHandler;
 import com.networknt.handler.ResponseInterceptor;
 import com.networknt.http.UndertowConverter;
 import com.networknt.httpstring.AttachmentConstants;
+import com.networknt.rule.ResponseFilterEngine;
 import com.networknt.rule.RuleConstants;
 import com.networknt.rule.RuleExecutor;
 import com.networknt.service.SingletonServiceFactory;
@@ -16,9 +17,13 @@ import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HttpString;
+import org.jose4j.jwt.JwtClaims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -104,14 +109,8 @@ public class ResponseFilterInterceptor implements ResponseInterceptor {
                     logger.error("RuleExecutor.getEndpointRules() is null. ResponseFilterInterceptor.handlerRequest ends.");
                     return;
                 }
-                String responseBody = BuffersUtils.toString(getBuffer(exchange), StandardCharsets.UTF_8);
-                if (logger.isTraceEnabled())
-                    logger.trace("original response body = {}", responseBody);
-
-                // call the rule engine to filter the response body. The input contains all the request and response elements.
                 HttpString method = exchange.getRequestMethod();
                 Map<String, Object> auditInfo = exchange.getAttachment(AttachmentConstants.AUDIT_INFO);
-                Map<String, Object> objMap = this.createExchangeInfoMap(exchange, method, responseBody, auditInfo);
                 // need to get the rule/rules to execute from the RuleLoaderStartupHook. First, get the endpoint.
                 String endpoint, serviceEntry = null;
                 if (auditInfo != null) {
@@ -151,12 +150,33 @@ public class ResponseFilterInterceptor implements ResponseInterceptor {
                 } else {
                     if(logger.isTraceEnabled()) logger.trace("responseRules: {}", responseRules);
                 }
+                Map<String, Object> permissionMap = (Map<String, Object>)serviceEntryRules.get(PERMISSION);
+                if(logger.isTraceEnabled()) logger.trace("permissionMap: {}", permissionMap);
+                // the row and column filter rules are streamed over the buffered response without the rule engine.
+                JwtClaims jwtClaims = auditInfo == null ? null : (JwtClaims) auditInfo.get(Constants.SUBJECT_CLAIMS);
+                ResponseFilterEngine filterEngine = ResponseFilterEngine.compile(ruleExecutor.getRules(), responseRules, permissionMap, jwtClaims);
+                if(filterEngine != null) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (InputStream in = BuffersUtils.toInputStream(getBuffer(exchange))) {
+                        filterEngine.filter(in, out);
+                        var dest = exchange.getAttachment(AttachmentConstants.BUFFERED_RESPONSE_DATA_KEY);
+                        BuffersUtils.transfer(ByteBuffer.wrap(out.toByteArray()), dest, exchange);
+                        if (logger.isTraceEnabled()) logger.trace("ResponseFilterInterceptor.handleRequest ends with the streaming filter.");
+                        return;
+                    } catch (IOException e) {
+                        if(logger.isDebugEnabled()) logger.debug("Fall back to the rule engine as the response cannot be streamed: {}", e.getMessage());
+                    }
+                }
+                String responseBody = BuffersUtils.toString(getBuffer(exchange), StandardCharsets.UTF_8);
+                if (logger.isTraceEnabled())
+                    logger.trace("original response body = {}", responseBody);
+
+                // call the rule engine to filter the response body. The input contains all the request and response elements.
+                Map<String, Object> objMap = this.createExchangeInfoMap(exchange, method, responseBody, auditInfo);
                 Map<String, Object> result = null;
                 for(String ruleId: responseRules) {
                     // copy the col and row objects to the objMap.
                     if(logger.isTraceEnabled()) logger.trace("ruleId: {}", ruleId);
-                    Map<String, Object> permissionMap = (Map<String, Object>)serviceEntryRules.get(PERMISSION);
-                    if(logger.isTraceEnabled()) logger.trace("permissionMap: {}", permissionMap);
                     if(permissionMap != null) {
                         objMap.put(Constants.COL, permissionMap.get(Constants.COL));
                         objMap.put(Constants.ROW, permissionMap.get(Constants.ROW));
@@ -60,6 +60,12 @@ public class RouterConfig {
     private static final String SOFT_MAX_CONNECTIONS_PER_THREAD = "softMaxConnectionsPerThread";
     private static final String MAX_CONNECTION_RETRIES = "maxConnectionRetries";
     private static final String MAX_QUEUE_SIZE = "maxQueueSize";
+    private static final String HOST_SELECTOR = "hostSelector";
+    private static final String HEDGE_ENABLED = "hedgeEnabled";
+    private static final String HEDGE_PATH_PREFIXES = "hedgePathPrefixes";
+    private static final String HEDGE_PERCENTILE = "hedgePercentile";
+    private static final String HEDGE_MIN_DELAY = "hedgeMinDelay";
+    private static final String HEDGE_BUDGET_PERCENT = "hedgeBudgetPercent";
     private static final String PRE_RESOLVE_FQDN_2_IP = "preResolveFQDN2IP";
     private static final String METRICS_INJECTION = "metricsInjection";
     private static final String METRICS_NAME = "metricsName";
@@ -224,6 +230,59 @@ public class RouterConfig {
     )
     int maxConnectionRetries;
 
+    @StringField(
+            configFieldName = HOST_SELECTOR,
+            externalizedKeyName = HOST_SELECTOR,
+            defaultValue = "roundRobin",
+            description = "The host selector of the router for the downstream service instances. The default roundRobin rotates\n" +
+                    "the hosts. The p2c samples two hosts and selects the one with fewer requests in flight weighted by the\n" +
+                    "moving average of the response time, so that a degraded instance gets less traffic."
+    )
+    String hostSelector = "roundRobin";
+
+    @BooleanField(
+            configFieldName = HEDGE_ENABLED,
+            externalizedKeyName = HEDGE_ENABLED,
+            defaultValue = "false",
+            description = "Send a hedged request to another host for an idempotent request under the hedgePathPrefixes if no\n" +
+                    "response arrives within the hedgePercentile of the recent latency of the path prefix. The first response\n" +
+                    "is returned and the other request is cancelled. It should only be enabled for downstream services with\n" +
+                    "multiple instances."
+    )
+    boolean hedgeEnabled;
+
+    @ArrayField(
+            configFieldName = HEDGE_PATH_PREFIXES,
+            externalizedKeyName = HEDGE_PATH_PREFIXES,
+            description = "Request path prefixes that can be hedged. The latency history is kept for each path prefix.",
+            items = String.class
+    )
+    List<String> hedgePathPrefixes = new ArrayList<>();
+
+    @IntegerField(
+            configFieldName = HEDGE_PERCENTILE,
+            externalizedKeyName = HEDGE_PERCENTILE,
+            defaultValue = "95",
+            description = "The latency percentile of the recent responses of the path prefix to wait for before the hedged request is sent."
+    )
+    int hedgePercentile = 95;
+
+    @IntegerField(
+            configFieldName = HEDGE_MIN_DELAY,
+            externalizedKeyName = HEDGE_MIN_DELAY,
+            defaultValue = "10",
+            description = "The minimum delay in milliseconds before the hedged request is sent."
+    )
+    int hedgeMinDelay = 10;
+
+    @IntegerField(
+            configFieldName = HEDGE_BUDGET_PERCENT,
+            externalizedKeyName = HEDGE_BUDGET_PERCENT,
+            defaultValue = "5",
+            description = "The max extra load of the hedged requests in percent of the requests under the hedgePathPrefixes."
+    )
+    int hedgeBudgetPercent = 5;
+
 
     @BooleanField(
             configFieldName = PRE_RESOLVE_FQDN_2_IP,
@@ -444,6 +503,24 @@ public class RouterConfig {
         if(object != null ) maxConnectionRetries = Config.loadIntegerValue(MAX_CONNECTION_RETRIES, object);
         object = getMappedConfig().get(MAX_QUEUE_SIZE);
         if(object != null ) maxQueueSize = Config.loadIntegerValue(MAX_QUEUE_SIZE, object);
+        object = getMappedConfig().get(HOST_SELECTOR);
+        if(object != null) {
+            if(!(object instanceof String)) {
+                String error = "The " + HOST_SELECTOR + " must be a string of roundRobin or p2c";
+                logger.error(error);
+                throw new ConfigException(error);
+            }
+            hostSelector = ((String)object).trim();
+        }
+        object = getMappedConfig().get(HEDGE_ENABLED);
+        if(object != null) hedgeEnabled = Config.loadBooleanValue(HEDGE_ENABLED, object);
+        hedgePathPrefixes = loadStringList(HEDGE_PATH_PREFIXES, Collections.emptyList());
+        object = getMappedConfig().get(HEDGE_PERCENTILE);
+        if(object != null ) hedgePercentile = Config.loadIntegerValue(HEDGE_PERCENTILE, object);
+        object = getMappedConfig().get(HEDGE_MIN_DELAY);
+        if(object != null ) hedgeMinDelay = Config.loadIntegerValue(HEDGE_MIN_DELAY, object);
+        object = getMappedConfig().get(HEDGE_BUDGET_PERCENT);
+        if(object != null ) hedgeBudgetPercent = Config.loadIntegerValue(HEDGE_BUDGET_PERCENT, object);
         object = getMappedConfig().get(SERVICE_ID_QUERY_PARAMETER);
         if(object != null) serviceIdQueryParameter = Config.loadBooleanValue(SERVICE_ID_QUERY_PARAMETER, object);
         object = getMappedConfig().get(PRE_RESOLVE_FQDN_2_IP);
@@ -497,6 +574,12 @@ public class RouterConfig {
     public int getMaxConnectionRetries() { return maxConnectionRetries; }
 
     public int getMaxQueueSize() { return maxQueueSize; }
+    public String getHostSelector() { return hostSelector; }
+    public boolean isHedgeEnabled() { return hedgeEnabled; }
+    public List<String> getHedgePathPrefixes() { return hedgePathPrefixes; }
+    public int getHedgePercentile() { return hedgePercentile; }
+    public int getHedgeMinDelay() { return hedgeMinDelay; }
+    public int getHedgeBudgetPercent() { return hedgeBudgetPercent; }
 
     public List<String> getHostWhitelist() {
         return hostWhitelist;
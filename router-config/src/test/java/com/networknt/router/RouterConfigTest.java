@@ -42,6 +42,7 @@ public class RouterConfigTest {
         Assertions.assertEquals(routerConfig.getMaxRequestTime(), 1000);
         Assertions.assertEquals(routerConfig.getMaxConnectionRetries(), 3);
         Assertions.assertEquals(routerConfig.getMaxQueueSize(), 0);
+        Assertions.assertEquals("roundRobin", routerConfig.getHostSelector());
         Assertions.assertEquals("text/event-stream", routerConfig.getStreamResponseContentTypes().get(0));
         Assertions.assertEquals("text/event-stream", routerConfig.getStreamRequestAcceptTypes().get(0));
         Assertions.assertTrue(routerConfig.getStreamPathPrefixes().isEmpty());
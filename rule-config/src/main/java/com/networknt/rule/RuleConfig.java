@@ -1,7 +1,10 @@
 package com.networknt.rule;
 
 import com.networknt.config.Config;
+import com.networknt.config.JsonMapper;
+import com.networknt.config.schema.ArrayField;
 import com.networknt.config.schema.ConfigSchema;
+import com.networknt.config.schema.IntegerField;
 import com.networknt.config.schema.OutputFormat;
 import com.networknt.config.schema.MapField;
 import org.slf4j.Logger;
@@ -9,6 +12,9 @@ import org.slf4j.LoggerFactory;
 
 import com.networknt.server.ModuleRegistry;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @ConfigSchema(
@@ -23,6 +29,9 @@ public class RuleConfig {
     public static final String CONFIG_NAME = "rule";
     public static final String RULE_BODIES = "ruleBodies";
     public static final String ENDPOINT_RULES = "endpointRules";
+    public static final String RESULT_CACHE_SIZE = "resultCacheSize";
+    public static final String RESULT_CACHE_RULE_TYPES = "resultCacheRuleTypes";
+    public static final String RESULT_CACHE_KEYS = "resultCacheKeys";
 
     private static volatile RuleConfig instance;
     private final Map<String, Object> mappedConfig;
@@ -44,6 +53,32 @@ public class RuleConfig {
     )
     private Map<String, Object> endpointRules;
 
+    @IntegerField(
+            configFieldName = RESULT_CACHE_SIZE,
+            externalizedKeyName = RESULT_CACHE_SIZE,
+            description = "Max number of cached rule results for each endpoint and rule type. The results are only cached for the\n" +
+                    "resultCacheRuleTypes with pure rules whose outcome depends on the resultCacheKeys only. 0 to disable the cache.",
+            defaultValue = "0"
+    )
+    private int resultCacheSize;
+
+    @ArrayField(
+            configFieldName = RESULT_CACHE_RULE_TYPES,
+            externalizedKeyName = RESULT_CACHE_RULE_TYPES,
+            description = "Rule types whose results are cached, for example, req-acc for the access control rules.",
+            items = String.class
+    )
+    private List<String> resultCacheRuleTypes = new ArrayList<>();
+
+    @ArrayField(
+            configFieldName = RESULT_CACHE_KEYS,
+            externalizedKeyName = RESULT_CACHE_KEYS,
+            description = "Property paths of the rule input that are used as the cache key, for example,\n" +
+                    "auditInfo.subject_claims.ClaimsMap.role for the role-based access control rules.",
+            items = String.class
+    )
+    private List<String> resultCacheKeys = new ArrayList<>();
+
     private RuleConfig() {
         this(CONFIG_NAME);
     }
@@ -86,11 +121,45 @@ public class RuleConfig {
         return endpointRules;
     }
 
+    public int getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public List<String> getResultCacheRuleTypes() {
+        return resultCacheRuleTypes;
+    }
+
+    public List<String> getResultCacheKeys() {
+        return resultCacheKeys;
+    }
+
     public Map<String, Object> getMappedConfig() {
         return mappedConfig;
     }
 
     private void setConfigData() {
+        Object object = getMappedConfig().get(RESULT_CACHE_SIZE);
+        if(object != null) resultCacheSize = Config.loadIntegerValue(RESULT_CACHE_SIZE, object);
+        resultCacheRuleTypes = loadStringList(RESULT_CACHE_RULE_TYPES);
+        resultCacheKeys = loadStringList(RESULT_CACHE_KEYS);
+    }
+
+    private List<String> loadStringList(String name) {
+        Object object = getMappedConfig().get(name);
+        if(object == null) return new ArrayList<>();
+        if(object instanceof String) {
+            String value = ((String)object).trim();
+            if(value.isEmpty()) return new ArrayList<>();
+            if(value.startsWith("[")) {
+                return new ArrayList<>((List<String>)JsonMapper.fromJson(value, List.class));
+            }
+            return new ArrayList<>(Collections.singletonList(value));
+        }
+        if(object instanceof List) {
+            return new ArrayList<>((List<String>)object);
+        }
+        logger.error("{} is the wrong type. Only JSON list, YAML list, or string is supported.", name);
+        return new ArrayList<>();
     }
 
     private void setMapData() {
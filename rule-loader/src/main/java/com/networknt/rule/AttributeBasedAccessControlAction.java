@@ -2,7 +2,6 @@ package com.networknt.rule;
 
 import com.networknt.rule.exception.RuleEngineException;
 import com.networknt.utility.Constants;
-import com.networknt.utility.Util;
 import org.jose4j.jwt.JwtClaims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,9 +31,8 @@ public class AttributeBasedAccessControlAction implements IAction {
         if (endpointAttributes == null) {
             return;
         }
-        // parse the jwtAttribute and compare with the required attributes in the endpoint config.
-        Map<String, String> jwtAttributeMap = Util.parseAttributes(jwtAttribute);
-        boolean result = checkAttributesExist(endpointAttributes, jwtAttributeMap);
+        // compare the jwtAttribute with the precompiled required attributes in the endpoint config.
+        boolean result = PermissionIndex.Indexes.of(objMap).attributes(endpointAttributes).matches(jwtAttribute);
         if(result) {
             resultMap.put(RuleConstants.RESULT, true);
         }
@@ -27,7 +27,7 @@ public class GroupBasedAccessControlAction implements IAction {
         String endpointGroups = (String) objMap.get(Constants.GROUPS);
         if (logger.isTraceEnabled())
             logger.trace("ruleId {} actionId {} jwtGroup {} endpointGroup {}", ruleId, actionId, jwtGroup, endpointGroups);
-        if (PermissionMatchUtils.hasAnyConfiguredPermission(jwtGroup, endpointGroups)) {
+        if (PermissionMatchUtils.hasAnyConfiguredPermission(objMap, jwtGroup, endpointGroups)) {
             resultMap.put(RuleConstants.RESULT, true);
         }
     }
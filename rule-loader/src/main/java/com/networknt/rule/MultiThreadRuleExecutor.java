@@ -18,11 +18,13 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
         private final Map<String, Object> endpointRules;
         private final Map<String, Rule> rules;
         private final RuleEngine ruleEngine;
+        private final Map<String, Map<String, RulePlan>> plans;
 
-        private RuntimeState(Map<String, Object> endpointRules, Map<String, Rule> rules, RuleEngine ruleEngine) {
+        private RuntimeState(Map<String, Object> endpointRules, Map<String, Rule> rules, RuleEngine ruleEngine, Map<String, Map<String, RulePlan>> plans) {
             this.endpointRules = endpointRules;
             this.rules = rules;
             this.ruleEngine = ruleEngine;
+            this.plans = plans;
         }
     }
 
@@ -60,7 +62,17 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
             loadPluginClass(localRules, localRuleEngine);
         }
 
-        return new RuntimeState(localEndpointRules, localRules, localRuleEngine);
+        // compile the plans with the reloaded config so that they are swapped together with the rules.
+        Map<String, Map<String, RulePlan>> localPlans = RulePlan.compile(localEndpointRules, localRules, localRuleEngine,
+                ruleConfig.getResultCacheSize(), ruleConfig.getResultCacheRuleTypes(), ruleConfig.getResultCacheKeys());
+        return new RuntimeState(localEndpointRules, localRules, localRuleEngine, localPlans);
+    }
+
+    private Map<String, Map<String, RulePlan>> compilePlans(Map<String, Object> endpointRules, Map<String, Rule> rules, RuleEngine ruleEngine) {
+        RuleConfig ruleConfig = config;
+        if (ruleConfig == null) return RulePlan.compile(endpointRules, rules, ruleEngine, 0, null, null);
+        return RulePlan.compile(endpointRules, rules, ruleEngine, ruleConfig.getResultCacheSize(), ruleConfig.getResultCacheRuleTypes(),
+                ruleConfig.getResultCacheKeys());
     }
 
     /**
@@ -84,7 +96,13 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
     }
 
     protected MultiThreadRuleExecutor(Map<String, Rule> rules, RuleEngine ruleEngine) {
-        this.state = new RuntimeState(new HashMap<>(), rules, ruleEngine);
+        this.state = new RuntimeState(new HashMap<>(), rules, ruleEngine, new HashMap<>());
+    }
+
+    protected MultiThreadRuleExecutor(Map<String, Rule> rules, RuleEngine ruleEngine, Map<String, Object> endpointRules,
+                                      int resultCacheSize, List<String> resultCacheRuleTypes, List<String> resultCacheKeys) {
+        this.state = new RuntimeState(endpointRules, rules, ruleEngine,
+                RulePlan.compile(endpointRules, rules, ruleEngine, resultCacheSize, resultCacheRuleTypes, resultCacheKeys));
     }
 
     @Override
@@ -98,7 +116,8 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
         RuntimeState currentState = state;
         Map<String, Object> endpointRules = currentState == null ? new HashMap<>() : currentState.endpointRules;
         RuleEngine ruleEngine = currentState == null ? null : currentState.ruleEngine;
-        this.state = new RuntimeState(endpointRules, rules, ruleEngine);
+        // the plans are compiled again as the steps are resolved from the rules.
+        this.state = new RuntimeState(endpointRules, rules, ruleEngine, compilePlans(endpointRules, rules, ruleEngine));
     }
 
     @Override
@@ -113,7 +132,7 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
         RuntimeState currentState = state;
         Map<String, Rule> rules = currentState == null ? null : currentState.rules;
         RuleEngine ruleEngine = currentState == null ? null : currentState.ruleEngine;
-        this.state = new RuntimeState(endpointRules, rules, ruleEngine);
+        this.state = new RuntimeState(endpointRules, rules, ruleEngine, compilePlans(endpointRules, rules, ruleEngine));
     }
 
     @Override
@@ -166,11 +185,14 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
     @Override
     public Map<String, Object> executeRules(List<String> ruleIds, String logic, Map<String, Object> objMap) {
         checkConfigReload();
-        return executeRules(ruleIds, logic, objMap, state);
+        if (ruleIds == null || ruleIds.isEmpty()) {
+            return null;
+        }
+        return executeRules(RulePlan.steps(ruleIds), logic, objMap, state);
     }
 
-    private Map<String, Object> executeRules(List<String> ruleIds, String logic, Map<String, Object> objMap, RuntimeState currentState) {
-        if (ruleIds == null || ruleIds.isEmpty()) {
+    private Map<String, Object> executeRules(List<RulePlan.Step> steps, String logic, Map<String, Object> objMap, RuntimeState currentState) {
+        if (steps.isEmpty()) {
             return null;
         }
         RuleEngine ruleEngine = currentState == null ? null : currentState.ruleEngine;
@@ -179,11 +201,11 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
             // Sequential execution for "all" logic as rules might depend on each other's outcomes
             // or one failure should stop the execution.
             Map<String, Object> lastResult = null;
-            for (String ruleId : ruleIds) {
+            for (RulePlan.Step step : steps) {
                 try {
-                    lastResult = ruleEngine.executeRule(ruleId, objMap);
+                    lastResult = step.execute(ruleEngine, objMap);
                 } catch (Exception e) {
-                    logger.error("Exception ruleId {} objMap {}", ruleId, objMap, e);
+                    logger.error("Exception ruleId {} objMap {}", step.getRuleId(), objMap, e);
                     lastResult = new HashMap<>();
                     lastResult.put(RuleConstants.RESULT, false);
                     lastResult.put(Constants.ERROR_MESSAGE, e.getMessage());
@@ -196,26 +218,38 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
             return lastResult;
         } else if (logic != null && logic.equalsIgnoreCase("any")) {
             // Sequential execution for "any" logic
-            for (String ruleId : ruleIds) {
+            for (RulePlan.Step step : steps) {
                 try {
-                    Map<String, Object> result = ruleEngine.executeRule(ruleId, objMap);
+                    Map<String, Object> result = step.execute(ruleEngine, objMap);
                     boolean res = (Boolean) result.get(RuleConstants.RESULT);
                     if (res) {
                         return result;
                     }
                 } catch (Exception e) {
-                    logger.error("Exception ruleId {} objMap {}", ruleId, objMap, e);
+                    logger.error("Exception ruleId {} objMap {}", step.getRuleId(), objMap, e);
                 }
             }
             return null;
+        } else if (steps.size() == 1) {
+            // No need to hand over a single rule to another thread and merge the result.
+            RulePlan.Step step = steps.get(0);
+            try {
+                return step.execute(ruleEngine, objMap);
+            } catch (Exception e) {
+                logger.error("Exception ruleId {} objMap {}", step.getRuleId(), objMap, e);
+                Map<String, Object> result = new HashMap<>();
+                result.put(RuleConstants.RESULT, false);
+                result.put(Constants.ERROR_MESSAGE, e.getMessage());
+                return result;
+            }
         } else {
             // Parallel execution for multiple rules if logic is not specified or different
-            List<CompletableFuture<Map<String, Object>>> futures = ruleIds.stream()
-                    .map(ruleId -> CompletableFuture.supplyAsync(() -> {
+            List<CompletableFuture<Map<String, Object>>> futures = steps.stream()
+                    .map(step -> CompletableFuture.supplyAsync(() -> {
                         try {
-                            return ruleEngine.executeRule(ruleId, objMap);
+                            return step.execute(ruleEngine, objMap);
                         } catch (Exception e) {
-                            logger.error("Exception ruleId {} objMap {}", ruleId, objMap, e);
+                            logger.error("Exception ruleId {} objMap {}", step.getRuleId(), objMap, e);
                             Map<String, Object> result = new HashMap<>();
                             result.put(RuleConstants.RESULT, false);
                             result.put(Constants.ERROR_MESSAGE, e.getMessage());
@@ -250,37 +284,42 @@ public class MultiThreadRuleExecutor implements RuleExecutor {
     public Map<String, Object> executeRules(String serviceEntry, String ruleType, Map<String, Object> objMap) {
         checkConfigReload();
         RuntimeState currentState = state;
-        Map<String, Object> endpointRules = currentState == null ? null : currentState.endpointRules;
-        if (endpointRules == null) {
+        if (currentState == null || currentState.endpointRules == null) {
             logger.error("endpointRules is null");
             return null;
         }
 
-        Map<String, Object> rulesConfig = (Map<String, Object>) endpointRules.get(serviceEntry);
-        if (rulesConfig == null) {
+        Map<String, RulePlan> typePlans = currentState.plans.get(serviceEntry);
+        if (typePlans == null) {
             if (logger.isDebugEnabled()) logger.debug("No rules found for serviceEntry: {}", serviceEntry);
             return null;
         }
 
-        List<String> ruleIds = (List<String>) rulesConfig.get(ruleType);
-        if (ruleIds == null || ruleIds.isEmpty()) {
+        RulePlan plan = typePlans.get(ruleType);
+        if (plan == null) {
             if (logger.isDebugEnabled()) logger.debug("No rules found for type: {} in serviceEntry: {}", ruleType, serviceEntry);
             return null;
         }
 
-        // Add permissions to objMap if they exist
-        Map<String, Object> permissionMap = (Map<String, Object>) rulesConfig.get("permission");
-        if (permissionMap != null) {
-            objMap.putAll(permissionMap);
-            // Some handlers use COL and ROW explicitly
-            if (permissionMap.containsKey(Constants.COL)) objMap.put(Constants.COL, permissionMap.get(Constants.COL));
-            if (permissionMap.containsKey(Constants.ROW)) objMap.put(Constants.ROW, permissionMap.get(Constants.ROW));
+        // Add permissions to objMap if they exist. Some handlers use COL and ROW explicitly.
+        if (plan.getPermission() != null) {
+            objMap.putAll(plan.getPermission());
+            // the access control actions look up the permission indexes compiled with the plan.
+            objMap.put(PermissionIndex.INDEXES, plan.getIndexes());
         }
 
-        // Use sequential "all" logic for transformation types so each rule sees the result of prior transforms.
-        // For other types (e.g. access control), default to parallel execution.
-        String logic = (ruleType.equals("req-tra") || ruleType.equals("res-tra")) ? "all" : "parallel";
+        if (!plan.isCached()) {
+            return executeRules(plan.getSteps(), plan.getLogic(), objMap, currentState);
+        }
 
-        return executeRules(ruleIds, logic, objMap, currentState);
+        List<Object> key = plan.cacheKey(objMap);
+        Map<String, Object> result = plan.getCachedResult(key);
+        if (result == null) {
+            result = executeRules(plan.getSteps(), plan.getLogic(), objMap, currentState);
+            plan.cacheResult(key, result);
+        } else if (logger.isTraceEnabled()) {
+            logger.trace("Cached result for serviceEntry {} ruleType {} key {}", serviceEntry, ruleType, key);
+        }
+        return result;
     }
 }
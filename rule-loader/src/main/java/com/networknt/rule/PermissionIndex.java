@@ -0,0 +1,282 @@
+package com.networknt.rule;
+
+import com.networknt.utility.Constants;
+import com.networknt.utility.LruCache;
+import com.networknt.utility.Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The precompiled permissions of an endpoint for the fine-grained access control actions. The space
+ * separated roles, groups, positions or users in the rule config are parsed once into a hash set with
+ * the attribute permissions split into key and value, and the claim of the JWT token is parsed once for
+ * each distinct value. A decision is then a few hash lookups with early exit, and it is cached for each
+ * distinct claim value of the principal.
+ *
+ * The indexes of an endpoint are compiled with its RulePlan and owned by the plan, so they are dropped
+ * with the plans when the rules are compiled again after a config reload. The executor passes them to
+ * the actions in the input with the INDEXES key. An action called without a plan compiles the index for
+ * the call without caching it.
+ *
+ * @author Steve Hu
+ */
+final class PermissionIndex {
+    /**
+     * The key of the compiled Indexes of the endpoint in the input of the actions.
+     */
+    static final String INDEXES = "permissionIndexes";
+    private static final int MAX_DECISION_CACHE_SIZE = 1000;
+    private static final String ATTRIBUTE_SEPARATOR = "^=^";
+    private static final String ATTRIBUTE_DELIMITER = "~";
+
+    private final Requirement[] requirements;
+    private final Set<String> values;
+    // null for an index compiled for one call.
+    private final LruCache<String, Boolean> decisions;
+
+    private PermissionIndex(String configuredPermissions, boolean cached) {
+        List<Requirement> list = new ArrayList<>();
+        for (String permission : configuredPermissions.split(" ")) {
+            String normalized = permission.trim();
+            if (!normalized.isEmpty()) list.add(new Requirement(normalized));
+        }
+        this.requirements = list.toArray(new Requirement[0]);
+        this.values = new HashSet<>();
+        for (Requirement requirement : requirements) values.add(requirement.value);
+        this.decisions = cached ? new LruCache<>(MAX_DECISION_CACHE_SIZE) : null;
+    }
+
+    /**
+     * @param configuredPermissions space separated permissions of the endpoint
+     * @return the index with a decision cache or null if the permissions are null
+     */
+    static PermissionIndex of(String configuredPermissions) {
+        if (configuredPermissions == null) return null;
+        return new PermissionIndex(configuredPermissions, true);
+    }
+
+    /**
+     * @param endpointAttributes list of the required attributes of the endpoint
+     * @return the index with a decision cache or null if the attributes are null
+     */
+    static AttributeIndex attributes(List<Map<String, String>> endpointAttributes) {
+        if (endpointAttributes == null) return null;
+        return new AttributeIndex(endpointAttributes, true);
+    }
+
+    /**
+     * @param jwtPermissions the claim value in the JWT token
+     * @return the parsed claim or null if the claim is null
+     */
+    static Principal principal(String jwtPermissions) {
+        if (jwtPermissions == null) return null;
+        return new Principal(jwtPermissions);
+    }
+
+    /**
+     * Check if the claim of the principal has any of the permissions of the endpoint.
+     *
+     * @param jwtPermissions the claim value in the JWT token
+     * @return true if any permission matches
+     */
+    boolean matches(String jwtPermissions) {
+        if (jwtPermissions == null || requirements.length == 0) return false;
+        if (decisions == null) return new Principal(jwtPermissions).hasAny(this);
+        return decisions.computeIfAbsent(jwtPermissions, k -> new Principal(k).hasAny(this));
+    }
+
+    /**
+     * The compiled indexes of the roles, groups, positions, users and attributes in the permission of an
+     * endpoint. They are built once by the RulePlan and only read by the actions.
+     */
+    static final class Indexes {
+        private static final Indexes EMPTY = new Indexes(Collections.emptyMap(), null, null);
+
+        private final Map<String, PermissionIndex> permissions;
+        private final List<Map<String, String>> endpointAttributes;
+        private final AttributeIndex attributes;
+
+        private Indexes(Map<String, PermissionIndex> permissions, List<Map<String, String>> endpointAttributes, AttributeIndex attributes) {
+            this.permissions = permissions;
+            this.endpointAttributes = endpointAttributes;
+            this.attributes = attributes;
+        }
+
+        /**
+         * @param permission the permission of the endpoint
+         * @return the compiled indexes of the permission
+         */
+        @SuppressWarnings("unchecked")
+        static Indexes compile(Map<String, Object> permission) {
+            if (permission == null) return EMPTY;
+            Map<String, PermissionIndex> permissions = new HashMap<>();
+            for (String name : new String[]{Constants.ROLES, Constants.GROUPS, Constants.POSITIONS, Constants.USERS}) {
+                Object value = permission.get(name);
+                if (value instanceof String) permissions.computeIfAbsent((String) value, PermissionIndex::of);
+            }
+            Object value = permission.get(Constants.ATTRIBUTES);
+            List<Map<String, String>> endpointAttributes = value instanceof List ? (List<Map<String, String>>) value : null;
+            return new Indexes(permissions, endpointAttributes, PermissionIndex.attributes(endpointAttributes));
+        }
+
+        /**
+         * @param objMap the input of the action
+         * @return the indexes passed by the executor or the empty indexes
+         */
+        static Indexes of(Map<String, Object> objMap) {
+            Object indexes = objMap == null ? null : objMap.get(INDEXES);
+            return indexes instanceof Indexes ? (Indexes) indexes : EMPTY;
+        }
+
+        /**
+         * @param configuredPermissions space separated permissions of the endpoint
+         * @return the compiled index or an index for this call only if the permissions are not compiled
+         */
+        PermissionIndex permission(String configuredPermissions) {
+            PermissionIndex index = permissions.get(configuredPermissions);
+            return index != null ? index : new PermissionIndex(configuredPermissions, false);
+        }
+
+        /**
+         * @param endpointAttributes list of the required attributes of the endpoint
+         * @return the compiled index or an index for this call only if the attributes are not compiled
+         */
+        AttributeIndex attributes(List<Map<String, String>> endpointAttributes) {
+            if (attributes != null && endpointAttributes == this.endpointAttributes) return attributes;
+            return new AttributeIndex(endpointAttributes, false);
+        }
+    }
+
+    /**
+     * A permission of the endpoint. It is either a plain value or an attribute in the key^=^value format.
+     */
+    static final class Requirement {
+        final String value;
+        final boolean attribute;
+        final String key;
+        final String attributeValue;
+
+        Requirement(String value) {
+            this.value = value;
+            this.attribute = value.contains(ATTRIBUTE_SEPARATOR);
+            Map<String, String> parsed = attribute ? Util.parseAttributes(value) : Collections.emptyMap();
+            if (parsed.size() == 1) {
+                Map.Entry<String, String> entry = parsed.entrySet().iterator().next();
+                this.key = entry.getKey();
+                this.attributeValue = entry.getValue();
+            } else {
+                // an attribute with none or more than one key value pair never matches.
+                this.key = null;
+                this.attributeValue = null;
+            }
+        }
+    }
+
+    /**
+     * The parsed claim of the principal. It is either a set of space separated values or attributes in
+     * the key^=^value~key^=^value format.
+     */
+    static final class Principal {
+        private final String value;
+        private final Map<String, String> attributes;
+        private final Set<String> values;
+
+        private Principal(String jwtPermissions) {
+            this.value = jwtPermissions.trim();
+            if (jwtPermissions.contains(ATTRIBUTE_SEPARATOR) || jwtPermissions.contains(ATTRIBUTE_DELIMITER)) {
+                this.attributes = Util.parseAttributes(jwtPermissions);
+                this.values = null;
+            } else {
+                this.attributes = null;
+                this.values = new HashSet<>();
+                for (String permission : jwtPermissions.split("\\s+")) {
+                    String normalized = permission.trim();
+                    if (!normalized.isEmpty()) values.add(normalized);
+                }
+            }
+        }
+
+        /**
+         * @param requiredPermission a permission of the endpoint
+         * @return true if the principal has the permission
+         */
+        boolean has(String requiredPermission) {
+            if (requiredPermission == null) return false;
+            String normalized = requiredPermission.trim();
+            if (normalized.isEmpty()) return false;
+            return has(new Requirement(normalized));
+        }
+
+        private boolean has(Requirement requirement) {
+            if (attributes == null) return values.contains(requirement.value);
+            if (attributes.isEmpty()) return requirement.value.equals(value);
+            if (requirement.attribute) {
+                return requirement.key != null && requirement.attributeValue.equals(attributes.get(requirement.key));
+            }
+            return attributes.containsKey(requirement.value);
+        }
+
+        private boolean hasAny(PermissionIndex index) {
+            if (attributes == null && values.size() < index.requirements.length) {
+                // iterate the smaller side for a large permission list of the endpoint.
+                for (String permission : values) {
+                    if (index.values.contains(permission)) return true;
+                }
+                return false;
+            }
+            for (Requirement requirement : index.requirements) {
+                if (has(requirement)) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The required attributes of the endpoint for the attribute based access control. All the attributes
+     * must exist in the claim with the same value.
+     */
+    static final class AttributeIndex {
+        private final String[] keys;
+        private final String[] values;
+        // null for an index compiled for one call.
+        private final LruCache<String, Boolean> decisions;
+
+        private AttributeIndex(List<Map<String, String>> endpointAttributes, boolean cached) {
+            List<String> keyList = new ArrayList<>();
+            List<String> valueList = new ArrayList<>();
+            for (Map<String, String> endpointAttribute : endpointAttributes) {
+                for (Map.Entry<String, String> entry : endpointAttribute.entrySet()) {
+                    keyList.add(entry.getKey());
+                    valueList.add(entry.getValue());
+                }
+            }
+            this.keys = keyList.toArray(new String[0]);
+            this.values = valueList.toArray(new String[0]);
+            this.decisions = cached ? new LruCache<>(MAX_DECISION_CACHE_SIZE) : null;
+        }
+
+        /**
+         * @param jwtAttribute the att claim value in the JWT token
+         * @return true if all the attributes exist with the same value
+         */
+        boolean matches(String jwtAttribute) {
+            if (jwtAttribute == null) return matches(Collections.emptyMap());
+            if (decisions == null) return matches(Util.parseAttributes(jwtAttribute));
+            return decisions.computeIfAbsent(jwtAttribute, k -> matches(Util.parseAttributes(k)));
+        }
+
+        private boolean matches(Map<String, String> jwtAttributeMap) {
+            for (int i = 0; i < keys.length; i++) {
+                String value = jwtAttributeMap.get(keys[i]);
+                if (value == null || !value.equals(values[i])) return false;
+            }
+            return true;
+        }
+    }
+}
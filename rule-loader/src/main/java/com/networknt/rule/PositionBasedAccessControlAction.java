@@ -26,7 +26,7 @@ public class PositionBasedAccessControlAction implements IAction {
         String jwtPosition = (String) jwtClaims.getClaimValue(Constants.POS);
         String endpointPositions = (String) objMap.get(Constants.POSITIONS);
         if(logger.isTraceEnabled()) logger.trace("ruleId {} actionId {} jwtPosition {} endpointPosition {}", ruleId, actionId, jwtPosition, endpointPositions);
-        if (PermissionMatchUtils.hasAnyConfiguredPermission(jwtPosition, endpointPositions)) {
+        if (PermissionMatchUtils.hasAnyConfiguredPermission(objMap, jwtPosition, endpointPositions)) {
             resultMap.put(RuleConstants.RESULT, true);
         }
     }
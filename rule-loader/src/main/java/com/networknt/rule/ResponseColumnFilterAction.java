@@ -144,7 +144,7 @@ public class ResponseColumnFilterAction implements IAction {
         return list;
     }
 
-    private static List<String> convertStringToList(String inputString){
+    static List<String> convertStringToList(String inputString){
         try {
             return Config.getInstance().getMapper().readValue(inputString, new TypeReference<List<String>>(){});
         } catch (IOException e) {
@@ -0,0 +1,302 @@
+package com.networknt.rule;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.networknt.config.Config;
+import com.networknt.config.JsonMapper;
+import com.networknt.utility.Constants;
+import org.jose4j.jwt.JwtClaims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A streaming engine for the response filter rules that only contain the ResponseRowFilterAction and
+ * the ResponseColumnFilterAction. The row filters and the column filters that match the JWT claims are
+ * compiled once for the response, and the rows of a list response are filtered and projected in a single
+ * token pass from the input stream to the output stream. Only the current row is buffered for the row
+ * filters, so a large list response is not deserialized into maps and serialized again.
+ *
+ * The result is the same as executing the rules in order with the rule engine. When a response cannot be
+ * filtered the same way, for example, a column filter on a list with a row that is not an object, the
+ * filter method throws an IOException and the caller should fall back to the rule engine. The fields with
+ * a null value are not written, as the actions serialize the result with the JsonMapper.
+ *
+ * @author Steve Hu
+ */
+public final class ResponseFilterEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseFilterEngine.class);
+    private static final String ROW_FILTER_ACTION = ResponseRowFilterAction.class.getName();
+    private static final String COLUMN_FILTER_ACTION = ResponseColumnFilterAction.class.getName();
+    // the permission name in the row and col config and the claim name in the JWT token.
+    private static final String[][] PERMISSIONS = {
+            {Constants.ROLE, Constants.ROLE},
+            {Constants.GROUP, Constants.GRP},
+            {Constants.POSITION, Constants.POS},
+            {Constants.ATTRIBUTE, Constants.ATT},
+            {Constants.USER, Constants.UID}
+    };
+    private static final Object NON_SCALAR = new Object();
+
+    private final ObjectMapper mapper;
+    private final boolean bigDecimal;
+    // all the groups must match for a row to be kept. null if no row filter matches the claims.
+    private final List<List<ResponseRowFilterAction.RowFilter>> rowFilterGroups;
+    private final Map<String, Integer> filterColumns;
+    // the removed and retained columns in the order of the column filters. null if no column filter matches.
+    private final List<ColumnOperation> columnOperations;
+    // the column filter is executed before the row filter, so the row filter only sees the remaining columns.
+    private final boolean projectedRowFilter;
+    // the row filter is executed before the column filter, so the rows that are not objects are removed first.
+    private final boolean rowFilterFirst;
+    private final Map<String, Boolean> keptColumns = new HashMap<>();
+
+    private ResponseFilterEngine(List<List<ResponseRowFilterAction.RowFilter>> rowFilterGroups, List<ColumnOperation> columnOperations, boolean projectedRowFilter, boolean rowFilterFirst) {
+        this.mapper = Config.getInstance().getMapper();
+        this.bigDecimal = mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.rowFilterGroups = rowFilterGroups;
+        this.columnOperations = columnOperations;
+        this.projectedRowFilter = projectedRowFilter;
+        this.rowFilterFirst = rowFilterFirst;
+        if (rowFilterGroups != null) {
+            filterColumns = new HashMap<>();
+            for (List<ResponseRowFilterAction.RowFilter> filters : rowFilterGroups) {
+                for (ResponseRowFilterAction.RowFilter filter : filters) {
+                    filterColumns.putIfAbsent(filter.colName(), filterColumns.size());
+                }
+            }
+        } else {
+            filterColumns = null;
+        }
+    }
+
+    /**
+     * Compile the engine for the response filter rules of an endpoint and the claims of the current request.
+     *
+     * @param rules all the rules loaded by the rule executor
+     * @param ruleIds the response filter rules of the endpoint in order
+     * @param permission the permission of the endpoint with the row and col config
+     * @param jwtClaims the claims of the JWT token
+     * @return the engine or null if the rules contain anything other than the row and column filters
+     */
+    @SuppressWarnings("unchecked")
+    public static ResponseFilterEngine compile(Map<String, Rule> rules, List<String> ruleIds, Map<String, Object> permission, JwtClaims jwtClaims) {
+        if (rules == null || ruleIds == null || ruleIds.isEmpty() || permission == null || jwtClaims == null) return null;
+        boolean hasRowFilter = false;
+        boolean hasColumnFilter = false;
+        boolean projectedRowFilter = false;
+        boolean rowFilterFirst = false;
+        for (String ruleId : ruleIds) {
+            Rule rule = rules.get(ruleId);
+            if (rule == null || (rule.getConditions() != null && !rule.getConditions().isEmpty())
+                    || rule.getActions() == null || rule.getActions().size() != 1) {
+                return null;
+            }
+            String actionClass = rule.getActions().iterator().next().getActionRef();
+            if (ROW_FILTER_ACTION.equals(actionClass)) {
+                hasRowFilter = true;
+                if (hasColumnFilter) projectedRowFilter = true;
+                else rowFilterFirst = true;
+            } else if (COLUMN_FILTER_ACTION.equals(actionClass)) {
+                hasColumnFilter = true;
+            } else {
+                return null;
+            }
+        }
+        Map<String, Object> rowMap = (Map<String, Object>) permission.get(Constants.ROW);
+        Map<String, Object> colMap = (Map<String, Object>) permission.get(Constants.COL);
+        // the action returns false without the config and the response is not changed by the rule engine.
+        if ((hasRowFilter && rowMap == null) || (hasColumnFilter && colMap == null)) return null;
+
+        List<List<ResponseRowFilterAction.RowFilter>> rowFilterGroups = null;
+        List<ColumnOperation> columnOperations = null;
+        for (String[] names : PERMISSIONS) {
+            String jwtPermission = jwtClaims.getClaimValueAsString(names[1]);
+            Map<String, Object> rowPermission = hasRowFilter ? (Map<String, Object>) rowMap.get(names[0]) : null;
+            if (rowPermission != null) {
+                for (Map.Entry<String, Object> entry : rowPermission.entrySet()) {
+                    if (PermissionMatchUtils.hasPermission(jwtPermission, entry.getKey())) {
+                        if (rowFilterGroups == null) rowFilterGroups = new ArrayList<>();
+                        rowFilterGroups.add(ResponseRowFilterAction.parseFilters(entry.getValue(), jwtClaims).orElseGet(Collections::emptyList));
+                    }
+                }
+            }
+            Map<String, Object> colPermission = hasColumnFilter ? (Map<String, Object>) colMap.get(names[0]) : null;
+            if (colPermission != null) {
+                for (Map.Entry<String, Object> entry : colPermission.entrySet()) {
+                    if (!PermissionMatchUtils.hasPermission(jwtPermission, entry.getKey())) continue;
+                    if (!(entry.getValue() instanceof String value)) return null;
+                    boolean remove = value.startsWith("!");
+                    List<String> columns = ResponseColumnFilterAction.convertStringToList(remove ? value.substring(1) : value);
+                    if (columns == null) {
+                        logger.error("Invalid value for the column filter: {}", value);
+                        continue;
+                    }
+                    if (columnOperations == null) columnOperations = new ArrayList<>();
+                    columnOperations.add(new ColumnOperation(remove, new HashSet<>(columns)));
+                }
+            }
+        }
+        return new ResponseFilterEngine(rowFilterGroups, columnOperations, projectedRowFilter, rowFilterFirst);
+    }
+
+    /**
+     * Filter the response body from the input stream to the output stream.
+     *
+     * @param in the original response body
+     * @param out the filtered response body
+     * @throws IOException if the body is invalid or cannot be filtered with the streaming engine
+     */
+    public void filter(InputStream in, OutputStream out) throws IOException {
+        // the actions serialize the filtered body with the JsonMapper, so the same generator features are used.
+        try (JsonParser parser = mapper.getFactory().createParser(in);
+             JsonGenerator generator = JsonMapper.objectMapper.getFactory().createGenerator(out)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) throw new JsonParseException(parser, "The response body is empty");
+            if (token != JsonToken.START_ARRAY || (rowFilterGroups == null && columnOperations == null)) {
+                // only the list response is filtered by the actions.
+                copyNonNull(parser, generator);
+            } else {
+                generator.writeStartArray();
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.START_OBJECT) {
+                        filterRow(parser, generator);
+                    } else if (rowFilterGroups != null && (rowFilterFirst || columnOperations == null)) {
+                        // a row that is not an object never matches the row filters.
+                        parser.skipChildren();
+                    } else if (columnOperations != null) {
+                        throw new JsonParseException(parser, "The column filter only supports a list of objects");
+                    } else {
+                        copyNonNull(parser, generator);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            if (parser.nextToken() != null) throw new JsonParseException(parser, "Unexpected content after the response body");
+        }
+    }
+
+    private void filterRow(JsonParser parser, JsonGenerator generator) throws IOException {
+        if (rowFilterGroups == null) {
+            // write the projected row directly as there is no row filter.
+            generator.writeStartObject();
+            copyFields(parser, generator, null);
+            generator.writeEndObject();
+            return;
+        }
+        Object[] values = new Object[filterColumns.size()];
+        TokenBuffer row = new TokenBuffer(parser);
+        row.writeStartObject();
+        copyFields(parser, row, values);
+        row.writeEndObject();
+        if (matches(values)) {
+            row.serialize(generator);
+        }
+        row.close();
+    }
+
+    private void copyFields(JsonParser parser, JsonGenerator generator, Object[] values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            boolean kept = isKept(name);
+            if (values != null && (kept || !projectedRowFilter)) {
+                Integer index = filterColumns.get(name);
+                if (index != null) values[index] = scalarValue(parser, token);
+            }
+            if (kept && token != JsonToken.VALUE_NULL) {
+                generator.writeFieldName(name);
+                copyNonNull(parser, generator);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Copy the current value without the fields that are null like the JsonMapper with NON_NULL inclusion.
+     */
+    private static void copyNonNull(JsonParser parser, JsonGenerator generator) throws IOException {
+        JsonToken token = parser.currentToken();
+        int depth = 0;
+        for (; ; ) {
+            if (token == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                token = parser.nextToken();
+                if (token == JsonToken.VALUE_NULL) {
+                    token = parser.nextToken();
+                    continue;
+                }
+                generator.writeFieldName(name);
+            }
+            generator.copyCurrentEvent(parser);
+            if (token.isStructStart()) depth++;
+            else if (token.isStructEnd()) depth--;
+            if (depth == 0) return;
+            token = parser.nextToken();
+        }
+    }
+
+    private boolean matches(Object[] values) {
+        for (List<ResponseRowFilterAction.RowFilter> filters : rowFilterGroups) {
+            if (filters.isEmpty()) return false;
+            for (ResponseRowFilterAction.RowFilter filter : filters) {
+                Object value = values[filterColumns.get(filter.colName())];
+                if (value == null || value == NON_SCALAR || !ResponseRowFilterAction.matchFilter(value, filter)) return false;
+            }
+        }
+        return true;
+    }
+
+    private Object scalarValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return bigDecimal ? parser.getDecimalValue() : parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                return NON_SCALAR;
+        }
+    }
+
+    private boolean isKept(String name) {
+        if (columnOperations == null) return true;
+        Boolean kept = keptColumns.get(name);
+        if (kept == null) {
+            kept = true;
+            for (ColumnOperation operation : columnOperations) {
+                if (operation.remove == operation.columns.contains(name)) {
+                    kept = false;
+                    break;
+                }
+            }
+            keptColumns.put(name, kept);
+        }
+        return kept;
+    }
+
+    private record ColumnOperation(boolean remove, Set<String> columns) {}
+}
@@ -123,7 +123,7 @@ public class ResponseRowFilterAction implements IAction {
         return list;
     }
 
-    private static Optional<List<RowFilter>> parseFilters(Object configuredValue, JwtClaims jwtClaims) {
+    static Optional<List<RowFilter>> parseFilters(Object configuredValue, JwtClaims jwtClaims) {
         if (!(configuredValue instanceof List<?> configuredFilters) || configuredFilters.isEmpty()) {
             return Optional.empty();
         }
@@ -179,7 +179,7 @@ public class ResponseRowFilterAction implements IAction {
         };
     }
 
-    private static boolean matchFilter(Object itemValue, RowFilter filter) {
+    static boolean matchFilter(Object itemValue, RowFilter filter) {
         String filterOp = filter.operator();
         String filterValue = filter.colValue();
         if (itemValue == null
@@ -307,6 +307,6 @@ public class ResponseRowFilterAction implements IAction {
         return value;
     }
 
-    private record RowFilter(String colName, String operator, String colValue, List<String> listValues) {}
+    record RowFilter(String colName, String operator, String colValue, List<String> listValues) {}
 
 }
@@ -25,7 +25,7 @@ public class RoleBasedAccessControlAction implements IAction {
         String jwtRole = (String) jwtClaims.getClaimValue(Constants.ROLE);
         String endpointRoles = (String) objMap.get(Constants.ROLES);
         if(logger.isTraceEnabled()) logger.trace("ruleId {} actionId {} jwtRole {} endpointRoles {}", ruleId, actionId, jwtRole, endpointRoles);
-        if (PermissionMatchUtils.hasAnyConfiguredPermission(jwtRole, endpointRoles)) {
+        if (PermissionMatchUtils.hasAnyConfiguredPermission(objMap, jwtRole, endpointRoles)) {
             resultMap.put(RuleConstants.RESULT, true);
         }
     }
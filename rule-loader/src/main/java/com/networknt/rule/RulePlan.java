@@ -0,0 +1,264 @@
+package com.networknt.rule;
+
+import com.networknt.rule.exception.RuleEngineException;
+import com.networknt.utility.Constants;
+import com.networknt.utility.LruCache;
+import org.jose4j.jwt.JwtClaims;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled execution plan of the rules for an endpoint and a rule type. The rule ids, the execution
+ * logic and the permission of the endpoint are resolved from the endpointRules once when the rule config
+ * is loaded, so the executor doesn't need to look up and cast the nested maps for each request.
+ *
+ * Each rule is compiled into a Step with the Rule, the RuleEvaluator and the action instances resolved
+ * from the rules and the action class cache of the RuleEngine, and the actions split by the condition
+ * result they run on. A rule without conditions is not evaluated at all. A rule that is not loaded or
+ * has an action that is not in the cache is executed by the RuleEngine as before. The permission indexes
+ * of the endpoint are compiled into the Indexes owned by the plans of the endpoint.
+ *
+ * If the result cache is enabled for the rule type, the results are cached by the values of the configured
+ * property paths in the input. It is only used for pure rules like the access control rules whose result
+ * depends on these values and the permission of the endpoint.
+ *
+ * @author Steve Hu
+ */
+final class RulePlan {
+    private static final String PERMISSION = "permission";
+    private static final String CLAIMS_MAP = "ClaimsMap";
+
+    private final List<Step> steps;
+    private final String logic;
+    private final Map<String, Object> permission;
+    private final PermissionIndex.Indexes indexes;
+    private final String[][] cacheKeys;
+    private final LruCache<List<Object>, Map<String, Object>> cache;
+
+    RulePlan(List<Step> steps, String logic, Map<String, Object> permission, PermissionIndex.Indexes indexes, List<String> cacheKeys, int cacheSize) {
+        this.steps = List.copyOf(steps);
+        this.logic = logic;
+        this.permission = permission;
+        this.indexes = indexes;
+        if (cacheSize > 0 && cacheKeys != null && !cacheKeys.isEmpty()) {
+            this.cacheKeys = cacheKeys.stream().map(path -> path.split("\\.")).toArray(String[][]::new);
+            this.cache = new LruCache<>(cacheSize);
+        } else {
+            this.cacheKeys = null;
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Compile the plans for all the endpoints and rule types in the endpointRules of the rule config.
+     *
+     * @param endpointRules map of endpoint to the rule types and the permission
+     * @param rules the loaded rules, null if the rules are not loaded
+     * @param ruleEngine the rule engine with the action class cache, null if the rules are not loaded
+     * @param cacheSize max number of cached results for each plan, 0 to disable the cache
+     * @param cacheRuleTypes rule types whose results are cached
+     * @param cacheKeys property paths of the input used as the cache key
+     * @return map of endpoint to the plans keyed by the rule type
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Map<String, RulePlan>> compile(Map<String, Object> endpointRules, Map<String, Rule> rules, RuleEngine ruleEngine,
+                                                      int cacheSize, Collection<String> cacheRuleTypes, List<String> cacheKeys) {
+        Map<String, Map<String, RulePlan>> plans = new HashMap<>();
+        if (endpointRules == null) return plans;
+        Map<String, Step> steps = new HashMap<>();
+        for (Map.Entry<String, Object> endpoint : endpointRules.entrySet()) {
+            if (!(endpoint.getValue() instanceof Map)) continue;
+            Map<String, Object> rulesConfig = (Map<String, Object>) endpoint.getValue();
+            Map<String, Object> permission = (Map<String, Object>) rulesConfig.get(PERMISSION);
+            PermissionIndex.Indexes indexes = PermissionIndex.Indexes.compile(permission);
+            Map<String, RulePlan> typePlans = new HashMap<>();
+            for (Map.Entry<String, Object> entry : rulesConfig.entrySet()) {
+                if (!(entry.getValue() instanceof List) || ((List<?>) entry.getValue()).isEmpty()) continue;
+                String ruleType = entry.getKey();
+                // Use sequential "all" logic for transformation types so each rule sees the result of prior transforms.
+                // For other types (e.g. access control), default to parallel execution.
+                String logic = (ruleType.equals("req-tra") || ruleType.equals("res-tra")) ? "all" : "parallel";
+                boolean cached = cacheRuleTypes != null && cacheRuleTypes.contains(ruleType);
+                List<String> ruleIds = (List<String>) entry.getValue();
+                List<Step> typeSteps = new ArrayList<>(ruleIds.size());
+                for (String ruleId : ruleIds) {
+                    typeSteps.add(steps.computeIfAbsent(ruleId, id -> Step.compile(id, rules == null ? null : rules.get(id), ruleEngine)));
+                }
+                typePlans.put(ruleType, new RulePlan(typeSteps, logic, permission, indexes, cacheKeys, cached ? cacheSize : 0));
+            }
+            plans.put(endpoint.getKey(), typePlans);
+        }
+        return plans;
+    }
+
+    /**
+     * @param ruleIds rule ids
+     * @return the steps that execute the rules with the RuleEngine
+     */
+    static List<Step> steps(List<String> ruleIds) {
+        List<Step> steps = new ArrayList<>(ruleIds.size());
+        for (String ruleId : ruleIds) steps.add(new Step(ruleId, null, null, false, null, null));
+        return steps;
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    String getLogic() {
+        return logic;
+    }
+
+    Map<String, Object> getPermission() {
+        return permission;
+    }
+
+    PermissionIndex.Indexes getIndexes() {
+        return indexes;
+    }
+
+    boolean isCached() {
+        return cache != null;
+    }
+
+    /**
+     * @param objMap the rule input
+     * @return the cache key with the values of the property paths
+     */
+    List<Object> cacheKey(Map<String, Object> objMap) {
+        List<Object> key = new ArrayList<>(cacheKeys.length);
+        for (String[] path : cacheKeys) {
+            key.add(resolve(objMap, path));
+        }
+        return key;
+    }
+
+    /**
+     * @param key cache key
+     * @return a copy of the cached result or null if it is not cached
+     */
+    Map<String, Object> getCachedResult(List<Object> key) {
+        Map<String, Object> result = cache.get(key);
+        return result == null ? null : new HashMap<>(result);
+    }
+
+    void cacheResult(List<Object> key, Map<String, Object> result) {
+        // a failed execution is not cached as it might be caused by an issue of the input or the action.
+        if (result != null && !result.containsKey(Constants.ERROR_MESSAGE)) {
+            cache.put(key, new HashMap<>(result));
+        }
+    }
+
+    private static Object resolve(Object value, String[] path) {
+        for (String name : path) {
+            if (value instanceof Map) {
+                value = ((Map<?, ?>) value).get(name);
+            } else if (value instanceof JwtClaims) {
+                JwtClaims claims = (JwtClaims) value;
+                value = CLAIMS_MAP.equals(name) ? claims.getClaimsMap() : claims.getClaimValue(name);
+            } else {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * A rule compiled for the execution without the lookups of the RuleEngine. It does the same as the
+     * RuleEngine.executeRule: the conditions are evaluated into the result, and the actions whose condition
+     * result matches are performed with the resolved action values. A single action is only performed on a
+     * true result.
+     */
+    static final class Step {
+        private final String ruleId;
+        // null to execute the rule with the RuleEngine.
+        private final Rule rule;
+        private final RuleEvaluator evaluator;
+        // false if the rule has no conditions and the result is always true.
+        private final boolean conditional;
+        private final Action[] trueActions;
+        private final Action[] falseActions;
+
+        private Step(String ruleId, Rule rule, RuleEvaluator evaluator, boolean conditional, Action[] trueActions, Action[] falseActions) {
+            this.ruleId = ruleId;
+            this.rule = rule;
+            this.evaluator = evaluator;
+            this.conditional = conditional;
+            this.trueActions = trueActions;
+            this.falseActions = falseActions;
+        }
+
+        /**
+         * @param ruleId rule id
+         * @param rule the loaded rule or null
+         * @param ruleEngine the rule engine with the action class cache or null
+         * @return the compiled step or a step that executes the rule with the RuleEngine
+         */
+        static Step compile(String ruleId, Rule rule, RuleEngine ruleEngine) {
+            if (rule == null || ruleEngine == null) return new Step(ruleId, null, null, false, null, null);
+            RuleEvaluator evaluator = RuleEvaluator.getInstance();
+            List<Action> trueActions = new ArrayList<>();
+            List<Action> falseActions = new ArrayList<>();
+            Collection<RuleAction> actions = rule.getActions();
+            if (actions != null) {
+                for (RuleAction action : actions) {
+                    IAction instance = ruleEngine.actionClassCache.get(action.getActionRef());
+                    if (instance == null) return new Step(ruleId, null, null, false, null, null);
+                    Boolean conditionResult = actions.size() == 1 ? Boolean.TRUE : action.isConditionResult();
+                    if (conditionResult == null || conditionResult) trueActions.add(new Action(action, instance, evaluator));
+                    if (conditionResult == null || !conditionResult) falseActions.add(new Action(action, instance, evaluator));
+                }
+            }
+            boolean conditional = rule.getConditions() != null && !rule.getConditions().isEmpty();
+            return new Step(ruleId, rule, evaluator, conditional, trueActions.toArray(new Action[0]), falseActions.toArray(new Action[0]));
+        }
+
+        String getRuleId() {
+            return ruleId;
+        }
+
+        /**
+         * @param ruleEngine the rule engine of the rules
+         * @param objMap the rule input
+         * @return the result of the rule
+         * @throws RuleEngineException if the conditions or the actions fail
+         */
+        Map<String, Object> execute(RuleEngine ruleEngine, Map<String, Object> objMap) throws RuleEngineException {
+            if (rule == null) return ruleEngine.executeRule(ruleId, objMap);
+            Map<String, Object> resultMap = new HashMap<>();
+            boolean result = !conditional || evaluator.evaluate(rule, objMap, resultMap);
+            resultMap.put(RuleConstants.RESULT, result);
+            for (Action action : result ? trueActions : falseActions) {
+                action.perform(ruleId, objMap, resultMap);
+            }
+            return resultMap;
+        }
+    }
+
+    private static final class Action {
+        private final RuleAction definition;
+        private final IAction instance;
+        private final RuleEvaluator evaluator;
+
+        private Action(RuleAction definition, IAction instance, RuleEvaluator evaluator) {
+            this.definition = definition;
+            this.instance = instance;
+            this.evaluator = evaluator;
+        }
+
+        private void perform(String ruleId, Map<String, Object> objMap, Map<String, Object> resultMap) throws RuleEngineException {
+            Collection<RuleActionValue> actionValues = definition.getActionValues();
+            if (actionValues != null) {
+                for (RuleActionValue actionValue : actionValues) {
+                    actionValue.setResolvedValue(evaluator.resolveVariable(actionValue.getValue(), objMap, resultMap));
+                }
+            }
+            instance.performAction(ruleId, definition.getActionId(), objMap, resultMap, actionValues);
+            instance.postPerformAction(ruleId, definition.getActionId(), objMap, resultMap, actionValues);
+        }
+    }
+}
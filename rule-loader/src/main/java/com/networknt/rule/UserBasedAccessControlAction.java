@@ -26,7 +26,7 @@ public class UserBasedAccessControlAction implements IAction{
         String jwtUser = (String) jwtClaims.getClaimValue(Constants.UID);
         String endpointUsers = (String) objMap.get(Constants.USERS);
         if(logger.isTraceEnabled()) logger.trace("ruleId {} actionId {} jwtUser {} endpointUsers {}", ruleId, actionId, jwtUser, endpointUsers);
-        if (PermissionMatchUtils.hasAnyConfiguredPermission(jwtUser, endpointUsers)) {
+        if (PermissionMatchUtils.hasAnyConfiguredPermission(objMap, jwtUser, endpointUsers)) {
             resultMap.put(RuleConstants.RESULT, true);
         }
     }
@@ -9,6 +9,8 @@ import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
@@ -129,6 +131,76 @@ public class MultiThreadRuleExecutorTest {
         }
     }
 
+    @Test
+    public void testCachedPlanResult() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, Rule> rules = new HashMap<>();
+        rules.put("r1", createRule("r1", createAction("count", "countAction", null)));
+        RuleEngine engine = new RuleEngine(rules, null);
+        engine.actionClassCache.put("countAction", (IAction) (ruleId, actionId, objMap, resultMap, actionValues) -> calls.incrementAndGet());
+
+        Map<String, Object> endpointRules = Map.of("/v1/test@get", Map.of("req-acc", List.of("r1"), "res-fil", List.of("r1"), "permission", Map.of("roles", "admin")));
+        MultiThreadRuleExecutor executor = new MultiThreadRuleExecutor(rules, engine, endpointRules, 16, List.of("req-acc"), List.of("auditInfo.role"));
+
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> objMap = new HashMap<>();
+            objMap.put("auditInfo", Map.of("role", "admin"));
+            Map<String, Object> result = executor.executeRules("/v1/test@get", "req-acc", objMap);
+            Assertions.assertTrue((Boolean) result.get(RuleConstants.RESULT));
+            // the permission is still added to the input for the caller.
+            Assertions.assertEquals("admin", objMap.get("roles"));
+            executor.executeRules("/v1/test@get", "res-fil", objMap);
+        }
+        // the req-acc rule is executed once and the res-fil rule is not cached.
+        Assertions.assertEquals(4, calls.get());
+
+        Map<String, Object> objMap = new HashMap<>();
+        objMap.put("auditInfo", Map.of("role", "user"));
+        executor.executeRules("/v1/test@get", "req-acc", objMap);
+        Assertions.assertEquals(5, calls.get());
+        Assertions.assertNull(executor.executeRules("/v1/test@get", "req-tra", new HashMap<>()));
+    }
+
+    @Test
+    public void testPlanStepsResolvedAtCompile() throws Exception {
+        List<String> performed = new CopyOnWriteArrayList<>();
+        Map<String, Rule> rules = new HashMap<>();
+        rules.put("r1", createRule("r1", createAction("onTrue", "recordAction", true), createAction("onFalse", "recordAction", false),
+                createAction("always", "recordAction", null)));
+        rules.put("r2", createRule("r2", createAction("missing", "missingAction", null)));
+        RuleEngine engine = Mockito.spy(new RuleEngine(rules, null));
+        engine.actionClassCache.put("recordAction", (IAction) (ruleId, actionId, objMap, resultMap, actionValues) -> performed.add(actionId));
+        Map<String, Object> res2 = new HashMap<>();
+        res2.put(RuleConstants.RESULT, true);
+        Mockito.doReturn(res2).when(engine).executeRule(eq("r2"), anyMap());
+
+        Map<String, Object> endpointRules = Map.of("/v1/test@get", Map.of("req-acc", List.of("r1", "r2")));
+        MultiThreadRuleExecutor executor = new MultiThreadRuleExecutor(rules, engine, endpointRules, 0, null, null);
+        Map<String, Object> result = executor.executeRules("/v1/test@get", "req-acc", new HashMap<>());
+
+        Assertions.assertTrue((Boolean) result.get(RuleConstants.RESULT));
+        // the rule without conditions is true and only runs the actions of the true result.
+        Assertions.assertEquals(List.of("onTrue", "always"), performed);
+        Mockito.verify(engine, Mockito.never()).executeRule(eq("r1"), anyMap());
+        // the rule with an action that is not in the cache is executed by the rule engine.
+        Mockito.verify(engine, Mockito.times(1)).executeRule(eq("r2"), anyMap());
+    }
+
+    private static Rule createRule(String ruleId, RuleAction... actions) {
+        Rule rule = new Rule();
+        rule.setRuleId(ruleId);
+        rule.setActions(List.of(actions));
+        return rule;
+    }
+
+    private static RuleAction createAction(String actionId, String actionRef, Boolean conditionResult) {
+        RuleAction action = new RuleAction();
+        action.setActionId(actionId);
+        action.setActionRef(actionRef);
+        action.setConditionResult(conditionResult);
+        return action;
+    }
+
     private static void setField(Object target, String fieldName, Object value) throws Exception {
         Field field = MultiThreadRuleExecutor.class.getDeclaredField(fieldName);
         field.setAccessible(true);
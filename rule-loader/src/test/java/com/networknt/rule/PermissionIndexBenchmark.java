@@ -0,0 +1,75 @@
+package com.networknt.rule;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the precompiled PermissionIndex with scanning the configured permissions and the claim for
+ * each request on large permission matrices. Run it from the IDE or with the test classpath after mvn
+ * test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionIndexBenchmark {
+    private static final int PRINCIPALS = 64;
+
+    @Param({"10", "1000", "10000"})
+    public int endpointPermissions;
+
+    @Param({"5", "50"})
+    public int principalPermissions;
+
+    private String configured;
+    private String[] claims;
+    private int index;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < endpointPermissions; i++) sb.append("role").append(i * 2).append(' ');
+        configured = sb.toString();
+        // half of the principals have a matching permission at the end of the claim.
+        claims = new String[PRINCIPALS];
+        for (int p = 0; p < PRINCIPALS; p++) {
+            StringBuilder claim = new StringBuilder();
+            for (int i = 0; i < principalPermissions; i++) claim.append("role").append((p * principalPermissions + i) * 2 + 1).append(' ');
+            if (p % 2 == 0) claim.append("role").append((endpointPermissions - 1) * 2);
+            claims[p] = claim.toString();
+        }
+    }
+
+    private String next() {
+        return claims[index++ & (PRINCIPALS - 1)];
+    }
+
+    @Benchmark
+    public boolean scan() {
+        String jwtPermissions = next();
+        return Arrays.stream(configured.split(" "))
+                .map(String::trim)
+                .filter(permission -> !permission.isEmpty())
+                .anyMatch(permission -> Arrays.stream(jwtPermissions.split("\\s+")).anyMatch(permission::equals));
+    }
+
+    @Benchmark
+    public boolean index() {
+        return PermissionIndex.of(configured).matches(next());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(PermissionIndexBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.networknt.rule;
+
+import com.networknt.utility.Constants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class PermissionIndexTest {
+
+    @Test
+    void shouldMatchPlainPermissions() {
+        PermissionIndex index = PermissionIndex.of(" admin  teller manager ");
+        Assertions.assertTrue(index.matches("user teller"));
+        Assertions.assertTrue(index.matches("\tmanager\n"));
+        Assertions.assertFalse(index.matches("tell admins"));
+        Assertions.assertFalse(index.matches(""));
+        Assertions.assertFalse(index.matches(null));
+        Assertions.assertFalse(PermissionIndex.of("  ").matches("admin"));
+    }
+
+    @Test
+    void shouldMatchLargePermissionList() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) sb.append("role").append(i).append(' ');
+        PermissionIndex index = PermissionIndex.of(sb.toString());
+        Assertions.assertTrue(index.matches("user role4999"));
+        Assertions.assertFalse(index.matches("user role5000"));
+    }
+
+    @Test
+    void shouldMatchAttributePermissions() {
+        Assertions.assertTrue(PermissionIndex.of("user country^=^CAN").matches("country^=^CAN~level^=^2"));
+        Assertions.assertFalse(PermissionIndex.of("country^=^USA").matches("country^=^CAN~level^=^2"));
+        // a plain permission matches the attribute key of the claim.
+        Assertions.assertTrue(PermissionIndex.of("level").matches("country^=^CAN~level^=^2"));
+        // a claim with the delimiter only is compared as a whole.
+        Assertions.assertTrue(PermissionIndex.of("a~b").matches(" a~b "));
+        Assertions.assertFalse(PermissionIndex.of("a").matches("a~b"));
+        Assertions.assertTrue(PermissionIndex.principal("country^=^CAN").has(" country^=^CAN "));
+        Assertions.assertFalse(PermissionIndex.principal("country^=^CAN").has("country^=^CAN~level^=^2"));
+    }
+
+    @Test
+    void shouldMatchAllRequiredAttributes() {
+        List<Map<String, String>> attributes = List.of(Map.of("country", "CAN"), Map.of("level", "2"));
+        Assertions.assertTrue(PermissionIndex.attributes(attributes).matches("level^=^2~country^=^CAN~team^=^a"));
+        Assertions.assertFalse(PermissionIndex.attributes(attributes).matches("country^=^CAN"));
+        Assertions.assertFalse(PermissionIndex.attributes(attributes).matches(null));
+        Assertions.assertTrue(PermissionIndex.attributes(List.of()).matches(null));
+    }
+
+    @Test
+    void shouldKeepDecisionsAcrossDistinctClaims() {
+        PermissionIndex index = PermissionIndex.of("admin");
+        // more distinct claims than the cache size only evict the cold decisions
+        for (int i = 0; i < 20000; i++) {
+            Assertions.assertFalse(index.matches("user" + i));
+        }
+        Assertions.assertTrue(index.matches("user admin"));
+    }
+
+    @Test
+    void shouldOwnIndexesInEachPlan() {
+        List<Map<String, String>> attributes = List.of(Map.of("country", "CAN"));
+        Map<String, Object> endpointRules = Map.of("/v1/test@get", Map.of("req-acc", List.of("r1"),
+                "permission", Map.of(Constants.ROLES, "admin", Constants.ATTRIBUTES, attributes)));
+        PermissionIndex.Indexes indexes = RulePlan.compile(endpointRules, null, null, 0, null, null).get("/v1/test@get").get("req-acc").getIndexes();
+        Assertions.assertSame(indexes.permission("admin"), indexes.permission("admin"));
+        Assertions.assertSame(indexes.attributes(attributes), indexes.attributes(attributes));
+        // the permissions not compiled with the plan are matched without caching.
+        Assertions.assertNotSame(indexes.permission("user"), indexes.permission("user"));
+        Assertions.assertTrue(indexes.permission("user").matches("user"));
+        // the rules are compiled again for a new config
+        PermissionIndex.Indexes reloaded = RulePlan.compile(endpointRules, null, null, 0, null, null).get("/v1/test@get").get("req-acc").getIndexes();
+        Assertions.assertNotSame(indexes.permission("admin"), reloaded.permission("admin"));
+        // the actions find the indexes in the input
+        Assertions.assertSame(indexes, PermissionIndex.Indexes.of(Map.of(PermissionIndex.INDEXES, indexes)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.networknt.rule;
+
+import com.networknt.config.Config;
+import com.networknt.utility.Constants;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ResponseFilterEngineTest {
+    private static final String BODY = "[{\"id\":1,\"status\":\"O\",\"amount\":10.5,\"secret\":\"x\",\"tags\":[\"a\"]},"
+            + "{\"id\":2,\"status\":\"C\",\"amount\":200,\"secret\":\"y\",\"tags\":[]},"
+            + "{\"id\":3,\"status\":\"O\",\"amount\":50,\"secret\":\"z\",\"tags\":null,\"owner\":{\"name\":null,\"ids\":[1,null]}}]";
+
+    private final Map<String, Rule> rules = Map.of(
+            "row", createRule(ResponseRowFilterAction.class.getName()),
+            "col", createRule(ResponseColumnFilterAction.class.getName()),
+            "other", createRule(RoleBasedAccessControlAction.class.getName()));
+
+    @Test
+    void shouldMatchRuleEngineForRowThenColumn() throws Exception {
+        Map<String, Object> permission = createPermission(
+                List.of(Map.of("colName", "status", "operator", "=", "colValue", "O"), Map.of("colName", "amount", "operator", "<", "colValue", "100")),
+                "![\"secret\"]");
+        assertSameAsActions(List.of("row", "col"), permission, BODY);
+    }
+
+    @Test
+    void shouldMatchRuleEngineForColumnThenRow() throws Exception {
+        // the row filter runs on the projected rows, so the removed status column denies all the rows.
+        Map<String, Object> permission = createPermission(
+                List.of(Map.of("colName", "status", "operator", "in", "colValue", "[O, C]")),
+                "[\"id\",\"amount\"]");
+        Assertions.assertEquals("[]", assertSameAsActions(List.of("col", "row"), permission, BODY));
+        Map<String, Object> keepStatus = createPermission(
+                List.of(Map.of("colName", "status", "operator", "!=", "colValue", "C")),
+                "[\"id\",\"status\"]");
+        Assertions.assertEquals("[{\"id\":1,\"status\":\"O\"},{\"id\":3,\"status\":\"O\"}]", assertSameAsActions(List.of("col", "row"), keepStatus, BODY));
+    }
+
+    @Test
+    void shouldPassThroughObjectAndRemoveScalarRows() throws Exception {
+        Map<String, Object> permission = createPermission(
+                List.of(Map.of("colName", "amount", "operator", "range", "colValue", "[0, 100]")), null);
+        assertSameAsActions(List.of("row"), permission, "{\"id\":1,\"amount\":500}");
+        Assertions.assertEquals("[{\"amount\":1}]", assertSameAsActions(List.of("row"), permission, "[1,{\"amount\":1},\"a\",{\"amount\":101}]"));
+    }
+
+    @Test
+    void shouldNotCompileOtherRules() throws Exception {
+        Map<String, Object> permission = createPermission(List.of(), "[\"id\"]");
+        Assertions.assertNull(ResponseFilterEngine.compile(rules, List.of("row", "other"), permission, createClaims()));
+        Assertions.assertNull(ResponseFilterEngine.compile(rules, List.of("row"), Map.of(Constants.COL, Map.of()), createClaims()));
+        ResponseFilterEngine engine = ResponseFilterEngine.compile(rules, List.of("col"), permission, createClaims());
+        // the column filter on a row that is not an object falls back to the rule engine.
+        Assertions.assertThrows(IOException.class, () -> filter(engine, "[{\"id\":1},2]"));
+    }
+
+    private String assertSameAsActions(List<String> ruleIds, Map<String, Object> permission, String body) throws Exception {
+        String expected = body;
+        for (String ruleId : ruleIds) {
+            IAction action = ruleId.equals("row") ? new ResponseRowFilterAction() : new ResponseColumnFilterAction();
+            Map<String, Object> objMap = new HashMap<>(permission);
+            objMap.put("responseBody", expected);
+            objMap.put(Constants.AUDIT_INFO, Map.of(Constants.SUBJECT_CLAIMS, createClaims()));
+            Map<String, Object> resultMap = new HashMap<>();
+            action.performAction(ruleId, "actionId", objMap, resultMap, List.of());
+            expected = (String) resultMap.get("responseBody");
+        }
+        ResponseFilterEngine engine = ResponseFilterEngine.compile(rules, ruleIds, permission, createClaims());
+        Assertions.assertNotNull(engine);
+        String actual = filter(engine, body);
+        Assertions.assertEquals(Config.getInstance().getMapper().readTree(expected), Config.getInstance().getMapper().readTree(actual));
+        return actual;
+    }
+
+    private static String filter(ResponseFilterEngine engine, String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.filter(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> createPermission(List<Map<String, String>> rowFilters, String columns) {
+        Map<String, Object> permission = new HashMap<>();
+        permission.put(Constants.ROW, Map.of(Constants.ROLE, Map.of("teller", rowFilters)));
+        if (columns != null) permission.put(Constants.COL, Map.of(Constants.ROLE, Map.of("teller", columns)));
+        return permission;
+    }
+
+    private static JwtClaims createClaims() {
+        JwtClaims claims = new JwtClaims();
+        claims.setClaim(Constants.ROLE, "user teller");
+        return claims;
+    }
+
+    private static Rule createRule(String actionClass) {
+        RuleAction action = new RuleAction();
+        action.setActionRef(actionClass);
+        Rule rule = new Rule();
+        rule.setActions(List.of(action));
+        return rule;
+    }
+}
@@ -0,0 +1,77 @@
+package com.networknt.rule;
+
+import com.networknt.utility.Constants;
+import org.jose4j.jwt.JwtClaims;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the access control rules executed through the compiled plans of the MultiThreadRuleExecutor
+ * with and without the result cache. The rule has the RoleBasedAccessControlAction only, and the plan
+ * calls the action resolved from the action class cache, so that the overhead of the executor is compared. Run it from the IDE or with the test classpath after
+ * mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleExecutorBenchmark {
+    private static final String ENDPOINT = "/v1/accounts@get";
+    private static final String[] ROLES = {"user", "admin", "teller", "manager", "auditor", "guest", "support", "developer"};
+
+    @Param({"0", "1024"})
+    public int resultCacheSize;
+
+    private MultiThreadRuleExecutor executor;
+    private Map<String, Object>[] auditInfos;
+    private int index;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        String actionRef = RoleBasedAccessControlAction.class.getName();
+        RuleAction ruleAction = new RuleAction();
+        ruleAction.setActionId("role");
+        ruleAction.setActionRef(actionRef);
+        Rule rule = new Rule();
+        rule.setRuleId("role-based");
+        rule.setActions(List.of(ruleAction));
+        Map<String, Rule> rules = new HashMap<>();
+        rules.put("role-based", rule);
+        RuleEngine engine = new RuleEngine(rules, null);
+        engine.actionClassCache.put(actionRef, new RoleBasedAccessControlAction());
+        Map<String, Object> endpointRules = Map.of(ENDPOINT, Map.of("req-acc", List.of("role-based"), "permission", Map.of(Constants.ROLES, "admin manager")));
+        executor = new MultiThreadRuleExecutor(rules, engine, endpointRules, resultCacheSize, List.of("req-acc"), List.of("auditInfo.subject_claims.ClaimsMap.role"));
+
+        auditInfos = new Map[ROLES.length];
+        for (int i = 0; i < ROLES.length; i++) {
+            JwtClaims claims = new JwtClaims();
+            claims.setClaim(Constants.ROLE, ROLES[i]);
+            auditInfos[i] = Map.of(Constants.SUBJECT_CLAIMS, claims);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> roleBasedAccessControl() {
+        Map<String, Object> objMap = new HashMap<>();
+        objMap.put(Constants.AUDIT_INFO, auditInfos[index++ & (ROLES.length - 1)]);
+        return executor.executeRules(ENDPOINT, "req-acc", objMap);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(RuleExecutorBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -1,25 +1,31 @@
 package org.owasp.encoder;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A wrapper class that simplify the invocation to encode method. It is located in this package to invoke a non-public
  * method in Encode class.
  *
+ * The wrapper is immutable and thread safe, so it is created once for each config and shared by all requests. The
+ * attribute names are kept in hash sets. Encode.encode scans a value and returns the same instance if there is no
+ * character to encode, so a safe value is not written back to the map or the list.
+ *
  * @author Steve Hu
  */
 public class EncoderWrapper {
 
     private final Encoder encoder;
-    private final List<String> attributesToIgnore;
-    private final List<String> attributesToAppreciate;
+    private final Set<String> attributesToIgnore;
+    private final Set<String> attributesToAppreciate;
 
     public EncoderWrapper(Encoder encoder, List<String> attributesToIgnore, List<String> attributesToAppreciate) {
         this.encoder = encoder;
-        this.attributesToIgnore = attributesToIgnore == null ? new ArrayList<>() : attributesToIgnore;
-        this.attributesToAppreciate = attributesToAppreciate == null ? new ArrayList<>() : attributesToAppreciate;
+        this.attributesToIgnore = attributesToIgnore == null ? Collections.emptySet() : new HashSet<>(attributesToIgnore);
+        this.attributesToAppreciate = attributesToAppreciate == null ? Collections.emptySet() : new HashSet<>(attributesToAppreciate);
     }
 
     public void encodeNode(Map<String, Object> map) {
@@ -35,7 +41,8 @@ public class EncoderWrapper {
             Object value = entry.getValue();
 
             if (value instanceof String) {
-                map.put(key, applyEncoding((String) value));
+                String encoded = applyEncoding((String) value);
+                if (encoded != value) entry.setValue(encoded);
             } else if (value instanceof Map) {
                 encodeNode((Map) value);
             } else if (value instanceof List) {
@@ -46,12 +53,14 @@ public class EncoderWrapper {
 
     public void encodeList(List list) {
         for (int i = 0; i < list.size(); i++) {
-            if (list.get(i) instanceof String) {
-                list.set(i, applyEncoding((String) list.get(i)));
-            } else if (list.get(i) instanceof Map) {
-                encodeNode((Map<String, Object>)list.get(i));
-            } else if (list.get(i) instanceof List) {
-                encodeList((List)list.get(i));
+            Object value = list.get(i);
+            if (value instanceof String) {
+                String encoded = applyEncoding((String) value);
+                if (encoded != value) list.set(i, encoded);
+            } else if (value instanceof Map) {
+                encodeNode((Map<String, Object>)value);
+            } else if (value instanceof List) {
+                encodeList((List)value);
             }
         }
     }
@@ -8,6 +8,7 @@ import org.owasp.encoder.*;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class EncoderWrapperTest {
@@ -124,6 +125,23 @@ public class EncoderWrapperTest {
         Mockito.verify(encoder, Mockito.never()).applyEncoding("value4");
     }
 
+    @Test
+    public void shouldKeepSafeValuesWithoutWritingBack() {
+        String safe = new String("safeValue");
+        Map<String, Object> map = new HashMap<>();
+        map.put("safe", safe);
+        map.put("unsafe", "it's");
+        // an immutable list with safe values only is not written back.
+        map.put("list", List.of("value1", "value2"));
+        EncoderWrapper encoder = new EncoderWrapper(Encoders.forName("javascript-source"), null, null);
+
+        encoder.encodeNode(map);
+
+        Assertions.assertSame(safe, map.get("safe"));
+        Assertions.assertEquals("it\\'s", map.get("unsafe"));
+        Assertions.assertEquals(List.of("value1", "value2"), map.get("list"));
+    }
+
     @Test
     public void shouldThrowExceptionForIncorrectEncoder() {
         Assertions.assertThrows(UnsupportedContextException.class, () -> Encoders.forName("fake"));
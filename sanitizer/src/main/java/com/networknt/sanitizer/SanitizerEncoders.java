@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.sanitizer;
+
+import io.undertow.util.HttpString;
+import org.owasp.encoder.EncoderWrapper;
+import org.owasp.encoder.Encoders;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The encoders of the SanitizerHandler built once for each loaded sanitizer config instead of each request.
+ * The header names to ignore and to encode are kept in the sets of HttpString, which is compared without
+ * the case like the headers, so that each header is checked with a hash lookup.
+ *
+ * @author Steve Hu
+ */
+final class SanitizerEncoders {
+    private final Map<String, Object> mappedConfig;
+    private final EncoderWrapper bodyEncoder;
+    private final EncoderWrapper headerEncoder;
+    private final Set<HttpString> headersToIgnore;
+    // null if there is no encode list and all the headers that are not ignored are encoded.
+    private final Set<HttpString> headersToEncode;
+
+    SanitizerEncoders(SanitizerConfig config) {
+        this.mappedConfig = config.getMappedConfig();
+        this.bodyEncoder = new EncoderWrapper(Encoders.forName(config.getBodyEncoder()), config.getBodyAttributesToIgnore(), config.getBodyAttributesToEncode());
+        this.headerEncoder = new EncoderWrapper(Encoders.forName(config.getHeaderEncoder()), config.getHeaderAttributesToIgnore(), config.getHeaderAttributesToEncode());
+        Set<HttpString> ignore = headers(config.getHeaderAttributesToIgnore());
+        this.headersToIgnore = ignore == null ? Set.of() : ignore;
+        this.headersToEncode = headers(config.getHeaderAttributesToEncode());
+    }
+
+    Map<String, Object> getMappedConfig() {
+        return mappedConfig;
+    }
+
+    EncoderWrapper getBodyEncoder() {
+        return bodyEncoder;
+    }
+
+    EncoderWrapper getHeaderEncoder() {
+        return headerEncoder;
+    }
+
+    /**
+     * @param headerName the name of the request header
+     * @return true if the header is not in the ignore list and it is in the encode list if the list exists
+     */
+    boolean isHeaderEncoded(HttpString headerName) {
+        // if ignore list exists, it will take the precedence.
+        if (headersToIgnore.contains(headerName)) return false;
+        return headersToEncode == null || headersToEncode.contains(headerName);
+    }
+
+    private static Set<HttpString> headers(List<String> names) {
+        if (names == null) return null;
+        Set<HttpString> headers = new HashSet<>();
+        for (String name : names) {
+            headers.add(new HttpString(name));
+        }
+        return headers;
+    }
+}
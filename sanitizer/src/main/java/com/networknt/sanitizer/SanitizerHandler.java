@@ -25,7 +25,6 @@ import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.HeaderValues;
 import org.owasp.encoder.EncoderWrapper;
-import org.owasp.encoder.Encoders;
 
 import java.util.*;
 
@@ -42,6 +41,7 @@ public class SanitizerHandler implements MiddlewareHandler {
 
     private volatile HttpHandler next;
     private String configName = SanitizerConfig.CONFIG_NAME;
+    private volatile SanitizerEncoders encoders;
 
     public SanitizerHandler() {
         SanitizerConfig.load(configName);
@@ -60,37 +60,26 @@ public class SanitizerHandler implements MiddlewareHandler {
     @Override
     public void handleRequest(final HttpServerExchange exchange) throws Exception {
         SanitizerConfig config = SanitizerConfig.load(configName);
-        EncoderWrapper bodyEncoder = new EncoderWrapper(Encoders.forName(config.getBodyEncoder()), config.getBodyAttributesToIgnore(), config.getBodyAttributesToEncode());
-        EncoderWrapper headerEncoder = new EncoderWrapper(Encoders.forName(config.getHeaderEncoder()), config.getHeaderAttributesToIgnore(), config.getHeaderAttributesToEncode());
+        SanitizerEncoders encoders = getEncoders(config);
 
         if (logger.isDebugEnabled()) logger.trace("SanitizerHandler.handleRequest starts.");
         String method = exchange.getRequestMethod().toString();
         if (config.isHeaderEnabled()) {
             HeaderMap headerMap = exchange.getRequestHeaders();
             if (headerMap != null) {
+                EncoderWrapper headerEncoder = encoders.getHeaderEncoder();
                 for (HeaderValues values : headerMap) {
                     if (values != null) {
-                        // if ignore list exists, it will take the precedence.
-                        if(config.getHeaderAttributesToIgnore() != null && config.getHeaderAttributesToIgnore().stream().anyMatch(values.getHeaderName().toString()::equalsIgnoreCase)) {
-                            if(logger.isTraceEnabled()) logger.trace("Ignore header " + values.getHeaderName().toString() + " as it is in the ignore list.");
+                        if (!encoders.isHeaderEncoded(values.getHeaderName())) {
+                            if(logger.isTraceEnabled()) logger.trace("Skip header " + values.getHeaderName().toString() + " as it is in the ignore list or not in the encode list.");
                             continue;
                         }
-
-                        if(config.getHeaderAttributesToEncode() != null) {
-                            if(config.getHeaderAttributesToEncode().stream().anyMatch(values.getHeaderName().toString()::equalsIgnoreCase)) {
-                                if(logger.isTraceEnabled()) logger.trace("Encode header " + values.getHeaderName().toString() + " as it is not in the ignore list and it is in the encode list.");
-                                ListIterator<String> itValues = values.listIterator();
-                                while (itValues.hasNext()) {
-                                    itValues.set(headerEncoder.applyEncoding(itValues.next()));
-                                }
-                            }
-                        } else {
-                            // no attributes to encode, encode everything except the ignore list.
-                            if(logger.isTraceEnabled()) logger.trace("Encode header " + values.getHeaderName().toString() + " as it is not in the ignore list and the encode list is null.");
-                            ListIterator<String> itValues = values.listIterator();
-                            while (itValues.hasNext()) {
-                                itValues.set(headerEncoder.applyEncoding(itValues.next()));
-                            }
+                        ListIterator<String> itValues = values.listIterator();
+                        while (itValues.hasNext()) {
+                            String value = itValues.next();
+                            String encoded = headerEncoder.applyEncoding(value);
+                            // the value without any character to encode is returned as it is.
+                            if (encoded != value) itValues.set(encoded);
                         }
                     }
                 }
@@ -102,6 +91,7 @@ public class SanitizerHandler implements MiddlewareHandler {
             // we are talking about JSON api now.
             Object body = exchange.getAttachment(AttachmentConstants.REQUEST_BODY);
             if (body != null) {
+                EncoderWrapper bodyEncoder = encoders.getBodyEncoder();
                 if(body instanceof List) {
                     bodyEncoder.encodeList((List<Map<String, Object>>)body);
                 } else if (body instanceof Map){
@@ -116,6 +106,22 @@ public class SanitizerHandler implements MiddlewareHandler {
         Handler.next(exchange, next);
     }
 
+    /**
+     * Get the encoders of the config. They are built once for each loaded config, so they are built
+     * again only when the config is reloaded.
+     *
+     * @param config SanitizerConfig
+     * @return SanitizerEncoders
+     */
+    SanitizerEncoders getEncoders(SanitizerConfig config) {
+        SanitizerEncoders current = encoders;
+        if (current == null || current.getMappedConfig() != config.getMappedConfig()) {
+            current = new SanitizerEncoders(config);
+            encoders = current;
+        }
+        return current;
+    }
+
     @Override
     public HttpHandler getNext() {
         return next;
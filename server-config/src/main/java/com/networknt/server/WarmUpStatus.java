@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Track the warm-up tasks that are started during the server startup. The health check reports
+ * the server as not ready until all the warm-up tasks have ended. If no warm-up task is started,
+ * the server is ready as before.
+ *
+ * @author Steve Hu
+ */
+public final class WarmUpStatus {
+    private static final AtomicInteger pending = new AtomicInteger();
+
+    private WarmUpStatus() {
+    }
+
+    /**
+     * Mark the beginning of a warm-up task.
+     */
+    public static void begin() {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Mark the end of a warm-up task. It must be called once for each call of begin.
+     */
+    public static void end() {
+        pending.updateAndGet(n -> n > 0 ? n - 1 : 0);
+    }
+
+    /**
+     * @return boolean true if there is no warm-up task in progress
+     */
+    public static boolean isComplete() {
+        return pending.get() == 0;
+    }
+}
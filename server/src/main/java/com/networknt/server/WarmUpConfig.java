@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.server;
+
+import com.networknt.config.Config;
+import com.networknt.config.JsonMapper;
+import com.networknt.config.schema.ArrayField;
+import com.networknt.config.schema.BooleanField;
+import com.networknt.config.schema.ConfigSchema;
+import com.networknt.config.schema.IntegerField;
+import com.networknt.config.schema.OutputFormat;
+import com.networknt.config.schema.StringField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration for the {@link WarmUpStartupHookProvider} that discovers the downstream services,
+ * opens connections and gets tokens before the server accepts requests.
+ *
+ * @author Steve Hu
+ */
+@ConfigSchema(
+        configKey = "warm-up",
+        configName = "warm-up",
+        configDescription = "Startup warm-up configuration",
+        outputFormats = {OutputFormat.JSON_SCHEMA, OutputFormat.YAML, OutputFormat.CLOUD})
+public class WarmUpConfig {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpConfig.class);
+    /** Constant for configuration name */
+    public static final String CONFIG_NAME = "warm-up";
+    private static final String ENABLED = "enabled";
+    private static final String SERVICE_IDS = "serviceIds";
+    private static final String ROUTER_SERVICES = "routerServices";
+    private static final String PROTOCOL = "protocol";
+    private static final String OPEN_CONNECTIONS = "openConnections";
+    private static final String PREFETCH_TOKENS = "prefetchTokens";
+    private static final String TIMEOUT = "timeout";
+    private static final String WAIT_ON_STARTUP = "waitOnStartup";
+
+    @BooleanField(
+            configFieldName = ENABLED,
+            externalizedKeyName = ENABLED,
+            defaultValue = "true",
+            description = "Enable the startup warm-up. The WarmUpStartupHookProvider must be added to the startup hooks in service.yml."
+    )
+    boolean enabled = true;
+
+    @ArrayField(
+            configFieldName = SERVICE_IDS,
+            externalizedKeyName = SERVICE_IDS,
+            description = "The serviceIds to warm up in addition to the router services. If environment tag is used, you can add\n" +
+                    "it to the serviceId separated with a vertical bar |. For example, com.networknt.petstore-1.0.0|dev",
+            items = String.class
+    )
+    List<String> serviceIds = new ArrayList<>();
+
+    @BooleanField(
+            configFieldName = ROUTER_SERVICES,
+            externalizedKeyName = ROUTER_SERVICES,
+            defaultValue = "true",
+            description = "Warm up the serviceIds in the mappings of pathPrefixService.yml, pathService.yml and serviceDict.yml\n" +
+                    "that are used by the router to resolve the serviceId of a request."
+    )
+    boolean routerServices = true;
+
+    @StringField(
+            configFieldName = PROTOCOL,
+            externalizedKeyName = PROTOCOL,
+            defaultValue = "https",
+            description = "The protocol used to discover the services."
+    )
+    String protocol = "https";
+
+    @BooleanField(
+            configFieldName = OPEN_CONNECTIONS,
+            externalizedKeyName = OPEN_CONNECTIONS,
+            defaultValue = "true",
+            description = "Open the connections to each discovered host including the TLS handshake. The number of connections\n" +
+                    "per host is the poolWarmUpSize in client.yml and poolWarmUpEnabled must be true in client.yml.\n" +
+                    "Only the Http2Client pools are opened. The router pools of the LoadBalancingRouterProxyClient open\n" +
+                    "the connections on the first requests after the health check reports ready."
+    )
+    boolean openConnections = true;
+
+    @BooleanField(
+            configFieldName = PREFETCH_TOKENS,
+            externalizedKeyName = PREFETCH_TOKENS,
+            defaultValue = "false",
+            description = "Get the client credentials token of each service from the OAuth 2.0 provider configured in client.yml\n" +
+                    "so that the first request doesn't wait for the token."
+    )
+    boolean prefetchTokens = false;
+
+    @IntegerField(
+            configFieldName = TIMEOUT,
+            externalizedKeyName = TIMEOUT,
+            defaultValue = "10000",
+            description = "The time budget of the warm-up in milliseconds. The tasks that are not completed after the timeout\n" +
+                    "are cancelled and the server is reported as ready."
+    )
+    int timeout = 10000;
+
+    @BooleanField(
+            configFieldName = WAIT_ON_STARTUP,
+            externalizedKeyName = WAIT_ON_STARTUP,
+            defaultValue = "true",
+            description = "Block the server startup until the warm-up is completed or the timeout is reached. If it is false, the\n" +
+                    "server starts immediately and the health check returns 503 until the warm-up is completed."
+    )
+    boolean waitOnStartup = true;
+
+    private static volatile WarmUpConfig instance;
+    private final Map<String, Object> mappedConfig;
+
+    private WarmUpConfig(String configName) {
+        mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+        setConfigData();
+    }
+
+    /**
+     * Loads the warm-up configuration from the default config name.
+     *
+     * @return WarmUpConfig object
+     */
+    public static WarmUpConfig load() {
+        return load(CONFIG_NAME);
+    }
+
+    /**
+     * Loads the warm-up configuration from a specific config name.
+     *
+     * @param configName config name
+     * @return WarmUpConfig object
+     */
+    public static WarmUpConfig load(String configName) {
+        if (CONFIG_NAME.equals(configName)) {
+            Map<String, Object> mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+            if (instance != null && instance.getMappedConfig() == mappedConfig) {
+                return instance;
+            }
+            synchronized (WarmUpConfig.class) {
+                mappedConfig = Config.getInstance().getJsonMapConfig(configName);
+                if (instance != null && instance.getMappedConfig() == mappedConfig) {
+                    return instance;
+                }
+                instance = new WarmUpConfig(configName);
+                ModuleRegistry.registerModule(CONFIG_NAME, WarmUpConfig.class.getName(), Config.getNoneDecryptedInstance().getJsonMapConfigNoCache(CONFIG_NAME), null);
+                return instance;
+            }
+        }
+        return new WarmUpConfig(configName);
+    }
+
+    /**
+     * Gets the mapped configuration.
+     *
+     * @return Map mapped configuration
+     */
+    public Map<String, Object> getMappedConfig() {
+        return mappedConfig;
+    }
+
+    /**
+     * @return true if the warm-up is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled true to enable the warm-up
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return List the serviceIds to warm up
+     */
+    public List<String> getServiceIds() {
+        return serviceIds;
+    }
+
+    /**
+     * @param serviceIds the serviceIds to warm up
+     */
+    public void setServiceIds(List<String> serviceIds) {
+        this.serviceIds = serviceIds;
+    }
+
+    /**
+     * @return true if the router services are warmed up
+     */
+    public boolean isRouterServices() {
+        return routerServices;
+    }
+
+    /**
+     * @param routerServices true to warm up the router services
+     */
+    public void setRouterServices(boolean routerServices) {
+        this.routerServices = routerServices;
+    }
+
+    /**
+     * @return String the protocol for discovery
+     */
+    public String getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * @param protocol the protocol for discovery
+     */
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    /**
+     * @return true if the connections are opened
+     */
+    public boolean isOpenConnections() {
+        return openConnections;
+    }
+
+    /**
+     * @param openConnections true to open the connections
+     */
+    public void setOpenConnections(boolean openConnections) {
+        this.openConnections = openConnections;
+    }
+
+    /**
+     * @return true if the tokens are prefetched
+     */
+    public boolean isPrefetchTokens() {
+        return prefetchTokens;
+    }
+
+    /**
+     * @param prefetchTokens true to prefetch the tokens
+     */
+    public void setPrefetchTokens(boolean prefetchTokens) {
+        this.prefetchTokens = prefetchTokens;
+    }
+
+    /**
+     * @return int the time budget in milliseconds
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout the time budget in milliseconds
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return true if the startup waits for the warm-up
+     */
+    public boolean isWaitOnStartup() {
+        return waitOnStartup;
+    }
+
+    /**
+     * @param waitOnStartup true if the startup waits for the warm-up
+     */
+    public void setWaitOnStartup(boolean waitOnStartup) {
+        this.waitOnStartup = waitOnStartup;
+    }
+
+    private void setConfigData() {
+        if(mappedConfig != null) {
+            Object object = mappedConfig.get(ENABLED);
+            if(object != null) enabled = Config.loadBooleanValue(ENABLED, object);
+            object = mappedConfig.get(SERVICE_IDS);
+            if(object != null) {
+                if(object instanceof String) {
+                    String s = ((String)object).trim();
+                    if(s.startsWith("[")) {
+                        serviceIds = new ArrayList<>((List<String>)JsonMapper.fromJson(s, List.class));
+                    } else if(!s.isEmpty()) {
+                        serviceIds = new ArrayList<>(List.of(s.split("\\s*,\\s*")));
+                    }
+                } else if (object instanceof List) {
+                    serviceIds = new ArrayList<>((List<String>)object);
+                } else {
+                    logger.error("serviceIds is the wrong type. Only JSON list, YAML list, or string is supported.");
+                }
+            }
+            object = mappedConfig.get(ROUTER_SERVICES);
+            if(object != null) routerServices = Config.loadBooleanValue(ROUTER_SERVICES, object);
+            object = mappedConfig.get(PROTOCOL);
+            if(object != null && !((String)object).isBlank()) protocol = (String)object;
+            object = mappedConfig.get(OPEN_CONNECTIONS);
+            if(object != null) openConnections = Config.loadBooleanValue(OPEN_CONNECTIONS, object);
+            object = mappedConfig.get(PREFETCH_TOKENS);
+            if(object != null) prefetchTokens = Config.loadBooleanValue(PREFETCH_TOKENS, object);
+            object = mappedConfig.get(TIMEOUT);
+            if(object != null) timeout = Config.loadIntegerValue(TIMEOUT, object);
+            object = mappedConfig.get(WAIT_ON_STARTUP);
+            if(object != null) waitOnStartup = Config.loadBooleanValue(WAIT_ON_STARTUP, object);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.server;
+
+import com.networknt.client.Http2Client;
+import com.networknt.client.oauth.Jwt;
+import com.networknt.client.oauth.TokenManager;
+import com.networknt.cluster.Cluster;
+import com.networknt.monad.Result;
+import com.networknt.router.middleware.PathPrefixServiceConfig;
+import com.networknt.router.middleware.PathServiceConfig;
+import com.networknt.router.middleware.ServiceDictConfig;
+import com.networknt.service.SingletonServiceFactory;
+import com.networknt.utility.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A startup hook that warms up the downstream services before the server accepts requests. The
+ * serviceIds in warm-up.yml and the router mappings are discovered in parallel, which populates the
+ * cluster cache used by the router to build the host arrays. Then the connections to each host are
+ * opened and the client credentials tokens are fetched. All the tasks run on virtual threads and
+ * share the time budget in warm-up.yml.
+ *
+ * Only the connection pools of the Http2Client are opened. The hosts of the router are built from the
+ * discovered services when the RouterHandler is created, but the LoadBalancingRouterProxyClient opens
+ * the connections of its ProxyConnectionPool on the IO thread of a request, so the first requests of
+ * the router still open the connections after the health check reports the server as ready.
+ *
+ * The health check returns 503 until the warm-up is completed. To enable it, add this class to the
+ * com.networknt.server.StartupHookProvider in service.yml.
+ *
+ * @author Steve Hu
+ */
+public class WarmUpStartupHookProvider implements StartupHookProvider {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpStartupHookProvider.class);
+
+    /**
+     * Default constructor for WarmUpStartupHookProvider.
+     */
+    public WarmUpStartupHookProvider() {
+    }
+
+    @Override
+    public void onStartup() {
+        WarmUpConfig config = WarmUpConfig.load();
+        if(!config.isEnabled()) return;
+        start(config, SingletonServiceFactory.getBean(Cluster.class));
+    }
+
+    /**
+     * Start the warm-up of the services in the config with the cluster. The warm-up status is pending until
+     * the warm-up thread ends, whether the tasks are completed, failed or cancelled after the timeout.
+     *
+     * @param config WarmUpConfig
+     * @param cluster Cluster used to discover the services
+     */
+    void start(WarmUpConfig config, Cluster cluster) {
+        Map<String, String> services = getServices(config);
+        if(services.isEmpty()) {
+            if(logger.isInfoEnabled()) logger.info("No serviceId is configured for the warm-up.");
+            return;
+        }
+        if(cluster == null) {
+            logger.error("Cluster is not configured in service.yml and the warm-up is skipped.");
+            return;
+        }
+        WarmUpStatus.begin();
+        Thread thread = new Thread(() -> {
+            try {
+                warmUp(config, cluster, services);
+            } finally {
+                WarmUpStatus.end();
+            }
+        }, "WarmUp");
+        thread.setDaemon(true);
+        thread.start();
+        if(config.isWaitOnStartup()) {
+            try {
+                thread.join(config.getTimeout() + 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Collect the services to warm up. The key is the serviceId with the optional tag, and the value is a
+     * path used to select the client credentials token configuration in client.yml.
+     *
+     * @param config WarmUpConfig
+     * @return Map of serviceId to path
+     */
+    static Map<String, String> getServices(WarmUpConfig config) {
+        Map<String, String> services = new LinkedHashMap<>();
+        if(config.getServiceIds() != null) {
+            for(String serviceId : config.getServiceIds()) {
+                if(StringUtils.isNotBlank(serviceId)) services.putIfAbsent(serviceId.trim(), "/");
+            }
+        }
+        if(config.isRouterServices()) {
+            PathPrefixServiceConfig pathPrefixServiceConfig = PathPrefixServiceConfig.load();
+            if(pathPrefixServiceConfig.isEnabled()) addMapping(services, pathPrefixServiceConfig.getMapping());
+            PathServiceConfig pathServiceConfig = PathServiceConfig.load();
+            if(pathServiceConfig.isEnabled()) addMapping(services, pathServiceConfig.getMapping());
+            ServiceDictConfig serviceDictConfig = ServiceDictConfig.load();
+            if(serviceDictConfig.isEnabled()) addMapping(services, serviceDictConfig.getMapping());
+        }
+        return services;
+    }
+
+    private static void addMapping(Map<String, String> services, Map<String, String> mapping) {
+        if(mapping == null) return;
+        for(Map.Entry<String, String> entry : mapping.entrySet()) {
+            if(StringUtils.isBlank(entry.getValue())) continue;
+            // the key of pathService and serviceDict is endpoint with the method after @.
+            String path = entry.getKey();
+            int i = path.indexOf('@');
+            services.putIfAbsent(entry.getValue().trim(), i < 0 ? path : path.substring(0, i));
+        }
+    }
+
+    private void warmUp(WarmUpConfig config, Cluster cluster, Map<String, String> services) {
+        long start = System.currentTimeMillis();
+        long deadline = start + config.getTimeout();
+        AtomicInteger hosts = new AtomicInteger();
+        AtomicInteger connections = new AtomicInteger();
+        AtomicInteger tokens = new AtomicInteger();
+        // not closed with try-with-resources as close() waits for the tasks that are blocked beyond the budget.
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(Map.Entry<String, String> entry : services.entrySet()) {
+                String key = entry.getKey();
+                int i = key.indexOf('|');
+                String serviceId = i < 0 ? key : key.substring(0, i);
+                String tag = i < 0 ? null : key.substring(i + 1);
+                futures.add(executor.submit(() -> {
+                    List<URI> uris = cluster.services(config.getProtocol(), serviceId, tag);
+                    if(logger.isDebugEnabled()) logger.debug("Warm-up discovered {} hosts for {}", uris.size(), key);
+                    hosts.addAndGet(uris.size());
+                    if(config.isOpenConnections()) {
+                        for(URI uri : uris) {
+                            executor.submit(() -> connections.addAndGet(Http2Client.getInstance().warmUpPool(uri)));
+                        }
+                    }
+                }));
+                if(config.isPrefetchTokens()) {
+                    futures.add(executor.submit(() -> {
+                        Result<Jwt> result = TokenManager.getInstance().getJwt(entry.getValue(), null, serviceId);
+                        if(result.isSuccess()) {
+                            tokens.incrementAndGet();
+                        } else {
+                            logger.warn("Warm-up failed to get the token for {}: {}", serviceId, result.getError());
+                        }
+                    }));
+                }
+            }
+            for(Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    if(logger.isDebugEnabled()) logger.debug("Warm-up task failed or timed out", e);
+                }
+            }
+            // give the connection tasks the rest of the budget and cancel anything that is still running.
+            executor.shutdown();
+            if(!executor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                logger.warn("Warm-up is not completed within {}ms and the remaining tasks are cancelled", config.getTimeout());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(logger.isInfoEnabled()) logger.info("Warm-up of {} services is done in {}ms with {} hosts, {} connections and {} tokens",
+                services.size(), System.currentTimeMillis() - start, hosts.get(), connections.get(), tokens.get());
+    }
+}
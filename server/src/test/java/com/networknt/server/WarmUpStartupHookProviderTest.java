@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.server;
+
+import com.networknt.cluster.Cluster;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class WarmUpStartupHookProviderTest {
+
+    @Test
+    public void testConfigDefaults() {
+        WarmUpConfig config = WarmUpConfig.load();
+        Assertions.assertTrue(config.isEnabled());
+        Assertions.assertTrue(config.getServiceIds().isEmpty());
+        Assertions.assertTrue(config.isRouterServices());
+        Assertions.assertEquals("https", config.getProtocol());
+        Assertions.assertTrue(config.isOpenConnections());
+        Assertions.assertFalse(config.isPrefetchTokens());
+        Assertions.assertEquals(10000, config.getTimeout());
+        Assertions.assertTrue(config.isWaitOnStartup());
+
+        // the same defaults are used without a warm-up config file
+        WarmUpConfig missing = WarmUpConfig.load("warm-up-missing");
+        Assertions.assertTrue(missing.isEnabled());
+        Assertions.assertTrue(missing.getServiceIds().isEmpty());
+        Assertions.assertTrue(missing.isRouterServices());
+        Assertions.assertEquals("https", missing.getProtocol());
+        Assertions.assertTrue(missing.isOpenConnections());
+        Assertions.assertFalse(missing.isPrefetchTokens());
+        Assertions.assertEquals(10000, missing.getTimeout());
+        Assertions.assertTrue(missing.isWaitOnStartup());
+    }
+
+    @Test
+    public void testWarmUpRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TestCluster cluster = new TestCluster(serviceId -> {
+            await(release);
+            return List.of(URI.create("https://localhost:8443"));
+        });
+        WarmUpConfig config = config(List.of("com.networknt.a-1.0.0", "com.networknt.b-1.0.0|dev"));
+        config.setWaitOnStartup(false);
+
+        new WarmUpStartupHookProvider().start(config, cluster);
+        // the server is not ready until the discovery is completed
+        Assertions.assertFalse(WarmUpStatus.isComplete());
+        release.countDown();
+        Assertions.assertTrue(waitForComplete());
+        Assertions.assertEquals("https|null", cluster.calls.get("com.networknt.a-1.0.0"));
+        Assertions.assertEquals("https|dev", cluster.calls.get("com.networknt.b-1.0.0"));
+    }
+
+    @Test
+    public void testWaitOnStartup() {
+        TestCluster cluster = new TestCluster(serviceId -> List.of(URI.create("https://localhost:8443")));
+        new WarmUpStartupHookProvider().start(config(List.of("com.networknt.a-1.0.0")), cluster);
+        // the startup is blocked until the warm-up is done
+        Assertions.assertTrue(WarmUpStatus.isComplete());
+        Assertions.assertEquals(1, cluster.calls.size());
+    }
+
+    @Test
+    public void testFailureAndTimeout() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        TestCluster cluster = new TestCluster(serviceId -> {
+            if (serviceId.startsWith("com.networknt.failed")) {
+                throw new RuntimeException("discovery failed");
+            }
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Collections.emptyList();
+        });
+        WarmUpConfig config = config(List.of("com.networknt.failed-1.0.0", "com.networknt.slow-1.0.0"));
+        config.setTimeout(300);
+
+        long start = System.currentTimeMillis();
+        new WarmUpStartupHookProvider().start(config, cluster);
+        Assertions.assertTrue(System.currentTimeMillis() - start < 5000);
+        // the failed and the timed out tasks don't leave the warm-up pending
+        Assertions.assertTrue(WarmUpStatus.isComplete());
+        // the slow task is cancelled once the budget is used
+        Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNothingToWarmUp() {
+        TestCluster cluster = new TestCluster(serviceId -> Collections.emptyList());
+        new WarmUpStartupHookProvider().start(config(Collections.emptyList()), cluster);
+        Assertions.assertTrue(WarmUpStatus.isComplete());
+        // without the cluster the warm-up is skipped
+        new WarmUpStartupHookProvider().start(config(List.of("com.networknt.a-1.0.0")), null);
+        Assertions.assertTrue(WarmUpStatus.isComplete());
+        Assertions.assertTrue(cluster.calls.isEmpty());
+    }
+
+    private static WarmUpConfig config(List<String> serviceIds) {
+        WarmUpConfig config = WarmUpConfig.load("warm-up-missing");
+        config.setServiceIds(serviceIds);
+        config.setRouterServices(false);
+        config.setOpenConnections(false);
+        config.setTimeout(5000);
+        return config;
+    }
+
+    private static boolean waitForComplete() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!WarmUpStatus.isComplete()) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestCluster implements Cluster {
+        private final Function<String, List<URI>> lookup;
+        private final ConcurrentHashMap<String, String> calls = new ConcurrentHashMap<>();
+
+        TestCluster(Function<String, List<URI>> lookup) {
+            this.lookup = lookup;
+        }
+
+        @Override
+        public String serviceToUrl(String protocol, String serviceId, String tag, String requestKey) {
+            return null;
+        }
+
+        @Override
+        public List<URI> services(String protocol, String serviceId, String tag) {
+            calls.put(serviceId, protocol + "|" + tag);
+            return lookup.apply(serviceId);
+        }
+
+        @Override
+        public Set<String> getServiceKeys() {
+            return Collections.emptySet();
+        }
+    }
+}
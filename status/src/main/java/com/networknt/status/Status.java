@@ -23,12 +23,11 @@ import com.networknt.server.ModuleRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.IllegalFormatException;
 import java.util.Map;
 
-import static java.lang.String.format;
-
 /**
  * For every status response, there is only one message returned. This means the server
  * will fail fast and won't return multiple message at all. Two benefits for this design:
@@ -65,8 +64,12 @@ public class Status {
     private String message;
     private String description;
     private Map<String, Object> metadata;
+    // the catalog entry this status is created from or null if it is created with the properties.
+    private StatusCatalog.Descriptor descriptor;
     // make sure that the status.yml is cached in a static variable to avoid loading everytime.
     private static Map<String, Object> config = Config.getInstance().getJsonMapConfig(CONFIG_NAME);
+    // the status.yml entries parsed once into the descriptors with the precomputed responses.
+    private static final StatusCatalog catalog = new StatusCatalog(config);
 
     static {
         ModuleRegistry.registerModule(CONFIG_NAME, Status.class.getName(), Config.getNoneDecryptedInstance().getJsonMapConfigNoCache(CONFIG_NAME), null);
@@ -92,20 +95,13 @@ public class Status {
      */
     public Status(final String code, final Object... args) {
         this.code = code;
-        @SuppressWarnings("unchecked")
-        Map<String, Object> map = (Map<String, Object>) config.get(code);
-        if (map != null) {
-            this.statusCode = (Integer) map.get("statusCode");
-            this.message = (String) map.get("message");
-            this.description = (String) map.get("description");
-            try {
-                this.description = format(this.description, args);
-            } catch (IllegalFormatException e) {
-//                logger.warn(format("Error formatting description of status %s", code), e);
-            }
-            if ((this.severity = (String) map.get("severity")) == null)
-                this.severity = defaultSeverity;
-
+        StatusCatalog.Descriptor descriptor = catalog.get(code);
+        if (descriptor != null) {
+            this.descriptor = descriptor;
+            this.statusCode = descriptor.statusCode;
+            this.message = descriptor.message;
+            this.description = descriptor.format(args);
+            this.severity = descriptor.severity;
         }
     }
 
@@ -118,22 +114,9 @@ public class Status {
      * @param metadata a map of metadata attributes
      */
     public Status(final String code, final Map<String, Object> metadata, final Object... args) {
-        this.code = code;
-        @SuppressWarnings("unchecked")
-        Map<String, Object> map = (Map<String, Object>) config.get(code);
-        if (map != null) {
-            this.statusCode = (Integer) map.get("statusCode");
-            this.message = (String) map.get("message");
-            this.description = (String) map.get("description");
+        this(code, args);
+        if (this.descriptor != null) {
             this.metadata = metadata;
-            try {
-                this.description = format(this.description, args);
-            } catch (IllegalFormatException e) {
-//                logger.warn(format("Error formatting description of status %s", code), e);
-            }
-            if ((this.severity = (String) map.get("severity")) == null)
-                this.severity = defaultSeverity;
-
         }
     }
 
@@ -356,29 +339,52 @@ public class Status {
     }
 
     private String toStringConditionally(boolean showMessage, boolean showDescription, boolean showMetadata) {
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("{")
-                .append("\"statusCode\":" + getStatusCode())
-                .append(",\"code\":\"" + getCode());
-        if (showMessage) {
-            sb.append("\",\"message\":\"" + getMessage());
-        }
-        if (showDescription) {
-            sb.append("\",\"description\":\"" + getDescription());
+        if (descriptor != null && (!showMetadata || getMetadata() == null) && descriptor.matches(this)) {
+            return descriptor.json(showMessage, showDescription);
         }
+        String metadataJson = null;
         if (showMetadata && getMetadata() != null) {
             try {
-                sb.append("\",\"metadata\":" + Config.getInstance().getMapper().writeValueAsString(getMetadata()));
+                metadataJson = Config.getInstance().getMapper().writeValueAsString(getMetadata());
             } catch (JsonProcessingException e) {
                 logger.error("cannot parse metadata for status:" + getStatusCode(), e);
             }
-            sb.append(",\"severity\":\"" + getSeverity());
+        }
+        return toJson(getStatusCode(), getCode(), getMessage(), getDescription(), getSeverity(), metadataJson, showMessage, showDescription);
+    }
+
+    /**
+     * This method is used to construct a Status with fields conditionally as the UTF-8 bytes to be
+     * written to the response. For a status defined in the status.yml without any argument, the bytes
+     * are precomputed once and a duplicate of the shared read-only buffer is returned.
+     *
+     * @return ByteBuffer of the JSON style String of Status
+     */
+    public ByteBuffer toByteBufferConditionally() {
+        boolean showMetadata = shouldShowMetadata();
+        if (descriptor != null && (!showMetadata || getMetadata() == null) && descriptor.matches(this)) {
+            return descriptor.bytes(shouldShowMessage(), shouldShowDescription());
+        }
+        return ByteBuffer.wrap(toStringConditionally().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String toJson(int statusCode, String code, String message, String description, String severity, String metadataJson, boolean showMessage, boolean showDescription) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"statusCode\":").append(statusCode)
+                .append(",\"code\":\"").append(code);
+        if (showMessage) {
+            sb.append("\",\"message\":\"").append(message);
+        }
+        if (showDescription) {
+            sb.append("\",\"description\":\"").append(description);
+        }
+        if (metadataJson != null) {
+            sb.append("\",\"metadata\":").append(metadataJson)
+                    .append(",\"severity\":\"").append(severity);
         } else {
-            sb.append("\",\"severity\":\"" + getSeverity());
+            sb.append("\",\"severity\":\"").append(severity);
         }
         sb.append("\"}");
-
         return sb.toString();
     }
 
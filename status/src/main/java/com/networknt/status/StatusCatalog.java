@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.status;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The interned catalog of the status.yml entries. Each entry is parsed once into an immutable descriptor
+ * with the description template compiled into the literal segments between the %s placeholders, so that
+ * a Status is created without the String.format parsing. A template with other conversions like %d is
+ * still formatted with the String.format.
+ *
+ * For a status without any placeholder, the JSON of the response is built once for each combination of
+ * the showMessage and showDescription flags and kept as a String and a read-only direct ByteBuffer that
+ * is written to the response without encoding the String again.
+ *
+ * The descriptor of an entry is rebuilt if the entry is replaced in the config map returned by the
+ * Status.getConfig() by a customized status wrapper.
+ *
+ * @author Steve Hu
+ */
+final class StatusCatalog {
+    private final Map<String, Object> config;
+    private final Map<String, Descriptor> descriptors = new ConcurrentHashMap<>();
+
+    StatusCatalog(Map<String, Object> config) {
+        this.config = config;
+        if (config != null) {
+            for (Map.Entry<String, Object> entry : config.entrySet()) {
+                if (entry.getValue() instanceof Map) {
+                    descriptors.put(entry.getKey(), new Descriptor(entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param code the error code
+     * @return the descriptor of the code or null if it is not defined in the status.yml
+     */
+    Descriptor get(String code) {
+        if (config == null || code == null) return null;
+        Object entry = config.get(code);
+        if (!(entry instanceof Map)) return null;
+        Descriptor descriptor = descriptors.get(code);
+        if (descriptor == null || descriptor.source != entry) {
+            descriptor = new Descriptor(code, entry);
+            descriptors.put(code, descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * The immutable status of an entry in the status.yml.
+     */
+    static final class Descriptor {
+        private final Object source;
+        final String code;
+        final int statusCode;
+        final String message;
+        final String description;
+        final String severity;
+        // the literal segments around the %s placeholders or null if the template is not compiled.
+        private final String[] segments;
+        // the JSON variants of the show message and show description flags, built on the first use and
+        // published to the other threads by the atomic arrays.
+        private final AtomicReferenceArray<String> json = new AtomicReferenceArray<>(4);
+        private final AtomicReferenceArray<ByteBuffer> bytes = new AtomicReferenceArray<>(4);
+
+        @SuppressWarnings("unchecked")
+        private Descriptor(String code, Object source) {
+            Map<String, Object> map = (Map<String, Object>) source;
+            Object value = map.get("statusCode");
+            String severity = (String) map.get("severity");
+            this.source = source;
+            this.code = code;
+            this.statusCode = value instanceof Integer ? (Integer) value : 0;
+            this.message = (String) map.get("message");
+            this.description = (String) map.get("description");
+            this.severity = severity == null ? Status.defaultSeverity : severity;
+            this.segments = compile(description);
+        }
+
+        /**
+         * Populate the arguments into the description template. Like the String.format, the extra
+         * arguments are ignored and the template is returned if there are not enough arguments.
+         *
+         * @param args the arguments of the placeholders
+         * @return the description
+         */
+        String format(Object... args) {
+            if (description == null) return null;
+            if (segments != null) {
+                if (segments.length == 1) return segments[0];
+                int placeholders = segments.length - 1;
+                if (args != null) {
+                    if (args.length < placeholders) return description;
+                    StringBuilder sb = new StringBuilder(description.length() + 16 * placeholders);
+                    sb.append(segments[0]);
+                    int i = 0;
+                    for (; i < placeholders && !(args[i] instanceof Formattable); i++) {
+                        sb.append(args[i]).append(segments[i + 1]);
+                    }
+                    if (i == placeholders) return sb.toString();
+                }
+            }
+            try {
+                return String.format(description, args);
+            } catch (IllegalFormatException e) {
+                return description;
+            }
+        }
+
+        /**
+         * @return true if the description has no placeholder and the JSON of the status can be built once
+         */
+        boolean isConstant() {
+            return segments != null && segments.length == 1;
+        }
+
+        /**
+         * @param status the status created from this descriptor
+         * @return true if the status is constant and has not been changed after it is created
+         */
+        boolean matches(Status status) {
+            return isConstant()
+                    && status.getClass() == Status.class
+                    && status.getStatusCode() == statusCode
+                    && code.equals(status.getCode())
+                    && Objects.equals(message, status.getMessage())
+                    && Objects.equals(segments[0], status.getDescription())
+                    && severity.equals(status.getSeverity());
+        }
+
+        String json(boolean showMessage, boolean showDescription) {
+            int index = (showMessage ? 1 : 0) | (showDescription ? 2 : 0);
+            String s = json.get(index);
+            if (s == null) {
+                s = Status.toJson(statusCode, code, message, segments[0], severity, null, showMessage, showDescription);
+                if (!json.compareAndSet(index, null, s)) s = json.get(index);
+            }
+            return s;
+        }
+
+        ByteBuffer bytes(boolean showMessage, boolean showDescription) {
+            int index = (showMessage ? 1 : 0) | (showDescription ? 2 : 0);
+            ByteBuffer buffer = bytes.get(index);
+            if (buffer == null) {
+                byte[] b = json(showMessage, showDescription).getBytes(StandardCharsets.UTF_8);
+                buffer = ByteBuffer.allocateDirect(b.length).put(b).flip().asReadOnlyBuffer();
+                if (!bytes.compareAndSet(index, null, buffer)) buffer = bytes.get(index);
+            }
+            return buffer.duplicate();
+        }
+
+        /**
+         * Split the template into the literal segments around the %s placeholders and resolve the %% and %n.
+         *
+         * @param template the description template
+         * @return the segments or null if the template has any other conversion
+         */
+        static String[] compile(String template) {
+            if (template == null) return null;
+            if (template.indexOf('%') < 0) return new String[]{template};
+            List<String> segments = new ArrayList<>();
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < template.length(); i++) {
+                char c = template.charAt(i);
+                if (c != '%') {
+                    sb.append(c);
+                    continue;
+                }
+                if (++i == template.length()) return null;
+                switch (template.charAt(i)) {
+                    case 's':
+                        segments.add(sb.toString());
+                        sb.setLength(0);
+                        break;
+                    case '%':
+                        sb.append('%');
+                        break;
+                    case 'n':
+                        sb.append(System.lineSeparator());
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            segments.add(sb.toString());
+            return segments.toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.status;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time and the allocation to create a status from the status.yml and serialize it to the
+ * response body like the LightHttpHandler does. The legacy benchmarks repeat what the Status did before
+ * the catalog with the map lookup, the String.format and the String concatenation. Run it with the gc
+ * profiler to see the bytes allocated per operation in the gc.alloc.rate.norm column.
+ *
+ * Run it from the IDE or with the test classpath after mvn test-compile.
+ *
+ * @author Steve Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusBenchmark {
+    // a 401 without any argument and a 400 with two arguments.
+    static final String CONSTANT = "ERR10001";
+    static final String TEMPLATED = "ERR11000";
+
+    @Benchmark
+    public ByteBuffer constant() {
+        return new Status(CONSTANT).toByteBufferConditionally();
+    }
+
+    @Benchmark
+    public ByteBuffer legacyConstant() {
+        return legacy(CONSTANT);
+    }
+
+    @Benchmark
+    public ByteBuffer templated() {
+        return new Status(TEMPLATED, "limit", "/v1/pets").toByteBufferConditionally();
+    }
+
+    @Benchmark
+    public ByteBuffer legacyTemplated() {
+        return legacy(TEMPLATED, "limit", "/v1/pets");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ByteBuffer legacy(String code, Object... args) {
+        Map<String, Object> map = (Map<String, Object>) Status.getConfig().get(code);
+        int statusCode = (Integer) map.get("statusCode");
+        String message = (String) map.get("message");
+        String description = String.format((String) map.get("description"), args);
+        String severity = (String) map.get("severity");
+        if (severity == null) severity = Status.defaultSeverity;
+        StringBuilder sb = new StringBuilder();
+        sb.append("{")
+                .append("\"statusCode\":" + statusCode)
+                .append(",\"code\":\"" + code);
+        if (Status.shouldShowMessage()) {
+            sb.append("\",\"message\":\"" + message);
+        }
+        if (Status.shouldShowDescription()) {
+            sb.append("\",\"description\":\"" + description);
+        }
+        sb.append("\",\"severity\":\"" + severity);
+        sb.append("\"}");
+        // Undertow encodes the String to the bytes of the response.
+        return ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StatusBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.status;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class StatusCatalogTest {
+
+    @Test
+    public void testCompile() {
+        Assertions.assertArrayEquals(new String[]{"Query parameter ", " is required on path ", " but not found in request."},
+                StatusCatalog.Descriptor.compile("Query parameter %s is required on path %s but not found in request."));
+        Assertions.assertArrayEquals(new String[]{"100% done"}, StatusCatalog.Descriptor.compile("100%% done"));
+        String constant = "Jwt token in authorization header expired";
+        Assertions.assertSame(constant, StatusCatalog.Descriptor.compile(constant)[0]);
+        // the other conversions are formatted with the String.format.
+        Assertions.assertNull(StatusCatalog.Descriptor.compile("Response status %d not defined for path %s."));
+        Assertions.assertNull(StatusCatalog.Descriptor.compile("Invalid %"));
+    }
+
+    @Test
+    public void testFormatLikeStringFormat() {
+        Map<String, Object> config = new HashMap<>();
+        config.put("ERR00001", Map.of("statusCode", 400, "code", "ERR00001", "message", "M", "description", "Value %s for %s."));
+        config.put("ERR00002", Map.of("statusCode", 400, "code", "ERR00002", "message", "M", "description", "Value %s less than %f."));
+        StatusCatalog catalog = new StatusCatalog(config);
+        StatusCatalog.Descriptor descriptor = catalog.get("ERR00001");
+        Assertions.assertEquals(String.format("Value %s for %s.", "a", null), descriptor.format("a", null));
+        Assertions.assertEquals(String.format("Value %s for %s.", 1, 2, 3), descriptor.format(1, 2, 3));
+        // the template is kept if there are not enough arguments.
+        Assertions.assertEquals("Value %s for %s.", descriptor.format("a"));
+        Assertions.assertEquals("Value %s for %s.", descriptor.format());
+        Assertions.assertEquals("Value 1 less than 2.500000.", catalog.get("ERR00002").format(1, new BigDecimal("2.5")));
+        Assertions.assertEquals("ERROR", descriptor.severity);
+        Assertions.assertNull(catalog.get("ERR00003"));
+
+        // a replaced entry is parsed again.
+        config.put("ERR00001", Map.of("statusCode", 401, "code", "ERR00001", "message", "M", "description", "Changed"));
+        Assertions.assertEquals(401, catalog.get("ERR00001").statusCode);
+        Assertions.assertSame(catalog.get("ERR00001"), catalog.get("ERR00001"));
+    }
+
+    @Test
+    public void testPrecomputedResponse() {
+        Map<String, Object> config = Status.getConfig();
+        config.put("showMessage", true);
+        config.put("showDescription", true);
+        config.put("showMetadata", false);
+        Status status = new Status("ERR10001");
+        String json = status.toStringConditionally();
+        Assertions.assertSame(json, new Status("ERR10001").toStringConditionally());
+        ByteBuffer buffer = status.toByteBufferConditionally();
+        Assertions.assertTrue(buffer.isReadOnly());
+        Assertions.assertEquals(json, StandardCharsets.UTF_8.decode(buffer).toString());
+        // each call gets its own position in the shared bytes.
+        Assertions.assertEquals(json.length(), status.toByteBufferConditionally().remaining());
+
+        // a changed status is serialized again.
+        status.setDescription("Jwt token expired");
+        Assertions.assertTrue(status.toStringConditionally().contains("Jwt token expired"));
+        Assertions.assertEquals(status.toStringConditionally(), StandardCharsets.UTF_8.decode(status.toByteBufferConditionally()).toString());
+        Assertions.assertNotSame(json, new Status("ERR11000", "a", "b").toStringConditionally());
+    }
+
+    @Test
+    public void testVariantsSharedAcrossThreads() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put("ERR00001", Map.of("statusCode", 400, "code", "ERR00001", "message", "M", "description", "Constant"));
+        StatusCatalog.Descriptor descriptor = new StatusCatalog(config).get("ERR00001");
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            String[] json = new String[threads];
+            ByteBuffer[] bytes = new ByteBuffer[threads];
+            for (int i = 0; i < threads; i++) {
+                int n = i;
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    json[n] = descriptor.json(true, true);
+                    bytes[n] = descriptor.bytes(true, true);
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+            // all the threads get the same variant even if they build it at the same time.
+            for (int i = 0; i < threads; i++) {
+                Assertions.assertSame(json[0], json[i]);
+                Assertions.assertSame(descriptor.json(true, true), json[i]);
+                Assertions.assertEquals(json[0], StandardCharsets.UTF_8.decode(bytes[i]).toString());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.commons.codec.binary.Base64;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -102,6 +103,63 @@ public class HashUtil {
         }
     }
 
+    /**
+     * Calculates the 64-bit MurmurHash3 of a string. It is the first half of the 128-bit x64 variant
+     * with seed 0 over the UTF-8 bytes, the same as murmur3_128().hashString(input, UTF_8).asLong()
+     * in Guava. It is not a cryptographic hash but it is fast and well distributed, and it is used
+     * to place keys on the consistent hash ring of the load balance.
+     *
+     * @param input String
+     * @return long hash
+     */
+    public static long murmur3(String input) {
+        byte[] data = input.getBytes(UTF_8);
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        int length = data.length;
+        int blocks = length >>> 4;
+        long h1 = 0;
+        long h2 = 0;
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < blocks; i++) {
+            long k1 = buffer.getLong(i << 4);
+            long k2 = buffer.getLong((i << 4) + 8);
+            h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks << 4;
+        for (int i = length - tail - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (data[tail + i] & 0xffL);
+        }
+        for (int i = Math.min(length - tail, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (data[tail + i] & 0xffL);
+        }
+        if (length - tail > 8) h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+        if (length - tail > 0) h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        return h1 + h2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
     /**
      * Generates a strong password hash.
      * @param password String
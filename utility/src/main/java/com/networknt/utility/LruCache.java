@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.utility;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A bounded cache that evicts the cold entries once the max size is reached. It is used by the handlers
+ * to cache the decisions derived from the request values like the claims, the origins or the credentials,
+ * so a flood of distinct values only evicts the cold entries instead of growing the memory or dropping the
+ * whole cache.
+ *
+ * The entries are kept in a ConcurrentHashMap, so the reads and writes of the request threads don't share
+ * a lock. The eviction is an approximate LRU with the clock (second chance) algorithm: a read marks the
+ * entry as referenced, and the eviction walks the entries in the insertion order, clears the mark of a
+ * referenced entry and gives it another round, and evicts the first one that is not referenced. Only one
+ * thread evicts at a time and the others don't wait for it, so the size might exceed the max size by the
+ * number of the concurrent writers for a moment.
+ *
+ * The cache should be owned by the compiled config of the handler, so a config reload drops it. All the
+ * methods are thread safe. The keys and the values must not be null.
+ *
+ * @param <K> key
+ * @param <V> value
+ * @author Steve Hu
+ */
+public final class LruCache<K, V> {
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    // the clock of the entries in the insertion order. A removed entry stays until the eviction reaches it.
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger clockSize = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Create a cache with the max number of entries.
+     *
+     * @param maxSize max number of entries, it must be positive
+     */
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<>(Math.min(maxSize, 16));
+    }
+
+    /**
+     * @param key key
+     * @return the cached value or null if it is not cached
+     */
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) return null;
+        node.touch();
+        return node.value;
+    }
+
+    /**
+     * Cache the value and evict the cold entries if the cache is full.
+     *
+     * @param key key
+     * @param value value
+     */
+    public void put(K key, V value) {
+        Node<K, V> node = new Node<>(key, value);
+        Node<K, V> existing = map.putIfAbsent(key, node);
+        if (existing == null) {
+            added(node);
+        } else {
+            existing.value = value;
+            existing.touch();
+        }
+    }
+
+    /**
+     * Return the cached value or compute and cache it. The value is computed atomically, so the function
+     * is called at most once for a key while it is cached, and the concurrent threads of the same key wait
+     * for it. The function must be short and must not update this cache. A null value is not cached.
+     *
+     * @param key key
+     * @param function the function to compute the value
+     * @return the cached or computed value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            node.touch();
+            return node.value;
+        }
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] computed = new Node[1];
+        node = map.computeIfAbsent(key, k -> {
+            V value = function.apply(k);
+            return value == null ? null : (computed[0] = new Node<>(k, value));
+        });
+        if (node == null) return null;
+        if (node == computed[0]) {
+            added(node);
+        } else {
+            node.touch();
+        }
+        return node.value;
+    }
+
+    /**
+     * @param key key
+     * @return the removed value or null
+     */
+    public V remove(K key) {
+        Node<K, V> node = map.remove(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            map.clear();
+            clock.clear();
+            clockSize.set(0);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of the cached entries
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * @return the max number of entries
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void added(Node<K, V> node) {
+        clock.offer(node);
+        clockSize.incrementAndGet();
+        if (needsEviction() && evictionLock.tryLock()) {
+            try {
+                evict(node);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private boolean needsEviction() {
+        // the clock is also swept once the removed entries make up most of it.
+        return map.size() > maxSize || clockSize.get() > 2 * maxSize;
+    }
+
+    /**
+     * Sweep the clock until the cache fits the max size. Each entry is visited at most twice, once to clear
+     * the reference mark and once to evict it, so the sweep always ends. The entry just added is skipped,
+     * as it has not had a chance to be read yet.
+     *
+     * @param added the entry just added
+     */
+    private void evict(Node<K, V> added) {
+        for (int budget = 2 * clockSize.get() + 1; budget > 0 && needsEviction(); budget--) {
+            Node<K, V> node = clock.poll();
+            if (node == null) return;
+            clockSize.decrementAndGet();
+            // the entry is removed already or replaced after a removal.
+            if (map.get(node.key) != node) continue;
+            boolean full = map.size() > maxSize;
+            if (full && !node.referenced && node != added) {
+                map.remove(node.key, node);
+            } else {
+                if (full) node.referenced = false;
+                clock.offer(node);
+                clockSize.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile boolean referenced;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        private void touch() {
+            // skip the write of the volatile field for a hot entry.
+            if (!referenced) referenced = true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.utility;
+
+import java.util.Arrays;
+
+/**
+ * A character trie of the path prefixes in the config of a handler. It finds the value of the longest
+ * prefix of a request path with one walk of the path, so the cost of a request depends on the length of
+ * the path instead of the number of the prefixes. The children of each node are sorted by the character
+ * for a binary search.
+ *
+ * The trie should be built when the config is loaded and then only read. The reads are thread safe once
+ * the trie is published with a final or volatile field, but the puts are not.
+ *
+ * @param <V> value of a path prefix
+ * @author Steve Hu
+ */
+public final class PathPrefixTrie<V> {
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    /**
+     * Put the value of a path prefix and replace the existing value.
+     *
+     * @param prefix path prefix
+     * @param value value of the prefix
+     * @return the replaced value or null
+     */
+    public V put(String prefix, V value) {
+        Node<V> node = node(prefix);
+        V previous = node.value;
+        if (previous == null) size++;
+        node.value = value;
+        return previous;
+    }
+
+    /**
+     * Put the value of a path prefix unless the prefix has a value already.
+     *
+     * @param prefix path prefix
+     * @param value value of the prefix
+     * @return the existing value or null if the value is put
+     */
+    public V putIfAbsent(String prefix, V value) {
+        Node<V> node = node(prefix);
+        if (node.value != null) return node.value;
+        size++;
+        node.value = value;
+        return null;
+    }
+
+    /**
+     * Find the value of the longest prefix of the path.
+     *
+     * @param path request path
+     * @return the value of the longest matching prefix or null if no prefix matches
+     */
+    public V longestMatch(String path) {
+        Node<V> node = root;
+        V found = node.value;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.get(path.charAt(i));
+            if (node == null) break;
+            if (node.value != null) found = node.value;
+        }
+        return found;
+    }
+
+    /**
+     * @return the number of the prefixes with a value
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private Node<V> node(String prefix) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.add(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static final class Node<V> {
+        private char[] chars = new char[0];
+        @SuppressWarnings("unchecked")
+        private Node<V>[] children = new Node[0];
+        private V value;
+
+        Node<V> get(char c) {
+            int i = Arrays.binarySearch(chars, c);
+            return i < 0 ? null : children[i];
+        }
+
+        Node<V> add(char c) {
+            int i = Arrays.binarySearch(chars, c);
+            if (i >= 0) return children[i];
+            i = -i - 1;
+            char[] nextChars = new char[chars.length + 1];
+            @SuppressWarnings("unchecked")
+            Node<V>[] nextChildren = new Node[children.length + 1];
+            System.arraycopy(chars, 0, nextChars, 0, i);
+            System.arraycopy(children, 0, nextChildren, 0, i);
+            System.arraycopy(chars, i, nextChars, i + 1, chars.length - i);
+            System.arraycopy(children, i, nextChildren, i + 1, children.length - i);
+            Node<V> child = new Node<>();
+            nextChars[i] = c;
+            nextChildren[i] = child;
+            chars = nextChars;
+            children = nextChildren;
+            return child;
+        }
+    }
+}
@@ -35,6 +35,15 @@ public class HashUtilTest {
         Assertions.assertEquals("00010fff", HashUtil.hex(new byte[] {0x00, 0x01, 0x0f, (byte)0xff}));
     }
 
+    @Test
+    public void testMurmur3() {
+        // the reference values are from murmur3_128 of Guava.
+        Assertions.assertEquals(0L, HashUtil.murmur3(""));
+        Assertions.assertEquals(0xcbd8a7b341bd9b02L, HashUtil.murmur3("hello"));
+        Assertions.assertEquals(HashUtil.murmur3("127.0.0.1:8081#1"), HashUtil.murmur3("127.0.0.1:8081#1"));
+        Assertions.assertNotEquals(HashUtil.murmur3("127.0.0.1:8081#1"), HashUtil.murmur3("127.0.0.1:8081#2"));
+    }
+
     @Test
     public void testPasswordHash() throws Exception {
         String p = "123456";
@@ -0,0 +1,79 @@
+package com.networknt.utility;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LruCacheTest {
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // touch a so that b is the least recently used entry
+        Assertions.assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals(1, cache.get("a"));
+        Assertions.assertEquals(3, cache.get("c"));
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        LruCache<String, Integer> cache = new LruCache<>(10);
+        Assertions.assertEquals(3, cache.computeIfAbsent("abc", String::length));
+        Assertions.assertEquals(3, cache.computeIfAbsent("abc", k -> 0));
+        // a null value is not cached
+        Assertions.assertNull(cache.computeIfAbsent("none", k -> null));
+        Assertions.assertEquals(1, cache.size());
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LruCache<>(0));
+    }
+
+    @Test
+    public void testComputeIfAbsentOnceUnderRace() throws Exception {
+        LruCache<String, Integer> cache = new LruCache<>(10);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 8; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    return cache.computeIfAbsent("key", k -> {
+                        calls.incrementAndGet();
+                        return 1;
+                    });
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1, cache.get("key"));
+    }
+
+    @Test
+    public void testBoundedWithHotEntry() {
+        LruCache<String, Integer> cache = new LruCache<>(100);
+        cache.put("hot", 0);
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(0, cache.get("hot"));
+            cache.put("cold" + i, i);
+            // the removed entries don't hold the clock
+            if (i % 2 == 0) cache.remove("cold" + i);
+        }
+        Assertions.assertTrue(cache.size() <= 100);
+        Assertions.assertEquals(0, cache.get("hot"));
+        Assertions.assertEquals(9999, cache.get("cold9999"));
+    }
+}
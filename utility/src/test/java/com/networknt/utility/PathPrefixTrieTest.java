@@ -0,0 +1,36 @@
+package com.networknt.utility;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PathPrefixTrieTest {
+    @Test
+    public void testLongestMatch() {
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>();
+        trie.put("/v1/pets", "pets");
+        trie.put("/v1", "v1");
+        trie.put("/v2/orders", "orders");
+        Assertions.assertEquals(3, trie.size());
+        Assertions.assertEquals("pets", trie.longestMatch("/v1/pets/123"));
+        Assertions.assertEquals("v1", trie.longestMatch("/v1/pe"));
+        Assertions.assertEquals("v1", trie.longestMatch("/v1"));
+        Assertions.assertNull(trie.longestMatch("/v2/order"));
+        Assertions.assertNull(trie.longestMatch("/v"));
+        Assertions.assertNull(trie.longestMatch(""));
+    }
+
+    @Test
+    public void testPutAndPutIfAbsent() {
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>();
+        Assertions.assertTrue(trie.isEmpty());
+        Assertions.assertNull(trie.putIfAbsent("/v1", "first"));
+        Assertions.assertEquals("first", trie.putIfAbsent("/v1", "second"));
+        Assertions.assertEquals("first", trie.longestMatch("/v1/pets"));
+        Assertions.assertEquals("first", trie.put("/v1", "third"));
+        Assertions.assertEquals("third", trie.longestMatch("/v1/pets"));
+        // the empty prefix matches all the paths
+        trie.put("", "root");
+        Assertions.assertEquals("root", trie.longestMatch("/v2"));
+        Assertions.assertEquals(2, trie.size());
+    }
+}